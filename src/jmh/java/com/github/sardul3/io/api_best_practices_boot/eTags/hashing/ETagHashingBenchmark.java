@@ -0,0 +1,58 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.hashing;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.config.ETagGenerator;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the legacy string-concatenating MD5 eTag with the streaming hashers on v1-sized lists.
+ * <p>
+ * Run with {@code ./gradlew jmh}; the gc profiler adds {@code gc.alloc.rate.norm}, the bytes allocated per eTag.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ETagHashingBenchmark {
+
+    @Param({"100", "10000"})
+    private int size;
+
+    @Param({"MD5", "XXHASH64", "MURMUR3_128"})
+    private ETagHashAlgorithm algorithm;
+
+    private List<Transaction> transactions;
+    private ETagGenerator eTagGenerator;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Transaction.Status[] statuses = Transaction.Status.values();
+        transactions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId((long) i);
+            transaction.setFromAccount("Account" + random.nextInt(1_000));
+            transaction.setToAccount("Account" + random.nextInt(1_000));
+            transaction.setAmount(random.nextInt(100_000) / 100.0);
+            transaction.setStatus(statuses[random.nextInt(statuses.length)]);
+            transactions.add(transaction);
+        }
+        eTagGenerator = new ETagGenerator(algorithm);
+    }
+
+    @Benchmark
+    public String legacy() {
+        return LegacyETagGenerator.generateETag(transactions);
+    }
+
+    @Benchmark
+    public String streaming() {
+        return eTagGenerator.generateETag(transactions);
+    }
+}
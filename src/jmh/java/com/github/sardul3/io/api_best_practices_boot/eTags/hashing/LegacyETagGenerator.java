@@ -0,0 +1,45 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.hashing;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Formatter;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The string-concatenating MD5 eTag generation that {@code ETagGenerator} used before the streaming hashers,
+ * kept verbatim as the baseline for {@link ETagHashingBenchmark}.
+ */
+final class LegacyETagGenerator {
+
+    private LegacyETagGenerator() {
+    }
+
+    static String generateETag(List<Transaction> transactions) {
+        String combinedTransactions = transactions.stream()
+                .map(transaction -> transaction.getTransactionId() + transaction.getFromAccount() +
+                        transaction.getToAccount() + transaction.getAmount() + transaction.getStatus().toString())
+                .collect(Collectors.joining()) + transactions.size();
+        return getMD5Hash(combinedTransactions);
+    }
+
+    private static String getMD5Hash(String input) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            byte[] digest = md.digest(input.getBytes());
+            return byteArrayToHexString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("MD5 algorithm not found", e);
+        }
+    }
+
+    private static String byteArrayToHexString(byte[] bytes) {
+        Formatter formatter = new Formatter();
+        for (byte b : bytes) {
+            formatter.format("%02x", b);
+        }
+        return formatter.toString();
+    }
+}
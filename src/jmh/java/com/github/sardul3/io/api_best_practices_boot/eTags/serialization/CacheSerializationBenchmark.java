@@ -0,0 +1,79 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.serialization;
+
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.PaginatedTransaction;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JSON cache serializer with {@link TransactionCacheSerializer}, with and without LZ4, on cached pages.
+ * <p>
+ * Run with {@code ./gradlew jmh}. The encoded size of each variant, in total and per transaction, is printed once
+ * per trial; encode and decode cost are the benchmark scores.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CacheSerializationBenchmark {
+
+    public enum Format { JSON, BINARY, BINARY_LZ4 }
+
+    @Param({"1", "10", "100"})
+    private int pageSize;
+
+    @Param({"JSON", "BINARY", "BINARY_LZ4"})
+    private Format format;
+
+    private RedisSerializer<Object> serializer;
+    private PaginatedTransaction page;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer()
+                .configure(mapper -> mapper.registerModule(new JavaTimeModule()));
+        serializer = switch (format) {
+            case JSON -> json;
+            case BINARY -> new TransactionCacheSerializer(json, -1);
+            case BINARY_LZ4 -> new TransactionCacheSerializer(json, 0);
+        };
+
+        Random random = new Random(42);
+        Transaction.Status[] statuses = Transaction.Status.values();
+        List<Transaction> transactions = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId(100_000L + i);
+            transaction.setFromAccount("Account" + random.nextInt(1_000));
+            transaction.setToAccount("Account" + random.nextInt(1_000));
+            transaction.setAmount(random.nextInt(100_000) / 100.0);
+            transaction.setStatus(statuses[random.nextInt(statuses.length)]);
+            transaction.setVersion((long) random.nextInt(5));
+            transaction.setUpdatedAt(Instant.ofEpochSecond(1_725_000_000L + random.nextInt(1_000_000), random.nextInt(1_000_000) * 1_000));
+            transactions.add(transaction);
+        }
+        page = new PaginatedTransaction(transactions, 50_000);
+        encoded = serializer.serialize(page);
+        System.out.printf("%n%s, page of %d: %d bytes, %.1f bytes per transaction%n",
+                format, pageSize, encoded.length, encoded.length / (double) pageSize);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(page);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(encoded);
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.sardul3.io.api_best_practices_boot.hateoas.config;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.controllers.TransactionController;
+import org.springframework.hateoas.EntityModel;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * The entity links as {@link HATEOASHelper} built them before {@link LinkTemplates}, kept as the benchmark baseline.
+ */
+final class LegacyLinkGenerator {
+
+    private LegacyLinkGenerator() {
+    }
+
+    static <T> EntityModel<T> generateEntityLinks(T entity, Long id) {
+        EntityModel<T> model = EntityModel.of(entity);
+        model.add(linkTo(methodOn(TransactionController.class).getTransaction(id, null)).withSelfRel());
+        model.add(linkTo(methodOn(TransactionController.class).updateTransactionStatus(id, null)).withRel("edit"));
+        return model;
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.sardul3.io.api_best_practices_boot.hateoas.config;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the self and edit links of a page of transactions built with {@code linkTo(methodOn(...))} and with
+ * {@link LinkTemplates}.
+ * <p>
+ * Run with {@code ./gradlew jmh}. Each invocation links a whole page within one request, as the list endpoints
+ * do, so the score divided by the page size is the cost per entity.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LinkGenerationBenchmark {
+
+    @Param({"1", "100"})
+    private int pageSize;
+
+    private List<Transaction> transactions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        transactions = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId(100_000L + i);
+            transactions.add(transaction);
+        }
+    }
+
+    // A fresh request per invocation, so the per-request base URI is resolved once per page as in production
+    @Setup(Level.Invocation)
+    public void bindRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/transactions");
+        request.setServerName("api.example.com");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @TearDown(Level.Invocation)
+    public void unbindRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public void linkTo(Blackhole blackhole) {
+        for (Transaction transaction : transactions) {
+            EntityModel<Transaction> model = LegacyLinkGenerator.generateEntityLinks(transaction, transaction.getTransactionId());
+            blackhole.consume(model);
+        }
+    }
+
+    @Benchmark
+    public void linkTemplates(Blackhole blackhole) {
+        for (Transaction transaction : transactions) {
+            EntityModel<Transaction> model = HATEOASHelper.generateEntityLinks(transaction, transaction.getTransactionId());
+            blackhole.consume(model);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.columnar;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterParser;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.TransactionFilterPlanner;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.query.PreparedTransactionQueries;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures page reads answered by {@link TransactionColumns}, next to the same reads through
+ * {@link PreparedTransactionQueries} on an in-memory H2 database, the path eligible reads take without the index.
+ * <p>
+ * Run with {@code ./gradlew jmh}. Both hold the same table: 10,000 accounts, amounts uniform up to 1,000 and
+ * uniform statuses; the filtered reads match about 10% of the rows, the account read about 0.01%. The table has
+ * no secondary indexes, as the schema of the application. Every database read runs the page query and the count
+ * query, and clears the persistence context afterwards like the end of a request does.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ColumnarQueryBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+    private static final int INSERT_BATCH = 10_000;
+
+    @Param({"1000000", "10000000"})
+    private int rows;
+
+    private TransactionColumns columns;
+    private LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+    private EntityManager entityManager;
+    private PreparedTransactionQueries queries;
+
+    private final List<FilterCriteria> statusAndAmount = FilterParser.parse("status=COMPLETED and amount>=500");
+    private final List<FilterCriteria> account = FilterParser.parse("fromAccount='account-42'");
+    private final PageRequest firstPageByAmount = PageRequest.of(0, 20, Sort.by(Sort.Order.desc("amount")));
+    private final PageRequest deepPageByAmount = firstPageByAmount.withPage(50);
+    private final PageRequest firstPage = PageRequest.of(0, 20);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:columnar-benchmark;DB_CLOSE_DELAY=-1");
+        dataSource.setDriverClassName("org.h2.Driver");
+        entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactoryBean.setDataSource(dataSource);
+        entityManagerFactoryBean.setPackagesToScan(Transaction.class.getPackageName());
+        entityManagerFactoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create-drop",
+                "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
+                "hibernate.jdbc.batch_size", "1000"));
+        entityManagerFactoryBean.afterPropertiesSet();
+        EntityManagerFactory entityManagerFactory = entityManagerFactoryBean.getObject();
+        entityManager = entityManagerFactory.createEntityManager();
+        queries = new PreparedTransactionQueries(new TransactionFilterPlanner(entityManagerFactory), entityManager,
+                new SimpleMeterRegistry(), 16);
+
+        // H2 reports its nulls as sorted low
+        columns = new TransactionColumns(TransactionColumns.NullOrdering.LOW);
+        Random random = new Random(42);
+        Transaction.Status[] statuses = Transaction.Status.values();
+        for (int start = 0; start < rows; start += INSERT_BATCH) {
+            entityManager.getTransaction().begin();
+            for (int i = start; i < Math.min(start + INSERT_BATCH, rows); i++) {
+                Transaction transaction = new Transaction();
+                transaction.setFromAccount("account-" + random.nextInt(ACCOUNTS));
+                transaction.setToAccount("account-" + random.nextInt(ACCOUNTS));
+                transaction.setAmount(Math.floor(random.nextDouble() * 100_000) / 100);
+                transaction.setStatus(statuses[random.nextInt(statuses.length)]);
+                // The id is taken from the sequence on persist, the row is inserted by the batched flush
+                entityManager.persist(transaction);
+                columns.upsert(transaction);
+            }
+            entityManager.getTransaction().commit();
+            entityManager.clear();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.close();
+        entityManagerFactoryBean.destroy();
+    }
+
+    @Benchmark
+    public Object columnarFilteredSortedPage() {
+        return columns.query(statusAndAmount, firstPageByAmount);
+    }
+
+    @Benchmark
+    public Object columnarFilteredDeepSortedPage() {
+        return columns.query(statusAndAmount, deepPageByAmount);
+    }
+
+    @Benchmark
+    public Object columnarAccountPage() {
+        return columns.query(account, firstPage);
+    }
+
+    @Benchmark
+    public Object databaseFilteredSortedPage() {
+        return databasePage(statusAndAmount, firstPageByAmount);
+    }
+
+    @Benchmark
+    public Object databaseFilteredDeepSortedPage() {
+        return databasePage(statusAndAmount, deepPageByAmount);
+    }
+
+    @Benchmark
+    public Object databaseAccountPage() {
+        return databasePage(account, firstPage);
+    }
+
+    private Page<Transaction> databasePage(List<FilterCriteria> filters, Pageable pageable) {
+        try {
+            return queries.findPage(filters, pageable);
+        } finally {
+            entityManager.clear();
+        }
+    }
+}
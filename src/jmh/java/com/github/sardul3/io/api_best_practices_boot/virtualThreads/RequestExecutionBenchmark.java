@@ -0,0 +1,70 @@
+package com.github.sardul3.io.api_best_practices_boot.virtualThreads;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the platform thread pool of the web tier ({@code server.tomcat.max-threads: 200}) with a virtual thread
+ * per request, for requests that spend their time blocked on I/O the way calls to Redis, the database or Temporal do.
+ * <p>
+ * Run with {@code ./gradlew jmh}. 400 concurrent clients each submit a request and wait for it; a request blocks
+ * for {@code blockMillis}. The throughput mode gives requests per millisecond, the sample mode the latency
+ * percentiles (p0.99). With {@code pinned=true} the request blocks inside a {@code synchronized} block, which pins
+ * a virtual thread to its carrier: the virtual executor then runs only as many requests at once as there are
+ * cores, which is what {@code /actuator/pinning} reports in the {@code virtual-threads} profile.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(400)
+public class RequestExecutionBenchmark {
+
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    private String executor;
+
+    @Param({"false", "true"})
+    private boolean pinned;
+
+    @Param({"10"})
+    private int blockMillis;
+
+    private ExecutorService requests;
+    // Published so that the JIT cannot elide the lock of a monitor that does not escape
+    private volatile Object lastMonitor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        requests = "virtual".equals(executor)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        requests.shutdownNow();
+    }
+
+    @Benchmark
+    public Object request() throws Exception {
+        return requests.submit(this::handle).get();
+    }
+
+    private Object handle() throws InterruptedException {
+        if (pinned) {
+            Object monitor = new Object();
+            lastMonitor = monitor;
+            synchronized (monitor) {
+                Thread.sleep(blockMillis);
+            }
+        } else {
+            Thread.sleep(blockMillis);
+        }
+        return Boolean.TRUE;
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.sardul3.io.api_best_practices_boot.accountTotals.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Settings for the per-account running totals maintained on the write path.
+ * <p>
+ * Every write adjusts the totals of the accounts it touches with atomic increments in Redis, and a periodic
+ * reconciliation compares them with the transactions table and repairs the accounts that drifted.
+ * </p>
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "account-totals")
+public class AccountTotalsProperties {
+
+    // Turns the maintenance of the totals on or off
+    private boolean enabled = true;
+
+    // How often the totals are reconciled with the table, by one node of the cluster; zero disables the reconciliation
+    private Duration reconcileInterval = Duration.ofMinutes(10);
+
+    // Number of accounts whose totals are read from Redis in one round trip during reconciliation
+    private int reconcileBatchSize = 500;
+}
@@ -0,0 +1,42 @@
+package com.github.sardul3.io.api_best_practices_boot.accountTotals.controllers;
+
+import com.github.sardul3.io.api_best_practices_boot.accountTotals.config.AccountTotalsProperties;
+import com.github.sardul3.io.api_best_practices_boot.accountTotals.models.AccountTotals;
+import com.github.sardul3.io.api_best_practices_boot.accountTotals.services.AccountTotalsService;
+import com.github.sardul3.io.api_best_practices_boot.logAndMonitor.logging.aspects.EndpointDescribe;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config.RateLimitAndThrottle;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Running totals of an account, read from the incrementally maintained aggregates instead of its transactions.
+ * Answered with 404 NOT_FOUND while {@code account-totals.enabled} is off, as the totals are not kept current then.
+ */
+@RestController
+@RequestMapping("/api/v2/accounts")
+@Slf4j
+public class AccountTotalsController {
+
+    private final AccountTotalsService accountTotalsService;
+    private final AccountTotalsProperties properties;
+
+    public AccountTotalsController(AccountTotalsService accountTotalsService, AccountTotalsProperties properties) {
+        this.accountTotalsService = accountTotalsService;
+        this.properties = properties;
+    }
+
+    @RateLimitAndThrottle
+    @EndpointDescribe("fetch account totals")
+    @GetMapping("/{account}/totals")
+    public ResponseEntity<AccountTotals> getTotals(@PathVariable String account) {
+        if (!properties.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        log.debug("getTotals called for account {}", account);
+        return ResponseEntity.ok(accountTotalsService.getTotals(account));
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.sardul3.io.api_best_practices_boot.accountTotals.models;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Running totals of the transactions an account sends or receives.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountTotals {
+    private String account;
+    // Transactions from or to the account, a transfer to itself counts once
+    private long count;
+    // Sum of the amounts sent by the account
+    private double debited;
+    // Sum of the amounts received by the account
+    private double credited;
+    // Transactions per status, statuses without transactions are left out
+    private Map<Transaction.Status, Long> statusCounts;
+}
@@ -0,0 +1,265 @@
+package com.github.sardul3.io.api_best_practices_boot.accountTotals.services;
+
+import com.github.sardul3.io.api_best_practices_boot.accountTotals.config.AccountTotalsProperties;
+import com.github.sardul3.io.api_best_practices_boot.accountTotals.support.AccountTotalsDelta;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically compares the account totals in Redis with totals computed from the transactions table, and
+ * repairs the accounts that differ.
+ * <p>
+ * One pass aggregates the table with three GROUP BY queries (sent, received and transfers to the same account)
+ * and reads the stored totals in pipelined batches. An account that differs is recomputed on its own and
+ * overwritten in a Redis transaction that watches its hash, so an increment that arrives meanwhile aborts the
+ * repair instead of being lost; the account is then checked again on the next pass. A write that committed just
+ * before the recomputation but increments just after the repair is counted twice until the next pass, so the
+ * totals converge rather than being exact at every instant.
+ * </p>
+ * <p>
+ * Every node schedules the pass, but only the node that takes the Redis lock {@value #LOCK_KEY} runs it. The
+ * lock is not released after the pass, it expires after the reconcile interval, so the cluster reconciles once
+ * per interval whatever the number of nodes. A pass that outlasts the interval may overlap with the next one
+ * on another node, which is safe since every repair watches its account.
+ * </p>
+ * <p>
+ * Metrics: {@code account.totals.reconcile} timer, {@code account.totals.mismatches} and
+ * {@code account.totals.repairs}.
+ * </p>
+ */
+@Component
+@Slf4j
+public class AccountTotalsReconciler {
+
+    // Outside the account-totals: keys, which are named after accounts
+    static final String LOCK_KEY = "account-totals-reconciler:lock";
+
+    private final EntityManager entityManager;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final AccountTotalsService accountTotalsService;
+    private final AccountTotalsProperties properties;
+    private final Timer reconcileTimer;
+    private final Counter mismatches;
+    private final Counter repairs;
+    private final ScheduledExecutorService scheduler;
+    // Stored in the lock, to tell which node ran the last pass
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public AccountTotalsReconciler(EntityManager entityManager, StringRedisTemplate stringRedisTemplate,
+                                   AccountTotalsService accountTotalsService, AccountTotalsProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.entityManager = entityManager;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.accountTotalsService = accountTotalsService;
+        this.properties = properties;
+        this.reconcileTimer = Timer.builder("account.totals.reconcile")
+                .description("Reconciliations of the account totals with the transactions table")
+                .register(meterRegistry);
+        this.mismatches = Counter.builder("account.totals.mismatches")
+                .description("Accounts whose totals differed from the transactions table")
+                .register(meterRegistry);
+        this.repairs = Counter.builder("account.totals.repairs")
+                .description("Accounts whose totals were overwritten from the transactions table")
+                .register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "account-totals-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getReconcileInterval().toMillis();
+        if (properties.isEnabled() && interval > 0) {
+            scheduler.scheduleWithFixedDelay(this::runReconciliation, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Compares the totals of every account with the table and repairs the ones that differ.
+     *
+     * @return the number of repaired accounts
+     */
+    public int reconcile() {
+        return reconcileTimer.record(() -> {
+            Map<String, Map<String, Long>> expected = expectedTotals(null);
+            Set<String> accounts = new LinkedHashSet<>(expected.keySet());
+            accounts.addAll(accountTotalsService.accounts());
+
+            int repaired = 0;
+            List<String> batch = new ArrayList<>(properties.getReconcileBatchSize());
+            Iterator<String> iterator = accounts.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == properties.getReconcileBatchSize() || !iterator.hasNext()) {
+                    List<Map<String, Long>> stored = storedTotals(batch);
+                    for (int i = 0; i < batch.size(); i++) {
+                        String account = batch.get(i);
+                        if (!stored.get(i).equals(expected.getOrDefault(account, Map.of()))) {
+                            mismatches.increment();
+                            if (repair(account)) {
+                                repaired++;
+                            }
+                        }
+                    }
+                    batch.clear();
+                }
+            }
+            if (repaired > 0) {
+                log.warn("Repaired the totals of {} of {} accounts", repaired, accounts.size());
+            }
+            return repaired;
+        });
+    }
+
+    void runReconciliation() {
+        try {
+            Boolean locked = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(LOCK_KEY, nodeId, properties.getReconcileInterval());
+            if (!Boolean.TRUE.equals(locked)) {
+                log.debug("Account totals were reconciled by another node in this interval");
+                return;
+            }
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("Failed to reconcile the account totals: {}", e.getMessage());
+        }
+    }
+
+    private List<Map<String, Long>> storedTotals(List<String> accounts) {
+        List<Object> hashes = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            accounts.forEach(account -> redis.hGetAll(AccountTotalsService.key(account)));
+            return null;
+        });
+        List<Map<String, Long>> totals = new ArrayList<>(hashes.size());
+        for (Object hash : hashes) {
+            totals.add(toLongs((Map<?, ?>) hash));
+        }
+        return totals;
+    }
+
+    // Overwrites the totals of the account unless an increment arrives while they are recomputed
+    private boolean repair(String account) {
+        String key = AccountTotalsService.key(account);
+        Boolean repaired = stringRedisTemplate.execute(new SessionCallback<Boolean>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Boolean execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> redis = (RedisOperations<String, String>) operations;
+                redis.watch(key);
+                Map<String, Long> current = toLongs(redis.opsForHash().entries(key));
+                Map<String, Long> expected = expectedTotals(account).getOrDefault(account, Map.of());
+                if (current.equals(expected)) {
+                    redis.unwatch();
+                    return false;
+                }
+                Map<String, String> fields = new HashMap<>();
+                expected.forEach((field, value) -> fields.put(field, Long.toString(value)));
+                redis.multi();
+                redis.delete(key);
+                if (fields.isEmpty()) {
+                    redis.opsForSet().remove(AccountTotalsService.ACCOUNTS_KEY, account);
+                } else {
+                    redis.opsForHash().putAll(key, fields);
+                    redis.opsForSet().add(AccountTotalsService.ACCOUNTS_KEY, account);
+                }
+                // Empty if the watched hash changed and the transaction was discarded
+                List<Object> results = redis.exec();
+                return results != null && !results.isEmpty();
+            }
+        });
+        if (Boolean.TRUE.equals(repaired)) {
+            repairs.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Computes the totals from the table.
+     *
+     * @param account the account to compute, null for all
+     * @return the non-zero fields per account
+     */
+    private Map<String, Map<String, Long>> expectedTotals(String account) {
+        AccountTotalsDelta totals = new AccountTotalsDelta();
+        String amountUnits = "sum(round(t.amount * " + AccountTotalsDelta.AMOUNT_SCALE + ", 0))";
+        for (Object[] row : query("select t.fromAccount, t.status, count(t), " + amountUnits
+                + " from Transaction t where " + restrict("t.fromAccount", account)
+                + " group by t.fromAccount, t.status", account)) {
+            add(totals, row, AccountTotalsDelta.DEBITED, 1);
+        }
+        for (Object[] row : query("select t.toAccount, t.status, count(t), " + amountUnits
+                + " from Transaction t where " + restrict("t.toAccount", account)
+                + " group by t.toAccount, t.status", account)) {
+            add(totals, row, AccountTotalsDelta.CREDITED, 1);
+        }
+        // Transfers to the same account were counted on both sides, but count once
+        for (Object[] row : query("select t.fromAccount, t.status, count(t) from Transaction t where "
+                + restrict("t.fromAccount", account) + " and t.fromAccount = t.toAccount"
+                + " group by t.fromAccount, t.status", account)) {
+            add(totals, row, null, -1);
+        }
+        return totals.getDeltas();
+    }
+
+    private static String restrict(String path, String account) {
+        return account == null ? path + " is not null" : path + " = :account";
+    }
+
+    private List<Object[]> query(String jpql, String account) {
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class);
+        if (account != null) {
+            query.setParameter("account", account);
+        }
+        return query.getResultList();
+    }
+
+    // Row: account, status, count and, with an amount field, the amount units
+    private static void add(AccountTotalsDelta totals, Object[] row, String amountField, long sign) {
+        String account = (String) row[0];
+        long count = ((Number) row[2]).longValue();
+        totals.add(account, AccountTotalsDelta.COUNT, sign * count);
+        if (row[1] != null) {
+            totals.add(account, AccountTotalsDelta.STATUS_PREFIX + ((Transaction.Status) row[1]).name(), sign * count);
+        }
+        if (amountField != null && row[3] != null) {
+            totals.add(account, amountField, Math.round(((Number) row[3]).doubleValue()));
+        }
+    }
+
+    // Drops zero fields, which increments that cancelled out leave behind
+    private static Map<String, Long> toLongs(Map<?, ?> hash) {
+        Map<String, Long> fields = new HashMap<>();
+        if (hash != null) {
+            hash.forEach((field, value) -> {
+                long number = Long.parseLong(value.toString());
+                if (number != 0) {
+                    fields.put(field.toString(), number);
+                }
+            });
+        }
+        return fields;
+    }
+}
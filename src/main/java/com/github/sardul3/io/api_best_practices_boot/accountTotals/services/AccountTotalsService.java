@@ -0,0 +1,135 @@
+package com.github.sardul3.io.api_best_practices_boot.accountTotals.services;
+
+import com.github.sardul3.io.api_best_practices_boot.accountTotals.config.AccountTotalsProperties;
+import com.github.sardul3.io.api_best_practices_boot.accountTotals.models.AccountTotals;
+import com.github.sardul3.io.api_best_practices_boot.accountTotals.support.AccountTotalsDelta;
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChangedEvent;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Keeps count, debited and credited amounts and counts per status of every account, so that the totals of an
+ * account are read in one Redis round trip however many transactions it has.
+ * <p>
+ * The totals of an account are a hash {@code account-totals:<account>} with the fields of
+ * {@link AccountTotalsDelta}; {@code account-totals:accounts} lists the accounts that have one. Every write
+ * ({@code saveTransaction}, {@code updateTransactionStatus}, {@code deleteTransaction} and batches) removes the
+ * states before the write and adds those after it with {@code HINCRBY}, all in one pipeline. Increments commute,
+ * so concurrent writes on several nodes need no locking. A write whose increments fail is counted in
+ * {@code account.totals.write.failures} and repaired by the {@link AccountTotalsReconciler}.
+ * </p>
+ */
+@Service
+@Slf4j
+public class AccountTotalsService {
+
+    static final String KEY_PREFIX = "account-totals:";
+    static final String ACCOUNTS_KEY = KEY_PREFIX + "accounts";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final AccountTotalsProperties properties;
+    private final Counter writeFailures;
+
+    public AccountTotalsService(StringRedisTemplate stringRedisTemplate, AccountTotalsProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+        this.writeFailures = Counter.builder("account.totals.write.failures")
+                .description("Writes whose account totals could not be updated")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Applies a write to the totals of the accounts it touched.
+     *
+     * @param event the write that happened
+     */
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Map<String, Map<String, Long>> deltas = AccountTotalsDelta.of(event.getChanges()).getDeltas();
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                deltas.forEach((account, fields) -> {
+                    String key = key(account);
+                    fields.forEach((field, increment) -> redis.hIncrBy(key, field, increment));
+                    redis.sAdd(ACCOUNTS_KEY, account);
+                });
+                return null;
+            });
+        } catch (RuntimeException e) {
+            writeFailures.increment();
+            log.warn("Failed to update the totals of accounts {}, left to the reconciliation: {}",
+                    deltas.keySet(), e.getMessage());
+        }
+    }
+
+    /**
+     * @param account the account
+     * @return the totals of the account, all zero if it has no transactions
+     */
+    public AccountTotals getTotals(String account) {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(key(account));
+        Map<String, Long> fields = new HashMap<>();
+        entries.forEach((field, value) -> fields.put((String) field, Long.parseLong((String) value)));
+        return toTotals(account, fields);
+    }
+
+    /**
+     * Removes the totals of every account, used when the table is wiped.
+     */
+    public void reset() {
+        Set<String> accounts = stringRedisTemplate.opsForSet().members(ACCOUNTS_KEY);
+        List<String> keys = new ArrayList<>();
+        if (accounts != null) {
+            accounts.forEach(account -> keys.add(key(account)));
+        }
+        keys.add(ACCOUNTS_KEY);
+        stringRedisTemplate.delete(keys);
+    }
+
+    /**
+     * @return the accounts that have totals in Redis
+     */
+    public Set<String> accounts() {
+        Set<String> accounts = stringRedisTemplate.opsForSet().members(ACCOUNTS_KEY);
+        return accounts == null ? Set.of() : accounts;
+    }
+
+    public static String key(String account) {
+        return KEY_PREFIX + account;
+    }
+
+    private static AccountTotals toTotals(String account, Map<String, Long> fields) {
+        Map<Transaction.Status, Long> statusCounts = new EnumMap<>(Transaction.Status.class);
+        for (Transaction.Status status : Transaction.Status.values()) {
+            long count = fields.getOrDefault(AccountTotalsDelta.STATUS_PREFIX + status.name(), 0L);
+            if (count != 0) {
+                statusCounts.put(status, count);
+            }
+        }
+        return new AccountTotals(account,
+                fields.getOrDefault(AccountTotalsDelta.COUNT, 0L),
+                AccountTotalsDelta.fromUnits(fields.getOrDefault(AccountTotalsDelta.DEBITED, 0L)),
+                AccountTotalsDelta.fromUnits(fields.getOrDefault(AccountTotalsDelta.CREDITED, 0L)),
+                statusCounts);
+    }
+}
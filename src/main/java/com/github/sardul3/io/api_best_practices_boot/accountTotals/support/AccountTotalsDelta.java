@@ -0,0 +1,110 @@
+package com.github.sardul3.io.api_best_practices_boot.accountTotals.support;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChange;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adjustments to the totals of accounts, as whole-number increments per account and field.
+ * <p>
+ * Fields are {@code count}, {@code debited}, {@code credited} and {@code status:<STATUS>}. Amounts are kept in
+ * whole units of 1/10,000 (see {@link #toUnits(Double)}), so increments add up to the same total in any order,
+ * which floating point increments would not.
+ * </p>
+ */
+public class AccountTotalsDelta {
+
+    public static final String COUNT = "count";
+    public static final String DEBITED = "debited";
+    public static final String CREDITED = "credited";
+    public static final String STATUS_PREFIX = "status:";
+    public static final int AMOUNT_SCALE = 10_000;
+
+    private final Map<String, Map<String, Long>> deltas = new LinkedHashMap<>();
+
+    /**
+     * @param changes the changes of a write
+     * @return the adjustments that take the totals from the states before the write to those after it
+     */
+    public static AccountTotalsDelta of(List<TransactionChange> changes) {
+        AccountTotalsDelta delta = new AccountTotalsDelta();
+        for (TransactionChange change : changes) {
+            if (change.getBefore() != null) {
+                delta.add(change.getBefore(), -1);
+            }
+            if (change.getAfter() != null) {
+                delta.add(change.getAfter(), 1);
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Adds a transaction to the totals of its accounts, or removes it with a negative sign.
+     *
+     * @param transaction the transaction
+     * @param sign        1 to add, -1 to remove
+     */
+    public void add(Transaction transaction, long sign) {
+        String from = transaction.getFromAccount();
+        String to = transaction.getToAccount();
+        long units = toUnits(transaction.getAmount());
+        String status = transaction.getStatus() == null ? null : STATUS_PREFIX + transaction.getStatus().name();
+        if (from != null) {
+            add(from, COUNT, sign);
+            add(from, DEBITED, sign * units);
+            if (status != null) {
+                add(from, status, sign);
+            }
+        }
+        if (to != null) {
+            add(to, CREDITED, sign * units);
+            // A transfer to the same account is counted once
+            if (!to.equals(from)) {
+                add(to, COUNT, sign);
+                if (status != null) {
+                    add(to, status, sign);
+                }
+            }
+        }
+    }
+
+    public void add(String account, String field, long increment) {
+        deltas.computeIfAbsent(account, key -> new LinkedHashMap<>()).merge(field, increment, Long::sum);
+    }
+
+    /**
+     * @return the increments per account and field, without the ones that cancelled out
+     */
+    public Map<String, Map<String, Long>> getDeltas() {
+        Map<String, Map<String, Long>> nonZero = new LinkedHashMap<>();
+        deltas.forEach((account, fields) -> fields.forEach((field, increment) -> {
+            if (increment != 0) {
+                nonZero.computeIfAbsent(account, key -> new LinkedHashMap<>()).put(field, increment);
+            }
+        }));
+        return nonZero;
+    }
+
+    /**
+     * Rounds an amount to whole units, half away from zero like SQL {@code ROUND}, so the totals can be compared
+     * with sums computed by the database.
+     *
+     * @param amount the amount, null counts as zero
+     * @return the amount in units of 1/{@value #AMOUNT_SCALE}
+     */
+    public static long toUnits(Double amount) {
+        if (amount == null) {
+            return 0;
+        }
+        double scaled = amount * AMOUNT_SCALE;
+        return scaled < 0 ? -Math.round(-scaled) : Math.round(scaled);
+    }
+
+    public static double fromUnits(long units) {
+        return (double) units / AMOUNT_SCALE;
+    }
+}
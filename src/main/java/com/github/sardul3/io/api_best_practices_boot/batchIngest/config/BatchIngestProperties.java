@@ -0,0 +1,22 @@
+package com.github.sardul3.io.api_best_practices_boot.batchIngest.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Limits for bulk transaction ingest.
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "transaction-batch")
+public class BatchIngestProperties {
+
+    // Maximum number of rows accepted in one request
+    private int maxRows = 10_000;
+
+    // Number of rows committed per database transaction; a failing chunk does not roll back the others
+    private int chunkSize = 500;
+}
@@ -0,0 +1,100 @@
+package com.github.sardul3.io.api_best_practices_boot.batchIngest.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.config.BatchIngestProperties;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.exception.BatchTooLargeException;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.models.BatchIngestResult;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.models.BatchRow;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.services.TransactionBatchService;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.support.TransactionCsvParser;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.support.TransactionJsonReader;
+import com.github.sardul3.io.api_best_practices_boot.logAndMonitor.logging.aspects.EndpointDescribe;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config.RateLimitAndThrottle;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bulk creation of transactions, as a JSON array or as CSV in the layout of {@code transactions.csv}.
+ * <p>
+ * Responds with 201 CREATED when every row was inserted, and with 200 OK and the per-row outcome otherwise.
+ * Requests above {@code transaction-batch.max-rows} rows are refused with 413 PAYLOAD_TOO_LARGE; bodies are read
+ * row by row, so the refusal comes as soon as the limit is passed rather than after binding the whole batch.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/transactions/batch")
+@Slf4j
+public class TransactionBatchController {
+
+    private final TransactionBatchService batchService;
+    private final BatchIngestProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public TransactionBatchController(TransactionBatchService batchService, BatchIngestProperties properties,
+                                      ObjectMapper objectMapper) {
+        this.batchService = batchService;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @RateLimitAndThrottle
+    @EndpointDescribe(value = "create transactions in bulk (JSON)", logPayload = false)
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchIngestResult> createTransactions(InputStream body) {
+        List<BatchRow> rows;
+        try {
+            rows = TransactionJsonReader.read(objectMapper, body, properties.getMaxRows());
+        } catch (BatchTooLargeException e) {
+            return tooLarge(e);
+        } catch (IllegalArgumentException | IOException e) {
+            log.warn("Rejected JSON batch: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        return ingest(rows);
+    }
+
+    @RateLimitAndThrottle
+    @EndpointDescribe(value = "create transactions in bulk (CSV)", logPayload = false)
+    @PostMapping(consumes = "text/csv")
+    public ResponseEntity<BatchIngestResult> createTransactionsFromCsv(InputStream body, HttpServletRequest request)
+            throws IOException {
+        Charset charset = Optional.ofNullable(request.getContentType())
+                .map(contentType -> MediaType.parseMediaType(contentType).getCharset())
+                .orElse(StandardCharsets.UTF_8);
+        List<BatchRow> rows;
+        try {
+            rows = TransactionCsvParser.parse(new InputStreamReader(body, charset), properties.getMaxRows());
+        } catch (BatchTooLargeException e) {
+            return tooLarge(e);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected CSV batch: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        return ingest(rows);
+    }
+
+    private ResponseEntity<BatchIngestResult> ingest(List<BatchRow> rows) {
+        BatchIngestResult result = batchService.ingest(rows);
+        HttpStatus status = result.getCreated() == result.getReceived() ? HttpStatus.CREATED : HttpStatus.OK;
+        return ResponseEntity.status(status).body(result);
+    }
+
+    private static ResponseEntity<BatchIngestResult> tooLarge(BatchTooLargeException e) {
+        log.warn("Rejected batch of more than {} rows", e.getMaxRows());
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+    }
+}
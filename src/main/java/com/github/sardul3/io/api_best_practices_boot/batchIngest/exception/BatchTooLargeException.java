@@ -0,0 +1,21 @@
+package com.github.sardul3.io.api_best_practices_boot.batchIngest.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown while reading a bulk ingest request as soon as it turns out to hold more than
+ * {@code transaction-batch.max-rows} rows, so that the rest of the body is never parsed.
+ */
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+@Getter
+public class BatchTooLargeException extends RuntimeException {
+
+    private final int maxRows;
+
+    public BatchTooLargeException(int maxRows) {
+        super("Batch exceeds the limit of " + maxRows + " rows");
+        this.maxRows = maxRows;
+    }
+}
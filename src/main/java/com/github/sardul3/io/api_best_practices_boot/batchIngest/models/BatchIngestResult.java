@@ -0,0 +1,26 @@
+package com.github.sardul3.io.api_best_practices_boot.batchIngest.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Summary and per-row outcome of a bulk ingest.
+ * <p>
+ * {@code rowsPerSecond} is the number of created rows over the time spent validating, inserting and invalidating,
+ * comparable with the rate of single {@code POST /api/transactions} calls.
+ * </p>
+ */
+@Getter
+@AllArgsConstructor
+public class BatchIngestResult {
+
+    private final int received;
+    private final int created;
+    private final int rejected;
+    private final int failed;
+    private final long durationMillis;
+    private final double rowsPerSecond;
+    private final List<BatchRowResult> results;
+}
@@ -0,0 +1,21 @@
+package com.github.sardul3.io.api_best_practices_boot.batchIngest.models;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+
+/**
+ * One row of a bulk ingest request: either a transaction to insert, or the reason it could not be read.
+ *
+ * @param row         the 1-based position of the row in the request (data rows only, a CSV header is not counted)
+ * @param transaction the transaction, null if the row is unreadable
+ * @param error       why the row is unreadable, null otherwise
+ */
+public record BatchRow(int row, Transaction transaction, String error) {
+
+    public static BatchRow of(int row, Transaction transaction) {
+        return new BatchRow(row, transaction, null);
+    }
+
+    public static BatchRow invalid(int row, String error) {
+        return new BatchRow(row, null, error);
+    }
+}
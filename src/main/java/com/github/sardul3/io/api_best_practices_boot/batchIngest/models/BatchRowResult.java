@@ -0,0 +1,27 @@
+package com.github.sardul3.io.api_best_practices_boot.batchIngest.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of one row of a bulk ingest.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchRowResult {
+
+    /**
+     * CREATED: the row was inserted. REJECTED: the row is invalid and was skipped.
+     * FAILED: the row was valid, but the chunk it was committed in failed.
+     */
+    public enum Status {
+        CREATED, REJECTED, FAILED
+    }
+
+    private final int row;
+    private final Status status;
+    private final Long transactionId;
+    private final String error;
+}
@@ -0,0 +1,155 @@
+package com.github.sardul3.io.api_best_practices_boot.batchIngest.services;
+
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.config.BatchIngestProperties;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.models.BatchIngestResult;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.models.BatchRow;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.models.BatchRowResult;
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.services.ChangeFeedService;
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChange;
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChangedEvent;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.eTags.repos.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts many transactions at once.
+ * <p>
+ * Valid rows are persisted in chunks of {@code transaction-batch.chunk-size}, each in its own database
+ * transaction. Ids come from the pooled {@code transaction_seq} sequence, so Hibernate sends the inserts of a
+ * chunk as JDBC batches of {@code hibernate.jdbc.batch_size}. A chunk that fails is reported row by row and
+ * does not affect the others. The changes of a chunk are recorded in the change feed by the chunk's transaction.
+ * </p>
+ * <p>
+ * All created transactions are announced in a single {@link TransactionChangedEvent}, so the caches and
+ * collection versions are invalidated once per request rather than once per row.
+ * </p>
+ */
+@Service
+@Slf4j
+public class TransactionBatchService {
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeFeedService changeFeedService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BatchIngestProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public TransactionBatchService(TransactionRepository transactionRepository, TransactionTemplate transactionTemplate,
+                                   ChangeFeedService changeFeedService, ApplicationEventPublisher eventPublisher,
+                                   BatchIngestProperties properties, MeterRegistry meterRegistry) {
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.changeFeedService = changeFeedService;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Validates and inserts the rows. Ids and versions sent by the client are ignored, every row creates a new
+     * transaction.
+     *
+     * @param rows the rows in request order
+     * @return the outcome of every row, in request order
+     */
+    public BatchIngestResult ingest(List<BatchRow> rows) {
+        long start = System.nanoTime();
+        BatchRowResult[] results = new BatchRowResult[rows.size()];
+        List<Integer> chunk = new ArrayList<>(properties.getChunkSize());
+        List<TransactionChange> changes = new ArrayList<>();
+
+        for (int i = 0; i < rows.size(); i++) {
+            BatchRow row = rows.get(i);
+            String error = row.error() != null ? row.error() : validate(row.transaction());
+            if (error != null) {
+                results[i] = new BatchRowResult(row.row(), BatchRowResult.Status.REJECTED, null, error);
+                continue;
+            }
+            chunk.add(i);
+            if (chunk.size() == properties.getChunkSize()) {
+                insertChunk(rows, chunk, results, changes);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(rows, chunk, results, changes);
+        }
+
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new TransactionChangedEvent(changes));
+        }
+
+        long durationNanos = System.nanoTime() - start;
+        int created = changes.size();
+        int rejected = (int) Arrays.stream(results).filter(r -> r.getStatus() == BatchRowResult.Status.REJECTED).count();
+        int failed = rows.size() - created - rejected;
+        double rowsPerSecond = durationNanos == 0 ? 0 : created * 1e9 / durationNanos;
+        meterRegistry.counter("transactions.batch.rows", "result", "created").increment(created);
+        meterRegistry.counter("transactions.batch.rows", "result", "rejected").increment(rejected);
+        meterRegistry.counter("transactions.batch.rows", "result", "failed").increment(failed);
+        log.info("Batch ingest of {} rows: {} created, {} rejected, {} failed in {} ms ({} rows/s)", rows.size(),
+                created, rejected, failed, TimeUnit.NANOSECONDS.toMillis(durationNanos), Math.round(rowsPerSecond));
+
+        return new BatchIngestResult(rows.size(), created, rejected, failed,
+                TimeUnit.NANOSECONDS.toMillis(durationNanos), rowsPerSecond, Arrays.asList(results));
+    }
+
+    private void insertChunk(List<BatchRow> rows, List<Integer> chunk, BatchRowResult[] results,
+                             List<TransactionChange> changes) {
+        List<Transaction> transactions = new ArrayList<>(chunk.size());
+        for (int index : chunk) {
+            Transaction transaction = rows.get(index).transaction();
+            transaction.setTransactionId(null);
+            transaction.setVersion(null);
+            transactions.add(transaction);
+        }
+        try {
+            // The persistence context ends with the chunk's transaction, so memory does not grow with the batch
+            List<TransactionChange> created = transactionTemplate.execute(status -> {
+                List<TransactionChange> chunkChanges = transactionRepository.saveAll(transactions).stream()
+                        .map(TransactionChange::created)
+                        .toList();
+                // In the chunk's transaction, so the change feed has exactly the committed rows
+                changeFeedService.record(chunkChanges);
+                return chunkChanges;
+            });
+            for (int i = 0; i < chunk.size(); i++) {
+                results[chunk.get(i)] = new BatchRowResult(rows.get(chunk.get(i)).row(), BatchRowResult.Status.CREATED,
+                        created.get(i).getAfter().getTransactionId(), null);
+            }
+            changes.addAll(created);
+        } catch (RuntimeException e) {
+            log.warn("Batch ingest chunk of {} rows failed: {}", chunk.size(), e.getMessage());
+            for (int index : chunk) {
+                results[index] = new BatchRowResult(rows.get(index).row(), BatchRowResult.Status.FAILED, null,
+                        "Insert failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static String validate(Transaction transaction) {
+        if (transaction == null) {
+            return "Row is empty";
+        }
+        if (transaction.getFromAccount() == null || transaction.getFromAccount().isBlank()) {
+            return "fromAccount is required";
+        }
+        if (transaction.getToAccount() == null || transaction.getToAccount().isBlank()) {
+            return "toAccount is required";
+        }
+        if (transaction.getAmount() == null || !Double.isFinite(transaction.getAmount())) {
+            return "amount is required";
+        }
+        return null;
+    }
+}
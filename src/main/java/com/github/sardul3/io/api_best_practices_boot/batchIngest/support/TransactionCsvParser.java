@@ -0,0 +1,189 @@
+package com.github.sardul3.io.api_best_practices_boot.batchIngest.support;
+
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.exception.BatchTooLargeException;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.models.BatchRow;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads transactions from CSV in the layout of {@code transactions.csv}: a header line naming the columns,
+ * then one transaction per line.
+ * <p>
+ * The {@code fromAccount}, {@code toAccount} and {@code amount} columns are required, {@code status} is optional,
+ * and other columns (e.g. the {@code transactionId} of an export) are ignored. Columns are matched by name,
+ * case-insensitively, in any order. Fields follow RFC 4180: quoted fields may contain separators, doubled quotes
+ * and line breaks. Blank lines are skipped.
+ * </p>
+ */
+public final class TransactionCsvParser {
+
+    private static final String FROM_ACCOUNT = "fromaccount";
+    private static final String TO_ACCOUNT = "toaccount";
+    private static final String AMOUNT = "amount";
+    private static final String STATUS = "status";
+
+    private TransactionCsvParser() {
+    }
+
+    /**
+     * @param csv the CSV document
+     * @return one row per data line, unreadable lines are returned as invalid rows
+     * @throws IllegalArgumentException if the header is missing or lacks a required column
+     */
+    public static List<BatchRow> parse(String csv) {
+        try {
+            return parse(new StringReader(csv), Integer.MAX_VALUE);
+        } catch (IOException e) {
+            // A string cannot fail to be read
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the document record by record, so that an oversized request is refused after {@code maxRows + 1}
+     * records rather than after reading all of it.
+     *
+     * @param csv     the CSV document
+     * @param maxRows the most data rows accepted
+     * @return one row per data line, unreadable lines are returned as invalid rows
+     * @throws IllegalArgumentException if the header is missing or lacks a required column
+     * @throws BatchTooLargeException   as soon as the document turns out to have more than {@code maxRows} rows
+     * @throws IOException              if reading the document fails
+     */
+    public static List<BatchRow> parse(Reader csv, int maxRows) throws IOException {
+        RecordReader records = new RecordReader(csv);
+        List<String> header = records.next();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV is empty, a header line is required");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of(FROM_ACCOUNT, TO_ACCOUNT, AMOUNT)) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header lacks the required column " + required);
+            }
+        }
+
+        List<BatchRow> rows = new ArrayList<>();
+        for (List<String> record = records.next(); record != null; record = records.next()) {
+            if (rows.size() == maxRows) {
+                throw new BatchTooLargeException(maxRows);
+            }
+            rows.add(toRow(rows.size() + 1, record, columns, header.size()));
+        }
+        return rows;
+    }
+
+    private static BatchRow toRow(int row, List<String> fields, Map<String, Integer> columns, int columnCount) {
+        if (fields.size() != columnCount) {
+            return BatchRow.invalid(row, "Expected " + columnCount + " fields but found " + fields.size());
+        }
+        Transaction transaction = new Transaction();
+        transaction.setFromAccount(emptyToNull(fields.get(columns.get(FROM_ACCOUNT))));
+        transaction.setToAccount(emptyToNull(fields.get(columns.get(TO_ACCOUNT))));
+
+        String amount = fields.get(columns.get(AMOUNT)).trim();
+        if (!amount.isEmpty()) {
+            try {
+                transaction.setAmount(Double.valueOf(amount));
+            } catch (NumberFormatException e) {
+                return BatchRow.invalid(row, "Invalid amount: " + amount);
+            }
+        }
+
+        Integer statusColumn = columns.get(STATUS);
+        String status = statusColumn == null ? "" : fields.get(statusColumn).trim();
+        if (!status.isEmpty()) {
+            try {
+                transaction.setStatus(Transaction.Status.valueOf(status.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                return BatchRow.invalid(row, "Invalid status: " + status);
+            }
+        }
+        return BatchRow.of(row, transaction);
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    // Splits the document into records of fields, honouring quotes; blank lines produce no record
+    private static final class RecordReader {
+
+        private final PushbackReader in;
+
+        RecordReader(Reader in) {
+            this.in = new PushbackReader(in instanceof BufferedReader || in instanceof StringReader
+                    ? in : new BufferedReader(in));
+        }
+
+        // The next record, or null at the end of the document
+        List<String> next() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean recordStarted = false;
+
+            for (int c = in.read(); c != -1; c = in.read()) {
+                if (quoted) {
+                    if (c == '"') {
+                        int next = in.read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            unread(next);
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                    recordStarted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    recordStarted = true;
+                } else if (c == '\n' || c == '\r') {
+                    if (c == '\r') {
+                        int next = in.read();
+                        if (next != '\n') {
+                            unread(next);
+                        }
+                    }
+                    if (recordStarted || !field.isEmpty()) {
+                        fields.add(field.toString());
+                        return fields;
+                    }
+                } else {
+                    field.append((char) c);
+                    recordStarted = true;
+                }
+            }
+            if (recordStarted || !field.isEmpty()) {
+                fields.add(field.toString());
+                return fields;
+            }
+            return null;
+        }
+
+        private void unread(int c) throws IOException {
+            if (c != -1) {
+                in.unread(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.sardul3.io.api_best_practices_boot.batchIngest.support;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.exception.BatchTooLargeException;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.models.BatchRow;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a JSON array of transactions element by element, so that the row limit is enforced while the body is
+ * streamed rather than after all of it has been bound.
+ */
+public final class TransactionJsonReader {
+
+    private TransactionJsonReader() {
+    }
+
+    /**
+     * @param objectMapper the mapper of the JSON endpoints
+     * @param json         the request body
+     * @param maxRows      the most rows accepted
+     * @return one row per array element, in request order
+     * @throws IllegalArgumentException if the body is not a JSON array
+     * @throws BatchTooLargeException   as soon as the array turns out to have more than {@code maxRows} elements
+     * @throws IOException              if the body is not valid JSON or an element is not a transaction
+     */
+    public static List<BatchRow> read(ObjectMapper objectMapper, InputStream json, int maxRows) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(Transaction.class);
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of transactions");
+            }
+            List<BatchRow> rows = new ArrayList<>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (rows.size() == maxRows) {
+                    throw new BatchTooLargeException(maxRows);
+                }
+                // A null element binds to null and is rejected as an empty row
+                rows.add(BatchRow.of(rows.size() + 1, reader.readValue(parser)));
+            }
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.sardul3.io.api_best_practices_boot.cachePolicy.aspects;
+
+import com.github.sardul3.io.api_best_practices_boot.cachePolicy.config.CachePolicyProperties;
+import com.github.sardul3.io.api_best_practices_boot.cachePolicy.support.CacheEntryMetadataRegistry;
+import com.github.sardul3.io.api_best_practices_boot.cachePolicy.support.CacheEntryMetadataRegistry.EntryMetadata;
+import com.github.sardul3.io.api_best_practices_boot.cachePolicy.support.XFetch;
+import com.github.sardul3.io.api_best_practices_boot.singleFlight.support.CacheKeyResolver;
+import com.github.sardul3.io.api_best_practices_boot.singleFlight.support.CacheKeyResolver.CacheEntryKey;
+import com.github.sardul3.io.api_best_practices_boot.singleFlight.support.RedisLease;
+import com.github.sardul3.io.api_best_practices_boot.virtualThreads.support.BackgroundThreads;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ObjectUtils;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Refresh-ahead for {@link Cacheable} methods whose cache has {@code refresh-ahead} enabled.
+ * <p>
+ * On every cache hit the aspect decides with {@link XFetch} whether the entry should be recomputed early. If so,
+ * the target method is invoked directly (bypassing the cache and single-flight interceptors) on a small bounded
+ * executor and the result is put into the cache, while the caller and everyone else keep being served the current
+ * value. A Redis lease ensures only one node refreshes an entry at a time. When the executor is saturated the
+ * refresh is dropped and the entry expires normally.
+ * </p>
+ * <p>
+ * Loads that go through the cache are timed to learn each entry's compute time, which XFetch weighs against the
+ * remaining TTL. Metrics: {@code cache.refresh{cache,result=success|failure|rejected|skipped}} and
+ * {@code cache.refresh.stale.serves{cache}}, the hits served while their entry was due for a refresh.
+ * </p>
+ * <p>
+ * As with any cache-aside load, a refresh that races with a write can store the pre-write value; the entry is
+ * then corrected by the next write or its TTL.
+ * </p>
+ */
+@Aspect
+@Component
+@Slf4j
+// Outermost of the cache aspects, so that a coalesced load is timed once and a hit is seen as a hit
+@Order(Ordered.LOWEST_PRECEDENCE - 200)
+public class RefreshAheadAspect {
+
+    // Upper bound on a single refresh; the lease is released as soon as the refresh completes
+    private static final Duration REFRESH_LEASE = Duration.ofSeconds(30);
+
+    private final CacheKeyResolver keyResolver;
+    private final CacheEntryMetadataRegistry registry;
+    private final CachePolicyProperties properties;
+    private final CacheManager cacheManager;
+    private final RedisLease redisLease;
+    private final MeterRegistry meterRegistry;
+
+    private final ThreadPoolExecutor executor;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    public RefreshAheadAspect(CacheKeyResolver keyResolver, CacheEntryMetadataRegistry registry,
+                              CachePolicyProperties properties, CacheManager cacheManager, RedisLease redisLease,
+                              MeterRegistry meterRegistry, Environment environment) {
+        this.keyResolver = keyResolver;
+        this.registry = registry;
+        this.properties = properties;
+        this.cacheManager = cacheManager;
+        this.redisLease = redisLease;
+        this.meterRegistry = meterRegistry;
+
+        CachePolicyProperties.RefreshExecutor settings = properties.getRefreshExecutor();
+        this.executor = new ThreadPoolExecutor(settings.getThreads(), settings.getThreads(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(settings.getQueueCapacity()),
+                BackgroundThreads.factory(environment, "cache-refresh-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Around("@annotation(cacheable)")
+    public Object refreshAhead(ProceedingJoinPoint joinPoint, Cacheable cacheable) throws Throwable {
+        CacheEntryKey entry = resolve(joinPoint, cacheable);
+        if (entry == null || !properties.policyFor(entry.cacheName()).isRefreshAhead()) {
+            return joinPoint.proceed();
+        }
+
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        Object result = joinPoint.proceed();
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        EntryMetadata metadata = registry.get(entry.cacheName(), entry.key());
+        if (metadata == null) {
+            return result;
+        }
+        if (metadata.writtenAtMillis() >= startMillis) {
+            // The entry was stored during this call, so this was a load: remember how long it took
+            registry.recordComputeTime(entry.cacheName(), entry.key(), elapsedNanos);
+            return result;
+        }
+
+        CachePolicyProperties.Policy policy = properties.policyFor(entry.cacheName());
+        boolean due = XFetch.shouldRefresh(System.currentTimeMillis(), metadata.expiresAtMillis(),
+                TimeUnit.NANOSECONDS.toMillis(metadata.computeTimeNanos()), policy.getBeta(),
+                1.0 - ThreadLocalRandom.current().nextDouble());
+        if (due || refreshing.contains(entry.id())) {
+            meterRegistry.counter("cache.refresh.stale.serves", "cache", entry.cacheName()).increment();
+        }
+        if (due) {
+            scheduleRefresh(joinPoint, cacheable, entry);
+        }
+        return result;
+    }
+
+    private void scheduleRefresh(ProceedingJoinPoint joinPoint, Cacheable cacheable, CacheEntryKey entry) {
+        if (!refreshing.add(entry.id())) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    refresh(joinPoint, cacheable, entry);
+                } finally {
+                    refreshing.remove(entry.id());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(entry.id());
+            count(entry, "rejected");
+        }
+    }
+
+    private void refresh(ProceedingJoinPoint joinPoint, Cacheable cacheable, CacheEntryKey entry) {
+        String leaseId = "refresh:" + entry.id();
+        String token = redisLease.tryAcquire(leaseId, REFRESH_LEASE);
+        if (token == null) {
+            // Another node is refreshing the entry already
+            count(entry, "skipped");
+            return;
+        }
+        try {
+            Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            long startNanos = System.nanoTime();
+            Object result = AopUtils.invokeJoinpointUsingReflection(joinPoint.getTarget(), method, joinPoint.getArgs());
+            long elapsedNanos = System.nanoTime() - startNanos;
+
+            Cache cache = cacheManager.getCache(entry.cacheName());
+            if (cache != null && !keyResolver.isVetoed(joinPoint, cacheable, result)) {
+                cache.put(entry.key(), ObjectUtils.unwrapOptional(result));
+                registry.recordComputeTime(entry.cacheName(), entry.key(), elapsedNanos);
+            }
+            count(entry, "success");
+        } catch (Throwable t) {
+            log.warn("Refresh-ahead of cache entry {} failed: {}", entry.id(), t.getMessage());
+            count(entry, "failure");
+        } finally {
+            redisLease.release(leaseId, token);
+        }
+    }
+
+    private CacheEntryKey resolve(ProceedingJoinPoint joinPoint, Cacheable cacheable) {
+        try {
+            return keyResolver.resolve(joinPoint, cacheable);
+        } catch (RuntimeException e) {
+            log.debug("Cannot resolve cache key of {}, no refresh-ahead: {}", joinPoint.getSignature(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void count(CacheEntryKey entry, String result) {
+        meterRegistry.counter("cache.refresh", "cache", entry.cacheName(), "result", result).increment();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.sardul3.io.api_best_practices_boot.cachePolicy.config;
+
+import com.github.sardul3.io.api_best_practices_boot.cachePolicy.support.CacheEntryMetadataRegistry;
+import com.github.sardul3.io.api_best_practices_boot.cachePolicy.support.JitteredTtlFunction;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Applies the per-cache {@link CachePolicyProperties} to the Redis cache manager.
+ * <p>
+ * Every cache listed in {@code spring.cache.cache-names} or {@code spring.cache.policies} gets its own copy of the
+ * shared {@link RedisCacheConfiguration} with a {@link JitteredTtlFunction}. The customizer is picked up both by
+ * Spring Boot's Redis cache manager and by the near cache configuration.
+ * </p>
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CachePolicyConfig {
+
+    @Bean
+    public RedisCacheManagerBuilderCustomizer cachePolicyCustomizer(RedisCacheConfiguration cacheConfiguration,
+                                                                    CacheProperties cacheProperties,
+                                                                    CachePolicyProperties policyProperties,
+                                                                    CacheEntryMetadataRegistry registry) {
+        return builder -> {
+            Set<String> cacheNames = new LinkedHashSet<>(cacheProperties.getCacheNames());
+            cacheNames.addAll(policyProperties.getPolicies().keySet());
+            for (String cacheName : cacheNames) {
+                builder.withCacheConfiguration(cacheName, cacheConfiguration.entryTtl(
+                        new JitteredTtlFunction(cacheName, policyProperties.policyFor(cacheName), registry)));
+            }
+        };
+    }
+}
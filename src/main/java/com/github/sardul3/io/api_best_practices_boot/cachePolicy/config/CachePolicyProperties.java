@@ -0,0 +1,66 @@
+package com.github.sardul3.io.api_best_practices_boot.cachePolicy.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-cache expiry and refresh policies, configured next to Spring Boot's own cache settings under
+ * {@code spring.cache.policies.<cache-name>}.
+ * <p>
+ * Caches without a policy use the defaults of {@link Policy}, i.e. the historical 3 minute TTL with a little jitter
+ * and no refresh-ahead.
+ * </p>
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "spring.cache")
+public class CachePolicyProperties {
+
+    private Map<String, Policy> policies = new LinkedHashMap<>();
+
+    private RefreshExecutor refreshExecutor = new RefreshExecutor();
+
+    @Setter
+    @Getter
+    public static class Policy {
+
+        // Nominal lifetime of an entry in Redis
+        private Duration ttl = Duration.ofMinutes(3);
+
+        // Fraction of the TTL randomly taken off each entry, so entries written together do not expire together
+        private double jitter = 0.1;
+
+        // Reload hot entries in the background shortly before they expire
+        private boolean refreshAhead = false;
+
+        // XFetch eagerness: above 1 refreshes earlier, below 1 later
+        private double beta = 1.0;
+    }
+
+    @Setter
+    @Getter
+    public static class RefreshExecutor {
+
+        // Background threads reloading entries ahead of expiry
+        private int threads = 2;
+
+        // Refreshes waiting for a thread; further refreshes are dropped and the entry simply expires
+        private int queueCapacity = 64;
+    }
+
+    /**
+     * @param cacheName the cache
+     * @return the policy configured for the cache, or the default policy
+     */
+    public Policy policyFor(String cacheName) {
+        Policy policy = policies.get(cacheName);
+        return policy != null ? policy : new Policy();
+    }
+}
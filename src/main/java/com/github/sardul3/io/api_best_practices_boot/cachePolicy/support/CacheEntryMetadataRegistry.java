@@ -0,0 +1,76 @@
+package com.github.sardul3.io.api_best_practices_boot.cachePolicy.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Remembers, for the cache entries written by this node, when they expire and how long they took to compute.
+ * <p>
+ * Written by {@link JitteredTtlFunction} whenever an entry is stored and read by the refresh-ahead aspect to decide
+ * whether to reload an entry early. Entries written by other nodes are unknown here, so the node that wrote an entry
+ * is the one that refreshes it. The registry is bounded and forgets entries shortly after they expire.
+ * </p>
+ */
+@Component
+public class CacheEntryMetadataRegistry {
+
+    // How long an entry's metadata outlives the entry, to still know its compute time when it is reloaded
+    private static final Duration RETENTION = Duration.ofMinutes(1);
+
+    /**
+     * @param expiresAtMillis    wall clock time the entry expires in Redis
+     * @param writtenAtMillis    wall clock time the entry was written
+     * @param computeTimeNanos   how long the last load of the entry took, 0 if unknown
+     */
+    public record EntryMetadata(long expiresAtMillis, long writtenAtMillis, long computeTimeNanos) {
+    }
+
+    private final Cache<String, EntryMetadata> entries = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfter(new Expiry<String, EntryMetadata>() {
+                @Override
+                public long expireAfterCreate(String key, EntryMetadata value, long currentTime) {
+                    return retentionNanos(value);
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, EntryMetadata value, long currentTime, long currentDuration) {
+                    return retentionNanos(value);
+                }
+
+                @Override
+                public long expireAfterRead(String key, EntryMetadata value, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+
+    public void recordWrite(String cacheName, Object key, Duration ttl) {
+        long now = System.currentTimeMillis();
+        entries.asMap().compute(id(cacheName, key), (id, previous) -> new EntryMetadata(
+                now + ttl.toMillis(), now, previous != null ? previous.computeTimeNanos() : 0));
+    }
+
+    public void recordComputeTime(String cacheName, Object key, long computeTimeNanos) {
+        entries.asMap().computeIfPresent(id(cacheName, key), (id, current) ->
+                new EntryMetadata(current.expiresAtMillis(), current.writtenAtMillis(), computeTimeNanos));
+    }
+
+    public EntryMetadata get(String cacheName, Object key) {
+        return entries.getIfPresent(id(cacheName, key));
+    }
+
+    private static String id(String cacheName, Object key) {
+        // Same key rendering as the Redis cache and the near cache
+        return cacheName + "::" + key;
+    }
+
+    private static long retentionNanos(EntryMetadata value) {
+        long remaining = value.expiresAtMillis() - System.currentTimeMillis();
+        return Duration.ofMillis(Math.max(0, remaining)).plus(RETENTION).toNanos();
+    }
+}
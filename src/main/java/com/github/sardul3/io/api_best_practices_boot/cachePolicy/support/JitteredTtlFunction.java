@@ -0,0 +1,46 @@
+package com.github.sardul3.io.api_best_practices_boot.cachePolicy.support;
+
+import com.github.sardul3.io.api_best_practices_boot.cachePolicy.config.CachePolicyProperties;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * TTL of a cache's entries: the configured TTL minus a random share of up to {@code jitter} of it,
+ * so that entries written in the same burst expire spread out instead of all at once.
+ * <p>
+ * Every TTL handed out is also recorded in the {@link CacheEntryMetadataRegistry} for refresh-ahead.
+ * </p>
+ */
+public class JitteredTtlFunction implements RedisCacheWriter.TtlFunction {
+
+    private final String cacheName;
+    private final CachePolicyProperties.Policy policy;
+    private final CacheEntryMetadataRegistry registry;
+
+    public JitteredTtlFunction(String cacheName, CachePolicyProperties.Policy policy, CacheEntryMetadataRegistry registry) {
+        this.cacheName = cacheName;
+        this.policy = policy;
+        this.registry = registry;
+    }
+
+    @Override
+    public Duration getTimeToLive(Object key, Object value) {
+        Duration ttl = jittered(policy.getTtl(), policy.getJitter(), ThreadLocalRandom.current().nextDouble());
+        registry.recordWrite(cacheName, key, ttl);
+        return ttl;
+    }
+
+    /**
+     * @param ttl    the configured TTL
+     * @param jitter the largest share of the TTL that may be taken off, between 0 and 1
+     * @param random a uniformly distributed number in [0, 1)
+     * @return the TTL shortened by {@code jitter * random} of itself, at least one second
+     */
+    public static Duration jittered(Duration ttl, double jitter, double random) {
+        double share = Math.min(Math.max(jitter, 0), 1) * random;
+        long millis = Math.round(ttl.toMillis() * (1 - share));
+        return Duration.ofMillis(Math.max(millis, 1_000));
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.sardul3.io.api_best_practices_boot.cachePolicy.support;
+
+/**
+ * Probabilistic early expiration ("XFetch", Vattani et al., <i>Optimal Probabilistic Cache Stampede Prevention</i>).
+ * <p>
+ * On every read an entry is recomputed early when {@code now - delta * beta * ln(random) >= expiry}, where
+ * {@code delta} is the time the entry takes to compute. The probability of an early recompute grows exponentially
+ * as the expiry approaches, faster for entries that are expensive to compute, so usually exactly one of the many
+ * readers of a hot entry reloads it shortly before it expires.
+ * </p>
+ */
+public final class XFetch {
+
+    // Assumed compute time of entries that have not been timed yet
+    static final long DEFAULT_COMPUTE_TIME_MILLIS = 100;
+
+    private XFetch() {
+    }
+
+    /**
+     * @param nowMillis         the current time
+     * @param expiresAtMillis   when the entry expires
+     * @param computeTimeMillis how long the entry takes to compute, 0 if unknown
+     * @param beta              eagerness, 1 is the optimum of the paper
+     * @param random            a uniformly distributed number in (0, 1]
+     * @return true if this read should recompute the entry
+     */
+    public static boolean shouldRefresh(long nowMillis, long expiresAtMillis, long computeTimeMillis, double beta, double random) {
+        long delta = computeTimeMillis > 0 ? computeTimeMillis : DEFAULT_COMPUTE_TIME_MILLIS;
+        // -ln(random) is exponentially distributed with mean 1
+        return nowMillis - delta * beta * Math.log(random) >= expiresAtMillis;
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.sardul3.io.api_best_practices_boot.cacheWarmup.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Settings for recording hot cache entries and preloading them when a node starts.
+ * <p>
+ * Every node counts the pages and transactions it serves and periodically adds the counts to shared Redis
+ * sorted sets. A starting node loads the most requested ones into the caches before it reports ready.
+ * </p>
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "cache-warmup")
+public class CacheWarmupProperties {
+
+    // Turns recording and warm-up on or off
+    private boolean enabled = true;
+
+    // Number of the most requested pages (filter/sort/page shapes) preloaded on startup
+    private int pages = 50;
+
+    // Number of the most requested transactions preloaded on startup
+    private int transactions = 500;
+
+    // Maximum number of loads running at the same time during warm-up
+    private int concurrency = 4;
+
+    // Upper bound on the warm-up; readiness is reported after it even if loads are still pending
+    private Duration timeout = Duration.ofSeconds(30);
+
+    // How often a node adds its local access counts to Redis
+    private Duration flushInterval = Duration.ofSeconds(30);
+
+    // Number of members each sorted set keeps, the least requested ones beyond it are dropped
+    private int retained = 2000;
+
+    // Number of distinct keys a node counts between two flushes; accesses to further keys are not recorded
+    private int maxTrackedKeys = 10_000;
+}
@@ -0,0 +1,132 @@
+package com.github.sardul3.io.api_best_practices_boot.cacheWarmup.support;
+
+import com.github.sardul3.io.api_best_practices_boot.cacheWarmup.config.CacheWarmupProperties;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts which pages and transactions are requested, to know what to preload on the next startup.
+ * <p>
+ * Accesses are counted in memory and added to the Redis sorted sets {@code warmup:pages} and
+ * {@code warmup:transactions} every flush interval with one pipelined round trip; each set is then trimmed to
+ * its most requested members. Recording never touches Redis on the request path, and when Redis is unavailable
+ * the counts of that interval are dropped.
+ * </p>
+ */
+@Component
+@Slf4j
+public class AccessRecorder {
+
+    static final String PAGES_KEY = "warmup:pages";
+    static final String TRANSACTIONS_KEY = "warmup:transactions";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final CacheWarmupProperties properties;
+
+    private final AtomicReference<Map<String, LongAdder>> pageCounts = new AtomicReference<>(new ConcurrentHashMap<>());
+    private final AtomicReference<Map<String, LongAdder>> transactionCounts = new AtomicReference<>(new ConcurrentHashMap<>());
+    private final ScheduledExecutorService scheduler;
+
+    public AccessRecorder(StringRedisTemplate stringRedisTemplate, CacheWarmupProperties properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-warmup-recorder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (properties.isEnabled()) {
+            long interval = properties.getFlushInterval().toMillis();
+            scheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Records a request for a page of transactions.
+     *
+     * @param filters  the filters of the request
+     * @param pageable the requested page
+     */
+    public void recordPage(List<FilterCriteria> filters, Pageable pageable) {
+        if (properties.isEnabled() && pageable.isPaged()) {
+            increment(pageCounts.get(), new PageShape(filters, pageable).encode());
+        }
+    }
+
+    /**
+     * Records a request for a single transaction.
+     *
+     * @param transactionId the requested transaction
+     */
+    public void recordTransaction(Long transactionId) {
+        if (properties.isEnabled() && transactionId != null) {
+            increment(transactionCounts.get(), transactionId.toString());
+        }
+    }
+
+    /**
+     * Adds the counts collected since the last flush to Redis.
+     */
+    public void flush() {
+        Map<String, LongAdder> pages = pageCounts.getAndSet(new ConcurrentHashMap<>());
+        Map<String, LongAdder> transactions = transactionCounts.getAndSet(new ConcurrentHashMap<>());
+        if (pages.isEmpty() && transactions.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                write(redis, PAGES_KEY, pages);
+                write(redis, TRANSACTIONS_KEY, transactions);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to record {} page and {} transaction accesses for warm-up: {}",
+                    pages.size(), transactions.size(), e.getMessage());
+        }
+    }
+
+    private void write(StringRedisConnection redis, String key, Map<String, LongAdder> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        counts.forEach((member, count) -> redis.zIncrBy(key, count.sum(), member));
+        // Keep only the most requested members (ranks are ascending by score)
+        redis.zRemRange(key, 0, -properties.getRetained() - 1L);
+    }
+
+    private void increment(Map<String, LongAdder> counts, String key) {
+        LongAdder count = counts.get(key);
+        if (count == null) {
+            if (counts.size() >= properties.getMaxTrackedKeys()) {
+                return;
+            }
+            count = counts.computeIfAbsent(key, ignored -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        if (properties.isEnabled()) {
+            // Keep the counts of the last interval
+            flush();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.sardul3.io.api_best_practices_boot.cacheWarmup.support;
+
+import com.github.sardul3.io.api_best_practices_boot.cacheWarmup.config.CacheWarmupProperties;
+import com.github.sardul3.io.api_best_practices_boot.eTags.repos.TransactionRepository;
+import com.github.sardul3.io.api_best_practices_boot.eTags.services.TransactionService;
+import com.github.sardul3.io.api_best_practices_boot.virtualThreads.support.BackgroundThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Preloads the most requested pages and transactions into the caches when the application starts.
+ * <p>
+ * Runs as an {@link ApplicationRunner}, and Spring Boot only switches the readiness state
+ * ({@code /actuator/health/readiness}) to accepting traffic once all runners have completed. A new node of a
+ * rolling deploy therefore only receives traffic once its hot entries are cached (or the warm-up timed out).
+ * </p>
+ * <p>
+ * Loads go through the regular cached service methods, at most {@code cache-warmup.concurrency} at a time,
+ * so entries that are still cached in Redis are just read into the near cache.
+ * </p>
+ */
+@Component
+@Slf4j
+public class CacheWarmer implements ApplicationRunner {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final TransactionService transactionService;
+    private final TransactionRepository transactionRepository;
+    private final CacheWarmupProperties properties;
+    private final Environment environment;
+
+    public CacheWarmer(StringRedisTemplate stringRedisTemplate, TransactionService transactionService,
+                       TransactionRepository transactionRepository, CacheWarmupProperties properties,
+                       Environment environment) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.transactionService = transactionService;
+        this.transactionRepository = transactionRepository;
+        this.properties = properties;
+        this.environment = environment;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        List<Runnable> loads;
+        try {
+            if (transactionRepository.count() == 0) {
+                log.info("Skipping cache warm-up, there are no transactions");
+                return;
+            }
+            loads = plannedLoads();
+        } catch (RuntimeException e) {
+            log.warn("Skipping cache warm-up, the recorded accesses cannot be read: {}", e.getMessage());
+            return;
+        }
+        if (loads.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, properties.getConcurrency()),
+                BackgroundThreads.factory(environment, "cache-warmup-"));
+        for (Runnable load : loads) {
+            executor.execute(() -> {
+                try {
+                    load.run();
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                    log.debug("Cache warm-up load failed: {}", e.getMessage());
+                }
+            });
+        }
+        executor.shutdown();
+        boolean completed = executor.awaitTermination(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        if (!completed) {
+            executor.shutdownNow();
+        }
+        log.info("Cache warm-up of {} entries {} in {} ms, {} failed", loads.size(),
+                completed ? "completed" : "timed out", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                failures.get());
+    }
+
+    // The most requested entries first, so that a timeout cuts off the least valuable loads
+    private List<Runnable> plannedLoads() {
+        List<Runnable> loads = new ArrayList<>();
+        for (String member : topMembers(AccessRecorder.PAGES_KEY, properties.getPages())) {
+            try {
+                PageShape shape = PageShape.decode(member);
+                loads.add(() -> transactionService.getAllTransactionsWithPage(shape.filters(), shape.pageable()));
+            } catch (IllegalArgumentException e) {
+                log.debug("Ignoring unreadable page shape {}: {}", member, e.getMessage());
+            }
+        }
+        for (String member : topMembers(AccessRecorder.TRANSACTIONS_KEY, properties.getTransactions())) {
+            try {
+                Long transactionId = Long.valueOf(member);
+                loads.add(() -> transactionService.getTransactionById(transactionId));
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring unreadable transaction id {}", member);
+            }
+        }
+        return loads;
+    }
+
+    private Set<String> topMembers(String key, int count) {
+        if (count <= 0) {
+            return Set.of();
+        }
+        Set<String> members = stringRedisTemplate.opsForZSet().reverseRange(key, 0, count - 1L);
+        return members == null ? Set.of() : members;
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.sardul3.io.api_best_practices_boot.cacheWarmup.support;
+
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching.PageFilterSortCacheIndex;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A paged query as recorded for warm-up: the filters and the page request it was made with.
+ * <p>
+ * Encoded as {@code page|size|sort|filters} (separated by the ASCII group separator), with the filters in the
+ * format of the {@link PageFilterSortCacheIndex}, so that it can be replayed into the exact same cache key.
+ * </p>
+ */
+public record PageShape(List<FilterCriteria> filters, Pageable pageable) {
+
+    private static final String PART_SEPARATOR = "\u001D";
+    private static final String ORDER_SEPARATOR = ";";
+
+    public String encode() {
+        String sort = pageable.getSort().stream()
+                .map(order -> order.getProperty() + ',' + order.getDirection())
+                .collect(Collectors.joining(ORDER_SEPARATOR));
+        return pageable.getPageNumber() + PART_SEPARATOR + pageable.getPageSize() + PART_SEPARATOR + sort
+                + PART_SEPARATOR + PageFilterSortCacheIndex.encode(filters);
+    }
+
+    /**
+     * @param encoded a value produced by {@link #encode()}
+     * @return the decoded shape
+     * @throws IllegalArgumentException if the value is malformed
+     */
+    public static PageShape decode(String encoded) {
+        String[] parts = encoded.split(PART_SEPARATOR, 4);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Malformed page shape: " + encoded);
+        }
+        List<Sort.Order> orders = new ArrayList<>();
+        if (!parts[2].isEmpty()) {
+            for (String order : parts[2].split(ORDER_SEPARATOR)) {
+                int comma = order.lastIndexOf(',');
+                orders.add(new Sort.Order(Sort.Direction.fromString(order.substring(comma + 1)), order.substring(0, comma)));
+            }
+        }
+        Pageable pageable = PageRequest.of(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Sort.by(orders));
+        return new PageShape(PageFilterSortCacheIndex.decode(parts[3]), pageable);
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.sardul3.io.api_best_practices_boot.changeFeed.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Settings for the transaction change feed, served as pages of deltas and as a Server-Sent Events stream.
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "change-feed")
+public class ChangeFeedProperties {
+
+    // Turns the recording of changes and both endpoints on or off
+    private boolean enabled = true;
+
+    // Number of the most recent changes each node keeps in memory; older ones are read from the database
+    private int bufferSize = 10_000;
+
+    // How often a node looks for changes written by other nodes; its own are picked up immediately
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    // How long changes are kept in the database, zero to keep them forever
+    private Duration retention = Duration.ofDays(7);
+
+    // How often the changes older than the retention are deleted
+    private Duration pruneInterval = Duration.ofHours(1);
+
+    // Maximum number of changes returned or loaded at once
+    private int maxPageSize = 500;
+
+    // Lifetime of a stream, after which clients reconnect with Last-Event-ID
+    private Duration streamTimeout = Duration.ofMinutes(30);
+
+    // How often idle streams get a comment line, so closed connections are noticed
+    private Duration heartbeatInterval = Duration.ofSeconds(30);
+
+    // Threads writing changes to the streams; idle streams hold none
+    private int dispatchThreads = 2;
+}
@@ -0,0 +1,67 @@
+package com.github.sardul3.io.api_best_practices_boot.changeFeed.controllers;
+
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.config.ChangeFeedProperties;
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.models.ChangeFeedPage;
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.services.ChangeFeedBroadcaster;
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.services.ChangeFeedService;
+import com.github.sardul3.io.api_best_practices_boot.logAndMonitor.logging.aspects.EndpointDescribe;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config.RateLimitAndThrottle;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Delta sync for clients that keep a copy of the transactions, instead of polling the whole list.
+ * <p>
+ * {@code GET /api/v2/transactions/changes?since=<seq>} returns the changes after {@code since} and the
+ * {@code next} value to ask with; without {@code since}, it only returns the current sequence to start from.
+ * {@code GET /api/v2/transactions/changes/stream} pushes the changes as Server-Sent Events, starting after
+ * {@code since} or the {@code Last-Event-ID} of a reconnecting client. A {@code RESET} change means every
+ * transaction was deleted, or that the changes after {@code since} are past their retention: the client reloads
+ * the transactions and continues from the {@code RESET}. Both answer 404 NOT_FOUND while {@code change-feed.enabled} is off.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/v2/transactions/changes")
+@Slf4j
+public class ChangeFeedController {
+
+    private final ChangeFeedService changeFeedService;
+    private final ChangeFeedBroadcaster broadcaster;
+    private final ChangeFeedProperties properties;
+
+    public ChangeFeedController(ChangeFeedService changeFeedService, ChangeFeedBroadcaster broadcaster,
+                                ChangeFeedProperties properties) {
+        this.changeFeedService = changeFeedService;
+        this.broadcaster = broadcaster;
+        this.properties = properties;
+    }
+
+    @RateLimitAndThrottle
+    @EndpointDescribe("fetch transaction changes")
+    @GetMapping
+    public ResponseEntity<ChangeFeedPage> getChanges(@RequestParam(required = false) Long since,
+                                                     @RequestParam(defaultValue = "100") int limit) {
+        if (!properties.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        log.debug("getChanges called since {} with limit {}", since, limit);
+        return ResponseEntity.ok(changeFeedService.changesSince(since, limit));
+    }
+
+    @RateLimitAndThrottle
+    @EndpointDescribe("stream transaction changes")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @RequestParam(required = false) Long since) {
+        if (!properties.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        Long start = lastEventId != null ? lastEventId : since;
+        log.debug("streamChanges called since {}", start);
+        return ResponseEntity.ok(broadcaster.subscribe(start));
+    }
+}
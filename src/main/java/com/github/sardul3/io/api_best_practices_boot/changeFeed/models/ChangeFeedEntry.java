@@ -0,0 +1,76 @@
+package com.github.sardul3.io.api_best_practices_boot.changeFeed.models;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChange;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * One change of the transaction change feed: the sequence number it was recorded under and the state of the
+ * transaction after the change, or before it for a deletion.
+ * <p>
+ * Sequence numbers are assigned by {@code ChangeFeedService} without gaps, in the order the changes are committed.
+ * </p>
+ */
+@Entity
+@Getter
+@Setter
+public class ChangeFeedEntry {
+
+    @Id
+    private Long sequence;
+
+    @Enumerated(EnumType.STRING)
+    private ChangeType type;
+
+    private Long transactionId;
+    private String fromAccount;
+    private String toAccount;
+    private Double amount;
+
+    @Enumerated(EnumType.STRING)
+    private Transaction.Status status;
+
+    private Long version;
+    private Instant changedAt;
+
+    /**
+     * @param change a change to a transaction
+     * @return the unsequenced entry of the change
+     */
+    public static ChangeFeedEntry of(TransactionChange change) {
+        ChangeFeedEntry entry = new ChangeFeedEntry();
+        Transaction state;
+        if (change.getBefore() == null) {
+            entry.setType(ChangeType.CREATED);
+            state = change.getAfter();
+        } else if (change.getAfter() == null) {
+            entry.setType(ChangeType.DELETED);
+            state = change.getBefore();
+        } else {
+            entry.setType(ChangeType.UPDATED);
+            state = change.getAfter();
+        }
+        entry.setTransactionId(state.getTransactionId());
+        entry.setFromAccount(state.getFromAccount());
+        entry.setToAccount(state.getToAccount());
+        entry.setAmount(state.getAmount());
+        entry.setStatus(state.getStatus());
+        entry.setVersion(state.getVersion());
+        entry.setChangedAt(Instant.now());
+        return entry;
+    }
+
+    /**
+     * @return the unsequenced entry telling consumers that every transaction was deleted
+     */
+    public static ChangeFeedEntry reset() {
+        ChangeFeedEntry entry = new ChangeFeedEntry();
+        entry.setType(ChangeType.RESET);
+        entry.setChangedAt(Instant.now());
+        return entry;
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.sardul3.io.api_best_practices_boot.changeFeed.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The changes after a sequence number, in sequence order.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChangeFeedPage {
+    private List<ChangeFeedEntry> changes;
+    // The since value of the next request: the sequence of the last change, or since itself if there was none
+    private long next;
+    // True if more changes were available than returned
+    private boolean hasMore;
+}
@@ -0,0 +1,25 @@
+package com.github.sardul3.io.api_best_practices_boot.changeFeed.models;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The last sequence number handed out by a change feed. Its row is locked while changes are recorded, so
+ * sequence numbers are committed in order on every node.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChangeFeedSequence {
+
+    @Id
+    private String feed;
+
+    private long lastSequence;
+}
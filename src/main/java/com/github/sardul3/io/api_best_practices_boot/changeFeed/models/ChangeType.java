@@ -0,0 +1,12 @@
+package com.github.sardul3.io.api_best_practices_boot.changeFeed.models;
+
+/**
+ * What happened to a transaction.
+ */
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    // All transactions were deleted, or the changes asked for were pruned; consumers drop their copy and reload
+    RESET
+}
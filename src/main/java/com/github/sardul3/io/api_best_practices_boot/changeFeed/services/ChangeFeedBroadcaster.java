@@ -0,0 +1,152 @@
+package com.github.sardul3.io.api_best_practices_boot.changeFeed.services;
+
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.config.ChangeFeedProperties;
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.models.ChangeFeedEntry;
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.models.ChangeFeedPage;
+import com.github.sardul3.io.api_best_practices_boot.virtualThreads.support.BackgroundThreads;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes the changes of the {@link ChangeFeedService} to Server-Sent Events streams.
+ * <p>
+ * A stream is an asynchronous request: once subscribed, it holds no servlet thread, only its emitter and the
+ * sequence of the last change it was sent. When the feed advances, every stream that is behind gets a drain task
+ * on a small pool ({@code change-feed.dispatch-threads}), which sends the changes it is missing, in pages, from
+ * the buffer or the database, so a slow or reconnecting stream catches up without holding up the others. Each
+ * change is an event named {@code change} with the sequence as id, so a client resumes with {@code Last-Event-ID}.
+ * </p>
+ * <p>
+ * Metric: {@code transactions.changes.subscribers}.
+ * </p>
+ */
+@Component
+@Slf4j
+public class ChangeFeedBroadcaster {
+
+    private final ChangeFeedService changeFeedService;
+    private final ChangeFeedProperties properties;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService heartbeat;
+
+    public ChangeFeedBroadcaster(ChangeFeedService changeFeedService, ChangeFeedProperties properties,
+                                 MeterRegistry meterRegistry, Environment environment) {
+        this.changeFeedService = changeFeedService;
+        this.properties = properties;
+        this.dispatcher = Executors.newFixedThreadPool(properties.getDispatchThreads(),
+                BackgroundThreads.factory(environment, "change-feed-dispatch-"));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "change-feed-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("transactions.changes.subscribers", subscribers, Set::size)
+                .description("Open change feed streams")
+                .register(meterRegistry);
+        changeFeedService.onAdvance(() -> subscribers.forEach(this::schedule));
+        long interval = properties.getHeartbeatInterval().toMillis();
+        heartbeat.scheduleWithFixedDelay(() -> subscribers.forEach(subscriber -> {
+            subscriber.heartbeatDue = true;
+            schedule(subscriber);
+        }), interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        dispatcher.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * Opens a stream of the changes after a sequence number.
+     *
+     * @param since the sequence of the last change the client has, null to start with the next change
+     * @return the emitter of the stream
+     */
+    public SseEmitter subscribe(Long since) {
+        SseEmitter emitter = new SseEmitter(properties.getStreamTimeout().toMillis());
+        Subscriber subscriber = new Subscriber(emitter, since == null ? changeFeedService.head() : since);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        // Sends what the client missed since its last event
+        schedule(subscriber);
+        return emitter;
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            ChangeFeedPage page;
+            do {
+                page = changeFeedService.changesSince(subscriber.cursor, properties.getMaxPageSize());
+                for (ChangeFeedEntry change : page.getChanges()) {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(Long.toString(change.getSequence()))
+                            .name("change")
+                            .data(change, MediaType.APPLICATION_JSON));
+                    subscriber.cursor = change.getSequence();
+                    subscriber.heartbeatDue = false;
+                }
+            } while (page.isHasMore());
+            if (subscriber.heartbeatDue) {
+                subscriber.heartbeatDue = false;
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the stream timed out
+            log.debug("Closing change feed stream: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.emitter.complete();
+            return;
+        } catch (RuntimeException e) {
+            // Retried with the next change or heartbeat
+            log.warn("Failed to read changes for a change feed stream: {}", e.getMessage());
+            return;
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        // The feed may have advanced while the stream was drained
+        if (subscriber.cursor < changeFeedService.head()) {
+            schedule(subscriber);
+        }
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        // Set while a drain task is queued or running, so a stream is drained by one thread at a time
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // Written by the drain task only
+        private volatile long cursor;
+        private volatile boolean heartbeatDue;
+
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.github.sardul3.io.api_best_practices_boot.changeFeed.services;
+
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.config.ChangeFeedProperties;
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.models.ChangeFeedEntry;
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.models.ChangeFeedPage;
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.models.ChangeFeedSequence;
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.support.ChangeRingBuffer;
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records every transaction write as a sequenced change and serves the changes after a sequence number.
+ * <p>
+ * Changes are stored in the {@code change_feed_entry} table, by the transaction of the write itself (see
+ * {@link #record(List)}), so a change is in the feed if and only if its write committed. Their sequence numbers
+ * come from a row of {@code change_feed_sequence} that stays locked until that commit, so on every node the
+ * numbers are gap-free and committed in order: a reader that has seen a change has seen all before it.
+ * </p>
+ * <p>
+ * Changes older than {@code change-feed.retention} are deleted every {@code change-feed.prune-interval}
+ * ({@code transactions.changes.pruned}). A reader asking for changes that were deleted gets a {@code RESET}
+ * change instead, numbered just before the oldest change left, and reloads the transactions.
+ * </p>
+ * <p>
+ * Each node tails the table into a {@link ChangeRingBuffer} of the last {@code change-feed.buffer-size} changes,
+ * immediately after its own writes and every {@code change-feed.poll-interval} for those of other nodes. Reads
+ * within the buffer cost no query; older ones fall back to the table ({@code transactions.changes.fallback.reads}).
+ * Listeners registered with {@link #onAdvance(Runnable)} are called on the tailing thread whenever the buffer grew.
+ * </p>
+ */
+@Service
+@Slf4j
+public class ChangeFeedService implements ApplicationRunner {
+
+    static final String FEED = "transactions";
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    // Joins the transaction of the write, and refuses to record without one
+    private final TransactionTemplate writeTransaction;
+    private final ChangeFeedProperties properties;
+    private final ChangeRingBuffer buffer;
+    private final Counter fallbackReads;
+    private final Counter pruned;
+    private final ScheduledExecutorService tailer;
+    // Set while a tail triggered by a local write is queued, so bursts of writes share one
+    private final AtomicBoolean tailQueued = new AtomicBoolean();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    // The sequence of the last change loaded into the buffer, written by the tailing thread only
+    private volatile long head;
+    // False until the buffer was positioned at the current sequence
+    private volatile boolean started;
+
+    public ChangeFeedService(EntityManager entityManager, TransactionTemplate transactionTemplate,
+                             ChangeFeedProperties properties, MeterRegistry meterRegistry) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.writeTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_MANDATORY);
+        this.properties = properties;
+        this.buffer = new ChangeRingBuffer(properties.getBufferSize());
+        this.fallbackReads = Counter.builder("transactions.changes.fallback.reads")
+                .description("Change feed reads older than the in-memory buffer, answered from the database")
+                .register(meterRegistry);
+        this.pruned = Counter.builder("transactions.changes.pruned")
+                .description("Changes deleted from the change feed after the retention period")
+                .register(meterRegistry);
+        this.tailer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "change-feed-tailer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (entityManager.find(ChangeFeedSequence.class, FEED) == null) {
+                    entityManager.persist(new ChangeFeedSequence(FEED, 0));
+                }
+            });
+        } catch (RuntimeException e) {
+            // Another node created the row first
+            log.debug("Change feed sequence not created: {}", e.getMessage());
+        }
+        tailer.execute(() -> {
+            ChangeFeedSequence sequence = entityManager.find(ChangeFeedSequence.class, FEED);
+            head = sequence == null ? 0 : sequence.getLastSequence();
+            buffer.reset(head);
+            started = true;
+        });
+        long interval = properties.getPollInterval().toMillis();
+        tailer.scheduleWithFixedDelay(this::tail, interval, interval, TimeUnit.MILLISECONDS);
+        long pruneInterval = properties.getPruneInterval().toMillis();
+        if (properties.getRetention().toMillis() > 0 && pruneInterval > 0) {
+            tailer.scheduleWithFixedDelay(this::runPrune, pruneInterval, pruneInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        tailer.shutdownNow();
+    }
+
+    /**
+     * Records the changes of a write, in the transaction of the write: if recording fails, the write is rolled
+     * back with it. The sequence row stays locked until the write commits, and the new changes are loaded into
+     * the buffer right after.
+     *
+     * @param changes the changes of the write, with the ids and versions they were stored with
+     * @throws org.springframework.transaction.IllegalTransactionStateException if no transaction is active
+     */
+    public void record(List<TransactionChange> changes) {
+        if (properties.isEnabled() && !changes.isEmpty()) {
+            append(changes.stream().map(ChangeFeedEntry::of).toList());
+        }
+    }
+
+    /**
+     * Records that every transaction was deleted, in the transaction that deleted them.
+     *
+     * @throws org.springframework.transaction.IllegalTransactionStateException if no transaction is active
+     */
+    public void recordReset() {
+        if (properties.isEnabled()) {
+            append(List.of(ChangeFeedEntry.reset()));
+        }
+    }
+
+    /**
+     * @param since the sequence of the last change the caller has, null to only learn the current sequence
+     * @param limit the maximum number of changes, lowered to {@code change-feed.max-page-size}
+     * @return the changes after {@code since}
+     */
+    public ChangeFeedPage changesSince(Long since, int limit) {
+        if (since == null) {
+            return new ChangeFeedPage(List.of(), head, false);
+        }
+        int pageSize = Math.max(1, Math.min(limit, properties.getMaxPageSize()));
+        // One change more than requested tells whether there are more
+        List<ChangeFeedEntry> changes = buffer.since(since, pageSize + 1);
+        if (changes == null) {
+            fallbackReads.increment();
+            changes = load(since, pageSize + 1);
+            long oldest = changes.isEmpty() ? head + 1 : changes.getFirst().getSequence();
+            if (oldest > since + 1) {
+                // The changes right after since were pruned, the caller has to start over
+                ChangeFeedEntry reset = ChangeFeedEntry.reset();
+                reset.setSequence(oldest - 1);
+                List<ChangeFeedEntry> withReset = new ArrayList<>(changes.size() + 1);
+                withReset.add(reset);
+                withReset.addAll(changes);
+                changes = withReset;
+            }
+        }
+        boolean hasMore = changes.size() > pageSize;
+        if (hasMore) {
+            changes = changes.subList(0, pageSize);
+        }
+        long next = changes.isEmpty() ? since : changes.getLast().getSequence();
+        return new ChangeFeedPage(changes, next, hasMore);
+    }
+
+    /**
+     * @return the sequence of the last change this node has loaded
+     */
+    public long head() {
+        return head;
+    }
+
+    /**
+     * @param listener called on the tailing thread whenever new changes were loaded
+     */
+    public void onAdvance(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Deletes the changes older than the retention period.
+     *
+     * @return the number of deleted changes
+     */
+    int prune() {
+        Instant cutoff = Instant.now().minus(properties.getRetention());
+        Integer deleted = transactionTemplate.execute(status -> entityManager
+                .createQuery("delete from ChangeFeedEntry e where e.changedAt < :cutoff")
+                .setParameter("cutoff", cutoff)
+                .executeUpdate());
+        int count = deleted == null ? 0 : deleted;
+        pruned.increment(count);
+        return count;
+    }
+
+    private void runPrune() {
+        try {
+            int count = prune();
+            if (count > 0) {
+                log.info("Pruned {} changes older than {} from the change feed", count, properties.getRetention());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to prune the change feed: {}", e.getMessage());
+        }
+    }
+
+    private void append(List<ChangeFeedEntry> entries) {
+        writeTransaction.executeWithoutResult(status -> {
+            // Held until the write commits, so the next writer on any node numbers its changes after these
+            ChangeFeedSequence sequence = entityManager.find(ChangeFeedSequence.class, FEED,
+                    LockModeType.PESSIMISTIC_WRITE);
+            long last = sequence.getLastSequence();
+            for (ChangeFeedEntry entry : entries) {
+                entry.setSequence(++last);
+                entityManager.persist(entry);
+            }
+            sequence.setLastSequence(last);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        tailSoon();
+                    }
+                });
+            }
+        });
+    }
+
+    private void tailSoon() {
+        if (tailQueued.compareAndSet(false, true)) {
+            tailer.execute(() -> {
+                tailQueued.set(false);
+                tail();
+            });
+        }
+    }
+
+    private void tail() {
+        if (!started) {
+            return;
+        }
+        long previousHead = head;
+        try {
+            List<ChangeFeedEntry> changes;
+            do {
+                changes = load(head, properties.getMaxPageSize());
+                changes.forEach(buffer::add);
+                if (!changes.isEmpty()) {
+                    head = changes.getLast().getSequence();
+                }
+            } while (changes.size() == properties.getMaxPageSize());
+        } catch (RuntimeException e) {
+            log.warn("Failed to load new changes of the change feed: {}", e.getMessage());
+        }
+        if (head != previousHead) {
+            listeners.forEach(Runnable::run);
+        }
+    }
+
+    private List<ChangeFeedEntry> load(long since, int limit) {
+        return entityManager.createQuery(
+                        "select e from ChangeFeedEntry e where e.sequence > :since order by e.sequence",
+                        ChangeFeedEntry.class)
+                .setParameter("since", since)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.sardul3.io.api_best_practices_boot.changeFeed.support;
+
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.models.ChangeFeedEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The most recent changes of the feed, in a fixed-size array indexed by sequence number.
+ * <p>
+ * The buffer holds a gap-free range of sequence numbers: adding the next one overwrites the oldest once the
+ * buffer is full. A read is answered only if the buffer holds every change after the requested sequence number,
+ * otherwise the caller has to go to the database.
+ * </p>
+ * <p>
+ * Guarded by a {@link ReentrantLock} rather than {@code synchronized}: readers run on request threads, which may
+ * be virtual threads, and waiting on a monitor would pin them to their carrier.
+ * </p>
+ */
+public class ChangeRingBuffer {
+
+    private final ChangeFeedEntry[] entries;
+    private final ReentrantLock lock = new ReentrantLock();
+    // The sequence of the oldest change held and the sequence the next change must have
+    private long first = Long.MAX_VALUE;
+    private long next = Long.MAX_VALUE;
+
+    public ChangeRingBuffer(int capacity) {
+        this.entries = new ChangeFeedEntry[capacity];
+    }
+
+    /**
+     * Empties the buffer, the next change added must follow the given sequence number. Until the first call,
+     * the buffer answers no read.
+     *
+     * @param head the sequence of the last change recorded so far
+     */
+    public void reset(long head) {
+        lock.lock();
+        try {
+            Arrays.fill(entries, null);
+            first = head + 1;
+            next = head + 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the next change. If sequence numbers were skipped, the buffer starts over at the change, as it can no
+     * longer answer reads before it.
+     *
+     * @param entry the change, with its sequence number
+     */
+    public void add(ChangeFeedEntry entry) {
+        long sequence = entry.getSequence();
+        lock.lock();
+        try {
+            if (sequence < next && next != Long.MAX_VALUE) {
+                // Already held
+                return;
+            }
+            if (sequence != next) {
+                Arrays.fill(entries, null);
+                first = sequence;
+            }
+            entries[index(sequence)] = entry;
+            next = sequence + 1;
+            if (next - first > entries.length) {
+                first = next - entries.length;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param since the sequence of the last change the caller has
+     * @param limit the maximum number of changes to return
+     * @return the changes after {@code since} in sequence order, or null if the buffer does not hold all of them
+     */
+    public List<ChangeFeedEntry> since(long since, int limit) {
+        lock.lock();
+        try {
+            if (next == Long.MAX_VALUE || since + 1 < first) {
+                return null;
+            }
+            List<ChangeFeedEntry> changes = new ArrayList<>(Math.max(0, (int) Math.min(limit, next - since - 1)));
+            for (long sequence = since + 1; sequence < next && changes.size() < limit; sequence++) {
+                changes.add(entries[index(sequence)]);
+            }
+            return changes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int index(long sequence) {
+        return (int) Math.floorMod(sequence, (long) entries.length);
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings for how cache values are stored in Redis.
+ * <p>
+ * Both formats can read entries written as JSON. Switching from {@link Format#BINARY} back to {@link Format#JSON}
+ * leaves binary entries unreadable until they expire, so roll back by flushing the caches or waiting out the TTL.
+ * </p>
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "cache-serialization")
+public class CacheSerializationProperties {
+
+    public enum Format {
+        // Compact schema-aware encoding of transactions, lists and pages, JSON for anything else
+        BINARY,
+        // Jackson JSON with type hints for every value
+        JSON
+    }
+
+    private Format format = Format.BINARY;
+
+    // Binary values larger than this many bytes are LZ4-compressed, -1 disables compression
+    private int compressionThreshold = 1024;
+}
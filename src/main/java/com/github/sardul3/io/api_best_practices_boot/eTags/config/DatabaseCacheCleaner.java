@@ -42,6 +42,8 @@ public class DatabaseCacheCleaner {
             cacheManager.getCache("transactionCache").clear();
             cacheManager.getCache("transactionsCache").clear();
             cacheManager.getCache("transactionsPFSCache").clear();
+            cacheManager.getCache("transactionsCountCache").clear();
+            cacheManager.getCache("transactionsSummaryCache").clear();
 
             log.warn("Cache cleared as the database is empty on application startup");
         }
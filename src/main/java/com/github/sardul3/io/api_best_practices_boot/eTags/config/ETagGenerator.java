@@ -1,93 +1,121 @@
 package com.github.sardul3.io.api_best_practices_boot.eTags.config;
 
+import com.github.sardul3.io.api_best_practices_boot.eTags.hashing.ETagHashAlgorithm;
+import com.github.sardul3.io.api_best_practices_boot.eTags.hashing.ETagHasher;
 import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
 import io.micrometer.observation.annotation.Observed;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.Formatter;
 import java.util.List;
-import java.util.stream.Collectors;
 
 
 /**
- * Utility class for generating eTags for transactions based on their state.
+ * Generates eTags for transactions based on their state.
  * <p>
- * eTags are generated using the MD5 hash of specific transaction fields, ensuring
+ * eTags are generated by hashing specific transaction fields, ensuring
  * that each eTag uniquely identifies the state of a transaction or list of transactions.
+ * The fields are streamed into an {@link ETagHasher}, so no concatenated string
+ * is built for large lists. The bean is created by {@link ETagHashingConfig} with the hash function
+ * configured through {@code etag.hash-algorithm}.
  * </p>
  */
 public class ETagGenerator {
 
+    private final ETagHashAlgorithm hashAlgorithm;
+
     /**
-     * Generates an eTag for a list of transactions by concatenating transaction IDs and
-     * the total number of transactions. The concatenated string is hashed using MD5.
+     * @param hashAlgorithm the hash function all eTags are generated with
+     */
+    public ETagGenerator(ETagHashAlgorithm hashAlgorithm) {
+        this.hashAlgorithm = hashAlgorithm;
+    }
+
+    public ETagHashAlgorithm getHashAlgorithm() {
+        return hashAlgorithm;
+    }
+
+    /**
+     * Generates an eTag for a list of transactions by hashing the key fields of every transaction
+     * followed by the total number of transactions.
      *
      * @param transactions the list of transactions to generate the eTag for
-     * @return the MD5 hash of the concatenated transaction data, used as the eTag
+     * @return the hash of the transaction data, used as the eTag
      */
     @Observed
-    public static String generateETag(List<Transaction> transactions) {
-        // Combine transaction IDs and the total number of transactions to ensure uniqueness
-        String combinedTransactions = transactions.stream()
-                .map(transaction -> transaction.getTransactionId() + transaction.getFromAccount() +
-                        transaction.getToAccount() + transaction.getAmount() + transaction.getStatus().toString())
-                .collect(Collectors.joining()) + transactions.size();
-
-        // Generate MD5 hash of the combined string
-        return getMD5Hash(combinedTransactions);
+    public String generateETag(List<Transaction> transactions) {
+        ETagHasher hasher = hashAlgorithm.hasher();
+        for (Transaction transaction : transactions) {
+            putTransaction(hasher, transaction);
+        }
+        // Include the total number of transactions to ensure uniqueness
+        return hasher.putInt(transactions.size()).finishHex();
     }
 
     /**
-     * Generates an eTag for a single transaction by concatenating its key fields (transactionId,
-     * fromAccount, toAccount, amount, and status). The concatenated string is hashed using MD5.
+     * Generates an eTag for a single transaction by hashing its key fields (transactionId,
+     * fromAccount, toAccount, amount, and status).
      *
      * @param transaction the transaction to generate the eTag for
-     * @return the MD5 hash of the concatenated transaction data, used as the eTag
+     * @return the hash of the transaction data, used as the eTag
      */
-    public static String generateETagForTransaction(Transaction transaction) {
-        // Concatenate important fields to ensure the eTag is unique to the transaction's state
-        String transactionData = transaction.getTransactionId() + transaction.getFromAccount() +
-                transaction.getToAccount() + transaction.getAmount() + transaction.getStatus();
-
-        // Generate MD5 hash of the concatenated string
-        return getMD5Hash(transactionData);
+    public String generateETagForTransaction(Transaction transaction) {
+        ETagHasher hasher = hashAlgorithm.hasher();
+        putTransaction(hasher, transaction);
+        return hasher.finishHex();
     }
 
     /**
-     * Generates an MD5 hash from the given input string.
+     * Generates an eTag for a collection from a version token of the underlying data and the shape of the request.
+     * Unlike {@link #generateETag(List)} this does not need the collection itself, so it can be computed before
+     * (or instead of) loading it.
      *
-     * @param input the input string to hash
-     * @return the hexadecimal representation of the MD5 hash
-     * @throws RuntimeException if the MD5 algorithm is not found
+     * @param version      a token that changes whenever the data the collection is drawn from changes
+     * @param requestShape everything else that determines the response, such as filters, paging and sorting
+     * @return the hash of the version and the request shape, used as the eTag
      */
-    private static String getMD5Hash(String input) {
-        try {
-            // Get the MD5 digest instance
-            MessageDigest md = MessageDigest.getInstance("MD5");
-
-            // Calculate the digest (hash)
-            byte[] digest = md.digest(input.getBytes());
-
-            // Convert the byte array into a hex string
-            return byteArrayToHexString(digest);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("MD5 algorithm not found", e);
-        }
+    public String generateCollectionETag(String version, String requestShape) {
+        return hashAlgorithm.hasher().putString(version).putString(requestShape).finishHex();
     }
 
     /**
-     * Converts a byte array into its corresponding hexadecimal string.
+     * Evaluates an {@code If-None-Match} header against the current eTag of a resource (RFC 9110, section 13.1.2).
+     * <p>
+     * The header may hold {@code *} or a comma separated list of quoted, possibly weak ({@code W/}) eTags.
+     * Comparison is weak, as required for {@code If-None-Match}, and unquoted values are accepted as well
+     * to stay lenient with clients that strip the quotes.
+     * </p>
      *
-     * @param bytes the byte array to convert
-     * @return the hexadecimal string representation of the byte array
+     * @param ifNoneMatch the header value sent by the client, may be null
+     * @param eTag        the current eTag of the resource, without quotes
+     * @return true if the client's copy is current and a 304 NOT_MODIFIED can be returned
      */
-    private static String byteArrayToHexString(byte[] bytes) {
-        Formatter formatter = new Formatter();
-        for (byte b : bytes) {
-            formatter.format("%02x", b);
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
         }
-        return formatter.toString();
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                tag = tag.substring(1, tag.length() - 1);
+            }
+            if (tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
     }
-}
 
+    // Feeds the fields that make up the state of a transaction, in a fixed order
+    private static void putTransaction(ETagHasher hasher, Transaction transaction) {
+        hasher.putLong(transaction.getTransactionId())
+                .putString(transaction.getFromAccount())
+                .putString(transaction.getToAccount())
+                .putDouble(transaction.getAmount())
+                .putString(transaction.getStatus() == null ? null : transaction.getStatus().name());
+    }
+}
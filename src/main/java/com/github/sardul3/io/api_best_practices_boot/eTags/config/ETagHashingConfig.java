@@ -0,0 +1,25 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.config;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.hashing.ETagHashAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the {@link ETagGenerator} with the configured {@code etag.hash-algorithm}.
+ * <p>
+ * Changing the algorithm changes every eTag once, so clients simply receive a full response on their next
+ * conditional request.
+ * </p>
+ */
+@Configuration
+@Slf4j
+public class ETagHashingConfig {
+
+    @Bean
+    public ETagGenerator eTagGenerator(@Value("${etag.hash-algorithm:MD5}") ETagHashAlgorithm hashAlgorithm) {
+        log.info("Generating eTags with {}", hashAlgorithm);
+        return new ETagGenerator(hashAlgorithm);
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.sardul3.io.api_best_practices_boot.eTags.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.sardul3.io.api_best_practices_boot.eTags.serialization.TransactionCacheSerializer;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -15,8 +16,9 @@ import java.time.Duration;
 /**
  * Configuration class for customizing Redis caching in the application.
  * <p>
- * This class enables caching and configures Redis to serialize cache values using
- * Jackson's JSON serializer for better readability and compatibility across different platforms.
+ * This class enables caching and configures Redis to serialize cache values using either a compact
+ * binary format for the transaction types or Jackson's JSON serializer for better readability,
+ * depending on {@code cache-serialization.format}.
  * </p>
  */
 @Configuration
@@ -24,22 +26,29 @@ import java.time.Duration;
 public class RedisDataFormatConfig {
 
     /**
-     * Configures the Redis cache to use JSON serialization for cache values.
+     * Configures the Redis cache serialization for cache values.
      * <p>
      * The use of {@link GenericJackson2JsonRedisSerializer} ensures that the cache data is
      * stored in a readable and structured format, making it easier to debug and maintain compatibility.
+     * The Java time module is registered so that {@code Transaction.updatedAt} can be cached.
+     * With the binary format, {@link TransactionCacheSerializer} writes transactions, lists and pages itself
+     * and falls back to the JSON serializer for everything else, including entries written as JSON earlier.
      * </p>
      *
-     * @return the RedisCacheConfiguration with JSON serialization for cache values
+     * @param serializationProperties the configured cache value format
+     * @return the RedisCacheConfiguration with the configured serialization for cache values
      */
     @Bean
-    public RedisCacheConfiguration cacheConfiguration() {
+    public RedisCacheConfiguration cacheConfiguration(CacheSerializationProperties serializationProperties) {
+        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer()
+                .configure(mapper -> mapper.registerModule(new JavaTimeModule()));
+        RedisSerializer<Object> valueSerializer = serializationProperties.getFormat() == CacheSerializationProperties.Format.BINARY
+                ? new TransactionCacheSerializer(jsonSerializer, serializationProperties.getCompressionThreshold())
+                : jsonSerializer;
         return RedisCacheConfiguration.defaultCacheConfig()
                 // Set the TTL to 3 minutes (180 seconds)
                 .entryTtl(Duration.ofMinutes(3))
-                .serializeValuesWith(
-                        RedisSerializationContext.SerializationPair
-                                .fromSerializer(new GenericJackson2JsonRedisSerializer()));
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer));
     }
 }
 
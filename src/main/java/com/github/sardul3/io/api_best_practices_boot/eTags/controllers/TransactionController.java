@@ -1,10 +1,14 @@
 package com.github.sardul3.io.api_best_practices_boot.eTags.controllers;
 
+import com.github.sardul3.io.api_best_practices_boot.cacheWarmup.support.AccessRecorder;
 import com.github.sardul3.io.api_best_practices_boot.eTags.config.ETagGenerator;
+import com.github.sardul3.io.api_best_practices_boot.eTags.web.CurrentRequest;
 import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.eTags.services.CollectionVersionService;
 import com.github.sardul3.io.api_best_practices_boot.eTags.services.TransactionService;
 import com.github.sardul3.io.api_best_practices_boot.hateoas.config.HATEOASHelper;
 import com.github.sardul3.io.api_best_practices_boot.logAndMonitor.logging.aspects.EndpointDescribe;
+import com.github.sardul3.io.api_best_practices_boot.nearCache.cache.NearCacheBypass;
 import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config.RateLimit;
 import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config.RateLimitAndThrottle;
 import io.micrometer.observation.annotation.Observed;
@@ -33,10 +37,18 @@ public class TransactionController {
 
     private final TransactionService transactionService;
     private final CacheManager cacheManager;
+    private final CollectionVersionService collectionVersionService;
+    private final AccessRecorder accessRecorder;
+    private final ETagGenerator eTagGenerator;
 
-    public TransactionController(TransactionService transactionService, CacheManager cacheManager) {
+    public TransactionController(TransactionService transactionService, CacheManager cacheManager,
+                                 CollectionVersionService collectionVersionService, AccessRecorder accessRecorder,
+                                 ETagGenerator eTagGenerator) {
         this.transactionService = transactionService;
         this.cacheManager = cacheManager;
+        this.collectionVersionService = collectionVersionService;
+        this.accessRecorder = accessRecorder;
+        this.eTagGenerator = eTagGenerator;
     }
 
     /**
@@ -58,7 +70,11 @@ public class TransactionController {
 
     /**
      * Retrieves a list of transactions, optionally filtered by 'from' and 'to' account.
-     * This method also generates an eTag based on the content of the returned transactions to optimize subsequent requests.
+     * <p>
+     * The eTag is derived from the change counter of the narrowest account partition (see {@link CollectionVersionService}),
+     * so a matching {@code If-None-Match} or a HEAD request is answered without loading the transactions.
+     * If versioned eTags are unavailable, the eTag is generated from the content of the returned transactions.
+     * </p>
      *
      * @param from the account initiating the transaction (optional)
      * @param to the account receiving the transaction (optional)
@@ -73,11 +89,28 @@ public class TransactionController {
             @RequestParam(required = false, defaultValue = "") String to,
             @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         log.debug("Fetching transactions with optional filters: fromAccount={}, toAccount={}", from, to);
+        // Read the version before the query, so a concurrent write can only make the eTag look older than the data
+        String eTag = collectionVersionService.collectionETag(from.isEmpty() ? to : from, "v1:" + from + '_' + to);
+        if (eTag != null) {
+            log.debug("Generated versioned eTag for the transactions list: {}", eTag);
+            if (ETagGenerator.matches(ifNoneMatch, eTag)) {
+                log.debug("eTag match found. Returning 304 NOT_MODIFIED without loading transactions");
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            if (CurrentRequest.isHeadRequest()) {
+                return ResponseEntity.ok().eTag(eTag).build();
+            }
+            // The eTag is as current as Redis, which this node's near cache may not have caught up with
+            List<Transaction> transactions = NearCacheBypass.call(() -> transactionService.getAllTransactions(from, to));
+            log.debug("Fetched {} transactions from the database", transactions.size());
+            return ResponseEntity.ok().eTag(eTag).body(transactions);
+        }
+
         List<Transaction> transactions = transactionService.getAllTransactions(from, to);
         log.debug("Fetched {} transactions from the database", transactions.size());
-        String eTag = ETagGenerator.generateETag(transactions);
+        eTag = eTagGenerator.generateETag(transactions);
         log.debug("Generated eTag for the transactions list: {}", eTag);
-        if (ifNoneMatch != null && ifNoneMatch.equals(eTag)) {
+        if (ETagGenerator.matches(ifNoneMatch, eTag)) {
             log.debug("eTag match found. Returning 304 NOT_MODIFIED");
             return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
         }
@@ -111,11 +144,12 @@ public class TransactionController {
             log.warn("Transaction with ID {} not found", id);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
+        accessRecorder.recordTransaction(id);
         // Generate a custom eTag using a hash based on transaction fields
-        String eTag = ETagGenerator.generateETagForTransaction(transaction.get());
+        String eTag = eTagGenerator.generateETagForTransaction(transaction.get());
         log.debug("Generated eTag for transaction with ID {}: {}", id, eTag);
 
-        if (ifNoneMatch != null && ifNoneMatch.equals(eTag)) {
+        if (ETagGenerator.matches(ifNoneMatch, eTag)) {
             log.debug("eTag match found for transaction with ID {}. Returning 304 NOT_MODIFIED", id);
             return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
         }
@@ -141,7 +175,7 @@ public class TransactionController {
         Transaction updatedTransaction = transactionService.updateTransactionStatus(id, newStatus);
         log.debug("Transaction ID {} status updated to {}", id, newStatus);
         // Generate eTag for the updated transaction
-        String eTag = ETagGenerator.generateETagForTransaction(updatedTransaction);
+        String eTag = eTagGenerator.generateETagForTransaction(updatedTransaction);
         log.debug("Generated eTag for updated transaction with ID {}: {}", id, eTag);
 
         return ResponseEntity.ok().eTag(eTag).body(updatedTransaction);
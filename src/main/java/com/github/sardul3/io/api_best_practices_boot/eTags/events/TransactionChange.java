@@ -0,0 +1,73 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.events;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single change to a transaction, described by its state before and after the write.
+ * <p>
+ * {@code before} is null for a newly created transaction and {@code after} is null for a deleted one.
+ * Both states are detached copies, so listeners can keep them without seeing later modifications.
+ * </p>
+ */
+@Getter
+public class TransactionChange {
+
+    private final Transaction before;
+    private final Transaction after;
+
+    private TransactionChange(Transaction before, Transaction after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    public static TransactionChange created(Transaction after) {
+        return new TransactionChange(null, snapshot(after));
+    }
+
+    public static TransactionChange updated(Transaction before, Transaction after) {
+        return new TransactionChange(before, snapshot(after));
+    }
+
+    public static TransactionChange deleted(Transaction before) {
+        return new TransactionChange(before, null);
+    }
+
+    /**
+     * @return the states of this change that exist, i.e. before and/or after
+     */
+    public List<Transaction> states() {
+        List<Transaction> states = new ArrayList<>(2);
+        if (before != null) {
+            states.add(before);
+        }
+        if (after != null) {
+            states.add(after);
+        }
+        return states;
+    }
+
+    /**
+     * Copies the persistent fields of a transaction so that later changes to the entity do not leak into the event.
+     *
+     * @param transaction the transaction to copy
+     * @return a detached copy, or null if the transaction is null
+     */
+    public static Transaction snapshot(Transaction transaction) {
+        if (transaction == null) {
+            return null;
+        }
+        Transaction copy = new Transaction();
+        copy.setTransactionId(transaction.getTransactionId());
+        copy.setFromAccount(transaction.getFromAccount());
+        copy.setToAccount(transaction.getToAccount());
+        copy.setAmount(transaction.getAmount());
+        copy.setStatus(transaction.getStatus());
+        copy.setVersion(transaction.getVersion());
+        copy.setUpdatedAt(transaction.getUpdatedAt());
+        return copy;
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.events;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Published by the transaction service after one or more transactions were written.
+ * <p>
+ * Listeners run synchronously on the writing thread, so anything they invalidate is already gone
+ * by the time the write request returns to the client.
+ * </p>
+ */
+@Getter
+public class TransactionChangedEvent {
+
+    private final List<TransactionChange> changes;
+
+    public TransactionChangedEvent(List<TransactionChange> changes) {
+        this.changes = List.copyOf(changes);
+    }
+
+    public static TransactionChangedEvent of(TransactionChange change) {
+        return new TransactionChangedEvent(List.of(change));
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.hashing;
+
+import java.util.function.Supplier;
+
+/**
+ * The hash functions eTags can be generated with, selected through {@code etag.hash-algorithm}.
+ * <p>
+ * Every eTag gets a new {@link ETagHasher}: a hasher is small (a 256 byte buffer and the hash state), and
+ * per-thread reuse would be lost anyway on virtual threads, which run a single request each.
+ * </p>
+ */
+public enum ETagHashAlgorithm {
+
+    // 128-bit cryptographic digest, the historical default
+    MD5(Md5ETagHasher::new),
+    // 64-bit non-cryptographic hash, the fastest option
+    XXHASH64(XxHash64ETagHasher::new),
+    // 128-bit non-cryptographic hash
+    MURMUR3_128(Murmur3ETagHasher::new);
+
+    private final Supplier<ETagHasher> factory;
+
+    ETagHashAlgorithm(Supplier<ETagHasher> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @return a new hasher that the caller owns
+     */
+    public ETagHasher hasher() {
+        return factory.get();
+    }
+}
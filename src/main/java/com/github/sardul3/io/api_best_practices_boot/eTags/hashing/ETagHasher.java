@@ -0,0 +1,196 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.hashing;
+
+import java.util.HexFormat;
+
+/**
+ * Incremental hasher that eTag fields are fed into one by one, without building intermediate strings.
+ * <p>
+ * Fields are encoded into a small internal buffer in a fixed binary layout (little-endian numbers, UTF-8 text
+ * prefixed with its length, a marker for null) and handed to the underlying hash function in whole blocks
+ * whenever the buffer fills up. The length prefixes keep adjacent fields apart, so {@code ("ab", "c")} and
+ * {@code ("a", "bc")} hash differently.
+ * </p>
+ * <p>
+ * Instances are not thread-safe; {@link ETagHashAlgorithm#hasher()} hands out a new instance per use.
+ * </p>
+ */
+public abstract class ETagHasher {
+
+    private static final int BUFFER_SIZE = 256;
+    private static final int NULL_LENGTH = -1;
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final int blockSize;
+    private int position;
+    private long processedLength;
+
+    /**
+     * @param blockSize the number of bytes the hash function consumes at a time, must divide 256
+     */
+    protected ETagHasher(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    public ETagHasher putByte(byte value) {
+        ensureCapacity(1);
+        buffer[position++] = value;
+        return this;
+    }
+
+    public ETagHasher putInt(int value) {
+        ensureCapacity(4);
+        for (int i = 0; i < 4; i++) {
+            buffer[position++] = (byte) (value >>> (8 * i));
+        }
+        return this;
+    }
+
+    public ETagHasher putLong(long value) {
+        ensureCapacity(8);
+        for (int i = 0; i < 8; i++) {
+            buffer[position++] = (byte) (value >>> (8 * i));
+        }
+        return this;
+    }
+
+    public ETagHasher putLong(Long value) {
+        return value == null ? putByte((byte) 0) : putByte((byte) 1).putLong(value.longValue());
+    }
+
+    public ETagHasher putDouble(double value) {
+        return putLong(Double.doubleToLongBits(value));
+    }
+
+    public ETagHasher putDouble(Double value) {
+        return value == null ? putByte((byte) 0) : putByte((byte) 1).putDouble(value.doubleValue());
+    }
+
+    /**
+     * Feeds a text field: its length in chars followed by its UTF-8 encoding, or a null marker.
+     *
+     * @param value the text, may be null
+     * @return this hasher
+     */
+    public ETagHasher putString(CharSequence value) {
+        if (value == null) {
+            return putInt(NULL_LENGTH);
+        }
+        putInt(value.length());
+        return putUtf8(value);
+    }
+
+    /**
+     * Feeds the UTF-8 encoding of the text as is, without a length prefix. Encodes straight into the
+     * internal buffer, so no byte array is allocated for the text.
+     *
+     * @param value the text
+     * @return this hasher
+     */
+    public ETagHasher putUtf8(CharSequence value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                ensureCapacity(1);
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                ensureCapacity(2);
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensureCapacity(4);
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, encoded as '?' like String.getBytes(UTF_8) does
+                ensureCapacity(1);
+                buffer[position++] = '?';
+            } else {
+                ensureCapacity(3);
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Completes the hash and resets the hasher for the next use.
+     *
+     * @return the digest
+     */
+    public byte[] finish() {
+        byte[] digest = finish(buffer, position, processedLength + position);
+        reset();
+        return digest;
+    }
+
+    /**
+     * Completes the hash and resets the hasher for the next use.
+     *
+     * @return the lowercase hexadecimal representation of the digest
+     */
+    public String finishHex() {
+        return HEX.formatHex(finish());
+    }
+
+    /**
+     * Discards everything fed so far.
+     */
+    public void reset() {
+        position = 0;
+        processedLength = 0;
+        resetState();
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (position + bytes > BUFFER_SIZE) {
+            // Hand over the whole blocks and keep the partial one at the start of the buffer
+            int whole = position - position % blockSize;
+            processBlocks(buffer, whole);
+            System.arraycopy(buffer, whole, buffer, 0, position - whole);
+            position -= whole;
+            processedLength += whole;
+        }
+    }
+
+    /**
+     * Consumes {@code length} bytes from the start of {@code data}; {@code length} is a multiple of the block size.
+     */
+    protected abstract void processBlocks(byte[] data, int length);
+
+    /**
+     * Consumes the remaining {@code length} bytes (possibly several blocks plus a partial one) and produces the digest.
+     *
+     * @param totalLength the number of bytes fed since the last reset, including the remaining ones
+     */
+    protected abstract byte[] finish(byte[] data, int length, long totalLength);
+
+    /**
+     * Restores the initial state of the hash function.
+     */
+    protected abstract void resetState();
+
+    static long readLongLE(byte[] data, int offset) {
+        return (data[offset] & 0xFFL)
+                | (data[offset + 1] & 0xFFL) << 8
+                | (data[offset + 2] & 0xFFL) << 16
+                | (data[offset + 3] & 0xFFL) << 24
+                | (data[offset + 4] & 0xFFL) << 32
+                | (data[offset + 5] & 0xFFL) << 40
+                | (data[offset + 6] & 0xFFL) << 48
+                | (data[offset + 7] & 0xFFL) << 56;
+    }
+
+    static int readIntLE(byte[] data, int offset) {
+        return (data[offset] & 0xFF)
+                | (data[offset + 1] & 0xFF) << 8
+                | (data[offset + 2] & 0xFF) << 16
+                | (data[offset + 3] & 0xFF) << 24;
+    }
+}
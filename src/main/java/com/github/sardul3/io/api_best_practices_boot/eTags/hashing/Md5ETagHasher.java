@@ -0,0 +1,38 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.hashing;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * {@link ETagHasher} backed by the JDK's MD5 {@link MessageDigest}, kept for compatibility with clients or caches
+ * that expect 128-bit MD5 eTags.
+ */
+public class Md5ETagHasher extends ETagHasher {
+
+    private final MessageDigest digest;
+
+    public Md5ETagHasher() {
+        super(1);
+        try {
+            this.digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 algorithm not found", e);
+        }
+    }
+
+    @Override
+    protected void processBlocks(byte[] data, int length) {
+        digest.update(data, 0, length);
+    }
+
+    @Override
+    protected byte[] finish(byte[] data, int length, long totalLength) {
+        digest.update(data, 0, length);
+        return digest.digest();
+    }
+
+    @Override
+    protected void resetState() {
+        digest.reset();
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.hashing;
+
+/**
+ * {@link ETagHasher} implementing the 128-bit MurmurHash3 (x64 variant) with seed 0.
+ * <p>
+ * A non-cryptographic hash with the same width as MD5, for deployments that want the wider eTag without the cost
+ * of a cryptographic digest. The digest is the two 64-bit halves in little-endian order, as produced by the
+ * reference implementation.
+ * </p>
+ */
+public class Murmur3ETagHasher extends ETagHasher {
+
+    private static final long C1 = 0x87C37B91114253D5L;
+    private static final long C2 = 0x4CF5AD432745937FL;
+    private static final int BLOCK = 16;
+
+    private long h1;
+    private long h2;
+
+    public Murmur3ETagHasher() {
+        super(BLOCK);
+    }
+
+    @Override
+    protected void processBlocks(byte[] data, int length) {
+        for (int offset = 0; offset < length; offset += BLOCK) {
+            h1 ^= mixK1(readLongLE(data, offset));
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52DCE729;
+
+            h2 ^= mixK2(readLongLE(data, offset + 8));
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495AB5;
+        }
+    }
+
+    @Override
+    protected byte[] finish(byte[] data, int length, long totalLength) {
+        int whole = length - length % BLOCK;
+        processBlocks(data, whole);
+
+        int tail = length - whole;
+        if (tail > 0) {
+            long k1 = 0;
+            long k2 = 0;
+            for (int i = tail - 1; i >= 8; i--) {
+                k2 = (k2 << 8) | (data[whole + i] & 0xFFL);
+            }
+            for (int i = Math.min(tail, 8) - 1; i >= 0; i--) {
+                k1 = (k1 << 8) | (data[whole + i] & 0xFFL);
+            }
+            if (tail > 8) {
+                h2 ^= mixK2(k2);
+            }
+            h1 ^= mixK1(k1);
+        }
+
+        h1 ^= totalLength;
+        h2 ^= totalLength;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+
+        byte[] digest = new byte[16];
+        for (int i = 0; i < 8; i++) {
+            digest[i] = (byte) (h1 >>> (8 * i));
+            digest[i + 8] = (byte) (h2 >>> (8 * i));
+        }
+        return digest;
+    }
+
+    @Override
+    protected void resetState() {
+        h1 = 0;
+        h2 = 0;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.hashing;
+
+/**
+ * {@link ETagHasher} implementing the 64-bit xxHash (XXH64) with seed 0.
+ * <p>
+ * A non-cryptographic hash that processes 32-byte stripes with four independent lanes. eTags only need to
+ * change when the data changes, so collision resistance against an attacker is not required and the much
+ * cheaper hash can be used instead of MD5. The digest is the big-endian (canonical) form of the hash.
+ * </p>
+ */
+public class XxHash64ETagHasher extends ETagHasher {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+    private static final int STRIPE = 32;
+
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+
+    public XxHash64ETagHasher() {
+        super(STRIPE);
+        resetState();
+    }
+
+    @Override
+    protected void processBlocks(byte[] data, int length) {
+        for (int offset = 0; offset < length; offset += STRIPE) {
+            v1 = round(v1, readLongLE(data, offset));
+            v2 = round(v2, readLongLE(data, offset + 8));
+            v3 = round(v3, readLongLE(data, offset + 16));
+            v4 = round(v4, readLongLE(data, offset + 24));
+        }
+    }
+
+    @Override
+    protected byte[] finish(byte[] data, int length, long totalLength) {
+        int whole = length - length % STRIPE;
+        processBlocks(data, whole);
+
+        long hash;
+        if (totalLength >= STRIPE) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = PRIME5;
+        }
+        hash += totalLength;
+
+        int offset = whole;
+        for (; offset + 8 <= length; offset += 8) {
+            hash ^= round(0, readLongLE(data, offset));
+            hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+        }
+        if (offset + 4 <= length) {
+            hash ^= (readIntLE(data, offset) & 0xFFFFFFFFL) * PRIME1;
+            hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+            offset += 4;
+        }
+        for (; offset < length; offset++) {
+            hash ^= (data[offset] & 0xFFL) * PRIME5;
+            hash = Long.rotateLeft(hash, 11) * PRIME1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME2;
+        hash ^= hash >>> 29;
+        hash *= PRIME3;
+        hash ^= hash >>> 32;
+
+        byte[] digest = new byte[8];
+        for (int i = 0; i < 8; i++) {
+            digest[i] = (byte) (hash >>> (56 - 8 * i));
+        }
+        return digest;
+    }
+
+    @Override
+    protected void resetState() {
+        v1 = PRIME1 + PRIME2;
+        v2 = PRIME2;
+        v3 = 0;
+        v4 = -PRIME1;
+    }
+
+    private static long round(long accumulator, long input) {
+        accumulator += input * PRIME2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME1;
+    }
+
+    private static long mergeRound(long accumulator, long value) {
+        accumulator ^= round(0, value);
+        return accumulator * PRIME1 + PRIME4;
+    }
+}
@@ -6,6 +6,7 @@ import lombok.Setter;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.time.Instant;
 
 /**
  * Entity class representing a transaction.
@@ -13,6 +14,10 @@ import java.io.Serializable;
  * This class includes key fields such as fromAccount, toAccount, and amount, along with an enumerated status field.
  * The class is marked as Serializable to support caching and distributed environments.
  * </p>
+ * <p>
+ * {@code version} and {@code updatedAt} are maintained by JPA on every write and serve as cheap validators
+ * for eTags and optimistic locking.
+ * </p>
  */
 @Entity
 @Getter
@@ -23,7 +28,9 @@ public class Transaction implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Ids are allocated from a pooled sequence, 50 at a time, so inserts can be sent as JDBC batches
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_seq", allocationSize = 50)
     private Long transactionId;
 
     private String fromAccount;
@@ -50,4 +57,15 @@ public class Transaction implements Serializable {
     @Enumerated(EnumType.STRING)
     private Status status;
 
+    @Version
+    private Long version;
+
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
+
 }
@@ -9,7 +9,7 @@ import java.util.List;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long>,
-        JpaSpecificationExecutor<Transaction> {
+        JpaSpecificationExecutor<Transaction>, TransactionScrollRepository {
     List<Transaction> findByFromAccount(String fromAccount);
     List<Transaction> findByToAccount(String toAccount);
     List<Transaction> findByFromAccountAndToAccount(String fromAccount, String toAccount);
@@ -0,0 +1,30 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.repos;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.function.Consumer;
+
+/**
+ * Repository fragment for reading large result sets without materializing them.
+ */
+public interface TransactionScrollRepository {
+
+    /**
+     * Streams the transactions matching the specification, in ascending id order, through a forward-only cursor.
+     * <p>
+     * The persistence context is cleared every {@code batchSize} rows, so memory use does not grow with the
+     * number of rows. Transactions handed to the consumer are therefore detached soon after, and must not be
+     * modified. Has to be called within a (read-only) transaction.
+     * </p>
+     *
+     * @param specification the filters, null for all transactions
+     * @param batchSize     the JDBC fetch size and the number of rows between persistence context clears
+     * @param consumer      called for every row
+     * @param batchEnd      called after every full batch, e.g. to flush what the consumer wrote; not after the
+     *                      last rows if they fall short of a batch
+     * @return the number of rows streamed
+     */
+    long scrollAll(Specification<Transaction> specification, int batchSize, Consumer<Transaction> consumer,
+                   Runnable batchEnd);
+}
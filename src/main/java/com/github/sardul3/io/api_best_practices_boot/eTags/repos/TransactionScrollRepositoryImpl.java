@@ -0,0 +1,60 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.repos;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.function.Consumer;
+
+/**
+ * Hibernate implementation of {@link TransactionScrollRepository}, picked up by Spring Data through its name.
+ */
+public class TransactionScrollRepositoryImpl implements TransactionScrollRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public long scrollAll(Specification<Transaction> specification, int batchSize, Consumer<Transaction> consumer,
+                          Runnable batchEnd) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Transaction> criteria = builder.createQuery(Transaction.class);
+        Root<Transaction> root = criteria.from(Transaction.class);
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, criteria, builder);
+            if (predicate != null) {
+                criteria.where(predicate);
+            }
+        }
+        criteria.orderBy(builder.asc(root.get("transactionId")));
+
+        Query<Transaction> query = entityManager.createQuery(criteria).unwrap(Query.class)
+                .setFetchSize(batchSize)
+                // No dirty-checking snapshots and no second-level cache traffic for the streamed rows
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE);
+
+        long count = 0;
+        try (ScrollableResults<Transaction> results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept(results.get());
+                if (++count % batchSize == 0) {
+                    entityManager.clear();
+                    batchEnd.run();
+                }
+            }
+        }
+        entityManager.clear();
+        return count;
+    }
+}
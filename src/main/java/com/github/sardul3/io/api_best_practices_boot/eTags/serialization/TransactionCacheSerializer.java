@@ -0,0 +1,324 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.serialization;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.CountStrategy;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.PaginatedTransaction;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Schema-aware binary {@link RedisSerializer} for the values of the transaction caches.
+ * <p>
+ * {@link Transaction}s, lists of transactions and {@link PaginatedTransaction}s are written as:
+ * <pre>
+ * format version (1 byte) | flags (1 byte) | [uncompressed length (varint) if LZ4] | body
+ * body        = type tag (1 byte) | value
+ * transaction = presence bits (1 byte) | id (varint) | from, to (varint length + UTF-8) | amount (8 bytes)
+ *               | status (1 byte dictionary code) | version (varint) | updatedAt (varint seconds, varint nanos)
+ * list        = count (varint) | transactions
+ * page        = total (varint) | count + 1 (varint, 0 for no list) | transactions
+ * counted     = total (varint) | count strategy (1 byte dictionary code) | count + 1 (varint, 0 for no list) | transactions
+ * </pre>
+ * Pages whose total was counted exactly are written as {@code page}, others as {@code counted page}.
+ * Only the fields flagged in the presence bits follow, so nulls cost nothing. Bodies larger than the compression
+ * threshold are LZ4-compressed when that actually makes them smaller.
+ * </p>
+ * <p>
+ * Everything else (e.g. {@code NullValue}) is delegated to the JSON serializer. JSON always starts with a printable
+ * character, while binary values start with a format version below {@code 0x20}, so entries written by older nodes
+ * (or by the JSON serializer) are still read during a rolling deploy, and a later format can be introduced under
+ * a new version byte.
+ * </p>
+ */
+public class TransactionCacheSerializer implements RedisSerializer<Object> {
+
+    static final int FORMAT_VERSION = 1;
+    private static final int MAX_FORMAT_VERSION = 0x1F;
+    private static final int FLAG_LZ4 = 1;
+
+    private static final int TYPE_TRANSACTION = 1;
+    private static final int TYPE_LIST = 2;
+    private static final int TYPE_PAGE = 3;
+    private static final int TYPE_COUNTED_PAGE = 4;
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_FROM = 1 << 1;
+    private static final int HAS_TO = 1 << 2;
+    private static final int HAS_AMOUNT = 1 << 3;
+    private static final int HAS_STATUS = 1 << 4;
+    private static final int HAS_VERSION = 1 << 5;
+    private static final int HAS_UPDATED_AT = 1 << 6;
+    // Marks a null element inside a list
+    private static final int IS_NULL = 1 << 7;
+
+    // Stable codes for the status enum; append new statuses, never reorder, so cached entries stay readable
+    private static final Transaction.Status[] STATUS_DICTIONARY = {
+            Transaction.Status.FLAGGED,
+            Transaction.Status.ON_HOLD,
+            Transaction.Status.BLOCKED,
+            Transaction.Status.COMPLETED,
+            Transaction.Status.CANCELLED
+    };
+    private static final int[] STATUS_CODES = new int[Transaction.Status.values().length];
+
+    // Stable codes for the count strategy of a page, following the same rules as the statuses
+    private static final CountStrategy[] COUNT_STRATEGY_DICTIONARY = {
+            CountStrategy.EXACT,
+            CountStrategy.CACHED,
+            CountStrategy.ESTIMATED,
+            CountStrategy.NONE
+    };
+    private static final int[] COUNT_STRATEGY_CODES = new int[CountStrategy.values().length];
+
+    static {
+        Arrays.fill(STATUS_CODES, -1);
+        for (int code = 0; code < STATUS_DICTIONARY.length; code++) {
+            STATUS_CODES[STATUS_DICTIONARY[code].ordinal()] = code;
+        }
+        Arrays.fill(COUNT_STRATEGY_CODES, -1);
+        for (int code = 0; code < COUNT_STRATEGY_DICTIONARY.length; code++) {
+            COUNT_STRATEGY_CODES[COUNT_STRATEGY_DICTIONARY[code].ordinal()] = code;
+        }
+    }
+
+    private final RedisSerializer<Object> jsonSerializer;
+    private final int compressionThreshold;
+    private final LZ4Compressor compressor;
+    private final LZ4SafeDecompressor decompressor;
+
+    /**
+     * @param jsonSerializer       serializer for values of other types and for reading JSON entries
+     * @param compressionThreshold body size in bytes above which values are LZ4-compressed, negative to never compress
+     */
+    public TransactionCacheSerializer(RedisSerializer<Object> jsonSerializer, int compressionThreshold) {
+        this.jsonSerializer = jsonSerializer;
+        this.compressionThreshold = compressionThreshold;
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.safeDecompressor();
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        BinaryWriter body = new BinaryWriter(256);
+        if (value instanceof Transaction transaction) {
+            body.writeByte(TYPE_TRANSACTION);
+            writeTransaction(body, transaction);
+        } else if (value instanceof List<?> list && containsOnlyTransactions(list)) {
+            body.writeByte(TYPE_LIST);
+            writeTransactions(body, list);
+        } else if (value instanceof PaginatedTransaction page
+                && (page.getTransactions() == null || containsOnlyTransactions(page.getTransactions()))) {
+            CountStrategy strategy = page.getCountStrategy() == null ? CountStrategy.EXACT : page.getCountStrategy();
+            body.writeByte(strategy == CountStrategy.EXACT ? TYPE_PAGE : TYPE_COUNTED_PAGE);
+            body.writeVarLong(page.getTotal());
+            if (strategy != CountStrategy.EXACT) {
+                int code = COUNT_STRATEGY_CODES[strategy.ordinal()];
+                if (code < 0) {
+                    throw new SerializationException("Count strategy " + strategy + " has no dictionary code");
+                }
+                body.writeByte(code);
+            }
+            if (page.getTransactions() == null) {
+                body.writeVarLong(0);
+            } else {
+                body.writeVarLong(page.getTransactions().size() + 1L);
+                for (Transaction transaction : page.getTransactions()) {
+                    writeTransaction(body, transaction);
+                }
+            }
+        } else {
+            return jsonSerializer.serialize(value);
+        }
+        return frame(body);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        int version = bytes[0] & 0xFF;
+        if (version > MAX_FORMAT_VERSION) {
+            return jsonSerializer.deserialize(bytes);
+        }
+        if (version != FORMAT_VERSION) {
+            throw new SerializationException("Unsupported cache value format version " + version);
+        }
+
+        BinaryReader header = new BinaryReader(bytes, 1, bytes.length);
+        int flags = header.readByte();
+        BinaryReader body;
+        if ((flags & FLAG_LZ4) != 0) {
+            int length = header.readVarInt();
+            byte[] decompressed = new byte[length];
+            try {
+                int written = decompressor.decompress(bytes, header.position(), bytes.length - header.position(),
+                        decompressed, 0, length);
+                if (written != length) {
+                    throw new SerializationException("Corrupt compressed cache value");
+                }
+            } catch (LZ4Exception e) {
+                throw new SerializationException("Corrupt compressed cache value", e);
+            }
+            body = new BinaryReader(decompressed, 0, length);
+        } else {
+            body = new BinaryReader(bytes, header.position(), bytes.length);
+        }
+
+        int type = body.readByte();
+        return switch (type) {
+            case TYPE_TRANSACTION -> readTransaction(body);
+            case TYPE_LIST -> readTransactions(body, body.readVarInt());
+            case TYPE_PAGE -> {
+                long total = body.readVarLong();
+                int count = body.readVarInt();
+                yield new PaginatedTransaction(count == 0 ? null : readTransactions(body, count - 1), total);
+            }
+            case TYPE_COUNTED_PAGE -> {
+                long total = body.readVarLong();
+                int code = body.readByte();
+                if (code >= COUNT_STRATEGY_DICTIONARY.length) {
+                    throw new SerializationException("Unknown count strategy code " + code + " in cached value");
+                }
+                int count = body.readVarInt();
+                yield new PaginatedTransaction(count == 0 ? null : readTransactions(body, count - 1), total,
+                        COUNT_STRATEGY_DICTIONARY[code]);
+            }
+            default -> throw new SerializationException("Unknown cache value type " + type);
+        };
+    }
+
+    private byte[] frame(BinaryWriter body) {
+        if (compressionThreshold >= 0 && body.size() > compressionThreshold) {
+            byte[] compressed = new byte[compressor.maxCompressedLength(body.size())];
+            int compressedLength = compressor.compress(body.buffer(), 0, body.size(), compressed, 0, compressed.length);
+            // Incompressible bodies are kept as they are
+            if (compressedLength < body.size()) {
+                BinaryWriter framed = new BinaryWriter(compressedLength + 8);
+                framed.writeByte(FORMAT_VERSION);
+                framed.writeByte(FLAG_LZ4);
+                framed.writeVarLong(body.size());
+                framed.writeBytes(compressed, 0, compressedLength);
+                return framed.toByteArray();
+            }
+        }
+        BinaryWriter framed = new BinaryWriter(body.size() + 2);
+        framed.writeByte(FORMAT_VERSION);
+        framed.writeByte(0);
+        framed.writeBytes(body.buffer(), 0, body.size());
+        return framed.toByteArray();
+    }
+
+    private static boolean containsOnlyTransactions(List<?> list) {
+        for (Object element : list) {
+            if (element != null && !(element instanceof Transaction)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeTransactions(BinaryWriter writer, List<?> transactions) {
+        writer.writeVarLong(transactions.size());
+        for (Object transaction : transactions) {
+            writeTransaction(writer, (Transaction) transaction);
+        }
+    }
+
+    private static List<Transaction> readTransactions(BinaryReader reader, int count) {
+        // Do not trust the count for pre-sizing, a corrupt value must not allocate a huge array
+        List<Transaction> transactions = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            transactions.add(readTransaction(reader));
+        }
+        return transactions;
+    }
+
+    private static void writeTransaction(BinaryWriter writer, Transaction transaction) {
+        if (transaction == null) {
+            writer.writeByte(IS_NULL);
+            return;
+        }
+        int presence = (transaction.getTransactionId() != null ? HAS_ID : 0)
+                | (transaction.getFromAccount() != null ? HAS_FROM : 0)
+                | (transaction.getToAccount() != null ? HAS_TO : 0)
+                | (transaction.getAmount() != null ? HAS_AMOUNT : 0)
+                | (transaction.getStatus() != null ? HAS_STATUS : 0)
+                | (transaction.getVersion() != null ? HAS_VERSION : 0)
+                | (transaction.getUpdatedAt() != null ? HAS_UPDATED_AT : 0);
+        writer.writeByte(presence);
+        if ((presence & HAS_ID) != 0) {
+            writer.writeVarLong(transaction.getTransactionId());
+        }
+        if ((presence & HAS_FROM) != 0) {
+            writer.writeString(transaction.getFromAccount());
+        }
+        if ((presence & HAS_TO) != 0) {
+            writer.writeString(transaction.getToAccount());
+        }
+        if ((presence & HAS_AMOUNT) != 0) {
+            writer.writeDouble(transaction.getAmount());
+        }
+        if ((presence & HAS_STATUS) != 0) {
+            int code = STATUS_CODES[transaction.getStatus().ordinal()];
+            if (code < 0) {
+                throw new SerializationException("Status " + transaction.getStatus() + " has no dictionary code");
+            }
+            writer.writeByte(code);
+        }
+        if ((presence & HAS_VERSION) != 0) {
+            writer.writeVarLong(transaction.getVersion());
+        }
+        if ((presence & HAS_UPDATED_AT) != 0) {
+            writer.writeVarLong(transaction.getUpdatedAt().getEpochSecond());
+            writer.writeVarLong(transaction.getUpdatedAt().getNano());
+        }
+    }
+
+    private static Transaction readTransaction(BinaryReader reader) {
+        int presence = reader.readByte();
+        if ((presence & IS_NULL) != 0) {
+            return null;
+        }
+        Transaction transaction = new Transaction();
+        if ((presence & HAS_ID) != 0) {
+            transaction.setTransactionId(reader.readVarLong());
+        }
+        if ((presence & HAS_FROM) != 0) {
+            transaction.setFromAccount(reader.readString());
+        }
+        if ((presence & HAS_TO) != 0) {
+            transaction.setToAccount(reader.readString());
+        }
+        if ((presence & HAS_AMOUNT) != 0) {
+            transaction.setAmount(reader.readDouble());
+        }
+        if ((presence & HAS_STATUS) != 0) {
+            int code = reader.readByte();
+            if (code >= STATUS_DICTIONARY.length) {
+                throw new SerializationException("Unknown status code " + code + " in cached value");
+            }
+            transaction.setStatus(STATUS_DICTIONARY[code]);
+        }
+        if ((presence & HAS_VERSION) != 0) {
+            transaction.setVersion(reader.readVarLong());
+        }
+        if ((presence & HAS_UPDATED_AT) != 0) {
+            transaction.setUpdatedAt(Instant.ofEpochSecond(reader.readVarLong(), reader.readVarInt()));
+        }
+        return transaction;
+    }
+}
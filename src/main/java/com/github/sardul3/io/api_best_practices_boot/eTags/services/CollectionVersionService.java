@@ -0,0 +1,149 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.services;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.config.ETagGenerator;
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Maintains monotonic change counters for the transactions table and for every account, and derives
+ * collection eTags from them.
+ * <p>
+ * Every write bumps the table counter and the counters of all accounts the transaction belonged to before
+ * and after the write. A collection eTag is the hash of the counter of the narrowest partition that contains
+ * the collection plus the request shape (filters, page, sort), so a conditional GET costs one Redis round trip
+ * instead of a query and a hash over every row.
+ * </p>
+ * <p>
+ * The counters live next to an epoch, a random token that is replaced when the table is wiped. eTags
+ * therefore never repeat after a reset, even if a counter key was lost.
+ * </p>
+ * <p>
+ * Callers must read the version <em>before</em> loading the collection: a write that lands in between then
+ * only produces a response whose eTag is already outdated, never one whose eTag claims newer data than it holds.
+ * That holds for data read from Redis or the database, not from a near cache that has yet to hear of the write,
+ * so the collection is loaded with the near cache skipped.
+ * </p>
+ */
+@Service
+@Slf4j
+public class CollectionVersionService {
+
+    private static final String KEY_PREFIX = "etag-version:";
+    private static final String EPOCH_KEY = KEY_PREFIX + "epoch";
+    private static final String TABLE_KEY = KEY_PREFIX + "all";
+    private static final String ACCOUNT_KEY_PREFIX = KEY_PREFIX + "account:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    // "version" derives collection eTags from the change counters, "content" hashes the loaded rows
+    @Value("${etag.collection-strategy:version}")
+    private String collectionStrategy;
+
+    private final ETagGenerator eTagGenerator;
+
+    public CollectionVersionService(StringRedisTemplate stringRedisTemplate, ETagGenerator eTagGenerator) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.eTagGenerator = eTagGenerator;
+    }
+
+    /**
+     * Bumps the counters of the table and of every account touched by the changed transactions.
+     * <p>
+     * Runs after the cache invalidation listeners, so a reader that observes the new counter can no
+     * longer be served the evicted entries from Redis. The near caches of other nodes are only cleared once the
+     * broadcast arrives, which may be after the bump, so readers tagging a response with a collection eTag
+     * load it through {@link com.github.sardul3.io.api_best_practices_boot.nearCache.cache.NearCacheBypass}.
+     * </p>
+     *
+     * @param event the write that happened
+     */
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(TABLE_KEY);
+        event.getChanges().stream()
+                .flatMap(change -> change.states().stream())
+                .forEach(state -> {
+                    addAccountKey(keys, state.getFromAccount());
+                    addAccountKey(keys, state.getToAccount());
+                });
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                keys.forEach(redis::incr);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            // A missed bump lets clients keep a stale copy, so drop the epoch and invalidate every eTag instead
+            log.warn("Failed to bump collection versions {}: {}", keys, e.getMessage());
+            reset();
+        }
+    }
+
+    /**
+     * Starts a new epoch, invalidating every collection eTag handed out so far. Used when the table is wiped.
+     */
+    public void reset() {
+        try {
+            stringRedisTemplate.opsForValue().set(EPOCH_KEY, newEpoch());
+        } catch (RuntimeException e) {
+            log.warn("Failed to reset collection versions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Derives the eTag of the transactions of an account, or of all transactions.
+     *
+     * @param account      the account the collection is restricted to, or null/empty for the whole table
+     * @param requestShape everything else that determines the response (filters, page, sort, API version)
+     * @return the eTag, or null if collection eTags are content-based or the counters are unavailable,
+     * in which case the caller falls back to {@link ETagGenerator#generateETag(List)}
+     */
+    public String collectionETag(String account, String requestShape) {
+        if (!"version".equalsIgnoreCase(collectionStrategy)) {
+            return null;
+        }
+        String counterKey = account == null || account.isEmpty() ? TABLE_KEY : ACCOUNT_KEY_PREFIX + account;
+        try {
+            List<String> values = stringRedisTemplate.opsForValue().multiGet(List.of(EPOCH_KEY, counterKey));
+            String epoch = values == null ? null : values.get(0);
+            if (epoch == null) {
+                // First use, or the epoch was lost: whichever node wins the race defines the epoch
+                stringRedisTemplate.opsForValue().setIfAbsent(EPOCH_KEY, newEpoch());
+                epoch = stringRedisTemplate.opsForValue().get(EPOCH_KEY);
+                if (epoch == null) {
+                    return null;
+                }
+            }
+            String counter = values == null || values.get(1) == null ? "0" : values.get(1);
+            return eTagGenerator.generateCollectionETag(epoch + ':' + counterKey + ':' + counter, requestShape);
+        } catch (RuntimeException e) {
+            log.warn("Failed to read collection version {}: {}", counterKey, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void addAccountKey(Set<String> keys, String account) {
+        if (account != null && !account.isEmpty()) {
+            keys.add(ACCOUNT_KEY_PREFIX + account);
+        }
+    }
+
+    private static String newEpoch() {
+        return UUID.randomUUID().toString();
+    }
+}
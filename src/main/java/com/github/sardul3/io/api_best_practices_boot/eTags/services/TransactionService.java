@@ -1,24 +1,38 @@
 package com.github.sardul3.io.api_best_practices_boot.eTags.services;
 
+import com.github.sardul3.io.api_best_practices_boot.accountTotals.services.AccountTotalsService;
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.services.ChangeFeedService;
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChange;
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChangedEvent;
 import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
 import com.github.sardul3.io.api_best_practices_boot.eTags.repos.TransactionRepository;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching.TransactionCacheInvalidator;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching.PageFilterSortCacheKeyGenerator;
 import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching.TransactionCacheService;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.columnar.ColumnarTransactionIndex;
 import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
-import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.TransactionSpecificationBuilder;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.TransactionFilterPlanner;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.CountStrategy;
 import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.PaginatedTransaction;
 import io.micrometer.observation.annotation.Observed;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.Optional;
@@ -27,6 +41,12 @@ import java.util.Optional;
  * Service class responsible for handling transaction-related business logic.
  * This service manages operations such as retrieving, creating, updating, and deleting transactions.
  * It also handles caching and cache eviction for performance optimization.
+ * <p>
+ * Every write publishes a {@link TransactionChangedEvent}; the cached lists and pages are evicted
+ * selectively by {@link TransactionCacheInvalidator} instead of being wiped on every write, and the
+ * per-account totals of {@link AccountTotalsService} are adjusted by the same event. The change is recorded in
+ * the {@link ChangeFeedService} by the transaction of the write, so the feed cannot miss a committed write.
+ * </p>
  */
 @Service
 @Slf4j
@@ -35,9 +55,39 @@ public class TransactionService {
 
     private final TransactionRepository transactionRepository;
     private final TransactionCacheService transactionCacheService;
-    public TransactionService(TransactionRepository transactionRepository, TransactionCacheService transactionCacheService) {
+    private final TransactionCacheInvalidator transactionCacheInvalidator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CollectionVersionService collectionVersionService;
+    private final TransactionFilterPlanner filterPlanner;
+    private final PageFilterSortCacheKeyGenerator keyGenerator;
+    private final ColumnarTransactionIndex columnarIndex;
+    private final AccountTotalsService accountTotalsService;
+    private final ChangeFeedService changeFeedService;
+    private final TransactionTemplate transactionTemplate;
+    private final CountStrategy defaultCountStrategy;
+
+    public TransactionService(TransactionRepository transactionRepository, TransactionCacheService transactionCacheService,
+                              TransactionCacheInvalidator transactionCacheInvalidator, ApplicationEventPublisher eventPublisher,
+                              CollectionVersionService collectionVersionService, TransactionFilterPlanner filterPlanner,
+                              PageFilterSortCacheKeyGenerator keyGenerator, ColumnarTransactionIndex columnarIndex,
+                              AccountTotalsService accountTotalsService, ChangeFeedService changeFeedService,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${pagination.count-strategy:exact}") String defaultCountStrategy) {
         this.transactionRepository = transactionRepository;
         this.transactionCacheService = transactionCacheService;
+        this.transactionCacheInvalidator = transactionCacheInvalidator;
+        this.eventPublisher = eventPublisher;
+        this.collectionVersionService = collectionVersionService;
+        this.filterPlanner = filterPlanner;
+        this.keyGenerator = keyGenerator;
+        this.columnarIndex = columnarIndex;
+        this.accountTotalsService = accountTotalsService;
+        this.changeFeedService = changeFeedService;
+        this.transactionTemplate = transactionTemplate;
+        this.defaultCountStrategy = CountStrategy.fromName(defaultCountStrategy);
+        if (this.defaultCountStrategy == null) {
+            throw new IllegalStateException("Unknown pagination.count-strategy " + defaultCountStrategy);
+        }
     }
 
     /**
@@ -64,11 +114,56 @@ public class TransactionService {
             contextualName = "getting-all-transactions",
             lowCardinalityKeyValues = {"GET", "transactions"})
     public Page<Transaction> getAllTransactionsWithPage(List<FilterCriteria> filters, Pageable pageable) {
-        // Now we call the cached method from another service, going through the proxy
-        PaginatedTransaction transactions = transactionCacheService.getAllTransactionsWithCache(filters, pageable);
+        PaginatedTransaction transactions = getTransactionsPage(filters, pageable, null);
         return new PageImpl<>(transactions.getTransactions(), pageable, transactions.getTotal());
     }
 
+    /**
+     * Retrieves one page of transactions, with the total obtained by the given {@link CountStrategy}.
+     *
+     * @param filters       the filters to apply
+     * @param pageable      the page to read
+     * @param countStrategy how to obtain the total, null for the configured {@code pagination.count-strategy}
+     * @return the page, its total and the count strategy that was actually applied
+     */
+    public PaginatedTransaction getTransactionsPage(List<FilterCriteria> filters, Pageable pageable,
+                                                    CountStrategy countStrategy) {
+        keyGenerator.recordLookup(filters);
+        // Now we call the cached method from another service, going through the proxy
+        return transactionCacheService.getAllTransactionsWithCache(filters, pageable, resolveCountStrategy(countStrategy));
+    }
+
+    /**
+     * @param countStrategy the requested count strategy, may be null
+     * @return the requested count strategy, or the configured default if none was requested
+     */
+    public CountStrategy resolveCountStrategy(CountStrategy countStrategy) {
+        return countStrategy == null ? defaultCountStrategy : countStrategy;
+    }
+
+    /**
+     * Retrieves one page of transactions by keyset (seek) pagination.
+     * <p>
+     * The page starts after the given position and is read with a seek predicate on the sort keys, combined with
+     * the filters; there is no OFFSET and no count query, so the cost is the same for every page. Results are
+     * not cached, deep pages are cheap to read and rarely requested twice.
+     * </p>
+     *
+     * @param filters  the filters to apply
+     * @param sort     the sort order, which must end with a unique key (see {@code KeysetCursor.normalize})
+     * @param size     the page size
+     * @param position where to continue from, {@code ScrollPosition.keyset()} for the first page
+     * @return the page, which knows whether further rows exist
+     */
+    @Observed(name = "transactions.keyset.db",
+            contextualName = "scrolling-transactions",
+            lowCardinalityKeyValues = {"GET", "transactions"})
+    public Window<Transaction> getTransactionsWindow(List<FilterCriteria> filters, Sort sort, int size,
+                                                     ScrollPosition position) {
+        Specification<Transaction> specification = Specification.where(filterPlanner.toSpecification(filters));
+        return transactionRepository.findBy(specification, query -> query.sortBy(sort).limit(size).scroll(position));
+    }
+
     /**
      * Retrieves a specific transaction by its ID. The result is cached to avoid repeated database lookups.
      * <p>
@@ -86,22 +181,43 @@ public class TransactionService {
 
     /**
      * Saves a new transaction to the database.
+     * <p>
+     * Only the cached lists and pages that could contain the transaction are evicted.
+     * </p>
      *
      * @param transaction the transaction details to save
      * @return the saved transaction
      */
-    @Caching(evict = {
-            @CacheEvict(value = "transactionsCache", allEntries = true),  // Evict all entries from transactionsCache
-            @CacheEvict(value = "transactionsPFSCache", allEntries = true),  // Evict all entries from transactionsCache
-    })
     public Transaction saveTransaction(Transaction transaction) {
-        return transactionRepository.save(transaction);
+        TransactionChange change = transactionTemplate.execute(status -> {
+            // A client-supplied id turns the save into an update, so remember what the row looked like
+            Transaction before = transaction.getTransactionId() == null ? null
+                    : transactionRepository.findById(transaction.getTransactionId()).map(TransactionChange::snapshot).orElse(null);
+            if (before != null) {
+                // Overwrite the stored row as before, @Version would otherwise treat the request as a new entity
+                transaction.setVersion(before.getVersion());
+            } else {
+                // An unknown id is ignored and a new row is created
+                transaction.setTransactionId(null);
+                transaction.setVersion(null);
+            }
+            // Flushed so the recorded change carries the new version
+            Transaction saved = transactionRepository.saveAndFlush(transaction);
+            TransactionChange written = before == null
+                    ? TransactionChange.created(saved)
+                    : TransactionChange.updated(before, saved);
+            changeFeedService.record(List.of(written));
+            return written;
+        });
+        eventPublisher.publishEvent(TransactionChangedEvent.of(change));
+        return change.getAfter();
     }
 
     /**
      * Updates the status of an existing transaction and stores the updated transaction in the cache.
      * <p>
      * This method uses {@link CachePut} to ensure that the cache is updated with the new transaction status after the update.
+     * Cached lists and pages are evicted only if they could contain the transaction before or after the change.
      * </p>
      *
      * @param transactionId the ID of the transaction to update
@@ -109,40 +225,53 @@ public class TransactionService {
      * @return the updated transaction
      * @throws EntityNotFoundException if the transaction with the specified ID is not found
      */
-    @Caching(evict = {
-            @CacheEvict(value = "transactionsCache", allEntries = true),
-            @CacheEvict(value = "transactionsPFSCache", allEntries = true),
-    })
     @CachePut(value = "transactionCache", key = "#transactionId")
     public Transaction updateTransactionStatus(Long transactionId, Transaction.Status newStatus) {
-        Optional<Transaction> transactionOpt = transactionRepository.findById(transactionId);
+        TransactionChange change = transactionTemplate.execute(status -> {
+            Optional<Transaction> transactionOpt = transactionRepository.findById(transactionId);
 
-        if (transactionOpt.isEmpty()) {
-            throw new EntityNotFoundException("Transaction not found for id: " + transactionId);
-        }
+            if (transactionOpt.isEmpty()) {
+                throw new EntityNotFoundException("Transaction not found for id: " + transactionId);
+            }
 
-        Transaction transaction = transactionOpt.get();
-        transaction.setStatus(newStatus);
+            Transaction transaction = transactionOpt.get();
+            Transaction before = TransactionChange.snapshot(transaction);
+            transaction.setStatus(newStatus);
 
-        // Save the updated transaction to the database
-        return transactionRepository.save(transaction);
+            // Save the updated transaction to the database, flushed so the recorded change carries the new version
+            Transaction saved = transactionRepository.saveAndFlush(transaction);
+            TransactionChange updated = TransactionChange.updated(before, saved);
+            changeFeedService.record(List.of(updated));
+            return updated;
+        });
+        eventPublisher.publishEvent(TransactionChangedEvent.of(change));
+        return change.getAfter();
     }
 
     /**
      * Deletes a specific transaction by its ID and evicts the corresponding cache entry.
      * <p>
-     * The {@link CacheEvict} annotation ensures that the cache entry for the deleted transaction is removed.
+     * The {@link CacheEvict} annotation ensures that the cache entry for the deleted transaction is removed,
+     * cached lists and pages are evicted only if they could contain it.
      * </p>
      *
      * @param transactionId the ID of the transaction to delete
      */
-    @Caching(evict = {
-            @CacheEvict(value = "transactionsCache", allEntries = true),  // Evict all entries from transactionsCache
-            @CacheEvict(value = "transactionsPFSCache", allEntries = true),  // Evict all entries from transactionsCache
-            @CacheEvict(value = "transactionCache", key = "#transactionId")  // Evict the specific entry from transactionCache
-    })
+    @CacheEvict(value = "transactionCache", key = "#transactionId")  // Evict the specific entry from transactionCache
     public void deleteTransaction(Long transactionId) {
-        transactionRepository.deleteById(transactionId);
+        TransactionChange change = transactionTemplate.execute(status -> {
+            Optional<Transaction> existing = transactionRepository.findById(transactionId);
+            if (existing.isEmpty()) {
+                return null;
+            }
+            TransactionChange deleted = TransactionChange.deleted(TransactionChange.snapshot(existing.get()));
+            transactionRepository.deleteById(transactionId);
+            changeFeedService.record(List.of(deleted));
+            return deleted;
+        });
+        if (change != null) {
+            eventPublisher.publishEvent(TransactionChangedEvent.of(change));
+        }
     }
 
     /**
@@ -154,9 +283,19 @@ public class TransactionService {
     @Caching(evict = {
             @CacheEvict(value = "transactionsCache", allEntries = true),  // Evict all entries from transactionsCache
             @CacheEvict(value = "transactionsPFSCache", allEntries = true),  // Evict all entries from transactionsCache
+            @CacheEvict(value = "transactionsCountCache", allEntries = true),  // Evict all cached page totals
+            @CacheEvict(value = "transactionsSummaryCache", allEntries = true),  // Evict all cached summaries
             @CacheEvict(value = "transactionCache", allEntries = true)  // Evict all transactionCache
-    })    public void deleteAllTransactions() {
-        transactionRepository.deleteAll();
+    })
+    public void deleteAllTransactions() {
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionRepository.deleteAll();
+            changeFeedService.recordReset();
+        });
+        columnarIndex.reset();
+        accountTotalsService.reset();
+        transactionCacheInvalidator.clearIndexes();
+        collectionVersionService.reset();
     }
 
 
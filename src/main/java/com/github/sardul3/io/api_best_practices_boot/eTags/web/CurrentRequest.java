@@ -0,0 +1,28 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.web;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Facts about the request being handled, for controllers that cannot take them as method arguments
+ * (arguments are logged by the controller logging aspect, and request objects cannot be serialized).
+ */
+public final class CurrentRequest {
+
+    private CurrentRequest() {
+    }
+
+    /**
+     * Checks whether the request being handled is a HEAD request, which only needs the headers (and the eTag)
+     * of a GET response.
+     *
+     * @return true if the current request is a HEAD request, false otherwise or outside of a request
+     */
+    public static boolean isHeadRequest() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return HttpMethod.HEAD.matches(attributes.getRequest().getMethod());
+        }
+        return false;
+    }
+}
@@ -1,15 +1,12 @@
 package com.github.sardul3.io.api_best_practices_boot.hateoas.config;
 
-import com.github.sardul3.io.api_best_practices_boot.eTags.controllers.TransactionController;
 import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
-import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.controllers.TransactionsControllerPaged;
 import org.springframework.data.domain.Page;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
-
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 public class HATEOASHelper {
 
@@ -19,8 +16,8 @@ public class HATEOASHelper {
                 page.map(entity -> {
                     EntityModel<T> entityModel = EntityModel.of(entity);
                     // Add self link for each entity
-                    entityModel.add(linkTo(methodOn(TransactionController.class)
-                            .getTransaction(((Transaction) entity).getTransactionId(), null)).withSelfRel());
+                    entityModel.add(LinkTemplates.TRANSACTION.link(IanaLinkRelations.SELF,
+                            ((Transaction) entity).getTransactionId()));
                     return entityModel;
                 }).getContent());
 
@@ -40,28 +37,25 @@ public class HATEOASHelper {
         // Create an entity model to wrap the entity
         EntityModel<T> model = EntityModel.of(entity);
 
-        // Link to self (details)
-        Link selfLink = linkTo(methodOn(TransactionController.class)
-                .getTransaction(id, null))
-                .withSelfRel();
-        model.add(selfLink);
+        // Link to self (details), expanded from the cached template instead of linkTo(methodOn(...))
+        model.add(LinkTemplates.TRANSACTION.link(IanaLinkRelations.SELF, id));
 
-        // Add an edit link (make sure the editTransaction method exists)
-        Link editLink = linkTo(methodOn(TransactionController.class)
-                .updateTransactionStatus(id, null))
-                .withRel("edit");
-        model.add(editLink);
+        // Add an edit link
+        model.add(LinkTemplates.TRANSACTION_STATUS.link("edit", id));
 
         return model;
     }
 
+    // Helper method to generate cursor pagination links, keeping the filters, size and sort of the current request
+    public static Link linkToCursor(String cursor, String rel) {
+        return Link.of(ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("page")
+                .replaceQueryParam("cursor", cursor)
+                .toUriString(), rel);
+    }
+
     // Helper method to generate pagination links with page and size parameters
     private static String linkToSelf(int page, int size) {
-        return linkTo(methodOn(TransactionsControllerPaged.class)
-                .getTransactions(null, null, null))
-                .toUriComponentsBuilder()
-                .queryParam("page", page)
-                .queryParam("size", size)
-                .toUriString();
+        return LinkTemplates.PAGED_TRANSACTIONS.expand() + "?page=" + page + "&size=" + size;
     }
 }
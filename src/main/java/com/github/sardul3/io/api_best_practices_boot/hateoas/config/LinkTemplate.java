@@ -0,0 +1,131 @@
+package com.github.sardul3.io.api_best_practices_boot.hateoas.config;
+
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.server.core.AnnotationMappingDiscoverer;
+import org.springframework.hateoas.server.core.DummyInvocationUtils;
+import org.springframework.hateoas.server.core.MappingDiscoverer;
+import org.springframework.hateoas.server.core.MethodInvocation;
+import org.springframework.hateoas.server.core.UriMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The URI template of a controller method, resolved once from its request mapping and expanded per link.
+ * <p>
+ * {@code linkTo(methodOn(...))} records the invocation on a proxy and resolves the mapping again for every link it
+ * builds. A {@code LinkTemplate} does that once; building a link then only concatenates the base URI of the
+ * current request (resolved once per request), the literal path segments and the encoded path variables. Required
+ * {@code @RequestParam}s are rendered as template variables, as {@code linkTo} does for unset arguments.
+ * </p>
+ */
+public final class LinkTemplate {
+
+    private static final MappingDiscoverer DISCOVERER = new AnnotationMappingDiscoverer(RequestMapping.class);
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+    private static final String BASE_URI_ATTRIBUTE = LinkTemplate.class.getName() + ".BASE_URI";
+
+    // Literal path parts around the variables, one more than there are variables
+    private final String[] literals;
+    private final int expectedLength;
+    private final String query;
+
+    LinkTemplate(String path, String query) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        int open;
+        while ((open = path.indexOf('{', start)) >= 0) {
+            int close = path.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unbalanced braces in mapping " + path);
+            }
+            parts.add(path.substring(start, open));
+            start = close + 1;
+        }
+        parts.add(path.substring(start));
+        this.literals = parts.toArray(String[]::new);
+        this.query = query;
+        this.expectedLength = path.length() + query.length() + 48;
+    }
+
+    /**
+     * Resolves the template of a controller method, e.g.
+     * {@code LinkTemplate.of(methodOn(TransactionController.class).getTransaction(null, null))}.
+     *
+     * @param invocation the result of invoking the method on a {@code methodOn} proxy
+     * @return the template of the invoked method
+     */
+    public static LinkTemplate of(Object invocation) {
+        MethodInvocation methodInvocation = DummyInvocationUtils.getLastInvocationAware(invocation).getLastInvocation();
+        Method method = methodInvocation.getMethod();
+        UriMapping mapping = DISCOVERER.getUriMapping(methodInvocation.getTargetType(), method);
+        String path = mapping == null ? "" : mapping.getMapping();
+
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < method.getParameterCount(); i++) {
+            MethodParameter parameter = new MethodParameter(method, i);
+            parameter.initParameterNameDiscovery(PARAMETER_NAMES);
+            RequestParam requestParam = parameter.getParameterAnnotation(RequestParam.class);
+            if (requestParam == null || !requestParam.required() || Map.class.isAssignableFrom(parameter.getParameterType())) {
+                continue;
+            }
+            String name = !requestParam.name().isEmpty() ? requestParam.name()
+                    : !requestParam.value().isEmpty() ? requestParam.value() : parameter.getParameterName();
+            query.append(query.isEmpty() ? '?' : '&').append(name).append("={").append(name).append('}');
+        }
+        return new LinkTemplate(path, query.toString());
+    }
+
+    /**
+     * @param pathVariables the values of the path variables, in the order they appear in the mapping
+     * @return the absolute URI, relative to the current request's servlet mapping
+     */
+    public String expand(Object... pathVariables) {
+        if (pathVariables.length != literals.length - 1) {
+            throw new IllegalArgumentException("Expected " + (literals.length - 1) + " path variables, got "
+                    + pathVariables.length);
+        }
+        StringBuilder uri = new StringBuilder(expectedLength).append(baseUri()).append(literals[0]);
+        for (int i = 0; i < pathVariables.length; i++) {
+            String value = String.valueOf(pathVariables[i]);
+            uri.append(pathVariables[i] instanceof Number ? value : UriUtils.encodePathSegment(value, StandardCharsets.UTF_8))
+                    .append(literals[i + 1]);
+        }
+        return uri.append(query).toString();
+    }
+
+    public Link link(LinkRelation relation, Object... pathVariables) {
+        return Link.of(expand(pathVariables), relation);
+    }
+
+    public Link link(String relation, Object... pathVariables) {
+        return Link.of(expand(pathVariables), relation);
+    }
+
+    // Same base as linkTo uses, computed once per request
+    private static String baseUri() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return "";
+        }
+        Object baseUri = attributes.getAttribute(BASE_URI_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (baseUri == null) {
+            baseUri = ServletUriComponentsBuilder.fromCurrentServletMapping().build().toUriString();
+            attributes.setAttribute(BASE_URI_ATTRIBUTE, baseUri, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (String) baseUri;
+    }
+}
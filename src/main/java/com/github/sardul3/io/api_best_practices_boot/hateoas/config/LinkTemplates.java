@@ -0,0 +1,28 @@
+package com.github.sardul3.io.api_best_practices_boot.hateoas.config;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.controllers.TransactionController;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.controllers.TransactionsControllerPaged;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Registry of the {@link LinkTemplate}s of the transaction endpoints, resolved from the controller mappings once
+ * when the class is first used.
+ */
+public final class LinkTemplates {
+
+    // GET /api/transactions/{id}
+    public static final LinkTemplate TRANSACTION =
+            LinkTemplate.of(methodOn(TransactionController.class).getTransaction(null, null));
+
+    // PUT /api/transactions/{id}/status?newStatus={newStatus}
+    public static final LinkTemplate TRANSACTION_STATUS =
+            LinkTemplate.of(methodOn(TransactionController.class).updateTransactionStatus(null, null));
+
+    // GET /api/v2/transactions
+    public static final LinkTemplate PAGED_TRANSACTIONS =
+            LinkTemplate.of(methodOn(TransactionsControllerPaged.class).getTransactions(null, null, null, null));
+
+    private LinkTemplates() {
+    }
+}
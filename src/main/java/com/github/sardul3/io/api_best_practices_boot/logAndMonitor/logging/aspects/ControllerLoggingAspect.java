@@ -55,6 +55,16 @@ public class ControllerLoggingAspect {
         String description = getLoggableDescription(joinPoint);
         Object[] args = joinPoint.getArgs();
 
+        if (!isPayloadLogged(joinPoint)) {
+            logger.info("Incoming request to {}", description);
+            try {
+                return joinPoint.proceed();
+            } catch (Exception ex) {
+                logger.error("Exception in  {}: {}", description, ex.getMessage());
+                throw ex;
+            }
+        }
+
         // Convert input arguments to JSON
         String argsJson = serializeToJson(args);
 
@@ -95,6 +105,13 @@ public class ControllerLoggingAspect {
         return methodSignature.toShortString();
     }
 
+    // Payloads are logged unless the method opts out through @EndpointDescribe(logPayload = false)
+    private boolean isPayloadLogged(ProceedingJoinPoint joinPoint) {
+        EndpointDescribe endpointDescribe = ((MethodSignature) joinPoint.getSignature()).getMethod()
+                .getAnnotation(EndpointDescribe.class);
+        return endpointDescribe == null || endpointDescribe.logPayload();
+    }
+
     /**
      * Serializes the input arguments or result to JSON format for logging purposes.
      * <p>
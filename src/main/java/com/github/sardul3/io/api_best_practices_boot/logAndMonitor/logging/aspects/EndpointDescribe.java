@@ -25,4 +25,12 @@ public @interface EndpointDescribe {
      * @return a string representing the description of the method
      */
     String value();
+
+    /**
+     * Whether the arguments and the response are logged as JSON. Turn off for endpoints with large payloads,
+     * only the call itself is logged then.
+     *
+     * @return false to skip logging the payloads
+     */
+    boolean logPayload() default true;
 }
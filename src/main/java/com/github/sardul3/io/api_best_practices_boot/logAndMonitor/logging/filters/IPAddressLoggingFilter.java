@@ -7,6 +7,8 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -21,6 +23,8 @@ import java.io.IOException;
  * </p>
  */
 @Component
+// Runs before the response cache filter, see TracingFilter
+@Order(Ordered.LOWEST_PRECEDENCE - 100)
 public class IPAddressLoggingFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(IPAddressLoggingFilter.class);
@@ -5,6 +5,8 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -18,6 +20,8 @@ import java.io.IOException;
  * </p>
  */
 @Component
+// Runs before the response cache filter, see TracingFilter
+@Order(Ordered.LOWEST_PRECEDENCE - 100)
 public class RequestTypeFilter extends OncePerRequestFilter {
 
     private static final String MDC_METHOD_KEY = "httpMethod";
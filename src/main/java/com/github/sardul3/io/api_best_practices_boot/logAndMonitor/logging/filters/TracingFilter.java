@@ -4,6 +4,8 @@ import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
@@ -18,6 +20,8 @@ import java.util.UUID;
  * </p>
  */
 @Component
+// Ahead of the response cache filter, which is registered last, so cached responses are traced and logged too
+@Order(Ordered.LOWEST_PRECEDENCE - 100)
 public class TracingFilter implements Filter {
 
     private static final String CORRELATION_ID_HEADER = "X-Correlation-Id";
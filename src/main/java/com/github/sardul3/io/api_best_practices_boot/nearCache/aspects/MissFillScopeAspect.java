@@ -0,0 +1,34 @@
+package com.github.sardul3.io.api_best_practices_boot.nearCache.aspects;
+
+import com.github.sardul3.io.api_best_practices_boot.nearCache.cache.MissFills;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Scopes the misses of a {@link Cacheable} call to the call, see {@link MissFills}.
+ */
+@Aspect
+@Component
+// Right outside the cache interceptor (ordered at LOWEST_PRECEDENCE), inside the single-flight aspect whose own
+// cache read must not count as the miss of the call
+@Order(Ordered.LOWEST_PRECEDENCE - 50)
+public class MissFillScopeAspect {
+
+    @Around("@annotation(cacheable)")
+    public Object scope(ProceedingJoinPoint joinPoint, Cacheable cacheable) throws Throwable {
+        Set<List<String>> enclosing = MissFills.open();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            MissFills.close(enclosing);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.sardul3.io.api_best_practices_boot.nearCache.cache;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The entries the {@link org.springframework.cache.annotation.Cacheable} call running on this thread found missing
+ * in L2, so that the put filling one of them is not broadcast by {@link TwoTierCache}.
+ * <p>
+ * A scope is opened around each call by
+ * {@link com.github.sardul3.io.api_best_practices_boot.nearCache.aspects.MissFillScopeAspect} and closed when the
+ * call returns or throws, so a miss whose load failed or whose result was vetoed by {@code unless} is forgotten
+ * with it. Misses and puts outside a scope, such as those of {@code @CachePut}, are not recorded and always
+ * broadcast.
+ * </p>
+ */
+public final class MissFills {
+
+    private static final ThreadLocal<Set<List<String>>> MISSES = new ThreadLocal<>();
+
+    private MissFills() {
+    }
+
+    /**
+     * Opens a scope on this thread.
+     *
+     * @return the scope of the enclosing call, to be handed back to {@link #close(Set)}
+     */
+    public static Set<List<String>> open() {
+        Set<List<String>> enclosing = MISSES.get();
+        MISSES.set(new HashSet<>());
+        return enclosing;
+    }
+
+    /**
+     * Closes the scope opened by {@link #open()}, dropping the misses it recorded.
+     *
+     * @param enclosing what {@link #open()} returned
+     */
+    public static void close(Set<List<String>> enclosing) {
+        if (enclosing == null) {
+            MISSES.remove();
+        } else {
+            MISSES.set(enclosing);
+        }
+    }
+
+    static void record(String cacheName, String key) {
+        Set<List<String>> misses = MISSES.get();
+        if (misses != null) {
+            misses.add(List.of(cacheName, key));
+        }
+    }
+
+    // True if the entry was found missing in this scope and not filled since
+    static boolean consume(String cacheName, String key) {
+        Set<List<String>> misses = MISSES.get();
+        return misses != null && misses.remove(List.of(cacheName, key));
+    }
+}
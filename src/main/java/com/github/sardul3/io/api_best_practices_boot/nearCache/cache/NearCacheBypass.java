@@ -0,0 +1,47 @@
+package com.github.sardul3.io.api_best_practices_boot.nearCache.cache;
+
+import java.util.function.Supplier;
+
+/**
+ * Makes the {@link TwoTierCache} reads of a call on this thread skip L1 and go to Redis.
+ * <p>
+ * Writes reach Redis at once but the L1 tiers of other nodes only once the broadcast arrives, so a response that
+ * vouches for being current, such as one tagged with a versioned collection eTag, must not be built from L1.
+ * Values read from Redis are still copied into L1 for ordinary reads.
+ * </p>
+ */
+public final class NearCacheBypass {
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private NearCacheBypass() {
+    }
+
+    /**
+     * Runs the call with L1 skipped.
+     *
+     * @param call the call
+     * @param <T>  the result type
+     * @return the result of the call
+     */
+    public static <T> T call(Supplier<T> call) {
+        Boolean enclosing = ACTIVE.get();
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            return call.get();
+        } finally {
+            if (enclosing == null) {
+                ACTIVE.remove();
+            } else {
+                ACTIVE.set(enclosing);
+            }
+        }
+    }
+
+    /**
+     * @return true if the call running on this thread skips L1
+     */
+    public static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.sardul3.io.api_best_practices_boot.nearCache.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.PaginatedTransaction;
+import org.springframework.cache.Cache;
+
+import java.util.Collection;
+
+/**
+ * Weighs L1 entries by the number of transactions they hold, so that one cached 10k-row list
+ * takes as much of the L1 budget as 10k individually cached transactions.
+ */
+enum NearCacheWeigher implements Weigher<String, Cache.ValueWrapper> {
+    INSTANCE;
+
+    @Override
+    public int weigh(String key, Cache.ValueWrapper wrapper) {
+        Object value = wrapper.get();
+        if (value instanceof Collection<?> collection) {
+            return Math.max(1, collection.size());
+        }
+        if (value instanceof PaginatedTransaction page && page.getTransactions() != null) {
+            return Math.max(1, page.getTransactions().size());
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,269 @@
+package com.github.sardul3.io.api_best_practices_boot.nearCache.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.sardul3.io.api_best_practices_boot.nearCache.invalidation.NearCacheInvalidationPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Cache} that layers a bounded in-process L1 tier (Caffeine) in front of a shared L2 tier (Redis).
+ * <p>
+ * Reads are served from L1 when possible and fall back to L2, copying the L2 value into L1.
+ * Every write goes to both tiers and is broadcast through the {@link NearCacheInvalidationPublisher}
+ * so that the other nodes drop their now stale L1 copies, except for the put of a {@code @Cacheable} call that
+ * fills the entry the same call found missing in L2: no node can hold a copy of it, so there is nothing to
+ * invalidate. Those puts are told apart by {@link MissFills}, scoped to the call, so a load that failed or was
+ * vetoed leaves nothing behind that could swallow the broadcast of a later {@code @CachePut}.
+ * </p>
+ * <p>
+ * An invalidation can arrive while a value read from L2 is on its way into L1. Every invalidation therefore
+ * stamps its keys with a sequence number, and a value read before the latest stamp of its key is not kept in L1.
+ * </p>
+ * <p>
+ * Within {@link NearCacheBypass#call} reads skip L1, for responses that must be as fresh as Redis.
+ * </p>
+ * <p>
+ * L1 keys are normalized with {@link String#valueOf(Object)}, the same way the Redis cache renders its
+ * keys, so that invalidation messages can carry plain strings.
+ * </p>
+ */
+public class TwoTierCache implements Cache {
+
+    private final Cache redisCache;
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> localCache;
+    private final NearCacheInvalidationPublisher publisher;
+
+    // Orders L2 reads against invalidations
+    private final AtomicLong sequence = new AtomicLong();
+    // The sequence number of the latest invalidation per key, kept longer than any L2 read takes
+    private final com.github.benmanes.caffeine.cache.Cache<String, Long> invalidatedAt = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+    private volatile long clearedAt;
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+
+    public TwoTierCache(Cache redisCache, long maximumWeight, Duration expireAfterWrite,
+                        NearCacheInvalidationPublisher publisher, MeterRegistry meterRegistry) {
+        this.redisCache = redisCache;
+        this.publisher = publisher;
+        this.localCache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher(NearCacheWeigher.INSTANCE)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+
+        String name = redisCache.getName();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, name + ".l1");
+        this.l1Hits = tierCounter(meterRegistry, name, "l1", "hit");
+        this.l1Misses = tierCounter(meterRegistry, name, "l1", "miss");
+        this.l2Hits = tierCounter(meterRegistry, name, "l2", "hit");
+        this.l2Misses = tierCounter(meterRegistry, name, "l2", "miss");
+    }
+
+    private static Counter tierCounter(MeterRegistry meterRegistry, String cacheName, String tier, String result) {
+        return Counter.builder("near.cache.gets")
+                .description("Lookups per cache tier")
+                .tag("cache", cacheName)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return redisCache.getName();
+    }
+
+    @Override
+    @NonNull
+    public Object getNativeCache() {
+        return redisCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(@NonNull Object key) {
+        String localKey = localKey(key);
+        ValueWrapper local = localRead(localKey);
+        if (local != null) {
+            l1Hits.increment();
+            return local;
+        }
+        l1Misses.increment();
+
+        long readAt = sequence.get();
+        ValueWrapper remote = redisCache.get(key);
+        if (remote == null) {
+            l2Misses.increment();
+            MissFills.record(getName(), localKey);
+            return null;
+        }
+        l2Hits.increment();
+        populateLocal(localKey, new SimpleValueWrapper(remote.get()), readAt);
+        return remote;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        ValueWrapper local = localRead(localKey);
+        if (local != null) {
+            l1Hits.increment();
+            return (T) local.get();
+        }
+        l1Misses.increment();
+
+        // The Redis cache either returns its value or runs the loader and stores the result
+        long readAt = sequence.get();
+        T value = redisCache.get(key, valueLoader);
+        populateLocal(localKey, new SimpleValueWrapper(value), readAt);
+        return value;
+    }
+
+    @Override
+    public void put(@NonNull Object key, Object value) {
+        String localKey = localKey(key);
+        redisCache.put(key, value);
+        markInvalidated(localKey);
+        localCache.put(localKey, new SimpleValueWrapper(value));
+        if (!MissFills.consume(getName(), localKey)) {
+            publisher.publishEvict(getName(), List.of(localKey));
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(@NonNull Object key, Object value) {
+        String localKey = localKey(key);
+        ValueWrapper existing = redisCache.putIfAbsent(key, value);
+        // Whatever Redis now holds is authoritative, so only drop our copy instead of guessing
+        markInvalidated(localKey);
+        localCache.invalidate(localKey);
+        if (existing == null) {
+            publisher.publishEvict(getName(), List.of(localKey));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(@NonNull Object key) {
+        String localKey = localKey(key);
+        redisCache.evict(key);
+        markInvalidated(localKey);
+        localCache.invalidate(localKey);
+        publisher.publishEvict(getName(), List.of(localKey));
+    }
+
+    @Override
+    public boolean evictIfPresent(@NonNull Object key) {
+        String localKey = localKey(key);
+        boolean present = redisCache.evictIfPresent(key);
+        markInvalidated(localKey);
+        localCache.invalidate(localKey);
+        publisher.publishEvict(getName(), List.of(localKey));
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        redisCache.clear();
+        clearedAt = sequence.incrementAndGet();
+        localCache.invalidateAll();
+        publisher.publishClear(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean present = redisCache.invalidate();
+        clearedAt = sequence.incrementAndGet();
+        localCache.invalidateAll();
+        publisher.publishClear(getName());
+        return present;
+    }
+
+    /**
+     * Drops the given keys from this node's L1 tier only. Used when another node changed the entries.
+     *
+     * @param keys normalized keys to drop
+     */
+    public void evictLocal(Collection<String> keys) {
+        keys.forEach(this::markInvalidated);
+        localCache.invalidateAll(keys);
+    }
+
+    /**
+     * Drops keys that were already removed from the Redis tier by other means (e.g. a pipelined batch
+     * delete) from this node's L1 tier, and tells the other nodes to do the same.
+     *
+     * @param keys normalized keys to drop
+     */
+    public void evictLocalAndBroadcast(Collection<String> keys) {
+        keys.forEach(this::markInvalidated);
+        localCache.invalidateAll(keys);
+        publisher.publishEvict(getName(), keys);
+    }
+
+    /**
+     * Drops every entry from this node's L1 tier only. Used when another node cleared the cache.
+     */
+    public void clearLocal() {
+        clearedAt = sequence.incrementAndGet();
+        localCache.invalidateAll();
+    }
+
+    private ValueWrapper localRead(String localKey) {
+        return NearCacheBypass.isActive() ? null : localCache.getIfPresent(localKey);
+    }
+
+    private void markInvalidated(String localKey) {
+        invalidatedAt.put(localKey, sequence.incrementAndGet());
+    }
+
+    private boolean invalidatedSince(String localKey, long readAt) {
+        Long stamp = invalidatedAt.getIfPresent(localKey);
+        return clearedAt > readAt || (stamp != null && stamp > readAt);
+    }
+
+    // Keeps a value read from L2 in L1 unless its key was invalidated since the read. Checking after the put as
+    // well covers an invalidation that lands between the check and the put, as it stamps before it invalidates.
+    private void populateLocal(String localKey, ValueWrapper value, long readAt) {
+        if (invalidatedSince(localKey, readAt)) {
+            return;
+        }
+        localCache.put(localKey, value);
+        if (invalidatedSince(localKey, readAt)) {
+            localCache.asMap().remove(localKey, value);
+        }
+    }
+
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.sardul3.io.api_best_practices_boot.nearCache.cache;
+
+import com.github.sardul3.io.api_best_practices_boot.nearCache.config.NearCacheProperties;
+import com.github.sardul3.io.api_best_practices_boot.nearCache.invalidation.NearCacheInvalidationPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.NonNull;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link CacheManager} that wraps every cache of a Redis-backed manager into a {@link TwoTierCache}.
+ * The wrappers are created lazily and kept for the lifetime of the application.
+ */
+public class TwoTierCacheManager implements CacheManager {
+
+    private final CacheManager redisCacheManager;
+    private final NearCacheProperties properties;
+    private final NearCacheInvalidationPublisher publisher;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheManager redisCacheManager, NearCacheProperties properties,
+                               NearCacheInvalidationPublisher publisher, MeterRegistry meterRegistry) {
+        this.redisCacheManager = redisCacheManager;
+        this.properties = properties;
+        this.publisher = publisher;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(@NonNull String name) {
+        return getTwoTierCache(name);
+    }
+
+    /**
+     * Returns the two-tier wrapper for the given cache, creating it on first use.
+     *
+     * @param name the cache name
+     * @return the wrapper, or null if the underlying Redis manager does not know the cache
+     */
+    public TwoTierCache getTwoTierCache(String name) {
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache redisCache = redisCacheManager.getCache(name);
+        if (redisCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, key -> new TwoTierCache(redisCache,
+                properties.getMaximumWeight(), properties.getExpireAfterWrite(), publisher, meterRegistry));
+    }
+
+    @Override
+    @NonNull
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+}
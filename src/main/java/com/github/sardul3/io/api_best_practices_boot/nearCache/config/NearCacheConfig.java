@@ -0,0 +1,76 @@
+package com.github.sardul3.io.api_best_practices_boot.nearCache.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sardul3.io.api_best_practices_boot.nearCache.cache.TwoTierCacheManager;
+import com.github.sardul3.io.api_best_practices_boot.nearCache.invalidation.NearCacheInvalidationListener;
+import com.github.sardul3.io.api_best_practices_boot.nearCache.invalidation.NearCacheInvalidationPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.LinkedHashSet;
+
+/**
+ * Wires the two-tier (in-process L1 + Redis L2) cache manager.
+ * <p>
+ * Declaring our own {@link org.springframework.cache.CacheManager} makes Spring Boot's Redis cache
+ * auto-configuration back off, so the Redis manager is built here from the same
+ * {@link RedisCacheConfiguration}, {@code spring.cache.cache-names} and {@link RedisCacheManagerBuilderCustomizer}s
+ * it would have used.
+ * Setting {@code near-cache.enabled=false} removes this configuration and restores the plain Redis manager.
+ * </p>
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+@ConditionalOnProperty(prefix = "near-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class NearCacheConfig {
+
+    @Bean
+    public NearCacheInvalidationPublisher nearCacheInvalidationPublisher(StringRedisTemplate stringRedisTemplate,
+                                                                        ObjectMapper objectMapper,
+                                                                        NearCacheProperties properties) {
+        return new NearCacheInvalidationPublisher(stringRedisTemplate, objectMapper, properties.getInvalidationChannel());
+    }
+
+    @Bean
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                            RedisCacheConfiguration cacheConfiguration,
+                                            CacheProperties cacheProperties,
+                                            NearCacheProperties properties,
+                                            NearCacheInvalidationPublisher publisher,
+                                            MeterRegistry meterRegistry,
+                                            ObjectProvider<RedisCacheManagerBuilderCustomizer> customizers) {
+        RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(cacheConfiguration)
+                .initialCacheNames(new LinkedHashSet<>(cacheProperties.getCacheNames()));
+        customizers.orderedStream().forEach(customizer -> customizer.customize(builder));
+        RedisCacheManager redisCacheManager = builder.build();
+        redisCacheManager.afterPropertiesSet();
+        return new TwoTierCacheManager(redisCacheManager, properties, publisher, meterRegistry);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer nearCacheListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                    TwoTierCacheManager cacheManager,
+                                                                    NearCacheInvalidationPublisher publisher,
+                                                                    ObjectMapper objectMapper,
+                                                                    NearCacheProperties properties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                new NearCacheInvalidationListener(cacheManager, objectMapper, publisher.getNodeId()),
+                new ChannelTopic(properties.getInvalidationChannel()));
+        return container;
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.sardul3.io.api_best_practices_boot.nearCache.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-process (L1) near cache that sits in front of the Redis (L2) caches.
+ * <p>
+ * The L1 is bounded by weight rather than entry count: a single transaction weighs 1, while a
+ * cached list or page weighs as many units as the transactions it holds. Entries also expire
+ * after {@link #expireAfterWrite}, which caps how long a node can serve a stale copy if an
+ * invalidation message is ever lost.
+ * </p>
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "near-cache")
+public class NearCacheProperties {
+
+    // Turns the L1 tier on or off; when off, the plain Redis cache manager is used
+    private boolean enabled = true;
+
+    // Maximum total weight (≈ number of cached transactions) kept in L1 per cache
+    private long maximumWeight = 50_000;
+
+    // Upper bound on the lifetime of an L1 entry, should stay well below the Redis TTL
+    private Duration expireAfterWrite = Duration.ofSeconds(60);
+
+    // Redis pub/sub channel used to tell other nodes to drop their L1 copies
+    private String invalidationChannel = "near-cache:invalidations";
+}
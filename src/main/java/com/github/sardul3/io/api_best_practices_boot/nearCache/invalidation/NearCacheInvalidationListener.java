@@ -0,0 +1,60 @@
+package com.github.sardul3.io.api_best_practices_boot.nearCache.invalidation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sardul3.io.api_best_practices_boot.nearCache.cache.TwoTierCache;
+import com.github.sardul3.io.api_best_practices_boot.nearCache.cache.TwoTierCacheManager;
+import com.github.sardul3.io.api_best_practices_boot.responseCache.cache.ResponseCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.io.IOException;
+
+/**
+ * Receives invalidation messages published by other nodes and drops the matching entries
+ * from this node's L1 tier. The L2 (Redis) tier is shared, so it is never touched here.
+ * Messages for {@link ResponseCache#CACHE_NAME} are left to the {@code ResponseCacheInvalidationListener}.
+ */
+@Slf4j
+public class NearCacheInvalidationListener implements MessageListener {
+
+    private final TwoTierCacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final String nodeId;
+
+    public NearCacheInvalidationListener(TwoTierCacheManager cacheManager, ObjectMapper objectMapper, String nodeId) {
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        NearCacheInvalidationMessage invalidation;
+        try {
+            invalidation = objectMapper.readValue(message.getBody(), NearCacheInvalidationMessage.class);
+        } catch (IOException e) {
+            log.warn("Ignoring malformed near-cache invalidation message: {}", e.getMessage());
+            return;
+        }
+
+        // Our own changes were already applied to the local tier when they were made. Clears of the response
+        // cache share the channel but are handled by its own listener, looking it up here would create a near cache
+        if (nodeId.equals(invalidation.getOrigin()) || ResponseCache.CACHE_NAME.equals(invalidation.getCacheName())) {
+            return;
+        }
+
+        TwoTierCache cache = cacheManager.getTwoTierCache(invalidation.getCacheName());
+        if (cache == null) {
+            return;
+        }
+        if (invalidation.isClear()) {
+            log.debug("Clearing L1 of cache {} on request of node {}", invalidation.getCacheName(), invalidation.getOrigin());
+            cache.clearLocal();
+        } else {
+            log.debug("Dropping {} L1 entries of cache {} on request of node {}",
+                    invalidation.getKeys().size(), invalidation.getCacheName(), invalidation.getOrigin());
+            cache.evictLocal(invalidation.getKeys());
+        }
+    }
+}
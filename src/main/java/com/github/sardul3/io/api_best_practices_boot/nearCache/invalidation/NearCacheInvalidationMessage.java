@@ -0,0 +1,26 @@
+package com.github.sardul3.io.api_best_practices_boot.nearCache.invalidation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Message broadcast over Redis pub/sub whenever a node changes an entry of a two-tier cache.
+ * <p>
+ * Receivers drop the listed keys (or the whole cache when {@code clear} is set) from their
+ * local L1 tier. The {@code origin} node id lets the sender ignore its own messages.
+ * </p>
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class NearCacheInvalidationMessage {
+    private String origin;      // Id of the node that made the change
+    private String cacheName;   // Name of the affected cache
+    private List<String> keys;  // Normalized keys to drop, empty when clear is true
+    private boolean clear;      // Whether the whole cache was cleared
+}
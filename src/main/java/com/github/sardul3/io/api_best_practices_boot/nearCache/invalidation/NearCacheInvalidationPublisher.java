@@ -0,0 +1,64 @@
+package com.github.sardul3.io.api_best_practices_boot.nearCache.invalidation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Publishes L1 invalidation messages to every node listening on the near-cache channel.
+ * <p>
+ * Publishing is best effort: a failure is logged but never fails the write that triggered it,
+ * since the L1 entries on other nodes still expire on their own after a short time.
+ * </p>
+ */
+@Slf4j
+public class NearCacheInvalidationPublisher {
+
+    @Getter
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final String channel;
+
+    public NearCacheInvalidationPublisher(StringRedisTemplate stringRedisTemplate, ObjectMapper objectMapper, String channel) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.channel = channel;
+    }
+
+    /**
+     * Tells other nodes to drop the given keys of a cache from their L1 tier.
+     *
+     * @param cacheName the cache the keys belong to
+     * @param keys      the normalized keys that changed
+     */
+    public void publishEvict(String cacheName, Collection<String> keys) {
+        if (!keys.isEmpty()) {
+            publish(new NearCacheInvalidationMessage(nodeId, cacheName, List.copyOf(keys), false));
+        }
+    }
+
+    /**
+     * Tells other nodes to drop every L1 entry of a cache.
+     *
+     * @param cacheName the cache that was cleared
+     */
+    public void publishClear(String cacheName) {
+        publish(new NearCacheInvalidationMessage(nodeId, cacheName, List.of(), true));
+    }
+
+    private void publish(NearCacheInvalidationMessage message) {
+        try {
+            stringRedisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(message));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to publish near-cache invalidation for cache {}: {}", message.getCacheName(), e.getMessage());
+        }
+    }
+}
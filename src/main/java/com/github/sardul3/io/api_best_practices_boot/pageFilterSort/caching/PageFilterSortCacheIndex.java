@@ -0,0 +1,235 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteriaMatcher;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterOperator;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Redis-backed index of cached filtered queries, used to evict only the entries a write can affect.
+ * <p>
+ * For every cached entry the index stores the filter criteria it was computed with:
+ * <ul>
+ *     <li>{@code cache-index:<cache>} is a hash from cache key to the encoded criteria and registration time.</li>
+ *     <li>{@code cache-index:<cache>:status:<STATUS>} holds the keys whose filters pin a single status,
+ *     {@code cache-index:<cache>:status:*} holds all others.</li>
+ * </ul>
+ * A write therefore only has to look at the status partitions of the changed transaction, and then
+ * re-evaluates the account and amount criteria of those candidates in memory.
+ * </p>
+ */
+@Component
+@Slf4j
+public class PageFilterSortCacheIndex {
+
+    private static final String INDEX_PREFIX = "cache-index:";
+    private static final String ANY_STATUS = "*";
+    private static final char FIELD_SEPARATOR = '\u001F';
+    private static final char CRITERIA_SEPARATOR = '\u001E';
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Getter
+    @Value("${cache-invalidation.index-ttl:10m}")
+    private Duration indexTtl;
+
+    public PageFilterSortCacheIndex(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    /**
+     * Records the filters a cache entry was computed with. Called whenever a filtered query result is cached.
+     *
+     * @param cacheName the cache holding the entry
+     * @param cacheKey  the key of the entry within the cache
+     * @param filters   the filters of the cached query
+     */
+    public void register(String cacheName, String cacheKey, List<FilterCriteria> filters) {
+        String hashKey = hashKey(cacheName);
+        String partitionKey = partitionKey(cacheName, statusPartition(filters));
+        String entry = System.currentTimeMillis() + String.valueOf(FIELD_SEPARATOR) + encode(filters);
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                redis.hSet(hashKey, cacheKey, entry);
+                redis.sAdd(partitionKey, cacheKey);
+                redis.expire(hashKey, indexTtl.toSeconds());
+                redis.expire(partitionKey, indexTtl.toSeconds());
+                return null;
+            });
+        } catch (RuntimeException e) {
+            // Without an index entry the cached page is only dropped by its TTL, so make that visible
+            log.warn("Failed to index cache key {} of cache {}: {}", cacheKey, cacheName, e.getMessage());
+        }
+    }
+
+    /**
+     * Looks up the indexed entries of a cache that could contain any of the given transaction states.
+     * Index entries older than the index TTL are returned as well, flagged as expired, so that they can be
+     * pruned in the same round trip as the evictions.
+     *
+     * @param cacheName the cache to look in
+     * @param states    the before/after states of the changed transactions
+     * @return the affected entries
+     */
+    public List<IndexedEntry> findAffected(String cacheName, Collection<Transaction> states) {
+        Set<String> partitions = new LinkedHashSet<>();
+        partitions.add(partitionKey(cacheName, ANY_STATUS));
+        for (Transaction state : states) {
+            if (state.getStatus() != null) {
+                partitions.add(partitionKey(cacheName, state.getStatus().name()));
+            }
+        }
+        Set<String> candidates = stringRedisTemplate.opsForSet().union(partitions);
+        if (candidates == null || candidates.isEmpty()) {
+            return List.of();
+        }
+
+        List<Object> fields = new ArrayList<>(candidates);
+        List<Object> entries = stringRedisTemplate.opsForHash().multiGet(hashKey(cacheName), fields);
+        long expiredBefore = System.currentTimeMillis() - indexTtl.toMillis();
+
+        List<IndexedEntry> affected = new ArrayList<>();
+        for (int i = 0; i < fields.size(); i++) {
+            String cacheKey = (String) fields.get(i);
+            Object entry = entries.get(i);
+            if (entry == null) {
+                // The hash expired before the partition set, we no longer know where the key is filed
+                affected.add(new IndexedEntry(cacheKey, null, true));
+                continue;
+            }
+            String encoded = entry.toString();
+            int separator = encoded.indexOf(FIELD_SEPARATOR);
+            long registeredAt = Long.parseLong(encoded.substring(0, separator));
+            List<FilterCriteria> filters = decode(encoded.substring(separator + 1));
+            String partition = statusPartition(filters);
+            if (registeredAt < expiredBefore) {
+                affected.add(new IndexedEntry(cacheKey, partition, true));
+            } else if (states.stream().anyMatch(state -> FilterCriteriaMatcher.couldMatch(filters, state))) {
+                affected.add(new IndexedEntry(cacheKey, partition, false));
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Queues the removal of index entries on a pipelined connection.
+     *
+     * @param redis     the pipelined connection
+     * @param cacheName the cache the entries belong to
+     * @param entries   the entries to forget
+     */
+    void remove(StringRedisConnection redis, String cacheName, Collection<IndexedEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        redis.hDel(hashKey(cacheName), entries.stream().map(IndexedEntry::getCacheKey).toArray(String[]::new));
+        for (IndexedEntry entry : entries) {
+            if (entry.getPartition() != null) {
+                redis.sRem(partitionKey(cacheName, entry.getPartition()), entry.getCacheKey());
+            } else {
+                for (String partition : allPartitions()) {
+                    redis.sRem(partitionKey(cacheName, partition), entry.getCacheKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Clears the whole index of a cache, used when the cache itself is cleared.
+     *
+     * @param cacheName the cache whose index to drop
+     */
+    public void clear(String cacheName) {
+        Set<String> keys = new HashSet<>();
+        keys.add(hashKey(cacheName));
+        for (String partition : allPartitions()) {
+            keys.add(partitionKey(cacheName, partition));
+        }
+        stringRedisTemplate.delete(keys);
+    }
+
+    private static List<String> allPartitions() {
+        List<String> partitions = new ArrayList<>();
+        partitions.add(ANY_STATUS);
+        for (Transaction.Status status : Transaction.Status.values()) {
+            partitions.add(status.name());
+        }
+        return partitions;
+    }
+
+    private static String statusPartition(List<FilterCriteria> filters) {
+        for (FilterCriteria criteria : filters) {
+            if ("status".equals(criteria.getKey()) && criteria.getValue() != null
+                    && (FilterOperator.CONTAINS.getCode().equals(criteria.getOperation())
+                    || FilterOperator.EQUAL.getCode().equals(criteria.getOperation()))) {
+                return criteria.getValue().toString();
+            }
+        }
+        return ANY_STATUS;
+    }
+
+    private static String hashKey(String cacheName) {
+        return INDEX_PREFIX + cacheName;
+    }
+
+    private static String partitionKey(String cacheName, String status) {
+        return INDEX_PREFIX + cacheName + ":status:" + status;
+    }
+
+    /**
+     * Encodes filter criteria into a compact string, reversed by {@link #decode(String)}.
+     */
+    public static String encode(List<FilterCriteria> filters) {
+        StringBuilder encoded = new StringBuilder();
+        for (FilterCriteria criteria : filters) {
+            if (!encoded.isEmpty()) {
+                encoded.append(CRITERIA_SEPARATOR);
+            }
+            encoded.append(criteria.getKey()).append(FIELD_SEPARATOR)
+                    .append(criteria.getOperation()).append(FIELD_SEPARATOR)
+                    .append(criteria.getValue());
+        }
+        return encoded.toString();
+    }
+
+    public static List<FilterCriteria> decode(String encoded) {
+        List<FilterCriteria> filters = new ArrayList<>();
+        if (encoded.isEmpty()) {
+            return filters;
+        }
+        for (String part : encoded.split(String.valueOf(CRITERIA_SEPARATOR))) {
+            String[] fields = part.split(String.valueOf(FIELD_SEPARATOR), 3);
+            filters.add(new FilterCriteria(fields[0], fields[1], fields.length > 2 ? fields[2] : ""));
+        }
+        return filters;
+    }
+
+    /**
+     * A cache key found in the index, together with the status partition it is filed under
+     * (null when the partition is no longer known).
+     */
+    @Getter
+    public static class IndexedEntry {
+        private final String cacheKey;
+        private final String partition;
+        // True when the index record outlived the cache entry and only needs to be pruned
+        private final boolean expired;
+
+        IndexedEntry(String cacheKey, String partition, boolean expired) {
+            this.cacheKey = cacheKey;
+            this.partition = partition;
+            this.expired = expired;
+        }
+    }
+}
@@ -1,45 +1,199 @@
 package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching;
 
+import com.github.sardul3.io.api_best_practices_boot.eTags.hashing.ETagHashAlgorithm;
+import com.github.sardul3.io.api_best_practices_boot.eTags.hashing.ETagHasher;
 import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterOperator;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.TransactionFilterPlanner;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.CountStrategy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Method;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
-public class PageFilterSortCacheKeyGenerator {
+/**
+ * Cache keys of paged, filtered and sorted transaction reads, registered as the {@code pageFilterSortKeyGenerator}
+ * bean for {@code @Cacheable(keyGenerator = ...)}.
+ * <p>
+ * Filters are canonicalized first (see {@link TransactionFilterPlanner#canonicalize(List)}), so
+ * {@code ?status=X&fromAccount=Y} and {@code ?fromAccount=Y&status=X}, or {@code amount>100} and
+ * {@code amount>100.0}, share one entry. The canonical filters, the sort order and the count strategy are then
+ * hashed with 128-bit MurmurHash3, and the key is that hash behind a readable prefix with the page and size,
+ * e.g. {@code pfs:p0:s20:1f0e...}: its length no longer grows with the filter values.
+ * </p>
+ * <p>
+ * Per filter shape (the fields and operators of the canonical filters), {@code transactions.page.cache.lookups}
+ * counts the reads and {@code transactions.page.cache.misses} the reads that went to the database, so the hit
+ * rate of each shape can be compared. The number of shapes tagged is bounded; further ones are tagged
+ * {@code other}.
+ * </p>
+ */
+@Component("pageFilterSortKeyGenerator")
+public class PageFilterSortCacheKeyGenerator implements KeyGenerator {
+
+    private static final String PAGE_PREFIX = "pfs:";
+    private static final String FILTER_PREFIX = "pfs-filters:";
+    private static final String NO_FILTERS = "none";
+    private static final String OTHER_SHAPE = "other";
+
+    private final TransactionFilterPlanner filterPlanner;
+    private final MeterRegistry meterRegistry;
+    private final int maxShapes;
+    private final Map<String, ShapeMeters> shapeMeters = new ConcurrentHashMap<>();
+
+    public PageFilterSortCacheKeyGenerator(TransactionFilterPlanner filterPlanner, MeterRegistry meterRegistry,
+                                           @Value("${cache-keys.max-tagged-shapes:100}") int maxShapes) {
+        this.filterPlanner = filterPlanner;
+        this.meterRegistry = meterRegistry;
+        this.maxShapes = maxShapes;
+    }
+
+    /**
+     * Generates the key of a cached read from its filters, page and count strategy arguments.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object generate(Object target, Method method, Object... params) {
+        List<FilterCriteria> filters = null;
+        Pageable pageable = null;
+        CountStrategy countStrategy = CountStrategy.EXACT;
+        for (Object param : params) {
+            if (param instanceof List<?> list) {
+                filters = (List<FilterCriteria>) list;
+            } else if (param instanceof Pageable page) {
+                pageable = page;
+            } else if (param instanceof CountStrategy strategy) {
+                countStrategy = strategy;
+            }
+        }
+        if (pageable == null) {
+            throw new IllegalArgumentException("No Pageable argument in " + method);
+        }
+        return generateKey(filters, pageable, countStrategy);
+    }
+
     /**
-     * Generates a unique key based on the filter criteria, pagination, and sorting parameters.
+     * Generates the key of a page read with exact counting.
      *
      * @param filters  List of FilterCriteria used for filtering
      * @param pageable Pageable object that contains pagination and sorting information
-     * @return A unique string representation of the filters, pagination, and sorting
+     * @return the key, the same for every order and spelling of the same filters
      */
-    public static String generateKey(List<FilterCriteria> filters, Pageable pageable) {
-        StringBuilder keyBuilder = new StringBuilder();
-
-        // Append pageable information (page, size, sort)
-        keyBuilder.append("page=").append(pageable.getPageNumber()).append("_");
-        keyBuilder.append("size=").append(pageable.getPageSize()).append("_");
+    public String generateKey(List<FilterCriteria> filters, Pageable pageable) {
+        return generateKey(filters, pageable, CountStrategy.EXACT);
+    }
 
+    /**
+     * Generates the key of a page read with a given count strategy; pages counted differently are cached separately
+     * since their totals differ.
+     *
+     * @param filters       List of FilterCriteria used for filtering
+     * @param pageable      Pageable object that contains pagination and sorting information
+     * @param countStrategy how the total of the page is obtained
+     * @return the key, the same for every order and spelling of the same filters
+     */
+    public String generateKey(List<FilterCriteria> filters, Pageable pageable, CountStrategy countStrategy) {
+        ETagHasher hasher = ETagHashAlgorithm.MURMUR3_128.hasher();
+        putFilters(hasher, filterPlanner.canonicalize(filters));
         Sort sort = pageable.getSort();
-        if (sort.isSorted()) {
-            String sortStr = sort.stream()
-                    .map(order -> order.getProperty() + "," + order.getDirection())
-                    .collect(Collectors.joining("_"));
-            keyBuilder.append("sort=").append(sortStr).append("_");
+        for (Sort.Order order : sort) {
+            hasher.putString(order.getProperty())
+                    .putByte((byte) order.getDirection().ordinal())
+                    .putByte((byte) (order.isIgnoreCase() ? 1 : 0))
+                    .putByte((byte) order.getNullHandling().ordinal());
+        }
+        hasher.putString(countStrategy == null ? CountStrategy.EXACT.name() : countStrategy.name());
+        String page = pageable.isPaged() ? "p" + pageable.getPageNumber() + ":s" + pageable.getPageSize() : "unpaged";
+        return PAGE_PREFIX + page + ":" + hasher.finishHex();
+    }
+
+    /**
+     * Generates a key from the filter criteria alone, shared by all pages and sort orders of the same filters.
+     *
+     * @param filters List of FilterCriteria used for filtering
+     * @return the key, the same for every order and spelling of the same filters
+     */
+    public String generateFilterKey(List<FilterCriteria> filters) {
+        List<FilterCriteria> canonical = filterPlanner.canonicalize(filters);
+        if (canonical.isEmpty()) {
+            return FILTER_PREFIX + NO_FILTERS;
         }
+        ETagHasher hasher = ETagHashAlgorithm.MURMUR3_128.hasher();
+        putFilters(hasher, canonical);
+        return FILTER_PREFIX + hasher.finishHex();
+    }
 
-        // Append filter criteria
-        if (filters != null && !filters.isEmpty()) {
-            String filtersStr = filters.stream()
-                    .map(filter -> filter.getKey() + filter.getOperation() + filter.getValue())
-                    .collect(Collectors.joining("_"));
-            keyBuilder.append("filters=").append(filtersStr);
-        } else {
-            keyBuilder.append("filters=no-filters");
+    /**
+     * Counts a read of a page with the given filters, whether or not it is answered from the cache.
+     *
+     * @param filters the filters of the read
+     */
+    public void recordLookup(List<FilterCriteria> filters) {
+        meters(filters).lookups().increment();
+    }
+
+    /**
+     * Counts a read of a page with the given filters that was not answered from the cache.
+     *
+     * @param filters the filters of the read
+     */
+    public void recordMiss(List<FilterCriteria> filters) {
+        meters(filters).misses().increment();
+    }
+
+    private static void putFilters(ETagHasher hasher, List<FilterCriteria> canonical) {
+        hasher.putInt(canonical.size());
+        for (FilterCriteria criteria : canonical) {
+            hasher.putString(criteria.getKey())
+                    .putString(criteria.getOperation())
+                    .putString(criteria.getValue() == null ? null : criteria.getValue().toString());
+        }
+    }
+
+    private ShapeMeters meters(List<FilterCriteria> filters) {
+        String shape = shape(filterPlanner.canonicalize(filters));
+        ShapeMeters meters = shapeMeters.get(shape);
+        if (meters == null) {
+            if (shapeMeters.size() >= maxShapes) {
+                shape = OTHER_SHAPE;
+            }
+            meters = shapeMeters.computeIfAbsent(shape, this::register);
+        }
+        return meters;
+    }
+
+    private ShapeMeters register(String shape) {
+        return new ShapeMeters(
+                Counter.builder("transactions.page.cache.lookups")
+                        .description("Reads of transaction pages, by filter shape")
+                        .tag("shape", shape)
+                        .register(meterRegistry),
+                Counter.builder("transactions.page.cache.misses")
+                        .description("Reads of transaction pages not answered from the cache, by filter shape")
+                        .tag("shape", shape)
+                        .register(meterRegistry));
+    }
+
+    // The fields and operators of canonical filters, e.g. "amount>,status:"
+    private static String shape(List<FilterCriteria> canonical) {
+        if (canonical.isEmpty()) {
+            return NO_FILTERS;
         }
+        return canonical.stream()
+                .map(criteria -> FilterOperator.ANY_OF.getCode().equals(criteria.getOperation())
+                        ? "or" : criteria.getKey() + criteria.getOperation())
+                .collect(Collectors.joining(","));
+    }
 
-        return keyBuilder.toString();
+    private record ShapeMeters(Counter lookups, Counter misses) {
     }
 }
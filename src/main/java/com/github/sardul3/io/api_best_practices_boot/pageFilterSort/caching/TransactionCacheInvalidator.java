@@ -0,0 +1,155 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching;
+
+import com.github.sardul3.io.api_best_practices_boot.cachePolicy.config.CachePolicyProperties;
+import com.github.sardul3.io.api_best_practices_boot.cachePolicy.support.JitteredTtlFunction;
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChange;
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChangedEvent;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.nearCache.cache.TwoTierCache;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Evicts only the cached transaction lists and pages that a write can affect, instead of wiping the caches.
+ * <p>
+ * <ul>
+ *     <li>{@code transactionsCache} (v1) is keyed by {@code from_to}, so the only entries that can contain a
+ *     transaction are the four combinations of its accounts with the empty filter.</li>
+ *     <li>{@code transactionsPFSCache} (v2) entries are looked up in the {@link PageFilterSortCacheIndex} and
+ *     evicted when their filters could match the transaction before or after the write. All pages and sort
+ *     orders of a matching filter go, since an insert or delete shifts rows across every page.</li>
+ *     <li>{@code transactionsCountCache} holds one total per filter shape and is indexed the same way.</li>
+ *     <li>{@code transactionsSummaryCache} holds one summary per filter, grouping and limit, indexed the same way.</li>
+ * </ul>
+ * All Redis deletions of one write are sent as a single pipeline; the L1 tier is then dropped on every node.
+ * </p>
+ * <p>
+ * An entry that outlives its index record is no longer evicted by writes, so startup fails unless
+ * {@code cache-invalidation.index-ttl} covers the longest TTL of the indexed caches.
+ * </p>
+ */
+@Component
+@Slf4j
+public class TransactionCacheInvalidator {
+
+    static final String TRANSACTIONS_CACHE = "transactionsCache";
+    static final List<String> INDEXED_CACHES = List.of("transactionsPFSCache", "transactionsCountCache",
+            "transactionsSummaryCache");
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final PageFilterSortCacheIndex cacheIndex;
+    private final RedisCacheConfiguration cacheConfiguration;
+    private final CacheManager cacheManager;
+    private final CachePolicyProperties cachePolicyProperties;
+
+    public TransactionCacheInvalidator(StringRedisTemplate stringRedisTemplate, PageFilterSortCacheIndex cacheIndex,
+                                       RedisCacheConfiguration cacheConfiguration, CacheManager cacheManager,
+                                       CachePolicyProperties cachePolicyProperties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.cacheIndex = cacheIndex;
+        this.cacheConfiguration = cacheConfiguration;
+        this.cacheManager = cacheManager;
+        this.cachePolicyProperties = cachePolicyProperties;
+    }
+
+    @PostConstruct
+    void checkIndexTtl() {
+        for (String cacheName : INDEXED_CACHES) {
+            CachePolicyProperties.Policy policy = cachePolicyProperties.policyFor(cacheName);
+            // Jitter only takes time off, so the longest TTL is the one drawn without any
+            Duration longest = JitteredTtlFunction.jittered(policy.getTtl(), policy.getJitter(), 0);
+            if (cacheIndex.getIndexTtl().compareTo(longest) < 0) {
+                throw new IllegalStateException(String.format(
+                        "cache-invalidation.index-ttl (%s) is shorter than the TTL of %s (%s), its entries would "
+                                + "outlive their index and no longer be evicted on writes",
+                        cacheIndex.getIndexTtl(), cacheName, longest));
+            }
+        }
+    }
+
+    // Evict before the collection versions move, so a new eTag is never attached to an evicted entry,
+    // and after the columnar index has applied the write, so a page recomputed after the eviction sees it
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        List<Transaction> states = event.getChanges().stream()
+                .flatMap(change -> change.states().stream())
+                .toList();
+        if (states.isEmpty()) {
+            return;
+        }
+
+        Map<String, Set<String>> evictions = new LinkedHashMap<>();
+        evictions.put(TRANSACTIONS_CACHE, listCacheKeys(states));
+
+        Map<String, List<PageFilterSortCacheIndex.IndexedEntry>> indexEntries = new LinkedHashMap<>();
+        for (String cacheName : INDEXED_CACHES) {
+            List<PageFilterSortCacheIndex.IndexedEntry> entries = cacheIndex.findAffected(cacheName, states);
+            indexEntries.put(cacheName, entries);
+            Set<String> keys = new LinkedHashSet<>();
+            entries.stream().filter(entry -> !entry.isExpired()).forEach(entry -> keys.add(entry.getCacheKey()));
+            evictions.put(cacheName, keys);
+        }
+
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            evictions.forEach((cacheName, keys) -> {
+                if (!keys.isEmpty()) {
+                    String prefix = cacheConfiguration.getKeyPrefixFor(cacheName);
+                    redis.del(keys.stream().map(key -> prefix + key).toArray(String[]::new));
+                }
+            });
+            indexEntries.forEach((cacheName, entries) -> cacheIndex.remove(redis, cacheName, entries));
+            return null;
+        });
+
+        evictions.forEach((cacheName, keys) -> {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (!keys.isEmpty() && cache instanceof TwoTierCache twoTierCache) {
+                twoTierCache.evictLocalAndBroadcast(keys);
+            }
+        });
+        log.debug("Evicted {} cache entries for {} changed transactions",
+                evictions.values().stream().mapToInt(Set::size).sum(), event.getChanges().size());
+    }
+
+    /**
+     * Drops the indexes of the indexed caches, used when all transactions are removed. The cached entries are not
+     * touched: the caller clears the caches themselves (see {@code TransactionService.deleteAllTransactions}).
+     */
+    public void clearIndexes() {
+        for (String cacheName : INDEXED_CACHES) {
+            cacheIndex.clear(cacheName);
+        }
+    }
+
+    /**
+     * Computes the v1 list cache keys ({@code from + '_' + to}, see {@code TransactionService.getAllTransactions})
+     * whose result could contain one of the given transactions.
+     */
+    private static Set<String> listCacheKeys(List<Transaction> states) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add("_");
+        for (Transaction state : states) {
+            String from = Objects.toString(state.getFromAccount(), "");
+            String to = Objects.toString(state.getToAccount(), "");
+            keys.add(from + "_");
+            keys.add("_" + to);
+            keys.add(from + "_" + to);
+        }
+        return keys;
+    }
+}
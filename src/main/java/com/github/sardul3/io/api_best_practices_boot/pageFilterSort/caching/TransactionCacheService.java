@@ -1,16 +1,18 @@
 package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching;
 
 import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
-import com.github.sardul3.io.api_best_practices_boot.eTags.repos.TransactionRepository;
 import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
-import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.TransactionSpecificationBuilder;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.columnar.ColumnarTransactionIndex;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.counting.TransactionCountService;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.CountStrategy;
 import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.PaginatedTransaction;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.query.PreparedTransactionQueries;
 import io.micrometer.observation.annotation.Observed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -19,26 +21,106 @@ import java.util.List;
 public class TransactionCacheService {
 
     @Autowired
-    private TransactionRepository transactionRepository;
+    private PreparedTransactionQueries preparedQueries;
+
+    @Autowired
+    private PageFilterSortCacheIndex cacheIndex;
+
+    @Autowired
+    private TransactionCountService countService;
+
+    @Autowired
+    private PageFilterSortCacheKeyGenerator keyGenerator;
+
+    @Autowired
+    private ColumnarTransactionIndex columnarIndex;
 
     @Observed(name = "transactions.all",
             contextualName = "db-or-cache-get-all-transactions",
             lowCardinalityKeyValues = {"GET", "transactions"})
     @Cacheable(
             value = "transactionsPFSCache",
-            key = "T(com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching.PageFilterSortCacheKeyGenerator).generateKey(#filters, #pageable)",
+            keyGenerator = "pageFilterSortKeyGenerator",
             unless = "#result == null"
     )
     public PaginatedTransaction getAllTransactionsWithCache(List<FilterCriteria> filters, Pageable pageable) {
-        TransactionSpecificationBuilder builder = new TransactionSpecificationBuilder();
-        filters.forEach(filter -> builder.with(filter.getKey(), filter.getOperation(), filter.getValue()));
-        Specification<Transaction> spec = builder.build();
+        keyGenerator.recordMiss(filters);
+        // Eligible reads are answered from the columnar index, the others by the query prepared for this filter
+        // shape and sort order, which applies sorting and pagination
+        Page<Transaction> pageResult = columnarIndex.supports(filters, pageable)
+                ? columnarIndex.findPage(filters, pageable)
+                : preparedQueries.findPage(filters, pageable);
 
-        // Use pageable in findAll to ensure sorting and pagination are applied
-        Page<Transaction> pageResult = transactionRepository.findAll(spec, pageable);
+        // Index the entry by its filters so that writes only evict the pages they can affect
+        cacheIndex.register("transactionsPFSCache", keyGenerator.generateKey(filters, pageable), filters);
 
         // Extract and return the content as a List
         return
                 new PaginatedTransaction( pageResult.getContent(), pageResult.getTotalElements());
     }
+
+    /**
+     * Like {@link #getAllTransactionsWithCache(List, Pageable)}, with the total obtained by the given strategy.
+     * <p>
+     * Apart from {@link CountStrategy#EXACT}, the page is read as a slice (one row more than the page size, no
+     * COUNT query), and the total comes from the count cache, the table statistics or nowhere. Whenever the slice
+     * shows that there is no next page, the total is known exactly anyway and is used instead; otherwise it is at
+     * least large enough for a next page to exist.
+     * </p>
+     * <p>
+     * The returned {@link PaginatedTransaction#getCountStrategy()} is the strategy that was actually applied:
+     * estimates are only available for unfiltered reads, filtered ones fall back to the cached count, and reads
+     * answered from the columnar index are always counted exactly.
+     * </p>
+     */
+    @Observed(name = "transactions.all",
+            contextualName = "db-or-cache-get-all-transactions",
+            lowCardinalityKeyValues = {"GET", "transactions"})
+    @Cacheable(
+            value = "transactionsPFSCache",
+            keyGenerator = "pageFilterSortKeyGenerator",
+            unless = "#result == null"
+    )
+    public PaginatedTransaction getAllTransactionsWithCache(List<FilterCriteria> filters, Pageable pageable,
+                                                            CountStrategy countStrategy) {
+        if (countStrategy == CountStrategy.EXACT) {
+            return getAllTransactionsWithCache(filters, pageable);
+        }
+        keyGenerator.recordMiss(filters);
+        if (columnarIndex.supports(filters, pageable)) {
+            // Totals from the columnar index are exact and cost no extra query
+            Page<Transaction> page = columnarIndex.findPage(filters, pageable);
+            cacheIndex.register("transactionsPFSCache",
+                    keyGenerator.generateKey(filters, pageable, countStrategy), filters);
+            return new PaginatedTransaction(page.getContent(), page.getTotalElements(), CountStrategy.EXACT);
+        }
+        Slice<Transaction> slice = preparedQueries.findSlice(filters, pageable);
+        long seen = pageable.getOffset() + slice.getNumberOfElements();
+
+        CountStrategy applied = countStrategy;
+        Long total = null;
+        if (countStrategy == CountStrategy.ESTIMATED) {
+            total = filters.isEmpty() ? countService.estimatedCount() : null;
+            if (total == null) {
+                applied = CountStrategy.CACHED;
+            }
+        }
+        if (applied == CountStrategy.CACHED) {
+            total = countService.cachedCount(filters);
+        }
+        if (!slice.hasNext() && (slice.hasContent() || pageable.getOffset() == 0)) {
+            // The last page, so every row has been seen
+            total = seen;
+        } else if (slice.hasNext() && (total == null || total <= seen)) {
+            total = seen + 1;
+        } else if (total == null) {
+            // An empty page past the end: all that is known is that there are no more rows than the offset
+            total = seen;
+        }
+
+        cacheIndex.register("transactionsPFSCache",
+                keyGenerator.generateKey(filters, pageable, countStrategy), filters);
+
+        return new PaginatedTransaction(slice.getContent(), total, applied);
+    }
 }
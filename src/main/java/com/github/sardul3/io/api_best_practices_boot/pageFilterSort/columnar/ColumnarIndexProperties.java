@@ -0,0 +1,32 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.columnar;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-memory columnar copy of the transactions table, see {@link ColumnarTransactionIndex}.
+ * <p>
+ * Writes of this node are applied as they happen. Writes that bypass it (another node on a shared database, a
+ * rolled back write) are only picked up by the next rebuild, so {@link #rebuildInterval} bounds how stale a
+ * page answered from the index can get in such deployments.
+ * </p>
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "columnar-index")
+public class ColumnarIndexProperties {
+
+    // Turns the index on or off; when off, every page is read from the database
+    private boolean enabled = false;
+
+    // Rows read from the database per query while (re)building the index
+    private int loadBatchSize = 10_000;
+
+    // How often the index is rebuilt from the database in the background, 0 to never rebuild
+    private Duration rebuildInterval = Duration.ofMinutes(10);
+}
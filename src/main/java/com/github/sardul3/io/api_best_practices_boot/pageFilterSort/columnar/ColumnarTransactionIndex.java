@@ -0,0 +1,268 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.columnar;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChange;
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChangedEvent;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.InvalidFilterException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps a {@link TransactionColumns} copy of the transactions table current, for
+ * {@link com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching.TransactionCacheService} to answer
+ * eligible page reads from instead of the database. Off unless {@code columnar-index.enabled=true}.
+ * <p>
+ * The copy is loaded on startup, as an {@link ApplicationRunner} ordered before the cache warm-up, so the node
+ * reports ready once it is loaded. Until then every read goes to the database. Afterwards, every
+ * {@link TransactionChangedEvent} is applied before the caches are invalidated, so a page recomputed after an
+ * eviction already sees the write. Rebuilds (see {@code columnar-index.rebuild-interval}) load a new copy in the
+ * background while the current one keeps serving; the writes made during the load are replayed onto the new copy
+ * before it replaces the current one.
+ * </p>
+ * <p>
+ * Sorts that leave the place of null amounts to the database follow the null ordering its JDBC metadata reports,
+ * read once on startup; text sorts are always left to the database, see {@link TransactionColumns}.
+ * </p>
+ * <p>
+ * Metrics: {@code transactions.columnar.rows} and the {@code transactions.columnar.query} timer.
+ * </p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class ColumnarTransactionIndex implements ApplicationRunner {
+
+    private final EntityManager entityManager;
+    private final DataSource dataSource;
+    private final ColumnarIndexProperties properties;
+    private final Timer queryTimer;
+    private final ScheduledExecutorService scheduler;
+
+    // Guards columns, pending and generation against concurrent writes, loads and resets; a lock rather than a
+    // monitor, so a virtual thread waiting for it or for the lock of the columns inside it is not pinned
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Null until the first load completed
+    private volatile TransactionColumns columns;
+    // The writes made while a load runs, null otherwise
+    private List<TransactionChange> pending;
+    // Incremented by reset(), so a load that started before it is discarded
+    private long generation;
+    private TransactionColumns.NullOrdering nullOrdering = TransactionColumns.NullOrdering.UNKNOWN;
+
+    public ColumnarTransactionIndex(EntityManager entityManager, DataSource dataSource,
+                                    ColumnarIndexProperties properties, MeterRegistry meterRegistry) {
+        this.entityManager = entityManager;
+        this.dataSource = dataSource;
+        this.properties = properties;
+        this.queryTimer = Timer.builder("transactions.columnar.query")
+                .description("Page reads answered from the columnar index")
+                .register(meterRegistry);
+        Gauge.builder("transactions.columnar.rows", this, index -> {
+                    TransactionColumns current = index.columns;
+                    return current == null ? 0 : current.size();
+                })
+                .description("Transactions held by the columnar index")
+                .register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "columnar-index-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        nullOrdering = nullOrdering(dataSource);
+        load();
+        long interval = properties.getRebuildInterval().toMillis();
+        if (interval > 0) {
+            scheduler.scheduleWithFixedDelay(this::load, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @param filters  the filters of a page read
+     * @param pageable the page and its sort order
+     * @return true if the index is loaded and can answer the read
+     */
+    public boolean supports(List<FilterCriteria> filters, Pageable pageable) {
+        TransactionColumns current = columns;
+        return current != null && current.supports(filters, pageable.getSort());
+    }
+
+    /**
+     * Answers a page read for which {@link #supports(List, Pageable)} returned true.
+     *
+     * @param filters  the filters, combined with AND
+     * @param pageable the page and its sort order
+     * @return the page with its exact total
+     * @throws InvalidFilterException if a value does not fit the type of its field
+     */
+    public Page<Transaction> findPage(List<FilterCriteria> filters, Pageable pageable) {
+        TransactionColumns current = columns;
+        if (current == null) {
+            throw new IllegalStateException("The columnar index is not loaded");
+        }
+        return queryTimer.record(() -> current.query(filters, pageable));
+    }
+
+    // Applied before the cache invalidation, which runs at HIGHEST_PRECEDENCE + 1
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            if (pending != null) {
+                pending.addAll(event.getChanges());
+            }
+            if (columns != null) {
+                apply(columns, event.getChanges());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Empties the index, used when the table is wiped.
+     */
+    public void reset() {
+        writeLock.lock();
+        try {
+            generation++;
+            if (columns != null) {
+                columns = new TransactionColumns(nullOrdering);
+            }
+            if (pending != null) {
+                pending.clear();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Loads a new copy of the table and swaps it in, replaying the writes made during the load.
+     */
+    public void load() {
+        long loadGeneration;
+        writeLock.lock();
+        try {
+            if (pending != null) {
+                return;
+            }
+            pending = new ArrayList<>();
+            loadGeneration = generation;
+        } finally {
+            writeLock.unlock();
+        }
+        long start = System.nanoTime();
+        TransactionColumns loaded = new TransactionColumns(nullOrdering);
+        try {
+            long after = Long.MIN_VALUE;
+            List<Transaction> batch;
+            do {
+                // Outside a transaction every query gets its own persistence context, so rows do not pile up
+                batch = entityManager.createQuery(
+                                "select t from Transaction t where t.transactionId > :after order by t.transactionId",
+                                Transaction.class)
+                        .setParameter("after", after)
+                        .setMaxResults(properties.getLoadBatchSize())
+                        .getResultList();
+                batch.forEach(loaded::upsert);
+                if (!batch.isEmpty()) {
+                    after = batch.getLast().getTransactionId();
+                }
+            } while (batch.size() == properties.getLoadBatchSize());
+        } catch (RuntimeException e) {
+            writeLock.lock();
+            try {
+                pending = null;
+            } finally {
+                writeLock.unlock();
+            }
+            log.warn("Failed to load the columnar transaction index, {}: {}",
+                    columns == null ? "reads stay on the database" : "keeping the current copy", e.getMessage());
+            return;
+        }
+        writeLock.lock();
+        try {
+            if (generation != loadGeneration) {
+                // The table was wiped during the load, only the writes made since then are left
+                loaded = new TransactionColumns(nullOrdering);
+            }
+            apply(loaded, pending);
+            columns = loaded;
+            pending = null;
+        } finally {
+            writeLock.unlock();
+        }
+        log.info("Loaded {} transactions into the columnar index in {} ms", loaded.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static TransactionColumns.NullOrdering nullOrdering(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            if (metaData.nullsAreSortedLow()) {
+                return TransactionColumns.NullOrdering.LOW;
+            }
+            if (metaData.nullsAreSortedHigh()) {
+                return TransactionColumns.NullOrdering.HIGH;
+            }
+            if (metaData.nullsAreSortedAtStart()) {
+                return TransactionColumns.NullOrdering.START;
+            }
+            return metaData.nullsAreSortedAtEnd()
+                    ? TransactionColumns.NullOrdering.END : TransactionColumns.NullOrdering.UNKNOWN;
+        } catch (SQLException e) {
+            log.warn("Failed to read the null ordering of the database, sorts on amounts stay on it: {}", e.getMessage());
+            return TransactionColumns.NullOrdering.UNKNOWN;
+        }
+    }
+
+    private static void apply(TransactionColumns columns, List<TransactionChange> changes) {
+        for (TransactionChange change : changes) {
+            if (change.getAfter() != null) {
+                columns.upsert(change.getAfter());
+            } else {
+                columns.remove(change.getBefore().getTransactionId());
+            }
+        }
+    }
+}
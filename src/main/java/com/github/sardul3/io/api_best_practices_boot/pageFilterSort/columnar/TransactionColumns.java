@@ -0,0 +1,687 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.columnar;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterOperator;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterParser;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.InvalidFilterException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column-oriented copy of the transactions table, answering the filter, sort and page queries of
+ * {@code /api/v2/transactions} without the database.
+ * <p>
+ * Every column is a primitive array indexed by row, rows are kept in ascending id order:
+ * <ul>
+ *     <li>{@code transactionId} as {@code long}, {@code amount} as {@code double} with NaN for null,</li>
+ *     <li>{@code fromAccount} and {@code toAccount} as {@code int} codes into one shared dictionary, -1 for null,</li>
+ *     <li>{@code status} as the {@code byte} ordinal, -1 for null,</li>
+ *     <li>{@code version} and {@code updatedAt}, only kept to return complete transactions.</li>
+ * </ul>
+ * A criteria is evaluated by one tight loop over its column into a bitmap of 64 rows per word, text criteria are
+ * first evaluated once per dictionary entry. The bitmaps of the criteria are intersected (alternatives are united),
+ * the total is the number of set bits, and a sorted page is selected with a bounded heap of offset + size rows.
+ * Deleted rows stay in place, cleared from the live bitmap, until the columns are rebuilt.
+ * </p>
+ * <p>
+ * Comparisons follow SQL: a null value matches no criteria, not even {@code !=}. Only ids and amounts are sorted
+ * here, ties by id; nulls go where the query says, or where the {@link NullOrdering} of the database puts them.
+ * Text (accounts, and statuses stored by name) is only compared for (in)equality and substrings: its order depends
+ * on the collation of the database, so {@link #supports(List, Sort)} leaves those sorts and ranges to it.
+ * </p>
+ * <p>
+ * Thread-safe: queries share a read lock, writes take the write lock.
+ * </p>
+ */
+public class TransactionColumns {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NULL_CODE = -1;
+    private static final byte NULL_STATUS = -1;
+    private static final Transaction.Status[] STATUSES = Transaction.Status.values();
+
+    private static final String ID = "transactionId";
+    private static final String AMOUNT = "amount";
+    private static final String FROM_ACCOUNT = "fromAccount";
+    private static final String TO_ACCOUNT = "toAccount";
+    private static final String STATUS = "status";
+    // Numbers compare the same in every database, text sorts by the collation of the database
+    private static final Set<String> SORTABLE = Set.of(ID, AMOUNT);
+
+    /**
+     * Where the database puts nulls in a sort that does not say, as its JDBC metadata reports it.
+     */
+    public enum NullOrdering {
+        // Below every value: first ascending, last descending (H2, MySQL)
+        LOW,
+        // Above every value: last ascending, first descending (PostgreSQL, Oracle)
+        HIGH,
+        // First in both directions
+        START,
+        // Last in both directions
+        END,
+        // Not reported, sorts that leave the nulls of amounts to the database are not supported
+        UNKNOWN
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NullOrdering nullOrdering;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private double[] amounts = new double[INITIAL_CAPACITY];
+    private int[] fromAccounts = new int[INITIAL_CAPACITY];
+    private int[] toAccounts = new int[INITIAL_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+    private boolean[] versionNulls = new boolean[INITIAL_CAPACITY];
+    private long[] updatedSeconds = new long[INITIAL_CAPACITY];
+    // -1 for a null updatedAt
+    private int[] updatedNanos = new int[INITIAL_CAPACITY];
+    private long[] live = new long[words(INITIAL_CAPACITY)];
+    // Rows including deleted ones
+    private int size;
+    private int liveCount;
+
+    private final Map<String, Integer> accountCodes = new HashMap<>();
+    private final List<String> accounts = new ArrayList<>();
+
+    /**
+     * @param nullOrdering where the database sorts nulls by default, for sorts that do not say
+     */
+    public TransactionColumns(NullOrdering nullOrdering) {
+        this.nullOrdering = nullOrdering;
+    }
+
+    /**
+     * @param filters the criteria of a query, combined with AND
+     * @param sort    the sort order of the query
+     * @return true if the columns can answer the query exactly as the database would
+     */
+    public boolean supports(List<FilterCriteria> filters, Sort sort) {
+        for (Sort.Order order : sort) {
+            if (!SORTABLE.contains(order.getProperty()) || order.isIgnoreCase()) {
+                return false;
+            }
+            // Ids are never null, amounts may be
+            if (AMOUNT.equals(order.getProperty()) && order.getNullHandling() == Sort.NullHandling.NATIVE
+                    && nullOrdering == NullOrdering.UNKNOWN) {
+                return false;
+            }
+        }
+        return supports(filters);
+    }
+
+    private static boolean supports(List<FilterCriteria> filters) {
+        for (FilterCriteria criteria : filters) {
+            FilterOperator operator = FilterOperator.fromCode(criteria.getOperation());
+            if (operator == null) {
+                return false;
+            }
+            if (operator == FilterOperator.ANY_OF) {
+                for (List<FilterCriteria> alternative : FilterParser.alternatives(String.valueOf(criteria.getValue()))) {
+                    if (!supports(alternative)) {
+                        return false;
+                    }
+                }
+                continue;
+            }
+            boolean supported = switch (criteria.getKey()) {
+                case ID, AMOUNT -> true;
+                // Ranges over text or the names of statuses depend on the collation of the database
+                case FROM_ACCOUNT, TO_ACCOUNT, STATUS -> operator == FilterOperator.CONTAINS
+                        || operator == FilterOperator.EQUAL || operator == FilterOperator.NOT_EQUAL
+                        || operator == FilterOperator.IN;
+                case null, default -> false;
+            };
+            if (!supported) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of transactions held
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a transaction, or replaces the held one with the same id unless that one has a newer version.
+     *
+     * @param transaction the transaction as stored, with its id
+     */
+    public void upsert(Transaction transaction) {
+        lock.writeLock().lock();
+        try {
+            long id = transaction.getTransactionId();
+            int row = size > 0 && ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+            if (row >= 0) {
+                if (isLive(row) && !versionNulls[row] && transaction.getVersion() != null
+                        && transaction.getVersion() < versions[row]) {
+                    return;
+                }
+            } else {
+                row = -row - 1;
+                insertRow(row);
+                ids[row] = id;
+            }
+            amounts[row] = transaction.getAmount() == null ? Double.NaN : transaction.getAmount();
+            fromAccounts[row] = accountCode(transaction.getFromAccount());
+            toAccounts[row] = accountCode(transaction.getToAccount());
+            statuses[row] = transaction.getStatus() == null ? NULL_STATUS : (byte) transaction.getStatus().ordinal();
+            versionNulls[row] = transaction.getVersion() == null;
+            versions[row] = transaction.getVersion() == null ? 0 : transaction.getVersion();
+            Instant updatedAt = transaction.getUpdatedAt();
+            updatedSeconds[row] = updatedAt == null ? 0 : updatedAt.getEpochSecond();
+            updatedNanos[row] = updatedAt == null ? -1 : updatedAt.getNano();
+            if (!isLive(row)) {
+                live[row >>> 6] |= 1L << row;
+                liveCount++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param transactionId the id of a deleted transaction
+     */
+    public void remove(long transactionId) {
+        lock.writeLock().lock();
+        try {
+            int row = Arrays.binarySearch(ids, 0, size, transactionId);
+            if (row >= 0 && isLive(row)) {
+                live[row >>> 6] &= ~(1L << row);
+                liveCount--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Answers a query the way the database would; only call it for queries that {@link #supports(List, Sort)}.
+     *
+     * @param filters  the criteria, combined with AND
+     * @param pageable the page and its sort order
+     * @return the page with its exact total
+     * @throws InvalidFilterException if a value does not fit the type of its field
+     */
+    public Page<Transaction> query(List<FilterCriteria> filters, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            long[] matches = live.clone();
+            for (FilterCriteria criteria : filters) {
+                and(matches, evaluate(criteria));
+            }
+            int total = 0;
+            for (long word : matches) {
+                total += Long.bitCount(word);
+            }
+            long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+            int limit = pageable.isPaged() ? pageable.getPageSize() : total;
+            if (offset >= total || limit == 0) {
+                return new PageImpl<>(List.of(), pageable, total);
+            }
+            int[] rows = pageable.getSort().isSorted()
+                    ? topRows(matches, (int) Math.min(offset + limit, total), comparator(pageable.getSort()))
+                    : firstRows(matches, (int) Math.min(offset + limit, total));
+            List<Transaction> content = new ArrayList<>(limit);
+            for (int i = (int) offset; i < rows.length; i++) {
+                content.add(transaction(rows[i]));
+            }
+            return new PageImpl<>(content, pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] evaluate(FilterCriteria criteria) {
+        FilterOperator operator = FilterOperator.fromCode(criteria.getOperation());
+        String value = String.valueOf(criteria.getValue());
+        if (operator == FilterOperator.ANY_OF) {
+            long[] matches = new long[live.length];
+            for (List<FilterCriteria> alternative : FilterParser.alternatives(value)) {
+                long[] alternativeMatches = live.clone();
+                for (FilterCriteria part : alternative) {
+                    and(alternativeMatches, evaluate(part));
+                }
+                for (int i = 0; i < matches.length; i++) {
+                    matches[i] |= alternativeMatches[i];
+                }
+            }
+            return matches;
+        }
+        List<String> values = operator == FilterOperator.IN || operator == FilterOperator.BETWEEN
+                ? FilterParser.splitList(value) : List.of(value);
+        if (operator == FilterOperator.BETWEEN && values.size() != 2) {
+            throw new InvalidFilterException("between needs a lower and an upper bound for filter field " + criteria.getKey());
+        }
+        return switch (criteria.getKey()) {
+            case ID -> scanIds(operator, values);
+            case AMOUNT -> scanAmounts(operator, values);
+            case FROM_ACCOUNT -> scanCodes(fromAccounts, accountMatches(operator, values));
+            case TO_ACCOUNT -> scanCodes(toAccounts, accountMatches(operator, values));
+            case STATUS -> scanStatuses(statusMatches(operator, values, criteria.getKey()));
+            default -> throw new InvalidFilterException("Unknown filter field " + criteria.getKey());
+        };
+    }
+
+    private long[] scanIds(FilterOperator operator, List<String> values) {
+        long[] ids = this.ids;
+        long[] matches = new long[live.length];
+        if (operator == FilterOperator.IN) {
+            long[] set = values.stream().mapToLong(value -> parseLong(value, ID)).sorted().toArray();
+            for (int i = 0; i < size; i++) {
+                if (Arrays.binarySearch(set, ids[i]) >= 0) {
+                    matches[i >>> 6] |= 1L << i;
+                }
+            }
+            return matches;
+        }
+        long a = parseLong(values.get(0), ID);
+        long b = operator == FilterOperator.BETWEEN ? parseLong(values.get(1), ID) : a;
+        switch (operator) {
+            case CONTAINS, EQUAL -> {
+                for (int i = 0; i < size; i++) {
+                    matches[i >>> 6] |= (ids[i] == a ? 1L : 0L) << i;
+                }
+            }
+            case NOT_EQUAL -> {
+                for (int i = 0; i < size; i++) {
+                    matches[i >>> 6] |= (ids[i] != a ? 1L : 0L) << i;
+                }
+            }
+            case AT_LEAST -> {
+                for (int i = 0; i < size; i++) {
+                    matches[i >>> 6] |= (ids[i] >= a ? 1L : 0L) << i;
+                }
+            }
+            case AT_MOST -> {
+                for (int i = 0; i < size; i++) {
+                    matches[i >>> 6] |= (ids[i] <= a ? 1L : 0L) << i;
+                }
+            }
+            case GREATER_THAN -> {
+                for (int i = 0; i < size; i++) {
+                    matches[i >>> 6] |= (ids[i] > a ? 1L : 0L) << i;
+                }
+            }
+            case LESS_THAN -> {
+                for (int i = 0; i < size; i++) {
+                    matches[i >>> 6] |= (ids[i] < a ? 1L : 0L) << i;
+                }
+            }
+            case BETWEEN -> {
+                for (int i = 0; i < size; i++) {
+                    matches[i >>> 6] |= (ids[i] >= a && ids[i] <= b ? 1L : 0L) << i;
+                }
+            }
+            default -> throw new IllegalStateException("Unsupported operator " + operator);
+        }
+        return matches;
+    }
+
+    // Null amounts are NaN, which fails every comparison; != needs the explicit check
+    private long[] scanAmounts(FilterOperator operator, List<String> values) {
+        double[] amounts = this.amounts;
+        long[] matches = new long[live.length];
+        if (operator == FilterOperator.IN) {
+            double[] set = values.stream().mapToDouble(value -> parseDouble(value, AMOUNT)).sorted().toArray();
+            for (int i = 0; i < size; i++) {
+                if (!Double.isNaN(amounts[i]) && Arrays.binarySearch(set, amounts[i]) >= 0) {
+                    matches[i >>> 6] |= 1L << i;
+                }
+            }
+            return matches;
+        }
+        double a = parseDouble(values.get(0), AMOUNT);
+        double b = operator == FilterOperator.BETWEEN ? parseDouble(values.get(1), AMOUNT) : a;
+        switch (operator) {
+            case CONTAINS, EQUAL -> {
+                for (int i = 0; i < size; i++) {
+                    matches[i >>> 6] |= (amounts[i] == a ? 1L : 0L) << i;
+                }
+            }
+            case NOT_EQUAL -> {
+                for (int i = 0; i < size; i++) {
+                    double amount = amounts[i];
+                    matches[i >>> 6] |= (amount != a && amount == amount ? 1L : 0L) << i;
+                }
+            }
+            case AT_LEAST -> {
+                for (int i = 0; i < size; i++) {
+                    matches[i >>> 6] |= (amounts[i] >= a ? 1L : 0L) << i;
+                }
+            }
+            case AT_MOST -> {
+                for (int i = 0; i < size; i++) {
+                    matches[i >>> 6] |= (amounts[i] <= a ? 1L : 0L) << i;
+                }
+            }
+            case GREATER_THAN -> {
+                for (int i = 0; i < size; i++) {
+                    matches[i >>> 6] |= (amounts[i] > a ? 1L : 0L) << i;
+                }
+            }
+            case LESS_THAN -> {
+                for (int i = 0; i < size; i++) {
+                    matches[i >>> 6] |= (amounts[i] < a ? 1L : 0L) << i;
+                }
+            }
+            case BETWEEN -> {
+                for (int i = 0; i < size; i++) {
+                    matches[i >>> 6] |= (amounts[i] >= a && amounts[i] <= b ? 1L : 0L) << i;
+                }
+            }
+            default -> throw new IllegalStateException("Unsupported operator " + operator);
+        }
+        return matches;
+    }
+
+    // The dictionary codes a text criteria matches, decided once per distinct account instead of once per row
+    private boolean[] accountMatches(FilterOperator operator, List<String> values) {
+        boolean[] matches = new boolean[accounts.size()];
+        switch (operator) {
+            case CONTAINS -> {
+                for (int code = 0; code < matches.length; code++) {
+                    matches[code] = accounts.get(code).contains(values.getFirst());
+                }
+            }
+            case EQUAL, NOT_EQUAL, IN -> {
+                for (String value : values) {
+                    Integer code = accountCodes.get(value);
+                    if (code != null) {
+                        matches[code] = true;
+                    }
+                }
+                if (operator == FilterOperator.NOT_EQUAL) {
+                    for (int code = 0; code < matches.length; code++) {
+                        matches[code] = !matches[code];
+                    }
+                }
+            }
+            default -> throw new IllegalStateException("Unsupported operator " + operator);
+        }
+        return matches;
+    }
+
+    private long[] scanCodes(int[] codes, boolean[] codeMatches) {
+        long[] matches = new long[live.length];
+        for (int i = 0; i < size; i++) {
+            int code = codes[i];
+            if (code != NULL_CODE && codeMatches[code]) {
+                matches[i >>> 6] |= 1L << i;
+            }
+        }
+        return matches;
+    }
+
+    private static boolean[] statusMatches(FilterOperator operator, List<String> values, String field) {
+        boolean[] matches = new boolean[STATUSES.length];
+        for (String value : values) {
+            try {
+                matches[Transaction.Status.valueOf(value).ordinal()] = true;
+            } catch (IllegalArgumentException e) {
+                throw new InvalidFilterException("Invalid value '" + value + "' for filter field " + field);
+            }
+        }
+        if (operator == FilterOperator.NOT_EQUAL) {
+            for (int i = 0; i < matches.length; i++) {
+                matches[i] = !matches[i];
+            }
+        }
+        return matches;
+    }
+
+    private long[] scanStatuses(boolean[] statusMatches) {
+        long[] matches = new long[live.length];
+        for (int i = 0; i < size; i++) {
+            byte status = statuses[i];
+            if (status != NULL_STATUS && statusMatches[status]) {
+                matches[i >>> 6] |= 1L << i;
+            }
+        }
+        return matches;
+    }
+
+    // The first rows in id order
+    private static int[] firstRows(long[] matches, int count) {
+        int[] rows = new int[count];
+        int found = 0;
+        for (int word = 0; word < matches.length && found < count; word++) {
+            long bits = matches[word];
+            while (bits != 0 && found < count) {
+                rows[found++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return rows;
+    }
+
+    // The first count rows in sort order, kept in a heap whose root is the last of them
+    private static int[] topRows(long[] matches, int count, RowComparator comparator) {
+        int[] heap = new int[count];
+        int heapSize = 0;
+        for (int word = 0; word < matches.length; word++) {
+            long bits = matches[word];
+            while (bits != 0) {
+                int row = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (heapSize < count) {
+                    heap[heapSize] = row;
+                    siftUp(heap, heapSize++, comparator);
+                } else if (comparator.compare(row, heap[0]) < 0) {
+                    heap[0] = row;
+                    siftDown(heap, heapSize, comparator);
+                }
+            }
+        }
+        // Heap sort: moving the root to the end repeatedly leaves the rows in ascending order
+        for (int end = heapSize - 1; end > 0; end--) {
+            int last = heap[0];
+            heap[0] = heap[end];
+            heap[end] = last;
+            siftDown(heap, end, comparator);
+        }
+        return heap;
+    }
+
+    private static void siftUp(int[] heap, int index, RowComparator comparator) {
+        int row = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (comparator.compare(row, heap[parent]) <= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = row;
+    }
+
+    private static void siftDown(int[] heap, int heapSize, RowComparator comparator) {
+        int row = heap[0];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && comparator.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (comparator.compare(row, heap[child]) >= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = row;
+    }
+
+    private interface RowComparator {
+        int compare(int a, int b);
+    }
+
+    private RowComparator comparator(Sort sort) {
+        List<Sort.Order> orders = sort.toList();
+        return (a, b) -> {
+            for (Sort.Order order : orders) {
+                String property = order.getProperty();
+                boolean aNull = isNull(property, a);
+                boolean bNull = isNull(property, b);
+                if (aNull || bNull) {
+                    if (aNull && bNull) {
+                        continue;
+                    }
+                    boolean nullsFirst = switch (order.getNullHandling()) {
+                        case NULLS_FIRST -> true;
+                        case NULLS_LAST -> false;
+                        case NATIVE -> switch (nullOrdering) {
+                            case LOW -> order.isAscending();
+                            case HIGH -> !order.isAscending();
+                            case START -> true;
+                            case END -> false;
+                            case UNKNOWN -> throw new IllegalStateException("Unsupported null handling of " + property);
+                        };
+                    };
+                    return aNull == nullsFirst ? -1 : 1;
+                }
+                int result = compareValues(property, a, b);
+                if (result != 0) {
+                    return order.isAscending() ? result : -result;
+                }
+            }
+            // Rows are in id order
+            return Integer.compare(a, b);
+        };
+    }
+
+    private boolean isNull(String property, int row) {
+        return switch (property) {
+            case AMOUNT -> Double.isNaN(amounts[row]);
+            default -> false;
+        };
+    }
+
+    private int compareValues(String property, int a, int b) {
+        return switch (property) {
+            case ID -> Long.compare(ids[a], ids[b]);
+            case AMOUNT -> Double.compare(amounts[a], amounts[b]);
+            default -> throw new IllegalStateException("Unsupported sort property " + property);
+        };
+    }
+
+    private Transaction transaction(int row) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(ids[row]);
+        transaction.setAmount(Double.isNaN(amounts[row]) ? null : amounts[row]);
+        transaction.setFromAccount(fromAccounts[row] == NULL_CODE ? null : accounts.get(fromAccounts[row]));
+        transaction.setToAccount(toAccounts[row] == NULL_CODE ? null : accounts.get(toAccounts[row]));
+        transaction.setStatus(statuses[row] == NULL_STATUS ? null : STATUSES[statuses[row]]);
+        transaction.setVersion(versionNulls[row] ? null : versions[row]);
+        transaction.setUpdatedAt(updatedNanos[row] < 0 ? null : Instant.ofEpochSecond(updatedSeconds[row], updatedNanos[row]));
+        return transaction;
+    }
+
+    private int accountCode(String account) {
+        if (account == null) {
+            return NULL_CODE;
+        }
+        Integer code = accountCodes.get(account);
+        if (code == null) {
+            code = accounts.size();
+            accounts.add(account);
+            accountCodes.put(account, code);
+        }
+        return code;
+    }
+
+    // Opens a slot at the given row; ids mostly arrive in ascending order, so this is usually an append
+    private void insertRow(int row) {
+        if (size == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+            fromAccounts = Arrays.copyOf(fromAccounts, capacity);
+            toAccounts = Arrays.copyOf(toAccounts, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            versionNulls = Arrays.copyOf(versionNulls, capacity);
+            updatedSeconds = Arrays.copyOf(updatedSeconds, capacity);
+            updatedNanos = Arrays.copyOf(updatedNanos, capacity);
+            live = Arrays.copyOf(live, words(capacity));
+        }
+        int tail = size - row;
+        if (tail > 0) {
+            System.arraycopy(ids, row, ids, row + 1, tail);
+            System.arraycopy(amounts, row, amounts, row + 1, tail);
+            System.arraycopy(fromAccounts, row, fromAccounts, row + 1, tail);
+            System.arraycopy(toAccounts, row, toAccounts, row + 1, tail);
+            System.arraycopy(statuses, row, statuses, row + 1, tail);
+            System.arraycopy(versions, row, versions, row + 1, tail);
+            System.arraycopy(versionNulls, row, versionNulls, row + 1, tail);
+            System.arraycopy(updatedSeconds, row, updatedSeconds, row + 1, tail);
+            System.arraycopy(updatedNanos, row, updatedNanos, row + 1, tail);
+            for (int i = size; i > row; i--) {
+                if (isLive(i - 1)) {
+                    live[i >>> 6] |= 1L << i;
+                } else {
+                    live[i >>> 6] &= ~(1L << i);
+                }
+            }
+        }
+        live[row >>> 6] &= ~(1L << row);
+        size++;
+    }
+
+    private boolean isLive(int row) {
+        return (live[row >>> 6] & (1L << row)) != 0;
+    }
+
+    private static void and(long[] matches, long[] criteriaMatches) {
+        for (int i = 0; i < matches.length; i++) {
+            matches[i] &= criteriaMatches[i];
+        }
+    }
+
+    private static int words(int rows) {
+        return (rows + 63) >>> 6;
+    }
+
+    private static long parseLong(String value, String field) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidFilterException("Invalid value '" + value + "' for filter field " + field);
+        }
+    }
+
+    private static double parseDouble(String value, String field) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidFilterException("Invalid value '" + value + "' for filter field " + field);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.config;
 
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterUtils;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
@@ -7,6 +8,8 @@ import jakarta.servlet.http.HttpServletRequestWrapper;
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class URLParameterEncodingFilter implements Filter {
@@ -15,22 +18,40 @@ public class URLParameterEncodingFilter implements Filter {
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
         if (request instanceof HttpServletRequest httpRequest) {
             HttpServletRequestWrapper wrappedRequest = new HttpServletRequestWrapper(httpRequest) {
+                // Encoded once per request, on first access, instead of on every call
+                private Map<String, String[]> encodedParameters;
+
                 @Override
                 public String getParameter(String name) {
-                    String value = super.getParameter(name);
-                    return encodeSpecialCharacters(value);
+                    String[] values = getParameterMap().get(name);
+                    return values == null || values.length == 0 ? null : values[0];
+                }
+
+                @Override
+                public String[] getParameterValues(String name) {
+                    String[] values = getParameterMap().get(name);
+                    return values == null ? null : values.clone();
                 }
 
                 @Override
                 public Map<String, String[]> getParameterMap() {
-                    Map<String, String[]> paramMap = super.getParameterMap();
-                    paramMap.replaceAll((key, values) -> {
-                        for (int i = 0; i < values.length; i++) {
-                            values[i] = encodeSpecialCharacters(values[i]);
-                        }
-                        return values;
-                    });
-                    return paramMap;
+                    if (encodedParameters == null) {
+                        Map<String, String[]> paramMap = new LinkedHashMap<>();
+                        super.getParameterMap().forEach((key, values) -> {
+                            // A filter expression uses '>' and '<' as operators, see FilterParser
+                            if (FilterUtils.FILTER_PARAM.equals(key)) {
+                                paramMap.put(key, values);
+                                return;
+                            }
+                            String[] encoded = new String[values.length];
+                            for (int i = 0; i < values.length; i++) {
+                                encoded[i] = encodeSpecialCharacters(values[i]);
+                            }
+                            paramMap.put(key, encoded);
+                        });
+                        encodedParameters = Collections.unmodifiableMap(paramMap);
+                    }
+                    return encodedParameters;
                 }
 
                 private String encodeSpecialCharacters(String value) {
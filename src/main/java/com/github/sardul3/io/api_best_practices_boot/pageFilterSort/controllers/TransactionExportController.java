@@ -0,0 +1,69 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.controllers;
+
+import com.github.sardul3.io.api_best_practices_boot.logAndMonitor.logging.aspects.EndpointDescribe;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.export.ExportFormat;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.export.TransactionExport;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.export.TransactionExportService;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterUtils;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.TransactionFilterPlanner;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config.RateLimitAndThrottle;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk export of transactions, for clients that need a whole (filtered) data set rather than pages.
+ * <p>
+ * Accepts the same filters as {@code GET /api/v2/transactions} and streams every matching transaction, ordered
+ * by id, as NDJSON ({@code format=ndjson}, the default) or CSV ({@code format=csv}) in a chunked response.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/v2/transactions/export")
+@Slf4j
+public class TransactionExportController {
+
+    private final TransactionExportService exportService;
+    private final TransactionFilterPlanner filterPlanner;
+
+    public TransactionExportController(TransactionExportService exportService, TransactionFilterPlanner filterPlanner) {
+        this.exportService = exportService;
+        this.filterPlanner = filterPlanner;
+    }
+
+    @RateLimitAndThrottle
+    @EndpointDescribe("export transactions")
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam Map<String, String> filterParams) {
+        ExportFormat exportFormat = ExportFormat.fromName(format);
+        if (exportFormat == null) {
+            log.warn("Unsupported export format requested: {}", format);
+            return ResponseEntity.badRequest().build();
+        }
+        Map<String, String> filterOnlyParams = new LinkedHashMap<>(filterParams);
+        filterOnlyParams.remove("format");
+        List<FilterCriteria> filters = FilterUtils.buildFilterCriteria(filterOnlyParams);
+        // Checked here, the export itself only runs once the response is committed
+        filterPlanner.validate(filters);
+        log.debug("Exporting transactions as {} with filters: {}", exportFormat, filterOnlyParams);
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("transactions." + exportFormat.getFileExtension()).build().toString())
+                .body(new TransactionExport(filters, exportFormat, exportService));
+    }
+}
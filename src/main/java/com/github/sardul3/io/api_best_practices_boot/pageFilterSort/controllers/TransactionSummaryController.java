@@ -0,0 +1,81 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.controllers;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.config.ETagGenerator;
+import com.github.sardul3.io.api_best_practices_boot.eTags.services.CollectionVersionService;
+import com.github.sardul3.io.api_best_practices_boot.logAndMonitor.logging.aspects.EndpointDescribe;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterUtils;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.TransactionFilterPlanner;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.TransactionSummary;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.summary.SummaryGroupBy;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.summary.TransactionSummaryService;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config.RateLimitAndThrottle;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-side aggregates of transactions, for clients that would otherwise page through every row to total them.
+ * <p>
+ * Accepts the same filters as {@code GET /api/v2/transactions} and returns the count, sum, min, max and average
+ * amount per {@code groupBy} value ({@code status}, the default, {@code fromAccount} or {@code toAccount}), largest
+ * groups first. {@code limit} bounds the number of groups (default 100); {@code truncated} tells whether any were
+ * left out.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/v2/transactions/summary")
+@Slf4j
+public class TransactionSummaryController {
+
+    private final TransactionSummaryService summaryService;
+    private final TransactionFilterPlanner filterPlanner;
+    private final CollectionVersionService collectionVersionService;
+
+    public TransactionSummaryController(TransactionSummaryService summaryService, TransactionFilterPlanner filterPlanner,
+                                        CollectionVersionService collectionVersionService) {
+        this.summaryService = summaryService;
+        this.filterPlanner = filterPlanner;
+        this.collectionVersionService = collectionVersionService;
+    }
+
+    @RateLimitAndThrottle
+    @EndpointDescribe("summarize transactions")
+    @GetMapping
+    public ResponseEntity<TransactionSummary> getSummary(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+            @RequestParam(defaultValue = "status") String groupBy,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam Map<String, String> filterParams) {
+        SummaryGroupBy grouping = SummaryGroupBy.fromName(groupBy);
+        if (grouping == null) {
+            log.warn("Rejected summary grouped by {}", groupBy);
+            return ResponseEntity.badRequest().build();
+        }
+        Map<String, String> filterOnlyParams = new LinkedHashMap<>(filterParams);
+        filterOnlyParams.remove("groupBy");
+        filterOnlyParams.remove("limit");
+        List<FilterCriteria> filters = FilterUtils.buildFilterCriteria(filterOnlyParams);
+        filterPlanner.validate(filters);
+        log.debug("getSummary called with filters: {}, grouped by {}", filterOnlyParams, grouping.getField());
+
+        // Versioned by the table counter like the pages, since filters can span accounts
+        String eTag = collectionVersionService.collectionETag(null,
+                "v2s:" + summaryService.summaryKey(filters, grouping, limit));
+        if (eTag != null && ETagGenerator.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        TransactionSummary summary = summaryService.summarize(filters, grouping, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (eTag != null) {
+            response.eTag(eTag);
+        }
+        return response.body(summary);
+    }
+}
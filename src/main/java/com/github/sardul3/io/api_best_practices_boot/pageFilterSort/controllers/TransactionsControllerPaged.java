@@ -1,28 +1,47 @@
 package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.controllers;
 
+import com.github.sardul3.io.api_best_practices_boot.cacheWarmup.support.AccessRecorder;
 import com.github.sardul3.io.api_best_practices_boot.eTags.config.ETagGenerator;
+import com.github.sardul3.io.api_best_practices_boot.eTags.web.CurrentRequest;
 import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.eTags.services.CollectionVersionService;
 import com.github.sardul3.io.api_best_practices_boot.eTags.services.TransactionService;
+import com.github.sardul3.io.api_best_practices_boot.hateoas.config.HATEOASHelper;
 import com.github.sardul3.io.api_best_practices_boot.hateoas.models.TransactionModelAssembler;
 import com.github.sardul3.io.api_best_practices_boot.hateoas.models.TransactionModel;
 import com.github.sardul3.io.api_best_practices_boot.logAndMonitor.logging.aspects.EndpointDescribe;
+import com.github.sardul3.io.api_best_practices_boot.nearCache.cache.NearCacheBypass;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching.PageFilterSortCacheKeyGenerator;
 import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
 import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterUtils;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.TransactionFilterPlanner;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.keyset.KeysetCursor;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.CountStrategy;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.CountedPageMetadata;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.PaginatedTransaction;
 import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config.RateLimitAndThrottle;
 import io.micrometer.observation.annotation.Observed;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.hateoas.PagedModel;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/v2/transactions")
@@ -34,37 +53,167 @@ public class TransactionsControllerPaged {
     @Autowired
     private  PagedResourcesAssembler<Transaction> pagedResourcesAssembler;
     private final TransactionModelAssembler transactionModelAssembler;
+    private final CollectionVersionService collectionVersionService;
+    private final AccessRecorder accessRecorder;
+    private final TransactionFilterPlanner filterPlanner;
+    private final PageFilterSortCacheKeyGenerator keyGenerator;
+    private final ETagGenerator eTagGenerator;
 
-    public TransactionsControllerPaged(TransactionService transactionService, TransactionModelAssembler transactionModelAssembler) {
+    public TransactionsControllerPaged(TransactionService transactionService, TransactionModelAssembler transactionModelAssembler,
+                                       CollectionVersionService collectionVersionService, AccessRecorder accessRecorder,
+                                       TransactionFilterPlanner filterPlanner, PageFilterSortCacheKeyGenerator keyGenerator,
+                                       ETagGenerator eTagGenerator) {
         this.transactionService = transactionService;
         this.transactionModelAssembler = transactionModelAssembler;
+        this.collectionVersionService = collectionVersionService;
+        this.accessRecorder = accessRecorder;
+        this.filterPlanner = filterPlanner;
+        this.keyGenerator = keyGenerator;
+        this.eTagGenerator = eTagGenerator;
     }
 
+    /**
+     * Paged mode of the list.
+     * <p>
+     * The optional {@code count} parameter selects how {@code page.totalElements} is obtained, see
+     * {@link CountStrategy}: {@code exact}, {@code cached}, {@code estimated} or {@code none}, defaulting to
+     * {@code pagination.count-strategy}. The strategy actually applied is reported as {@code page.countStrategy};
+     * for anything but {@code exact} the total may be approximate, but the {@code next} link is always correct.
+     * </p>
+     * <p>
+     * Besides the {@code field=value}, {@code field>value} and {@code field<value} parameters, filters can be given
+     * as an expression in the {@code filter} parameter (see {@code FilterParser}), e.g.
+     * {@code filter=amount>=100 and status in (COMPLETED,ON_HOLD)}. Invalid filters are rejected with 400 BAD_REQUEST.
+     * </p>
+     */
     @RateLimitAndThrottle
     @EndpointDescribe("fetch all transactions")
     @GetMapping
     @Observed
     public ResponseEntity<PagedModel<TransactionModel>> getTransactions(
             @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+            @RequestParam(value = "count", required = false) String count,
             @RequestParam Map<String, String> filterParams,
             Pageable pageable) {
         log.debug("getTransactions called with filters: {}, pageInfo {}", filterParams, pageable);
+        CountStrategy countStrategy = null;
+        if (count != null) {
+            countStrategy = CountStrategy.fromName(count);
+            if (countStrategy == null) {
+                log.warn("Rejected unknown count strategy {}", count);
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        countStrategy = transactionService.resolveCountStrategy(countStrategy);
         // Build the list of filters to be applied
         List<FilterCriteria> filters = FilterUtils.buildFilterCriteria(filterParams);
+        // Reject invalid filters before they are recorded for warm-up or answered from an eTag
+        filterPlanner.validate(filters);
+        accessRecorder.recordPage(filters, pageable);
 
-         Page<Transaction> transactions = transactionService.getAllTransactionsWithPage(filters, pageable);
+        // Filters can span accounts, so pages are versioned by the table counter, read before the query
+        String eTag = collectionVersionService.collectionETag(null,
+                "v2:" + keyGenerator.generateKey(filters, pageable, countStrategy));
+        if (eTag != null) {
+            if (ETagGenerator.matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            if (CurrentRequest.isHeadRequest()) {
+                return ResponseEntity.ok().eTag(eTag).contentType(MediaTypes.HAL_JSON).build();
+            }
+        }
 
-        String eTag = ETagGenerator.generateETag(transactions.stream().toList());
+        // A versioned eTag is as current as Redis, which this node's near cache may not have caught up with
+        CountStrategy strategy = countStrategy;
+        Supplier<PaginatedTransaction> load = () -> transactionService.getTransactionsPage(filters, pageable, strategy);
+        PaginatedTransaction page = eTag != null ? NearCacheBypass.call(load) : load.get();
+        Page<Transaction> transactions = new PageImpl<>(page.getTransactions(), pageable, page.getTotal());
 
-        if (ifNoneMatch != null && ifNoneMatch.equals(eTag)) {
-            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        if (eTag == null) {
+            eTag = eTagGenerator.generateETag(transactions.stream().toList());
+            if (ETagGenerator.matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
         }
 
+        PagedModel<TransactionModel> model = pagedResourcesAssembler.toModel(transactions, transactionModelAssembler);
         return ResponseEntity
                 .ok()
                 .eTag(eTag)
                 .contentType(MediaTypes.HAL_JSON)
-                .body(pagedResourcesAssembler.toModel(transactions, transactionModelAssembler));
+                .body(PagedModel.of(model.getContent(),
+                        new CountedPageMetadata(model.getMetadata(), page.getCountStrategy()), model.getLinks()));
+
+    }
+
+    /**
+     * Keyset (cursor) mode of the list, selected by the presence of a {@code cursor} parameter: an empty cursor
+     * starts at the first row, and every response links the following page with the cursor of its last row.
+     * <p>
+     * Takes the same filters, {@code size} and {@code sort} as the paged mode, but the cost of a page does not
+     * grow with its depth and no total count is computed. Sort properties are limited to the transaction fields;
+     * a cursor is only valid for the sort order it was issued for, otherwise 400 BAD_REQUEST is returned.
+     * </p>
+     */
+    @RateLimitAndThrottle
+    @EndpointDescribe("fetch transactions by cursor")
+    @GetMapping(params = "cursor")
+    @Observed
+    public ResponseEntity<CollectionModel<TransactionModel>> getTransactionsByCursor(
+            @RequestParam String cursor,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+            @RequestParam Map<String, String> filterParams,
+            Pageable pageable) {
+        Map<String, String> filterOnlyParams = new LinkedHashMap<>(filterParams);
+        filterOnlyParams.remove("cursor");
+        List<FilterCriteria> filters = FilterUtils.buildFilterCriteria(filterOnlyParams);
+        filterPlanner.validate(filters);
+
+        Sort sort;
+        ScrollPosition position;
+        try {
+            sort = KeysetCursor.normalize(pageable.getSort());
+            position = KeysetCursor.decode(cursor, sort);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected cursor request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        log.debug("getTransactionsByCursor called with filters: {}, sort {}, cursor {}", filterOnlyParams, sort, cursor);
+
+        String eTag = collectionVersionService.collectionETag(null, "v2k:"
+                + keyGenerator.generateKey(filters, PageRequest.of(0, pageable.getPageSize(), sort))
+                + "_cursor=" + cursor);
+        if (eTag != null) {
+            if (ETagGenerator.matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            if (CurrentRequest.isHeadRequest()) {
+                return ResponseEntity.ok().eTag(eTag).contentType(MediaTypes.HAL_JSON).build();
+            }
+        }
+
+        Supplier<Window<Transaction>> load =
+                () -> transactionService.getTransactionsWindow(filters, sort, pageable.getPageSize(), position);
+        Window<Transaction> window = eTag != null ? NearCacheBypass.call(load) : load.get();
+
+        if (eTag == null) {
+            eTag = eTagGenerator.generateETag(window.getContent());
+            if (ETagGenerator.matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
 
+        CollectionModel<TransactionModel> model = transactionModelAssembler.toCollectionModel(window.getContent());
+        model.add(HATEOASHelper.linkToCursor(cursor, "self"));
+        model.add(HATEOASHelper.linkToCursor("", "first"));
+        if (window.hasNext() && !window.isEmpty()) {
+            String next = KeysetCursor.encode(sort, window.positionAt(window.size() - 1));
+            model.add(HATEOASHelper.linkToCursor(next, "next"));
+        }
+        return ResponseEntity
+                .ok()
+                .eTag(eTag)
+                .contentType(MediaTypes.HAL_JSON)
+                .body(model);
     }
 }
@@ -0,0 +1,79 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.counting;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads row count estimates from the statistics the database keeps about its tables, which costs a catalog
+ * lookup instead of a scan.
+ * <p>
+ * Supported are H2 ({@code INFORMATION_SCHEMA.TABLES.ROW_COUNT_ESTIMATE}), PostgreSQL ({@code pg_class.reltuples},
+ * as of the last ANALYZE) and MySQL ({@code information_schema.TABLES.TABLE_ROWS}). On other databases no
+ * estimate is available.
+ * </p>
+ */
+@Component
+@Slf4j
+public class TableStatistics {
+
+    private static final String H2_QUERY =
+            "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE UPPER(TABLE_NAME) = UPPER(?)";
+    private static final String POSTGRES_QUERY =
+            "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE relname = LOWER(?) AND relkind = 'r'";
+    private static final String MYSQL_QUERY =
+            "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+    // Marks that the database has no supported statistics
+    private static final String UNSUPPORTED = "";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile String estimateQuery;
+
+    public TableStatistics(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param table the table name
+     * @return the estimated number of rows, or null if the database offers no (usable) estimate
+     */
+    public Long estimateRowCount(String table) {
+        String query = estimateQuery();
+        if (query.isEmpty()) {
+            return null;
+        }
+        try {
+            List<Long> estimates = jdbcTemplate.queryForList(query, Long.class, table);
+            Long estimate = estimates.isEmpty() ? null : estimates.getFirst();
+            // PostgreSQL reports -1 for tables that were never analyzed
+            return estimate == null || estimate < 0 ? null : estimate;
+        } catch (DataAccessException e) {
+            log.warn("Cannot read the row count estimate of table {}: {}", table, e.getMessage());
+            return null;
+        }
+    }
+
+    private String estimateQuery() {
+        String query = estimateQuery;
+        if (query == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            query = switch (product == null ? "" : product.toLowerCase(Locale.ROOT)) {
+                case "h2" -> H2_QUERY;
+                case "postgresql" -> POSTGRES_QUERY;
+                case "mysql", "mariadb" -> MYSQL_QUERY;
+                default -> UNSUPPORTED;
+            };
+            if (query.isEmpty()) {
+                log.info("No table statistics available on {}, estimated counts fall back to cached counts", product);
+            }
+            estimateQuery = query;
+        }
+        return query;
+    }
+}
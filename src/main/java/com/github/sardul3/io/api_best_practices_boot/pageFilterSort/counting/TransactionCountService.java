@@ -0,0 +1,70 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.counting;
+
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching.PageFilterSortCacheIndex;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching.PageFilterSortCacheKeyGenerator;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.query.PreparedTransactionQueries;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Totals for paged reads that avoid running a COUNT query on every cache miss.
+ * <p>
+ * Cached counts are stored in {@code transactionsCountCache} per filter shape, i.e. shared by every page and sort
+ * order of the same filters, and registered in the {@link PageFilterSortCacheIndex}, so the write path evicts
+ * exactly the counts a write can change. Counts are read through the cache API rather than {@code @Cacheable},
+ * as numbers may come back from the JSON format as a narrower type.
+ * </p>
+ */
+@Service
+public class TransactionCountService {
+
+    public static final String COUNT_CACHE = "transactionsCountCache";
+    // Table behind the Transaction entity, as named by the default Hibernate naming strategy
+    private static final String TRANSACTION_TABLE = "transaction";
+
+    private final PreparedTransactionQueries preparedQueries;
+    private final CacheManager cacheManager;
+    private final PageFilterSortCacheIndex cacheIndex;
+    private final TableStatistics tableStatistics;
+    private final PageFilterSortCacheKeyGenerator keyGenerator;
+
+    public TransactionCountService(PreparedTransactionQueries preparedQueries, CacheManager cacheManager,
+                                   PageFilterSortCacheIndex cacheIndex, TableStatistics tableStatistics,
+                                   PageFilterSortCacheKeyGenerator keyGenerator) {
+        this.preparedQueries = preparedQueries;
+        this.cacheManager = cacheManager;
+        this.cacheIndex = cacheIndex;
+        this.tableStatistics = tableStatistics;
+        this.keyGenerator = keyGenerator;
+    }
+
+    /**
+     * @param filters the filters of the read
+     * @return the number of matching transactions, counted at most once per filter shape until a write affects it
+     */
+    public long cachedCount(List<FilterCriteria> filters) {
+        String key = keyGenerator.generateFilterKey(filters);
+        Cache cache = cacheManager.getCache(COUNT_CACHE);
+        Number cached = cache == null ? null : cache.get(key, Number.class);
+        if (cached != null) {
+            return cached.longValue();
+        }
+        long count = preparedQueries.count(filters);
+        if (cache != null) {
+            cache.put(key, count);
+            cacheIndex.register(COUNT_CACHE, key, filters);
+        }
+        return count;
+    }
+
+    /**
+     * @return the estimated number of transactions from the table statistics, or null if none is available
+     */
+    public Long estimatedCount() {
+        return tableStatistics.estimateRowCount(TRANSACTION_TABLE);
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.export;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+class CsvRowWriter implements TransactionRowWriter {
+
+    static final String HEADER = "transactionId,fromAccount,toAccount,amount,status,version,updatedAt";
+
+    private final Writer writer;
+    private boolean headerWritten;
+
+    CsvRowWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+    }
+
+    @Override
+    public void write(Transaction transaction) throws IOException {
+        if (!headerWritten) {
+            writer.write(HEADER);
+            writer.write("\r\n");
+            headerWritten = true;
+        }
+        writeField(transaction.getTransactionId());
+        writer.write(',');
+        writeField(transaction.getFromAccount());
+        writer.write(',');
+        writeField(transaction.getToAccount());
+        writer.write(',');
+        writeField(transaction.getAmount());
+        writer.write(',');
+        writeField(transaction.getStatus());
+        writer.write(',');
+        writeField(transaction.getVersion());
+        writer.write(',');
+        writeField(transaction.getUpdatedAt());
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (!headerWritten) {
+            // An empty export still describes its columns
+            writer.write(HEADER);
+            writer.write("\r\n");
+            headerWritten = true;
+        }
+        writer.flush();
+    }
+
+    // Nulls are empty fields; fields with separators, quotes or line breaks are quoted
+    private void writeField(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
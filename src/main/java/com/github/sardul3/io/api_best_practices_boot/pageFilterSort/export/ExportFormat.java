@@ -0,0 +1,59 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * The formats transactions can be exported in.
+ */
+public enum ExportFormat {
+
+    // One JSON object per line
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson") {
+        @Override
+        TransactionRowWriter open(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            return new NdjsonRowWriter(out, objectMapper);
+        }
+    },
+    // RFC 4180 with a header line
+    CSV(new MediaType("text", "csv"), "csv") {
+        @Override
+        TransactionRowWriter open(OutputStream out, ObjectMapper objectMapper) {
+            return new CsvRowWriter(out);
+        }
+    };
+
+    private final MediaType mediaType;
+    private final String fileExtension;
+
+    ExportFormat(MediaType mediaType, String fileExtension) {
+        this.mediaType = mediaType;
+        this.fileExtension = fileExtension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    abstract TransactionRowWriter open(OutputStream out, ObjectMapper objectMapper) throws IOException;
+
+    /**
+     * @param name the format name, case-insensitive
+     * @return the format, or null if there is no such format
+     */
+    public static ExportFormat fromName(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
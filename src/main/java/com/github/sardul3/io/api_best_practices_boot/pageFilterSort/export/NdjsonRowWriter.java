@@ -0,0 +1,34 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+class NdjsonRowWriter implements TransactionRowWriter {
+
+    private final JsonGenerator generator;
+    private final ObjectWriter writer;
+
+    NdjsonRowWriter(OutputStream out, ObjectMapper objectMapper) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Same representation as the JSON endpoints, but without a flush after every row
+        this.writer = objectMapper.writerFor(Transaction.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Override
+    public void write(Transaction transaction) throws IOException {
+        writer.writeValue(generator, transaction);
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.export;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Response body of an export, written by Spring MVC on an async thread once the response headers are sent.
+ * <p>
+ * Serializes to its filters and format, so that request logging can show what was exported.
+ * </p>
+ */
+public record TransactionExport(List<FilterCriteria> filters, ExportFormat format,
+                                @JsonIgnore TransactionExportService exportService) implements StreamingResponseBody {
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        exportService.export(filters, format, outputStream);
+    }
+}
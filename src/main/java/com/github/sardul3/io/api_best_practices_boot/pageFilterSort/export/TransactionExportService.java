@@ -0,0 +1,85 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.eTags.repos.TransactionRepository;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.TransactionFilterPlanner;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams filtered transactions from the database into an export format.
+ * <p>
+ * Rows are read through a forward-only cursor and written as they arrive; the output is flushed and the
+ * persistence context cleared once per batch. Neither the database result nor the response is ever held
+ * in memory as a whole, and the caches are bypassed.
+ * </p>
+ */
+@Service
+@Slf4j
+public class TransactionExportService {
+
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionFilterPlanner filterPlanner;
+
+    @Value("${transaction-export.batch-size:500}")
+    private int batchSize;
+
+    public TransactionExportService(TransactionRepository transactionRepository, ObjectMapper objectMapper,
+                                    TransactionFilterPlanner filterPlanner) {
+        this.transactionRepository = transactionRepository;
+        this.objectMapper = objectMapper;
+        this.filterPlanner = filterPlanner;
+    }
+
+    /**
+     * Writes all transactions matching the filters to the output stream.
+     *
+     * @param filters the filters, as built by {@code FilterUtils.buildFilterCriteria}
+     * @param format  the output format
+     * @param out     the stream to write to, left open
+     * @return the number of exported transactions
+     * @throws IOException if writing to the stream fails, e.g. because the client disconnected
+     */
+    @Transactional(readOnly = true)
+    public long export(List<FilterCriteria> filters, ExportFormat format, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        Specification<Transaction> specification = filterPlanner.toSpecification(filters);
+
+        TransactionRowWriter writer = format.open(out, objectMapper);
+        long count;
+        try {
+            count = transactionRepository.scrollAll(specification, batchSize, transaction -> {
+                try {
+                    writer.write(transaction);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, () -> {
+                try {
+                    writer.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        // The rows after the last full batch
+        writer.flush();
+        log.info("Exported {} transactions as {} in {} ms", count, format,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return count;
+    }
+}
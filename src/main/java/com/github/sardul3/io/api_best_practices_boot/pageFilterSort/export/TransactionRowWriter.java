@@ -0,0 +1,16 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.export;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+
+import java.io.IOException;
+
+/**
+ * Writes transactions one by one into a buffered output. Nothing reaches the underlying stream before a
+ * {@link #flush()}, which lets the caller decide how large the chunks sent to the client are.
+ */
+interface TransactionRowWriter {
+
+    void write(Transaction transaction) throws IOException;
+
+    void flush() throws IOException;
+}
@@ -11,6 +11,6 @@ import lombok.Setter;
 @NoArgsConstructor
 public class FilterCriteria {
     private String key;        // The field name
-    private String operation;  // The operation (e.g., ":", ">", "<", "=")
-    private Object value;      // The value to filter by
+    private String operation;  // The code of a FilterOperator (e.g., ":", ">", "<", "=", "in")
+    private Object value;      // The value to filter by, as text
 }
@@ -0,0 +1,151 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+
+import java.util.List;
+
+/**
+ * Evaluates a list of {@link FilterCriteria} against a single in-memory {@link Transaction}.
+ * <p>
+ * The semantics mirror {@link TransactionSpecification}: {@code >} and {@code <} are inclusive range
+ * checks, {@code :} is a substring match on text fields and an equality check on everything else, and the other
+ * {@link FilterOperator}s compare as their names say. Alternatives match if any of them does.
+ * The matcher is used to decide whether a cached result could contain a changed transaction, so it errs
+ * on the side of "yes": any criterion it cannot interpret is treated as matching.
+ * </p>
+ */
+public final class FilterCriteriaMatcher {
+
+    private FilterCriteriaMatcher() {
+    }
+
+    /**
+     * @param filters     the criteria of a cached query, combined with AND
+     * @param transaction the transaction to test
+     * @return false only when the transaction certainly does not satisfy the criteria
+     */
+    public static boolean couldMatch(List<FilterCriteria> filters, Transaction transaction) {
+        for (FilterCriteria criteria : filters) {
+            if (!couldMatch(criteria, transaction)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean couldMatch(FilterCriteria criteria, Transaction transaction) {
+        FilterOperator operator = FilterOperator.fromCode(criteria.getOperation());
+        if (criteria.getKey() == null || operator == null || criteria.getValue() == null) {
+            return true;
+        }
+        String value = criteria.getValue().toString();
+        if (operator == FilterOperator.ANY_OF) {
+            return matchAnyOf(value, transaction);
+        }
+        return switch (criteria.getKey()) {
+            case "fromAccount" -> matchText(transaction.getFromAccount(), operator, value);
+            case "toAccount" -> matchText(transaction.getToAccount(), operator, value);
+            case "amount" -> matchNumber(transaction.getAmount(), operator, value);
+            case "transactionId" -> matchNumber(transaction.getTransactionId(), operator, value);
+            // A status is never matched by substring, ':' is an equality check
+            case "status" -> matchText(transaction.getStatus() == null ? null : transaction.getStatus().name(),
+                    operator == FilterOperator.CONTAINS ? FilterOperator.EQUAL : operator, value);
+            default -> true;
+        };
+    }
+
+    private static boolean matchAnyOf(String value, Transaction transaction) {
+        List<List<FilterCriteria>> alternatives;
+        try {
+            alternatives = FilterParser.alternatives(value);
+        } catch (InvalidFilterException e) {
+            return true;
+        }
+        for (List<FilterCriteria> alternative : alternatives) {
+            if (couldMatch(alternative, transaction)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchText(String field, FilterOperator operator, String value) {
+        if (field == null) {
+            return false;
+        }
+        if (operator == FilterOperator.CONTAINS) {
+            return field.contains(value);
+        }
+        if (operator == FilterOperator.IN || operator == FilterOperator.BETWEEN) {
+            List<String> values = list(value);
+            if (values == null) {
+                return true;
+            }
+            if (operator == FilterOperator.IN) {
+                return values.contains(field);
+            }
+            return values.size() != 2 || field.compareTo(values.get(0)) >= 0 && field.compareTo(values.get(1)) <= 0;
+        }
+        return compare(field.compareTo(value), operator);
+    }
+
+    private static boolean matchNumber(Number field, FilterOperator operator, String value) {
+        if (field == null) {
+            return false;
+        }
+        double actual = field.doubleValue();
+        if (operator == FilterOperator.IN || operator == FilterOperator.BETWEEN) {
+            List<String> values = list(value);
+            if (values == null) {
+                return true;
+            }
+            if (operator == FilterOperator.IN) {
+                for (String element : values) {
+                    Double expected = parse(element);
+                    if (expected == null || expected == actual) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            Double low = values.size() == 2 ? parse(values.get(0)) : null;
+            Double high = values.size() == 2 ? parse(values.get(1)) : null;
+            return low == null || high == null || actual >= low && actual <= high;
+        }
+        Double expected = parse(value);
+        if (expected == null) {
+            return true;
+        }
+        // ':' on a number is an equality check
+        return compare(Double.compare(actual, expected),
+                operator == FilterOperator.CONTAINS ? FilterOperator.EQUAL : operator);
+    }
+
+    private static boolean compare(int comparison, FilterOperator operator) {
+        return switch (operator) {
+            case EQUAL -> comparison == 0;
+            case NOT_EQUAL -> comparison != 0;
+            case AT_LEAST -> comparison >= 0;
+            case AT_MOST -> comparison <= 0;
+            case GREATER_THAN -> comparison > 0;
+            case LESS_THAN -> comparison < 0;
+            default -> true;
+        };
+    }
+
+    private static List<String> list(String value) {
+        try {
+            return FilterParser.splitList(value);
+        } catch (InvalidFilterException e) {
+            return null;
+        }
+    }
+
+    private static Double parse(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
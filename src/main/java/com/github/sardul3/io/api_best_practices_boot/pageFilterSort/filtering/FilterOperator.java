@@ -0,0 +1,70 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering;
+
+/**
+ * The operations a {@link FilterCriteria} can carry.
+ * <p>
+ * The {@code code} is what {@link FilterCriteria#getOperation()} holds, and so what ends up in cache keys and in
+ * the cache index. The legacy codes {@code :}, {@code >} and {@code <} keep their meaning: {@code >} and
+ * {@code <} are inclusive. The {@code symbol} is the operator in the {@code filter} expression language of
+ * {@link FilterParser}, where {@code >} and {@code <} are strict.
+ * </p>
+ */
+public enum FilterOperator {
+
+    // Substring match on text fields, equality on everything else
+    CONTAINS(":", ":"),
+    EQUAL("=", "="),
+    NOT_EQUAL("!=", "!="),
+    AT_LEAST(">", ">="),
+    AT_MOST("<", "<="),
+    GREATER_THAN("gt", ">"),
+    LESS_THAN("lt", "<"),
+    // The value is a list, see FilterParser#joinList
+    IN("in", "in"),
+    // The value is a list of the inclusive lower and upper bound
+    BETWEEN("between", "between"),
+    // The value is an expression of alternatives, see FilterParser#alternatives
+    ANY_OF("or", null);
+
+    private final String code;
+    private final String symbol;
+
+    FilterOperator(String code, String symbol) {
+        this.code = code;
+        this.symbol = symbol;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * @param code the operation of a {@link FilterCriteria}
+     * @return the operator, or null if the code is unknown
+     */
+    public static FilterOperator fromCode(String code) {
+        for (FilterOperator operator : values()) {
+            if (operator.code.equals(code)) {
+                return operator;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param symbol a comparison operator of the expression language
+     * @return the operator, or null if the symbol is unknown
+     */
+    static FilterOperator fromSymbol(String symbol) {
+        for (FilterOperator operator : values()) {
+            if (symbol.equals(operator.symbol)) {
+                return operator;
+            }
+        }
+        return null;
+    }
+}
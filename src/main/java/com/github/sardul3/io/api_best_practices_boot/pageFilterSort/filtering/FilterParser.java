@@ -0,0 +1,295 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Parser of the {@code filter} expression language, e.g.
+ * {@code filter=amount>=100 and (status in (COMPLETED,ON_HOLD) or fromAccount:'User A')}.
+ * <pre>
+ * expression := conjunction ('or' conjunction)*
+ * conjunction := factor ('and' factor)*
+ * factor     := '(' expression ')' | field operator value
+ *             | field 'in' '(' value (',' value)* ')' | field 'between' value 'and' value
+ * operator   := '=' | '!=' | '>' | '>=' | '<' | '<=' | ':'
+ * value      := bare-word | 'quoted text, '' for a quote'
+ * </pre>
+ * <p>
+ * An expression is turned into the same {@link FilterCriteria} the query parameter filters produce, with values
+ * kept as text: typing them is left to {@link TransactionFilterPlanner}, which knows the field types. A group of
+ * alternatives becomes a single {@link FilterOperator#ANY_OF} criteria whose value is the canonical text of the
+ * group, so criteria lists stay flat, and cache keys and the cache index keep working on them unchanged.
+ * </p>
+ * <p>
+ * Parsed expressions are cached by their text, so repeated requests skip the parsing.
+ * </p>
+ */
+public final class FilterParser {
+
+    // Bounds both the parsing work of a request and the memory of the cache
+    static final int MAX_LENGTH = 2048;
+
+    private static final Cache<String, List<List<FilterCriteria>>> PARSED = Caffeine.newBuilder()
+            .maximumSize(1024)
+            .build();
+
+    private FilterParser() {
+    }
+
+    /**
+     * @param expression the value of the {@code filter} parameter
+     * @return the criteria of the expression, combined with AND
+     * @throws InvalidFilterException if the expression is malformed
+     */
+    public static List<FilterCriteria> parse(String expression) {
+        List<List<FilterCriteria>> alternatives = alternatives(expression);
+        return alternatives.size() == 1 ? alternatives.getFirst() : List.of(anyOf(alternatives));
+    }
+
+    /**
+     * @param expression an expression, or the value of an {@link FilterOperator#ANY_OF} criteria
+     * @return the alternatives of the expression, each a list of criteria combined with AND
+     * @throws InvalidFilterException if the expression is malformed
+     */
+    public static List<List<FilterCriteria>> alternatives(String expression) {
+        if (expression.length() > MAX_LENGTH) {
+            throw new InvalidFilterException("Filter is longer than " + MAX_LENGTH + " characters");
+        }
+        return PARSED.get(expression, text -> new Parser(text).expression());
+    }
+
+    /**
+     * @param values the elements of an {@link FilterOperator#IN} or {@link FilterOperator#BETWEEN} value
+     * @return the value, reversed by {@link #splitList(String)}
+     */
+    public static String joinList(List<String> values) {
+        return values.stream().map(FilterParser::quote).collect(Collectors.joining(","));
+    }
+
+    /**
+     * @param value the value of an {@link FilterOperator#IN} or {@link FilterOperator#BETWEEN} criteria
+     * @return its elements
+     * @throws InvalidFilterException if the value is malformed
+     */
+    public static List<String> splitList(String value) {
+        return new Parser(value).list();
+    }
+
+    private static FilterCriteria anyOf(List<List<FilterCriteria>> alternatives) {
+        return new FilterCriteria("", FilterOperator.ANY_OF.getCode(), format(alternatives));
+    }
+
+    // The canonical text of a group of alternatives, parsed back into the same criteria
+    private static String format(List<List<FilterCriteria>> alternatives) {
+        return alternatives.stream()
+                .map(conjunction -> conjunction.size() == 1 ? format(conjunction.getFirst())
+                        : conjunction.stream().map(FilterParser::format).collect(Collectors.joining(" and ", "(", ")")))
+                .collect(Collectors.joining(" or "));
+    }
+
+    private static String format(FilterCriteria criteria) {
+        FilterOperator operator = FilterOperator.fromCode(criteria.getOperation());
+        String value = String.valueOf(criteria.getValue());
+        return switch (operator) {
+            case IN -> criteria.getKey() + " in (" + value + ")";
+            case BETWEEN -> {
+                List<String> bounds = splitList(value);
+                yield criteria.getKey() + " between " + quote(bounds.get(0)) + " and " + quote(bounds.get(1));
+            }
+            case ANY_OF -> "(" + value + ")";
+            case null -> throw new InvalidFilterException("Unknown filter operation " + criteria.getOperation());
+            default -> criteria.getKey() + operator.getSymbol() + quote(value);
+        };
+    }
+
+    private static String quote(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (isDelimiter(value.charAt(i))) {
+                return "'" + value.replace("'", "''") + "'";
+            }
+        }
+        return value.isEmpty() ? "''" : value;
+    }
+
+    private static boolean isDelimiter(char c) {
+        return Character.isWhitespace(c) || c == '(' || c == ')' || c == ',' || c == '\'';
+    }
+
+    private static final class Parser {
+
+        private final String text;
+        private int position;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        List<List<FilterCriteria>> expression() {
+            List<List<FilterCriteria>> alternatives = disjunction();
+            expectEnd();
+            return List.copyOf(alternatives);
+        }
+
+        List<String> list() {
+            List<String> values = new ArrayList<>();
+            do {
+                values.add(value());
+            } while (symbol(','));
+            expectEnd();
+            return values;
+        }
+
+        private List<List<FilterCriteria>> disjunction() {
+            List<List<FilterCriteria>> alternatives = new ArrayList<>();
+            do {
+                alternatives.add(conjunction());
+            } while (keyword("or"));
+            return alternatives;
+        }
+
+        private List<FilterCriteria> conjunction() {
+            List<FilterCriteria> conjunction = new ArrayList<>();
+            do {
+                if (symbol('(')) {
+                    List<List<FilterCriteria>> group = disjunction();
+                    expect(')');
+                    if (group.size() == 1) {
+                        conjunction.addAll(group.getFirst());
+                    } else {
+                        conjunction.add(anyOf(group));
+                    }
+                } else {
+                    conjunction.add(comparison());
+                }
+            } while (keyword("and"));
+            return List.copyOf(conjunction);
+        }
+
+        private FilterCriteria comparison() {
+            String field = identifier();
+            if (keyword("in")) {
+                expect('(');
+                List<String> values = new ArrayList<>();
+                do {
+                    values.add(value());
+                } while (symbol(','));
+                expect(')');
+                return new FilterCriteria(field, FilterOperator.IN.getCode(), joinList(values));
+            }
+            if (keyword("between")) {
+                String low = value();
+                if (!keyword("and")) {
+                    throw error("expected 'and'");
+                }
+                String high = value();
+                return new FilterCriteria(field, FilterOperator.BETWEEN.getCode(), joinList(List.of(low, high)));
+            }
+            return new FilterCriteria(field, operator().getCode(), value());
+        }
+
+        private String identifier() {
+            skipWhitespace();
+            int start = position;
+            while (position < text.length() && (Character.isLetterOrDigit(text.charAt(position)) || text.charAt(position) == '_')) {
+                position++;
+            }
+            if (start == position || Character.isDigit(text.charAt(start))) {
+                throw error("expected a field name");
+            }
+            return text.substring(start, position);
+        }
+
+        private FilterOperator operator() {
+            skipWhitespace();
+            for (int length = 2; length >= 1; length--) {
+                if (position + length <= text.length()) {
+                    FilterOperator operator = FilterOperator.fromSymbol(text.substring(position, position + length));
+                    // in and between are keywords, handled by comparison()
+                    if (operator != null && operator != FilterOperator.IN && operator != FilterOperator.BETWEEN) {
+                        position += length;
+                        return operator;
+                    }
+                }
+            }
+            throw error("expected an operator");
+        }
+
+        private String value() {
+            skipWhitespace();
+            if (position < text.length() && text.charAt(position) == '\'') {
+                StringBuilder value = new StringBuilder();
+                position++;
+                while (true) {
+                    int quote = text.indexOf('\'', position);
+                    if (quote < 0) {
+                        throw error("unterminated quote");
+                    }
+                    value.append(text, position, quote);
+                    position = quote + 1;
+                    if (position < text.length() && text.charAt(position) == '\'') {
+                        value.append('\'');
+                        position++;
+                    } else {
+                        return value.toString();
+                    }
+                }
+            }
+            int start = position;
+            while (position < text.length() && !isDelimiter(text.charAt(position))) {
+                position++;
+            }
+            if (start == position) {
+                throw error("expected a value");
+            }
+            return text.substring(start, position);
+        }
+
+        // Consumes a case-insensitive keyword if it comes next as a whole word
+        private boolean keyword(String keyword) {
+            skipWhitespace();
+            int end = position + keyword.length();
+            if (text.regionMatches(true, position, keyword, 0, keyword.length())
+                    && (end == text.length() || !Character.isLetterOrDigit(text.charAt(end)) && text.charAt(end) != '_')) {
+                position = end;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean symbol(char symbol) {
+            skipWhitespace();
+            if (position < text.length() && text.charAt(position) == symbol) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char symbol) {
+            if (!symbol(symbol)) {
+                throw error("expected '" + symbol + "'");
+            }
+        }
+
+        private void expectEnd() {
+            skipWhitespace();
+            if (position < text.length()) {
+                throw error("unexpected '" + text.charAt(position) + "'");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private InvalidFilterException error(String message) {
+            return new InvalidFilterException("Invalid filter at position " + position + ": " + message);
+        }
+    }
+}
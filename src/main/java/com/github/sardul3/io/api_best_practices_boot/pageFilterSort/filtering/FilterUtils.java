@@ -9,15 +9,21 @@ import java.util.Set;
 
 public class FilterUtils {
 
-    // Constants for Pageable-related parameters
-    private static final Set<String> EXCLUDED_PARAMS = Set.of("page", "size", "sort");
+    // The parameter holding a filter expression, see FilterParser
+    public static final String FILTER_PARAM = "filter";
+
+    // Constants for Pageable-related parameters, the count strategy of a page and the filter expression
+    private static final Set<String> EXCLUDED_PARAMS = Set.of("page", "size", "sort", "count", FILTER_PARAM);
 
     /**
      * Parses filter parameters from the query string and builds a list of FilterCriteria.
-     * Excludes 'page', 'size', and 'sort' parameters that belong to Pageable.
+     * Excludes 'page', 'size', and 'sort' parameters that belong to Pageable, and the 'count' strategy.
+     * The 'filter' parameter is parsed as an expression by {@link FilterParser}, and its criteria are
+     * combined with the others.
      *
      * @param filterParams Map of query parameters representing filters
      * @return List of FilterCriteria built from query parameters
+     * @throws InvalidFilterException if the filter expression is malformed
      */
     @Observed
     public static List<FilterCriteria> buildFilterCriteria(Map<String, String> filterParams) {
@@ -29,6 +35,11 @@ public class FilterUtils {
             }
         });
 
+        String expression = filterParams.get(FILTER_PARAM);
+        if (expression != null && !expression.isBlank()) {
+            filters.addAll(FilterParser.parse(expression));
+        }
+
         return filters;
     }
 
@@ -37,7 +48,7 @@ public class FilterUtils {
         return !EXCLUDED_PARAMS.contains(key.toLowerCase());
     }
 
-    // Helper method to build FilterCriteria based on the value
+    // Helper method to build FilterCriteria based on the value, '>' and '<' in a key are inclusive bounds
     private static FilterCriteria buildCriteria(String key, String value) {
             if (key != null && key.contains(">")) {
                 String[] parts = key.split(">");
@@ -0,0 +1,16 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a filter cannot be parsed, names an unknown field or has a value of the wrong type.
+ * Answered with 400 BAD_REQUEST.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidFilterException extends IllegalArgumentException {
+
+    public InvalidFilterException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,390 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Turns filter criteria into a {@link Specification} with typed predicates.
+ * <p>
+ * Criteria values arrive as text; the JPA metamodel tells the type of each field, so that {@code amount>100}
+ * compares numbers and {@code status=COMPLETED} compares enum constants, instead of comparing everything as
+ * strings. The work that only depends on which fields and operators are used (looking up the attributes,
+ * checking the operators, choosing the value converters) is compiled into a plan, cached by that shape; binding
+ * the values of a request to a cached plan only converts them.
+ * </p>
+ * <p>
+ * A plan can also be {@linkplain #prepare(List) prepared} for a JPQL query: the condition then only depends on the
+ * shape and the values are passed as parameters, so a query built once per shape can be reused for all of them.
+ * </p>
+ */
+@Component
+public class TransactionFilterPlanner {
+
+    private final EntityType<Transaction> entity;
+    private final Cache<String, Plan> plans = Caffeine.newBuilder()
+            .maximumSize(1024)
+            .build();
+
+    public TransactionFilterPlanner(EntityManagerFactory entityManagerFactory) {
+        this.entity = entityManagerFactory.getMetamodel().entity(Transaction.class);
+    }
+
+    /**
+     * @param filters the criteria, combined with AND
+     * @return the specification of the criteria, null if there are none
+     * @throws InvalidFilterException if a criteria names an unknown field or has a value of the wrong type
+     */
+    public Specification<Transaction> toSpecification(List<FilterCriteria> filters) {
+        if (filters == null || filters.isEmpty()) {
+            return null;
+        }
+        return plan(shape(filters), filters).bind(filters);
+    }
+
+    /**
+     * @param filters the criteria, combined with AND
+     * @return the criteria prepared for a JPQL query
+     * @throws InvalidFilterException if a criteria names an unknown field or has a value of the wrong type
+     */
+    public PreparedFilter prepare(List<FilterCriteria> filters) {
+        if (filters == null || filters.isEmpty()) {
+            return new PreparedFilter("", null, List.of());
+        }
+        String shape = shape(filters);
+        Plan plan = plan(shape, filters);
+        List<Object> parameters = new ArrayList<>();
+        plan.addParameters(filters, parameters);
+        return new PreparedFilter(shape, plan, parameters);
+    }
+
+    /**
+     * Checks the criteria up front, for callers that only query after the response has been committed.
+     *
+     * @param filters the criteria, combined with AND
+     * @throws InvalidFilterException if a criteria names an unknown field or has a value of the wrong type
+     */
+    public void validate(List<FilterCriteria> filters) {
+        toSpecification(filters);
+    }
+
+    /**
+     * Rewrites the criteria into one form per meaning, e.g. for cache keys: values are converted to the type of
+     * their field and printed back ({@code amount>100} and {@code amount>100.0} become the same), the elements of
+     * {@code in} lists are sorted and deduplicated, and the criteria themselves are sorted and deduplicated.
+     * Groups of alternatives keep the canonical text {@link FilterParser} gave them.
+     *
+     * @param filters the criteria, combined with AND
+     * @return the canonical criteria, combined with AND
+     * @throws InvalidFilterException if a criteria names an unknown field or has a value of the wrong type
+     */
+    public List<FilterCriteria> canonicalize(List<FilterCriteria> filters) {
+        if (filters == null || filters.isEmpty()) {
+            return List.of();
+        }
+        Plan plan = plan(shape(filters), filters);
+        TreeMap<String, FilterCriteria> canonical = new TreeMap<>();
+        for (int i = 0; i < filters.size(); i++) {
+            FilterCriteria criteria = plan.steps().get(i).canonical(filters.get(i));
+            canonical.putIfAbsent(criteria.getKey() + '\u0000' + criteria.getOperation() + '\u0000' + criteria.getValue(),
+                    criteria);
+        }
+        return List.copyOf(canonical.values());
+    }
+
+    private Plan plan(String shape, List<FilterCriteria> filters) {
+        // Not plans.get(key, loader): compiling alternatives loads their plans, which a loader must not do
+        Plan plan = plans.getIfPresent(shape);
+        if (plan == null) {
+            plan = compile(filters);
+            plans.put(shape, plan);
+        }
+        return plan;
+    }
+
+    // The fields and operations of the criteria, without their values
+    private static String shape(List<FilterCriteria> filters) {
+        StringBuilder shape = new StringBuilder();
+        for (FilterCriteria criteria : filters) {
+            if (FilterOperator.ANY_OF.getCode().equals(criteria.getOperation())) {
+                shape.append("or[");
+                for (List<FilterCriteria> alternative : FilterParser.alternatives(String.valueOf(criteria.getValue()))) {
+                    shape.append(shape(alternative)).append('|');
+                }
+                shape.append("]");
+            } else {
+                shape.append(criteria.getKey()).append(' ').append(criteria.getOperation());
+            }
+            shape.append(';');
+        }
+        return shape.toString();
+    }
+
+    private Plan compile(List<FilterCriteria> filters) {
+        List<Step> steps = new ArrayList<>();
+        for (FilterCriteria criteria : filters) {
+            FilterOperator operator = FilterOperator.fromCode(criteria.getOperation());
+            if (operator == null) {
+                throw new InvalidFilterException("Unknown filter operation " + criteria.getOperation());
+            }
+            if (operator == FilterOperator.ANY_OF) {
+                List<Plan> alternatives = new ArrayList<>();
+                for (List<FilterCriteria> alternative : FilterParser.alternatives(String.valueOf(criteria.getValue()))) {
+                    alternatives.add(plan(shape(alternative), alternative));
+                }
+                steps.add(new AnyOfStep(alternatives));
+            } else {
+                SingularAttribute<? super Transaction, ?> attribute = attribute(criteria.getKey());
+                steps.add(new ComparisonStep(attribute.getName(), operator, attribute.getJavaType() == String.class,
+                        converter(attribute.getName(), attribute.getJavaType())));
+            }
+        }
+        return new Plan(steps);
+    }
+
+    private SingularAttribute<? super Transaction, ?> attribute(String name) {
+        try {
+            return entity.getSingularAttribute(name);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidFilterException("Unknown filter field " + name);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Function<String, Object> converter(String field, Class<?> type) {
+        Function<String, Object> converter;
+        if (type == String.class) {
+            converter = value -> value;
+        } else if (type == Long.class || type == long.class) {
+            converter = Long::valueOf;
+        } else if (type == Integer.class || type == int.class) {
+            converter = Integer::valueOf;
+        } else if (type == Double.class || type == double.class) {
+            converter = Double::valueOf;
+        } else if (type == BigDecimal.class) {
+            converter = BigDecimal::new;
+        } else if (type == Instant.class) {
+            converter = Instant::parse;
+        } else if (type.isEnum()) {
+            converter = value -> Enum.valueOf((Class<? extends Enum>) type, value);
+        } else {
+            throw new InvalidFilterException("Field " + field + " cannot be filtered");
+        }
+        return value -> {
+            try {
+                return converter.apply(value);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new InvalidFilterException("Invalid value '" + value + "' for filter field " + field);
+            }
+        };
+    }
+
+    /**
+     * Criteria prepared for a JPQL query: the shape they are planned by, and their values as positional parameters.
+     */
+    public static final class PreparedFilter {
+
+        private final String shape;
+        private final Plan plan;
+        private final List<Object> parameters;
+
+        private PreparedFilter(String shape, Plan plan, List<Object> parameters) {
+            this.shape = shape;
+            this.plan = plan;
+            this.parameters = parameters;
+        }
+
+        // The fields and operations of the criteria, empty without criteria
+        public String getShape() {
+            return shape;
+        }
+
+        public List<Object> getParameters() {
+            return parameters;
+        }
+
+        /**
+         * Renders the condition; it is the same for every criteria of the same shape.
+         *
+         * @param alias the alias of the transaction in the query
+         * @return the JPQL condition, with parameters {@code ?1, ?2, ...} in the order of {@link #getParameters()},
+         * null without criteria
+         */
+        public String condition(String alias) {
+            if (plan == null) {
+                return null;
+            }
+            StringBuilder jpql = new StringBuilder();
+            plan.appendCondition(jpql, alias, 1);
+            return jpql.toString();
+        }
+    }
+
+    private record Plan(List<Step> steps) {
+
+        Specification<Transaction> bind(List<FilterCriteria> filters) {
+            List<Specification<Transaction>> specifications = new ArrayList<>(steps.size());
+            for (int i = 0; i < steps.size(); i++) {
+                specifications.add(steps.get(i).bind(filters.get(i)));
+            }
+            return specifications.size() == 1 ? specifications.getFirst() : Specification.allOf(specifications);
+        }
+
+        void addParameters(List<FilterCriteria> filters, List<Object> parameters) {
+            for (int i = 0; i < steps.size(); i++) {
+                steps.get(i).addParameters(filters.get(i), parameters);
+            }
+        }
+
+        int appendCondition(StringBuilder jpql, String alias, int parameter) {
+            if (steps.size() > 1) {
+                jpql.append('(');
+            }
+            for (int i = 0; i < steps.size(); i++) {
+                if (i > 0) {
+                    jpql.append(" and ");
+                }
+                parameter = steps.get(i).appendCondition(jpql, alias, parameter);
+            }
+            if (steps.size() > 1) {
+                jpql.append(')');
+            }
+            return parameter;
+        }
+    }
+
+    private interface Step {
+        Specification<Transaction> bind(FilterCriteria criteria);
+
+        void addParameters(FilterCriteria criteria, List<Object> parameters);
+
+        // Appends the condition, numbering its parameters from the given one on, and returns the next free number
+        int appendCondition(StringBuilder jpql, String alias, int parameter);
+
+        FilterCriteria canonical(FilterCriteria criteria);
+    }
+
+    private record ComparisonStep(String field, FilterOperator operator, boolean text,
+                                  Function<String, Object> converter) implements Step {
+
+        @Override
+        public Specification<Transaction> bind(FilterCriteria criteria) {
+            return new TransactionSpecification(field, operator, values(criteria));
+        }
+
+        @Override
+        public void addParameters(FilterCriteria criteria, List<Object> parameters) {
+            List<Object> values = values(criteria);
+            switch (operator) {
+                case CONTAINS -> parameters.add(text
+                        ? "%" + TransactionSpecification.escapeLike((String) values.getFirst()) + "%" : values.getFirst());
+                case IN -> parameters.add(values);
+                default -> parameters.addAll(values);
+            }
+        }
+
+        @Override
+        public int appendCondition(StringBuilder jpql, String alias, int parameter) {
+            jpql.append(alias).append('.').append(field);
+            switch (operator) {
+                case CONTAINS -> jpql.append(text ? " like ?" + parameter + " escape '"
+                        + TransactionSpecification.LIKE_ESCAPE + "'" : " = ?" + parameter);
+                case EQUAL -> jpql.append(" = ?").append(parameter);
+                case NOT_EQUAL -> jpql.append(" <> ?").append(parameter);
+                case AT_LEAST -> jpql.append(" >= ?").append(parameter);
+                case AT_MOST -> jpql.append(" <= ?").append(parameter);
+                case GREATER_THAN -> jpql.append(" > ?").append(parameter);
+                case LESS_THAN -> jpql.append(" < ?").append(parameter);
+                case IN -> jpql.append(" in (?").append(parameter).append(')');
+                case BETWEEN -> {
+                    jpql.append(" between ?").append(parameter).append(" and ?").append(parameter + 1);
+                    return parameter + 2;
+                }
+                case ANY_OF -> throw new IllegalStateException("Alternatives are planned by AnyOfStep");
+            }
+            return parameter + 1;
+        }
+
+        @Override
+        public FilterCriteria canonical(FilterCriteria criteria) {
+            List<Object> values = values(criteria);
+            String value = switch (operator) {
+                case IN -> FilterParser.joinList(values.stream().map(ComparisonStep::format).distinct().sorted().toList());
+                case BETWEEN -> FilterParser.joinList(values.stream().map(ComparisonStep::format).toList());
+                default -> format(values.getFirst());
+            };
+            return new FilterCriteria(field, operator.getCode(), value);
+        }
+
+        private static String format(Object value) {
+            return value instanceof BigDecimal decimal ? decimal.stripTrailingZeros().toPlainString() : value.toString();
+        }
+
+        private List<Object> values(FilterCriteria criteria) {
+            String value = String.valueOf(criteria.getValue());
+            List<Object> values = new ArrayList<>();
+            if (operator == FilterOperator.IN || operator == FilterOperator.BETWEEN) {
+                List<String> elements = FilterParser.splitList(value);
+                if (operator == FilterOperator.BETWEEN && elements.size() != 2) {
+                    throw new InvalidFilterException("between needs a lower and an upper bound for filter field " + field);
+                }
+                elements.forEach(element -> values.add(converter.apply(element)));
+            } else {
+                values.add(converter.apply(value));
+            }
+            return values;
+        }
+    }
+
+    private record AnyOfStep(List<Plan> alternatives) implements Step {
+
+        @Override
+        public Specification<Transaction> bind(FilterCriteria criteria) {
+            List<List<FilterCriteria>> filters = FilterParser.alternatives(String.valueOf(criteria.getValue()));
+            List<Specification<Transaction>> specifications = new ArrayList<>(alternatives.size());
+            for (int i = 0; i < alternatives.size(); i++) {
+                specifications.add(alternatives.get(i).bind(filters.get(i)));
+            }
+            return Specification.anyOf(specifications);
+        }
+
+        @Override
+        public void addParameters(FilterCriteria criteria, List<Object> parameters) {
+            List<List<FilterCriteria>> filters = FilterParser.alternatives(String.valueOf(criteria.getValue()));
+            for (int i = 0; i < alternatives.size(); i++) {
+                alternatives.get(i).addParameters(filters.get(i), parameters);
+            }
+        }
+
+        @Override
+        public int appendCondition(StringBuilder jpql, String alias, int parameter) {
+            jpql.append('(');
+            for (int i = 0; i < alternatives.size(); i++) {
+                if (i > 0) {
+                    jpql.append(" or ");
+                }
+                parameter = alternatives.get(i).appendCondition(jpql, alias, parameter);
+            }
+            jpql.append(')');
+            return parameter;
+        }
+
+        @Override
+        public FilterCriteria canonical(FilterCriteria criteria) {
+            return criteria;
+        }
+    }
+}
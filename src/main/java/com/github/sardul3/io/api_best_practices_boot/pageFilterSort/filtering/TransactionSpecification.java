@@ -3,34 +3,54 @@ package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering;
 import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.List;
+
+/**
+ * A single comparison on a transaction field, with values already converted to the field's type
+ * by {@link TransactionFilterPlanner}, so the database compares them natively and can use its indexes.
+ */
 public class TransactionSpecification implements Specification<Transaction> {
 
-    private final FilterCriteria criteria;
+    // Escape character of LIKE patterns, one that needs no escaping in JPQL literals
+    static final char LIKE_ESCAPE = '!';
+
+    private final String field;
+    private final FilterOperator operator;
+    private final List<Object> values;
 
-    public TransactionSpecification(FilterCriteria criteria) {
-        this.criteria = criteria;
+    public TransactionSpecification(String field, FilterOperator operator, List<Object> values) {
+        this.field = field;
+        this.operator = operator;
+        this.values = values;
     }
 
     @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
     public Predicate toPredicate(Root<Transaction> root, CriteriaQuery<?> query, CriteriaBuilder builder) {
-        if (criteria.getOperation().equalsIgnoreCase(">")) {
-            return builder.greaterThanOrEqualTo(
-                    root.<String>get(criteria.getKey()), criteria.getValue().toString());
-        } else if (criteria.getOperation().equalsIgnoreCase("<")) {
-            return builder.lessThanOrEqualTo(
-                    root.<String>get(criteria.getKey()), criteria.getValue().toString());
-        } else if (criteria.getOperation().equalsIgnoreCase(":")) {
-            if (root.get(criteria.getKey()).getJavaType() == String.class) {
-                return builder.like(
-                        root.<String>get(criteria.getKey()), "%" + criteria.getValue() + "%");
-            } else {
-                return builder.equal(root.get(criteria.getKey()), criteria.getValue());
-            }
-        }
-        return null;
+        Path path = root.get(field);
+        Comparable value = (Comparable) values.getFirst();
+        return switch (operator) {
+            case CONTAINS -> value instanceof String text
+                    ? builder.like(path, "%" + escapeLike(text) + "%", LIKE_ESCAPE)
+                    : builder.equal(path, value);
+            case EQUAL -> builder.equal(path, value);
+            case NOT_EQUAL -> builder.notEqual(path, value);
+            case AT_LEAST -> builder.greaterThanOrEqualTo(path, value);
+            case AT_MOST -> builder.lessThanOrEqualTo(path, value);
+            case GREATER_THAN -> builder.greaterThan(path, value);
+            case LESS_THAN -> builder.lessThan(path, value);
+            case IN -> path.in(values);
+            case BETWEEN -> builder.between(path, value, (Comparable) values.get(1));
+            case ANY_OF -> throw new IllegalStateException("Alternatives are planned by TransactionFilterPlanner");
+        };
+    }
+
+    static String escapeLike(String text) {
+        return text.replace("!", "!!").replace("%", "!%").replace("_", "!_");
     }
 }
@@ -0,0 +1,136 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.keyset;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Opaque continuation tokens for keyset (seek) pagination of transactions.
+ * <p>
+ * A token holds the sort order it was created for and the sort-key values of the last row of a page, including
+ * the {@code transactionId} tie-breaker. The next page is read with a seek predicate on those values
+ * (e.g. {@code amount < ? OR (amount = ? AND transactionId < ?)}) instead of an OFFSET, so its cost does not
+ * depend on how deep the page is. Tokens are base64url-encoded text; they are not signed, since a tampered
+ * token can only move the position.
+ * </p>
+ */
+public final class KeysetCursor {
+
+    private static final String FORMAT_VERSION = "1";
+    private static final String SEPARATOR = "\u001F";
+    private static final String ID_PROPERTY = "transactionId";
+
+    // The properties pages can be sorted by in keyset mode, with the parser of their cursor values
+    private static final Map<String, Function<String, Object>> PROPERTY_TYPES = Map.of(
+            ID_PROPERTY, Long::valueOf,
+            "amount", Double::valueOf,
+            "fromAccount", value -> value,
+            "toAccount", value -> value,
+            "status", Transaction.Status::valueOf,
+            "version", Long::valueOf,
+            "updatedAt", Instant::parse);
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * Validates the requested sort and makes it total by appending {@code transactionId} (in the direction of the
+     * last order) unless it is already part of it.
+     *
+     * @param sort the requested sort, may be unsorted
+     * @return the sort to scroll with
+     * @throws IllegalArgumentException if a property cannot be used for keyset pagination
+     */
+    public static Sort normalize(Sort sort) {
+        Sort.Direction lastDirection = Sort.Direction.ASC;
+        for (Sort.Order order : sort) {
+            if (!PROPERTY_TYPES.containsKey(order.getProperty())) {
+                throw new IllegalArgumentException("Cannot paginate by cursor when sorting by " + order.getProperty());
+            }
+            lastDirection = order.getDirection();
+        }
+        if (sort.getOrderFor(ID_PROPERTY) != null) {
+            return sort;
+        }
+        return sort.and(Sort.by(lastDirection, ID_PROPERTY));
+    }
+
+    /**
+     * @param sort     the normalized sort of the page
+     * @param position the position of the last row of the page
+     * @return the token to request the following page with
+     */
+    public static String encode(Sort sort, ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalArgumentException("Only keyset positions can be encoded");
+        }
+        StringBuilder text = new StringBuilder(FORMAT_VERSION).append(SEPARATOR).append(describe(sort));
+        for (Map.Entry<String, ?> key : keyset.getKeys().entrySet()) {
+            text.append(SEPARATOR).append(key.getKey()).append('=');
+            if (key.getValue() != null) {
+                text.append(key.getValue());
+            }
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token the token of the previous page, empty for the first page
+     * @param sort  the normalized sort of the request, which must be the one the token was created for
+     * @return the position to continue from
+     * @throws IllegalArgumentException if the token is malformed or belongs to another sort order
+     */
+    public static ScrollPosition decode(String token, Sort sort) {
+        if (token == null || token.isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+        String text;
+        try {
+            text = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+        String[] parts = text.split(SEPARATOR, -1);
+        if (parts.length < 3 || !FORMAT_VERSION.equals(parts[0])) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        if (!parts[1].equals(describe(sort))) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort order");
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (int i = 2; i < parts.length; i++) {
+            int equals = parts[i].indexOf('=');
+            String property = equals < 0 ? "" : parts[i].substring(0, equals);
+            Function<String, Object> parser = PROPERTY_TYPES.get(property);
+            if (parser == null || sort.getOrderFor(property) == null) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            String value = parts[i].substring(equals + 1);
+            try {
+                keys.put(property, value.isEmpty() ? null : parser.apply(value));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Malformed cursor", e);
+            }
+        }
+        if (keys.size() != sort.stream().count()) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    private static String describe(Sort sort) {
+        return sort.stream()
+                .map(order -> order.getProperty() + ':' + order.getDirection())
+                .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model;
+
+import java.util.Locale;
+
+/**
+ * How the total number of matching transactions of a paged read is obtained.
+ */
+public enum CountStrategy {
+    // A COUNT query with the filters of the page, always accurate
+    EXACT,
+    // The COUNT result per filter shape, cached and evicted by writes that can change it
+    CACHED,
+    // The row count from the database's table statistics, only for unfiltered reads (filtered reads use CACHED)
+    ESTIMATED,
+    // No count at all; the total is a lower bound and only tells whether a next page exists
+    NONE;
+
+    /**
+     * @param name the strategy name, case-insensitive
+     * @return the strategy, or null if there is no such strategy
+     */
+    public static CountStrategy fromName(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model;
+
+import org.springframework.hateoas.PagedModel;
+
+import java.util.Locale;
+
+/**
+ * HAL page metadata that also tells the client how {@code totalElements} was obtained, e.g.
+ * {@code "page": {"size": 10, "totalElements": 120, "totalPages": 12, "number": 0, "countStrategy": "cached"}}.
+ */
+public class CountedPageMetadata extends PagedModel.PageMetadata {
+
+    private final CountStrategy countStrategy;
+
+    public CountedPageMetadata(PagedModel.PageMetadata metadata, CountStrategy countStrategy) {
+        super(metadata.getSize(), metadata.getNumber(), metadata.getTotalElements(), metadata.getTotalPages());
+        this.countStrategy = countStrategy;
+    }
+
+    public String getCountStrategy() {
+        return countStrategy.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -13,4 +13,10 @@ import java.util.List;
 public class PaginatedTransaction {
     private List<Transaction> transactions;
     private long total;
+    // How the total was obtained, see CountStrategy
+    private CountStrategy countStrategy = CountStrategy.EXACT;
+
+    public PaginatedTransaction(List<Transaction> transactions, long total) {
+        this(transactions, total, CountStrategy.EXACT);
+    }
 }
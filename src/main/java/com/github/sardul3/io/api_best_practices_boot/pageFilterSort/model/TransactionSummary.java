@@ -0,0 +1,36 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Aggregates of the transactions matching a filter, one group per value of the grouping field.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionSummary {
+    // The field the transactions are grouped by, e.g. status
+    private String groupBy;
+    // Largest groups first
+    private List<Group> groups;
+    // True if there are more groups than were returned
+    private boolean truncated;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Group {
+        // The value of the grouping field, null for the transactions without one
+        private String value;
+        private long count;
+        // Null if no transaction of the group has an amount
+        private Double sum;
+        private Double min;
+        private Double max;
+        private Double avg;
+    }
+}
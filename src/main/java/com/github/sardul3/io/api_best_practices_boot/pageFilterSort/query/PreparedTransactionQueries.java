@@ -0,0 +1,200 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.query;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.InvalidFilterException;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.TransactionFilterPlanner;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.TransactionFilterPlanner.PreparedFilter;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.TransactionSummary;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.summary.SummaryGroupBy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.metamodel.EntityType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Paged transaction reads through JPQL queries prepared once per filter shape and sort order.
+ * <p>
+ * A {@code Specification} builds a new criteria tree on every request, which Hibernate translates again each
+ * time. Here the query text only depends on the filter shape (fields and operators, see
+ * {@link TransactionFilterPlanner}) and the sort order, and the filter values are bound as parameters. The text
+ * is built once per shape and kept in a bounded cache, and since it is identical for every request of a shape,
+ * Hibernate's query plan cache skips parsing and translating it, and the database can reuse its statement.
+ * </p>
+ * <p>
+ * The cache is monitored as {@code transactionQueries}: {@code cache.size} is the number of distinct shapes in use,
+ * {@code cache.gets} tagged by result gives the hit rate.
+ * </p>
+ */
+@Component
+public class PreparedTransactionQueries {
+
+    private static final String ALIAS = "t";
+
+    private final EntityManager entityManager;
+    private final TransactionFilterPlanner filterPlanner;
+    private final EntityType<Transaction> entity;
+    // Query text by kind, filter shape and sort order
+    private final Cache<String, String> queries;
+
+    public PreparedTransactionQueries(TransactionFilterPlanner filterPlanner, EntityManager entityManager,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${prepared-queries.maximum-size:512}") long maximumSize) {
+        this.entityManager = entityManager;
+        this.filterPlanner = filterPlanner;
+        this.entity = entityManager.getMetamodel().entity(Transaction.class);
+        this.queries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, queries, "transactionQueries");
+    }
+
+    /**
+     * Reads one page and, unless the page shows the total already, counts the matching transactions.
+     *
+     * @param filters  the filters, combined with AND
+     * @param pageable the page and its sort order
+     * @return the page
+     * @throws InvalidFilterException if a filter or sort property is invalid
+     */
+    public Page<Transaction> findPage(List<FilterCriteria> filters, Pageable pageable) {
+        PreparedFilter filter = filterPlanner.prepare(filters);
+        List<Transaction> rows = select(filter, pageable, pageable.isPaged() ? pageable.getPageSize() : -1);
+        return PageableExecutionUtils.getPage(rows, pageable, () -> count(filter));
+    }
+
+    /**
+     * Reads one page without counting: one row more than the page size tells whether a next page exists.
+     *
+     * @param filters  the filters, combined with AND
+     * @param pageable the page and its sort order
+     * @return the page
+     * @throws InvalidFilterException if a filter or sort property is invalid
+     */
+    public Slice<Transaction> findSlice(List<FilterCriteria> filters, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(select(filterPlanner.prepare(filters), pageable, -1), pageable, false);
+        }
+        List<Transaction> rows = select(filterPlanner.prepare(filters), pageable, pageable.getPageSize() + 1);
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    /**
+     * @param filters the filters, combined with AND
+     * @return the number of matching transactions
+     * @throws InvalidFilterException if a filter is invalid
+     */
+    public long count(List<FilterCriteria> filters) {
+        return count(filterPlanner.prepare(filters));
+    }
+
+    /**
+     * Aggregates the matching transactions per value of a field with a single GROUP BY query, so only one row
+     * per group leaves the database. Groups are ordered by size, largest first, then by value.
+     *
+     * @param filters   the filters, combined with AND
+     * @param groupBy   the field to group by
+     * @param maxGroups the maximum number of groups to read
+     * @return at most {@code maxGroups} groups
+     * @throws InvalidFilterException if a filter is invalid
+     */
+    public List<TransactionSummary.Group> summarize(List<FilterCriteria> filters, SummaryGroupBy groupBy, int maxGroups) {
+        PreparedFilter filter = filterPlanner.prepare(filters);
+        String jpql = queries.get("summary:" + groupBy.getField() + ":" + filter.getShape(), key -> {
+            String condition = filter.condition(ALIAS);
+            String group = ALIAS + "." + groupBy.getField();
+            String amount = ALIAS + ".amount";
+            return "select " + group + ", count(" + ALIAS + "), sum(" + amount + "), min(" + amount + "), max("
+                    + amount + "), avg(" + amount + ") from Transaction " + ALIAS
+                    + (condition == null ? "" : " where " + condition)
+                    + " group by " + group + " order by count(" + ALIAS + ") desc, " + group;
+        });
+        List<Object[]> rows = bind(entityManager.createQuery(jpql, Object[].class), filter)
+                .setMaxResults(maxGroups)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new TransactionSummary.Group(Objects.toString(row[0], null), ((Number) row[1]).longValue(),
+                        toDouble(row[2]), toDouble(row[3]), toDouble(row[4]), toDouble(row[5])))
+                .toList();
+    }
+
+    private static Double toDouble(Object value) {
+        return value == null ? null : ((Number) value).doubleValue();
+    }
+
+    private List<Transaction> select(PreparedFilter filter, Pageable pageable, int maxResults) {
+        String orderBy = orderBy(pageable.getSort());
+        String jpql = queries.get("select:" + filter.getShape() + ":" + orderBy, key -> {
+            String condition = filter.condition(ALIAS);
+            return "select " + ALIAS + " from Transaction " + ALIAS
+                    + (condition == null ? "" : " where " + condition) + orderBy;
+        });
+        TypedQuery<Transaction> query = bind(entityManager.createQuery(jpql, Transaction.class), filter);
+        if (maxResults >= 0) {
+            query.setFirstResult((int) pageable.getOffset()).setMaxResults(maxResults);
+        }
+        return query.getResultList();
+    }
+
+    private long count(PreparedFilter filter) {
+        String jpql = queries.get("count:" + filter.getShape(), key -> {
+            String condition = filter.condition(ALIAS);
+            return "select count(" + ALIAS + ") from Transaction " + ALIAS + (condition == null ? "" : " where " + condition);
+        });
+        return bind(entityManager.createQuery(jpql, Long.class), filter).getSingleResult();
+    }
+
+    private static <Q extends Query> Q bind(Q query, PreparedFilter filter) {
+        List<Object> parameters = filter.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            query.setParameter(i + 1, parameters.get(i));
+        }
+        return query;
+    }
+
+    // Sort properties end up in the query text, so only plain attributes of the entity are accepted
+    private String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "";
+        }
+        StringBuilder orderBy = new StringBuilder(" order by ");
+        for (Sort.Order order : sort) {
+            String property = order.getProperty();
+            try {
+                entity.getSingularAttribute(property);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidFilterException("Unknown sort field " + property);
+            }
+            if (orderBy.length() > " order by ".length()) {
+                orderBy.append(", ");
+            }
+            String path = ALIAS + "." + property;
+            orderBy.append(order.isIgnoreCase() ? "lower(" + path + ")" : path)
+                    .append(order.isAscending() ? " asc" : " desc");
+            switch (order.getNullHandling()) {
+                case NULLS_FIRST -> orderBy.append(" nulls first");
+                case NULLS_LAST -> orderBy.append(" nulls last");
+                case NATIVE -> {
+                }
+            }
+        }
+        return orderBy.toString();
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.summary;
+
+/**
+ * The fields transaction summaries can be grouped by.
+ */
+public enum SummaryGroupBy {
+
+    STATUS("status"),
+    FROM_ACCOUNT("fromAccount"),
+    TO_ACCOUNT("toAccount");
+
+    private final String field;
+
+    SummaryGroupBy(String field) {
+        this.field = field;
+    }
+
+    // The name of the entity attribute, as used in the request and the query
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * @param name the field name, case-insensitive
+     * @return the grouping, or null if the field cannot be grouped by
+     */
+    public static SummaryGroupBy fromName(String name) {
+        for (SummaryGroupBy groupBy : values()) {
+            if (groupBy.field.equalsIgnoreCase(name)) {
+                return groupBy;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.summary;
+
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching.PageFilterSortCacheIndex;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching.PageFilterSortCacheKeyGenerator;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.InvalidFilterException;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.TransactionSummary;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.query.PreparedTransactionQueries;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Count, sum, min, max and average of the amounts of the transactions matching a filter, per status or account.
+ * <p>
+ * The aggregation runs in the database as one GROUP BY query over the same prepared filter as the paged reads,
+ * so no transaction is loaded and the cost of a summary grows with the number of groups, not of transactions.
+ * Accounts can have many distinct values, so only the largest {@code limit} groups are returned, capped by
+ * {@code transaction-summary.max-groups}, and the summary tells whether any were left out.
+ * </p>
+ * <p>
+ * Summaries are cached in {@code transactionsSummaryCache} and registered in the {@link PageFilterSortCacheIndex}
+ * with their filters, so the write path evicts them exactly like the cached pages and counts of the same filters.
+ * </p>
+ */
+@Service
+public class TransactionSummaryService {
+
+    public static final String SUMMARY_CACHE = "transactionsSummaryCache";
+
+    private final PreparedTransactionQueries preparedQueries;
+    private final CacheManager cacheManager;
+    private final PageFilterSortCacheIndex cacheIndex;
+    private final PageFilterSortCacheKeyGenerator keyGenerator;
+    private final int maxGroups;
+
+    public TransactionSummaryService(PreparedTransactionQueries preparedQueries, CacheManager cacheManager,
+                                     PageFilterSortCacheIndex cacheIndex, PageFilterSortCacheKeyGenerator keyGenerator,
+                                     @Value("${transaction-summary.max-groups:1000}") int maxGroups) {
+        this.preparedQueries = preparedQueries;
+        this.cacheManager = cacheManager;
+        this.cacheIndex = cacheIndex;
+        this.keyGenerator = keyGenerator;
+        this.maxGroups = maxGroups;
+    }
+
+    /**
+     * @param filters the filters, combined with AND
+     * @param groupBy the field to group by
+     * @param limit   the maximum number of groups, lowered to {@code transaction-summary.max-groups}
+     * @return the largest groups, computed at most once per filter and grouping until a write affects them
+     * @throws InvalidFilterException if a filter is invalid
+     */
+    public TransactionSummary summarize(List<FilterCriteria> filters, SummaryGroupBy groupBy, int limit) {
+        int groupLimit = Math.max(1, Math.min(limit, maxGroups));
+        String key = summaryKey(filters, groupBy, groupLimit);
+        Cache cache = cacheManager.getCache(SUMMARY_CACHE);
+        TransactionSummary cached = cache == null ? null : cache.get(key, TransactionSummary.class);
+        if (cached != null) {
+            return cached;
+        }
+        // One group more than requested tells whether any were left out
+        List<TransactionSummary.Group> groups = preparedQueries.summarize(filters, groupBy, groupLimit + 1);
+        boolean truncated = groups.size() > groupLimit;
+        // A plain list, so the cached summary can be read back from the JSON format
+        TransactionSummary summary = new TransactionSummary(groupBy.getField(),
+                new ArrayList<>(truncated ? groups.subList(0, groupLimit) : groups), truncated);
+        if (cache != null) {
+            cache.put(key, summary);
+            cacheIndex.register(SUMMARY_CACHE, key, filters);
+        }
+        return summary;
+    }
+
+    /**
+     * @param filters the filters, combined with AND
+     * @param groupBy the field to group by
+     * @param limit   the maximum number of groups
+     * @return the cache key of the summary, the same for every equivalent filter
+     */
+    public String summaryKey(List<FilterCriteria> filters, SummaryGroupBy groupBy, int limit) {
+        return "summary:" + groupBy.getField() + ":g" + Math.max(1, Math.min(limit, maxGroups)) + ":"
+                + keyGenerator.generateFilterKey(filters);
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * How the buckets of {@link RateLimitAndThrottle} endpoints are kept in sync with Redis.
+ * <p>
+ * With {@link Mode#NONE} every request is a round trip to Redis. The other modes keep a local copy of each bucket
+ * that requests consume from, and only write the consumed tokens to Redis once the node's share of unsynchronized
+ * tokens has been consumed locally or {@code max-delay} has passed. That share is {@code overshoot} of the bucket
+ * capacity, but at least {@code min-overshoot-tokens}, as a share alone rounds down to nothing for small buckets,
+ * and at most half the capacity. Each node can therefore let through that many tokens beyond the limit, so a
+ * cluster of n nodes up to n times that; a share of a single token synchronizes on every request.
+ * </p>
+ * <p>
+ * Buckets smaller than {@code exact-below-capacity} synchronize on every request in any mode: a few tokens per
+ * node would multiply their limit with the number of nodes.
+ * </p>
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "rate-limits-bucket.sync")
+public class BucketSyncProperties {
+
+    public enum Mode {
+        // A round trip to Redis per request
+        NONE,
+        // Synchronizes after the overshoot tokens or the delay, whichever comes first
+        DELAYING,
+        // As DELAYING, and also estimates the consumption of the other nodes between synchronizations
+        PREDICTING
+    }
+
+    private Mode mode = Mode.NONE;
+
+    // Share of the bucket capacity a node may consume before writing to Redis
+    private double overshoot = 0.1;
+
+    // Tokens a node may consume before writing to Redis however small the share, capped at half the bucket capacity
+    private long minOvershootTokens = 2;
+
+    // Buckets of a smaller capacity write every request to Redis
+    private long exactBelowCapacity = 20;
+
+    // Longest a node keeps consumed tokens to itself
+    private Duration maxDelay = Duration.ofSeconds(1);
+
+    // Local buckets kept at most, the least recently used ones are dropped first
+    private long maxLocalBuckets = 100_000;
+
+    // Local buckets unused for this long are dropped, along with their unsynchronized tokens
+    private Duration localBucketIdle = Duration.ofMinutes(5);
+}
@@ -0,0 +1,66 @@
+package com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.exception.ApiErrorMessage;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.exception.RateLimitExceededException;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.exception.RateLimitExceededHandler;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+
+import java.io.IOException;
+
+/**
+ * Applies the {@link RateLimit} and {@link RateLimitAndThrottle} limits of a handler to a request that is answered
+ * without reaching it, such as a response cache hit. Such requests are never delayed: without a token they get
+ * the same 429 response as {@link RateLimitExceededHandler} produces for the handler itself.
+ */
+@Component
+public class HandlerRateLimits {
+
+    private final RequestThrottle requestThrottle;
+    private final RateLimitAspect rateLimitAspect;
+    private final RateLimitExceededHandler exceptionHandler;
+    private final ObjectMapper objectMapper;
+
+    public HandlerRateLimits(RequestThrottle requestThrottle, RateLimitAspect rateLimitAspect,
+                             RateLimitExceededHandler exceptionHandler, ObjectMapper objectMapper) {
+        this.requestThrottle = requestThrottle;
+        this.rateLimitAspect = rateLimitAspect;
+        this.exceptionHandler = exceptionHandler;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param handler  the handler that would have answered the request, may be null
+     * @param request  the request
+     * @param response the response, which receives the rate limit headers, or the 429 if the request is refused
+     * @return true if the request may be answered, false if it was refused and the 429 written
+     */
+    public boolean admit(Object handler, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        try {
+            if (handlerMethod.hasMethodAnnotation(RateLimitAndThrottle.class)
+                    && request.getAttribute(RequestThrottle.ADMITTED_ATTRIBUTE) == null) {
+                requestThrottle.admit(request, false);
+            }
+            RateLimit rateLimit = handlerMethod.getMethodAnnotation(RateLimit.class);
+            if (rateLimit != null) {
+                rateLimitAspect.enforce(rateLimit, request, response);
+            }
+            return true;
+        } catch (RateLimitExceededException e) {
+            ResponseEntity<ApiErrorMessage> refusal = exceptionHandler.handleInvalidFieldsInValidJson(e, request);
+            response.setStatus(refusal.getStatusCode().value());
+            refusal.getHeaders().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), refusal.getBody());
+            return false;
+        }
+    }
+}
@@ -23,10 +23,8 @@ import java.lang.annotation.Target;
  *   If set to -1, the value will be retrieved from the application configuration.</li>
  * </ul>
  *
- * <p>This implementation is based on a simple request count over a time window and uses
- * Redis to store the rate-limiting state. IP addresses are used to track request counts per client.
- * More sophisticated techniques may be needed for production environments, such as using distributed
- * rate limiting strategies.</p>
+ * <p>Requests are counted per client IP in Redis, with the {@link RateLimitAlgorithm} given by
+ * {@code algorithm} (a sliding window unless specified otherwise).</p>
  *
  * @see RateLimitAspect
  */
@@ -38,4 +36,7 @@ public @interface RateLimit {
 
     // Specify the rate limit duration in milliseconds, if -1, the config value will be used
     long duration() default -1;
+
+    // How requests are counted within the duration
+    RateLimitAlgorithm algorithm() default RateLimitAlgorithm.SLIDING_WINDOW;
 }
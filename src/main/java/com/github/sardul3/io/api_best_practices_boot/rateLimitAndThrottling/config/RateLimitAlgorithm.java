@@ -0,0 +1,37 @@
+package com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config;
+
+/**
+ * How {@link RateLimit} counts the requests of a client, each evaluated by one atomic Redis script.
+ */
+public enum RateLimitAlgorithm {
+
+    /**
+     * A counter per window of {@code duration}. Lets through up to twice the limit around a window edge.
+     */
+    FIXED_WINDOW("fixed-window"),
+
+    /**
+     * The current window's counter plus the previous one's, weighted by how much of it still overlaps a window
+     * ending now. Close to an exact sliding window at the cost of two counters.
+     */
+    SLIDING_WINDOW("sliding-window"),
+
+    /**
+     * Generic cell rate algorithm: spaces requests by {@code duration / limit}, allowing bursts of up to the limit.
+     * A single timestamp per client.
+     */
+    GCRA("gcra");
+
+    private final String script;
+
+    RateLimitAlgorithm(String script) {
+        this.script = script;
+    }
+
+    /**
+     * @return the name of the script, also used in the Redis keys
+     */
+    public String getScript() {
+        return script;
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Throttles requests to {@link RateLimitAndThrottle} endpoints before their handler is called.
+ * <p>
+ * Throttling happens here rather than in {@link RateLimitAndThrottleAspect} because a delayed request has to be put
+ * into asynchronous mode before the handler runs; the aspect cannot change what the handler returns. When the
+ * request is dispatched again after its delay it already carries {@link RequestThrottle#ADMITTED_ATTRIBUTE} and
+ * goes straight through.
+ * </p>
+ */
+@Component
+public class RateLimitAndThrottleInterceptor implements HandlerInterceptor {
+
+    private final RequestThrottle requestThrottle;
+
+    public RateLimitAndThrottleInterceptor(RequestThrottle requestThrottle) {
+        this.requestThrottle = requestThrottle;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)
+                || !handlerMethod.hasMethodAnnotation(RateLimitAndThrottle.class)
+                || request.getAttribute(RequestThrottle.ADMITTED_ATTRIBUTE) != null) {
+            return true;
+        }
+        return requestThrottle.admit(request, true);
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class RateLimitAndThrottleWebConfig implements WebMvcConfigurer {
+
+    private final RateLimitAndThrottleInterceptor interceptor;
+
+    public RateLimitAndThrottleWebConfig(RateLimitAndThrottleInterceptor interceptor) {
+        this.interceptor = interceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(interceptor);
+    }
+}
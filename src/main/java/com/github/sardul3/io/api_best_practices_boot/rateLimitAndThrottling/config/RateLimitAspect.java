@@ -1,24 +1,20 @@
 package com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config;
 
 import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.exception.RateLimitExceededException;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.support.ScriptedRateLimiter;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
-
 /**
  * Aspect responsible for applying rate limiting to methods annotated with {@link RateLimit}.
  *
@@ -33,10 +29,15 @@ import java.util.concurrent.TimeUnit;
  *
  * <p><strong>Key Features:</strong></p>
  * <ul>
- *     <li>Uses Redis for distributed rate limiting.</li>
+ *     <li>Uses Redis for distributed rate limiting, one atomic script call per request
+ *     (see {@link ScriptedRateLimiter}).</li>
+ *     <li>Counts with the {@link RateLimitAlgorithm} chosen on the annotation.</li>
  *     <li>Supports configurable rate limits and durations on a per-endpoint and per-method basis.</li>
  *     <li>Provides IP-based request tracking.</li>
- *     <li>Returns the "Retry-After" header in 429 responses, indicating when the client can retry.</li>
+ *     <li>Returns the "X-RateLimit-Limit", "X-RateLimit-Remaining" and "X-RateLimit-Reset" (seconds) headers,
+ *     and the "Retry-After" header in 429 responses, indicating when the client can retry.</li>
+ *     <li>Lets requests through if Redis cannot be reached or times out; any other error, such as a failing
+ *     script, fails the request.</li>
  * </ul>
  *
  * <p><strong>Usage Considerations:</strong></p>
@@ -48,21 +49,15 @@ import java.util.concurrent.TimeUnit;
  */
 @Aspect
 @Component
+@Slf4j
 public class RateLimitAspect {
     public static final String ERROR_MESSAGE = "Too many requests to %s [%s] from IP %s! Please try again after %d seconds!";
-    private final ConcurrentHashMap<String, List<Long>> requestCounts = new ConcurrentHashMap<>();
-
-    @Value("${app.rate.limit:#{200}}")
-    private int rateLimit;
-
-    @Value("${APP_RATE_DURATIONINMS:#{60000}}")
-    private long rateDuration;
 
-    private final RedisTemplate<String, String> redisTemplate;
+    private final ScriptedRateLimiter rateLimiter;
     private final Environment environment;
 
-    public RateLimitAspect(RedisTemplate<String, String> redisTemplate, Environment environment) {
-        this.redisTemplate = redisTemplate;
+    public RateLimitAspect(ScriptedRateLimiter rateLimiter, Environment environment) {
+        this.rateLimiter = rateLimiter;
         this.environment = environment;
     }
 
@@ -82,33 +77,47 @@ public class RateLimitAspect {
     @Around("@annotation(rateLimit)")
     public Object rateLimit(ProceedingJoinPoint joinPoint, RateLimit rateLimit) throws Throwable {
         ServletRequestAttributes requestAttributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
-        HttpServletRequest request = requestAttributes.getRequest();
+        enforce(rateLimit, requestAttributes.getRequest(), requestAttributes.getResponse());
+        return joinPoint.proceed(); // Proceed with the method execution
+    }
+
+    /**
+     * Counts the request against its limit and sets the rate limit headers.
+     *
+     * @param rateLimit the annotation of the requested handler
+     * @param request   the request
+     * @param response  the response to set the headers on, may be null
+     * @throws RateLimitExceededException if the limit is exceeded
+     */
+    public void enforce(RateLimit rateLimit, HttpServletRequest request, HttpServletResponse response) {
         String clientIp = request.getRemoteAddr();
         String requestUri = request.getRequestURI();
         String httpMethod = request.getMethod();
-        String redisKey = "rate_limit:" + clientIp + ":" + requestUri + ":" + httpMethod;
 
         // Resolve rate limit and duration from annotation or configuration
         int limit = resolveRateLimit(requestUri, httpMethod, rateLimit.limit());
         long duration = resolveRateDuration(requestUri, httpMethod, rateLimit.duration());
 
-        Long currentRequestCount = redisTemplate.opsForValue().increment(redisKey);
-        if (currentRequestCount == null) {
-            currentRequestCount = 1L;
-            redisTemplate.opsForValue().set(redisKey, String.valueOf(currentRequestCount));
-            redisTemplate.expire(redisKey, duration, TimeUnit.MILLISECONDS);
+        ScriptedRateLimiter.Decision decision;
+        try {
+            decision = rateLimiter.tryAcquire(rateLimit.algorithm(), clientIp + ":" + requestUri + ":" + httpMethod,
+                    limit, duration);
+        } catch (RedisConnectionFailureException | QueryTimeoutException e) {
+            // Only an unavailable Redis lets requests through, a failing script is a bug and fails the request
+            log.warn("Failed to check the rate limit of {} [{}] for IP {}, letting the request through: {}",
+                    requestUri, httpMethod, clientIp, e.getMessage());
+            return;
         }
 
-        if (currentRequestCount == 1) {
-            redisTemplate.expire(redisKey, duration, TimeUnit.MILLISECONDS);
+        if (response != null) {
+            response.setHeader("X-RateLimit-Limit", String.valueOf(decision.limit()));
+            response.setHeader("X-RateLimit-Remaining", String.valueOf(decision.remaining()));
+            response.setHeader("X-RateLimit-Reset", String.valueOf(decision.resetSeconds()));
         }
-
-        if (currentRequestCount > limit) {
-            long retryAfterSeconds = duration / 1000;
+        if (!decision.allowed()) {
+            long retryAfterSeconds = decision.resetSeconds();
             throw new RateLimitExceededException(String.format(ERROR_MESSAGE, requestUri, httpMethod, clientIp, retryAfterSeconds), retryAfterSeconds);
         }
-
-        return joinPoint.proceed(); // Proceed with the method execution
     }
 
     /**
@@ -0,0 +1,132 @@
+package com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.exception.RateLimitExceededException;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.support.DelayedRequests;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.RemoteBucketBuilder;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes a token for a request to a {@link RateLimitAndThrottle} endpoint from its bucket in Redis.
+ * <p>
+ * A request that finds the bucket empty is delayed rather than rejected when its token is refilled within
+ * {@code throttle.max-delay} and the caps on delayed requests allow it: the token is reserved right away, so
+ * requests queue up in the order they arrived, and the request is parked by {@link DelayedRequests} until then.
+ * </p>
+ * <p>
+ * Buckets are kept per key, so a node consumes from its local copy and only synchronizes with Redis as
+ * {@link BucketSyncProperties} allows. Metric: {@code rate.limit.local.buckets}.
+ * </p>
+ */
+@Component
+@Slf4j
+public class RequestThrottle {
+
+    /**
+     * Request attribute set once the request went through the throttle, so it is not charged twice.
+     */
+    public static final String ADMITTED_ATTRIBUTE = RequestThrottle.class.getName() + ".ADMITTED";
+
+    private final ProxyManager<String> proxyManager;
+    private final RedisBucketLimitAndThrottleConfig config;
+    private final ThrottleProperties properties;
+    private final DelayedRequests delayedRequests;
+    private final BucketSyncProperties syncProperties;
+    private final Cache<String, Bucket> buckets;
+
+    public RequestThrottle(ProxyManager<String> proxyManager, RedisBucketLimitAndThrottleConfig config,
+                           ThrottleProperties properties, DelayedRequests delayedRequests,
+                           BucketSyncProperties syncProperties, MeterRegistry meterRegistry) {
+        this.proxyManager = proxyManager;
+        this.config = config;
+        this.properties = properties;
+        this.delayedRequests = delayedRequests;
+        this.syncProperties = syncProperties;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(syncProperties.getMaxLocalBuckets())
+                .expireAfterAccess(syncProperties.getLocalBucketIdle())
+                .build();
+        Gauge.builder("rate.limit.local.buckets", buckets, Cache::estimatedSize)
+                .description("Rate limit buckets held by this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a token for the request, or parks the request until one is available.
+     *
+     * @param request    the request
+     * @param allowDelay false if the caller cannot hand the request over to asynchronous processing
+     * @return true if the request can go on now, false if it was parked and is dispatched again later
+     * @throws RateLimitExceededException if the request can neither go on nor be delayed
+     */
+    public boolean admit(HttpServletRequest request, boolean allowDelay) {
+        request.setAttribute(ADMITTED_ATTRIBUTE, Boolean.TRUE);
+        String clientIp = request.getRemoteAddr();
+        String requestUri = request.getRequestURI().replace("/", "").trim();
+        String httpMethod = request.getMethod();
+
+        String key = "rate_limit:" + clientIp + ":" + requestUri + ":" + httpMethod;
+        Bucket bucket = buckets.get(key, ignored -> bucket(key, config.resolveBandwidth(requestUri, httpMethod)));
+
+        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        if (probe.isConsumed()) {
+            return true;
+        }
+
+        long maxDelayNanos = properties.getMaxDelay().toNanos();
+        if (allowDelay && request.isAsyncSupported() && probe.getNanosToWaitForRefill() <= maxDelayNanos
+                && delayedRequests.tryAcquire(clientIp)) {
+            // Reserves the token, the wait may have grown since the probe if other requests reserved theirs
+            long delayNanos = bucket.consumeIgnoringRateLimits(1);
+            if (delayNanos <= maxDelayNanos) {
+                log.debug("Delaying request to {} [{}] from IP {} by {} ms", requestUri, httpMethod, clientIp,
+                        TimeUnit.NANOSECONDS.toMillis(delayNanos));
+                delayedRequests.resumeAfter(request, clientIp, delayNanos);
+                return false;
+            }
+            bucket.addTokens(1);
+            delayedRequests.release(clientIp);
+        }
+
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill()));
+        throw new RateLimitExceededException(String.format(RateLimitAndThrottleAspect.ERROR_MESSAGE,
+                requestUri, httpMethod, clientIp, retryAfterSeconds), retryAfterSeconds);
+    }
+
+    private Bucket bucket(String key, Bandwidth bandwidth) {
+        BucketConfiguration configuration = BucketConfiguration.builder().addLimit(bandwidth).build();
+        RemoteBucketBuilder<String> builder = proxyManager.builder();
+        long unsynchronizedTokens = unsynchronizedTokens(bandwidth.getCapacity());
+        if (syncProperties.getMode() != BucketSyncProperties.Mode.NONE && unsynchronizedTokens > 1) {
+            DelayParameters delay = new DelayParameters(unsynchronizedTokens, syncProperties.getMaxDelay());
+            builder = builder.withOptimization(syncProperties.getMode() == BucketSyncProperties.Mode.PREDICTING
+                    ? Optimizations.predicting(delay)
+                    : Optimizations.delaying(delay));
+        }
+        return builder.build(key, () -> configuration);
+    }
+
+    // The tokens a node may consume before synchronizing, 1 or less means on every request
+    long unsynchronizedTokens(long capacity) {
+        if (capacity < syncProperties.getExactBelowCapacity()) {
+            return 1;
+        }
+        long share = (long) Math.floor(capacity * syncProperties.getOvershoot());
+        // Half the capacity at most, so that the limit still holds back most of what a node sends
+        return Math.min(capacity / 2, Math.max(syncProperties.getMinOvershootTokens(), share));
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Limits for delaying requests that ran out of tokens, instead of rejecting them right away.
+ * <p>
+ * A delayed request reserves the next token of its bucket and is parked as an asynchronous request, holding no
+ * servlet thread, until the token is refilled. Requests that would wait longer, or would exceed the number of
+ * delayed requests allowed per client or in total, are rejected with 429 TOO_MANY_REQUESTS.
+ * </p>
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "throttle")
+public class ThrottleProperties {
+
+    // Longest a request is delayed for; zero rejects every request without a token
+    private Duration maxDelay = Duration.ofSeconds(5);
+
+    // Delayed requests allowed per client IP at the same time
+    private int maxDelayedPerClient = 10;
+
+    // Delayed requests allowed on this node at the same time
+    private int maxDelayedTotal = 1000;
+
+    // Resolution of the timer wheel that resumes delayed requests
+    private Duration tickDuration = Duration.ofMillis(10);
+
+    // Time a delayed request is given beyond its delay before it is answered with 429 TOO_MANY_REQUESTS
+    private Duration resumeTimeout = Duration.ofSeconds(10);
+}
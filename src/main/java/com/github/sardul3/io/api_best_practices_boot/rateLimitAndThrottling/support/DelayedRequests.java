@@ -0,0 +1,170 @@
+package com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.support;
+
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config.ThrottleProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parks throttled requests without a thread and resumes them when their token is refilled.
+ * <p>
+ * A delayed request is put into asynchronous mode, which returns its servlet thread to the pool, and a timeout
+ * on a shared {@link HashedWheelTimer} dispatches it again once its delay is over; scheduling and firing cost
+ * the same however many requests are waiting. The number of waiting requests is capped per client and in total
+ * (see {@link ThrottleProperties}).
+ * </p>
+ * <p>
+ * Metrics: {@code throttle.delayed.requests} (currently waiting), the {@code throttle.added.delay} timer and
+ * {@code throttle.rejected} tagged by the cap that was reached.
+ * </p>
+ */
+@Component
+@Slf4j
+public class DelayedRequests {
+
+    private final ThrottleProperties properties;
+    private final HashedWheelTimer timer;
+    private final AtomicInteger delayed = new AtomicInteger();
+    private final ConcurrentHashMap<String, AtomicInteger> delayedPerClient = new ConcurrentHashMap<>();
+    private final Timer addedDelay;
+    private final Counter clientCapRejections;
+    private final Counter totalCapRejections;
+
+    public DelayedRequests(ThrottleProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.timer = new HashedWheelTimer(runnable -> {
+            Thread thread = new Thread(runnable, "throttle-timer");
+            thread.setDaemon(true);
+            return thread;
+        }, properties.getTickDuration().toMillis(), TimeUnit.MILLISECONDS);
+        Gauge.builder("throttle.delayed.requests", delayed, AtomicInteger::get)
+                .description("Requests waiting for a token without a thread")
+                .register(meterRegistry);
+        this.addedDelay = Timer.builder("throttle.added.delay")
+                .description("Delay added to requests that waited for a token")
+                .register(meterRegistry);
+        this.clientCapRejections = Counter.builder("throttle.rejected")
+                .tag("cap", "client")
+                .description("Requests rejected because too many were already delayed")
+                .register(meterRegistry);
+        this.totalCapRejections = Counter.builder("throttle.rejected")
+                .tag("cap", "total")
+                .description("Requests rejected because too many were already delayed")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Resumes the waiting requests right away rather than leaving them to time out
+        Set<Timeout> pending = timer.stop();
+        for (Timeout timeout : pending) {
+            try {
+                timeout.task().run(timeout);
+            } catch (Exception e) {
+                log.debug("Failed to resume a delayed request on shutdown: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Takes one of the places for delayed requests.
+     *
+     * @param client the client the request comes from
+     * @return false if the client or the node already has as many delayed requests as allowed
+     */
+    public boolean tryAcquire(String client) {
+        if (delayed.incrementAndGet() > properties.getMaxDelayedTotal()) {
+            delayed.decrementAndGet();
+            totalCapRejections.increment();
+            return false;
+        }
+        AtomicInteger clientCount = delayedPerClient.computeIfAbsent(client, key -> new AtomicInteger());
+        if (clientCount.incrementAndGet() > properties.getMaxDelayedPerClient()) {
+            release(client);
+            clientCapRejections.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gives back a place taken by {@link #tryAcquire(String)}.
+     *
+     * @param client the client the request comes from
+     */
+    public void release(String client) {
+        delayed.decrementAndGet();
+        delayedPerClient.computeIfPresent(client, (key, count) -> count.decrementAndGet() <= 0 ? null : count);
+    }
+
+    /**
+     * Parks the request and dispatches it again after the delay, releasing its place.
+     *
+     * @param request    the request, which must hold a place taken by {@link #tryAcquire(String)}
+     * @param client     the client the request comes from
+     * @param delayNanos how long to wait
+     */
+    public void resumeAfter(HttpServletRequest request, String client, long delayNanos) {
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable releaseOnce = () -> {
+            if (released.compareAndSet(false, true)) {
+                release(client);
+            }
+        };
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(TimeUnit.NANOSECONDS.toMillis(delayNanos) + properties.getResumeTimeout().toMillis());
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                releaseOnce.run();
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) throws java.io.IOException {
+                releaseOnce.run();
+                HttpServletResponse response = (HttpServletResponse) event.getAsyncContext().getResponse();
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                response.sendError(HttpStatus.TOO_MANY_REQUESTS.value());
+                event.getAsyncContext().complete();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                releaseOnce.run();
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        addedDelay.record(delayNanos, TimeUnit.NANOSECONDS);
+        timer.newTimeout(timeout -> {
+            releaseOnce.run();
+            try {
+                asyncContext.dispatch();
+            } catch (IllegalStateException e) {
+                // Timed out or the client went away in the meantime
+                log.debug("Delayed request could not be resumed: {}", e.getMessage());
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+}
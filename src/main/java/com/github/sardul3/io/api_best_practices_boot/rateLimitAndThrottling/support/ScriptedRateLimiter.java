@@ -0,0 +1,76 @@
+package com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.support;
+
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config.RateLimitAlgorithm;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates a {@link RateLimitAlgorithm} in a single atomic call to Redis.
+ * <p>
+ * Each algorithm is a Lua script under {@code scripts/rate-limit}, run with {@code EVALSHA}; Redis only receives
+ * the script text again ({@code EVAL}) when it does not know the SHA yet, e.g. after a restart. The scripts read the
+ * time from Redis, so nodes with drifting clocks still share one window.
+ * </p>
+ */
+@Component
+public class ScriptedRateLimiter {
+
+    private static final String KEY_PREFIX = "rate_limit:";
+
+    @SuppressWarnings("rawtypes")
+    private final Map<RateLimitAlgorithm, RedisScript<List>> scripts = new EnumMap<>(RateLimitAlgorithm.class);
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public ScriptedRateLimiter(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        for (RateLimitAlgorithm algorithm : RateLimitAlgorithm.values()) {
+            scripts.put(algorithm, RedisScript.of(
+                    new ClassPathResource("scripts/rate-limit/" + algorithm.getScript() + ".lua"), List.class));
+        }
+    }
+
+    /**
+     * Counts a request of the client, unless it is over the limit.
+     *
+     * @param algorithm    how requests are counted
+     * @param client       identifies the client and the endpoint
+     * @param limit        requests allowed per duration
+     * @param durationMs   the duration in milliseconds
+     * @return whether the request is allowed, with the remaining quota and when it resets
+     */
+    public Decision tryAcquire(RateLimitAlgorithm algorithm, String client, int limit, long durationMs) {
+        String key = KEY_PREFIX + algorithm.getScript() + ":" + client;
+        List<?> result = stringRedisTemplate.execute(scripts.get(algorithm), List.of(key),
+                String.valueOf(limit), String.valueOf(durationMs));
+        if (result == null || result.size() != 3) {
+            throw new IllegalStateException("Unexpected result of the " + algorithm.getScript() + " script: " + result);
+        }
+        return new Decision(toLong(result.get(0)) == 1, limit, toLong(result.get(1)), toLong(result.get(2)));
+    }
+
+    private static long toLong(Object value) {
+        return ((Number) value).longValue();
+    }
+
+    /**
+     * @param allowed     whether the request was counted and may go on
+     * @param limit       requests allowed per duration
+     * @param remaining   requests still allowed right now
+     * @param resetMillis if allowed, until the counted requests stop counting; if not, until the next request is allowed
+     */
+    public record Decision(boolean allowed, long limit, long remaining, long resetMillis) {
+
+        /**
+         * @return {@link #resetMillis()} rounded up to whole seconds, for {@code Retry-After}
+         */
+        public long resetSeconds() {
+            return Math.max(1, (resetMillis + 999) / 1000);
+        }
+    }
+}
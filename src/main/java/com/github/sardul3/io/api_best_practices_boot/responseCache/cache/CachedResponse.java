@@ -0,0 +1,24 @@
+package com.github.sardul3.io.api_best_practices_boot.responseCache.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A complete response as it was written to a client: status, the headers worth replaying and the body bytes,
+ * gzipped if {@code Content-Encoding: gzip} is among the headers.
+ *
+ * @param status   the HTTP status
+ * @param headers  the headers to replay, in the order they were set
+ * @param body     the body bytes
+ * @param eTag     the ETag header, or null
+ * @param lifetime how long the response may be served from the cache
+ * @param handler  the handler that produced the response, whose rate limits also apply to hits; may be null
+ */
+public record CachedResponse(int status, List<Map.Entry<String, String>> headers, byte[] body, String eTag,
+                             Duration lifetime, Object handler) {
+
+    public CachedResponse {
+        headers = List.copyOf(headers);
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.sardul3.io.api_best_practices_boot.responseCache.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChangedEvent;
+import com.github.sardul3.io.api_best_practices_boot.nearCache.invalidation.NearCacheInvalidationPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-process store of complete responses, weighed by body size, each entry expiring after its own
+ * {@link CachedResponse#lifetime()}.
+ * <p>
+ * Every transaction write drops all entries, as a write can change any list and page. Responses are only stored
+ * if no write happened while they were being computed ({@link #generation()} is taken before the request is
+ * handled), so a response built from pre-write data can never be cached after the write's invalidation.
+ * </p>
+ * <p>
+ * Writes are announced to the other nodes as a clear of {@link #CACHE_NAME} on the near-cache invalidation channel,
+ * and {@link ResponseCacheInvalidationListener} drops their entries in turn. Without the near cache, other nodes
+ * only see a write once their entries expire.
+ * </p>
+ */
+@Slf4j
+public class ResponseCache {
+
+    /**
+     * Name of the response cache in invalidation messages and metrics.
+     */
+    public static final String CACHE_NAME = "responseCache";
+
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final Cache<String, CachedResponse> responses;
+    private final AtomicLong generation = new AtomicLong();
+    private final NearCacheInvalidationPublisher publisher;
+
+    /**
+     * @param maximumWeight total size of the cached bodies
+     * @param meterRegistry registry for the cache metrics
+     * @param publisher     announces writes to the other nodes, null to keep invalidation local
+     */
+    public ResponseCache(long maximumWeight, MeterRegistry meterRegistry, NearCacheInvalidationPublisher publisher) {
+        this.publisher = publisher;
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((String key, CachedResponse response) -> ENTRY_OVERHEAD + key.length() + response.body().length)
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+                        return response.lifetime().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse response, long currentTime,
+                                                  long currentDuration) {
+                        return response.lifetime().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse response, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, CACHE_NAME);
+    }
+
+    public CachedResponse get(String key) {
+        return responses.getIfPresent(key);
+    }
+
+    /**
+     * @return the current generation, to be passed to {@link #put} once the response is complete
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Stores a response unless the cache was invalidated since {@code generation} was taken.
+     */
+    public void put(String key, CachedResponse response, long generation) {
+        if (this.generation.get() != generation) {
+            return;
+        }
+        responses.put(key, response);
+        // An invalidation may have slipped in between the check and the put
+        if (this.generation.get() != generation) {
+            responses.invalidate(key);
+        }
+    }
+
+    @EventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        invalidateAll();
+        if (publisher != null) {
+            publisher.publishClear(CACHE_NAME);
+        }
+    }
+
+    /**
+     * Drops all entries of this node.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        responses.invalidateAll();
+        log.debug("Dropped all cached responses");
+    }
+}
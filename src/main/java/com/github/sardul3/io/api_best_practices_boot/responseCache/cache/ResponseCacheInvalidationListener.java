@@ -0,0 +1,45 @@
+package com.github.sardul3.io.api_best_practices_boot.responseCache.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sardul3.io.api_best_practices_boot.nearCache.invalidation.NearCacheInvalidationMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.io.IOException;
+
+/**
+ * Drops this node's cached responses when another node announces a write on the near-cache invalidation channel.
+ * Messages for the near caches are ignored here, just as the near-cache listener ignores those for
+ * {@link ResponseCache#CACHE_NAME}.
+ */
+@Slf4j
+public class ResponseCacheInvalidationListener implements MessageListener {
+
+    private final ResponseCache responseCache;
+    private final ObjectMapper objectMapper;
+    private final String nodeId;
+
+    public ResponseCacheInvalidationListener(ResponseCache responseCache, ObjectMapper objectMapper, String nodeId) {
+        this.responseCache = responseCache;
+        this.objectMapper = objectMapper;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        NearCacheInvalidationMessage invalidation;
+        try {
+            invalidation = objectMapper.readValue(message.getBody(), NearCacheInvalidationMessage.class);
+        } catch (IOException e) {
+            log.warn("Ignoring malformed invalidation message: {}", e.getMessage());
+            return;
+        }
+        // Our own writes were applied when they were made
+        if (nodeId.equals(invalidation.getOrigin()) || !ResponseCache.CACHE_NAME.equals(invalidation.getCacheName())) {
+            return;
+        }
+        log.debug("Dropping cached responses on request of node {}", invalidation.getOrigin());
+        responseCache.invalidateAll();
+    }
+}
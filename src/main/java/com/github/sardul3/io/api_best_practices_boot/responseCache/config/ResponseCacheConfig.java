@@ -0,0 +1,61 @@
+package com.github.sardul3.io.api_best_practices_boot.responseCache.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sardul3.io.api_best_practices_boot.nearCache.config.NearCacheProperties;
+import com.github.sardul3.io.api_best_practices_boot.nearCache.invalidation.NearCacheInvalidationPublisher;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config.HandlerRateLimits;
+import com.github.sardul3.io.api_best_practices_boot.responseCache.cache.ResponseCache;
+import com.github.sardul3.io.api_best_practices_boot.responseCache.cache.ResponseCacheInvalidationListener;
+import com.github.sardul3.io.api_best_practices_boot.responseCache.filters.ResponseCacheFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Wires the response cache when {@code response-cache.enabled=true}.
+ * <p>
+ * The filter is registered last, so the correlation id, request logging and observation filters still run for
+ * responses served from the cache. With the near cache enabled, writes are exchanged with the other nodes over its
+ * invalidation channel.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "response-cache", name = "enabled", havingValue = "true")
+public class ResponseCacheConfig {
+
+    @Bean
+    public ResponseCache responseCache(ResponseCacheProperties properties, MeterRegistry meterRegistry,
+                                       ObjectProvider<NearCacheInvalidationPublisher> publisher,
+                                       @Qualifier("nearCacheListenerContainer")
+                                       ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                                       NearCacheProperties nearCacheProperties, ObjectMapper objectMapper) {
+        NearCacheInvalidationPublisher invalidationPublisher = publisher.getIfAvailable();
+        ResponseCache responseCache = new ResponseCache(properties.getMaximumSize().toBytes(), meterRegistry,
+                invalidationPublisher);
+        RedisMessageListenerContainer container = listenerContainer.getIfAvailable();
+        if (invalidationPublisher != null && container != null) {
+            container.addMessageListener(
+                    new ResponseCacheInvalidationListener(responseCache, objectMapper, invalidationPublisher.getNodeId()),
+                    new ChannelTopic(nearCacheProperties.getInvalidationChannel()));
+        }
+        return responseCache;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ResponseCacheFilter> responseCacheFilter(ResponseCache responseCache,
+                                                                           HandlerRateLimits rateLimits,
+                                                                           ResponseCacheProperties properties,
+                                                                           MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ResponseCacheFilter> registration = new FilterRegistrationBean<>(
+                new ResponseCacheFilter(responseCache, rateLimits, properties, meterRegistry));
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.sardul3.io.api_best_practices_boot.responseCache.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for the in-process cache of complete responses, see
+ * {@link com.github.sardul3.io.api_best_practices_boot.responseCache.filters.ResponseCacheFilter}.
+ * <p>
+ * Only the listed endpoints are cached. A write drops every cached response at once, on other nodes through the
+ * near-cache invalidation channel; {@link Endpoint#maxStaleness} bounds how long a response can outlive a write
+ * whose message was lost, or any write when the near cache is disabled.
+ * </p>
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "response-cache")
+public class ResponseCacheProperties {
+
+    // Turns the response cache on or off
+    private boolean enabled = false;
+
+    // Maximum total size of the cached response bodies
+    private DataSize maximumSize = DataSize.ofMegabytes(32);
+
+    // Larger responses are passed through without being cached
+    private DataSize maxBodySize = DataSize.ofKilobytes(256);
+
+    // Responses to clients accepting gzip are stored (and served) gzipped from this size on, -1B to never compress
+    private DataSize compressionThreshold = DataSize.ofKilobytes(1);
+
+    // Endpoints whose GET responses are cached
+    private List<Endpoint> endpoints = new ArrayList<>();
+
+    @Setter
+    @Getter
+    public static class Endpoint {
+
+        // Path pattern, e.g. /api/transactions/{id}
+        private String path;
+
+        // Lifetime of a cached response, i.e. how stale it may get if another node's write is not announced
+        private Duration maxStaleness = Duration.ofSeconds(2);
+    }
+}
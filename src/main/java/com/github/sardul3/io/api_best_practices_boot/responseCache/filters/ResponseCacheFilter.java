@@ -0,0 +1,271 @@
+package com.github.sardul3.io.api_best_practices_boot.responseCache.filters;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.config.ETagGenerator;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config.HandlerRateLimits;
+import com.github.sardul3.io.api_best_practices_boot.responseCache.cache.CachedResponse;
+import com.github.sardul3.io.api_best_practices_boot.responseCache.cache.ResponseCache;
+import com.github.sardul3.io.api_best_practices_boot.responseCache.config.ResponseCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves repeated GET requests of the configured endpoints from pre-serialized response bytes.
+ * <p>
+ * Even on a cache hit an endpoint deserializes the cached data, assembles the HAL model and serializes it again;
+ * here the finished bytes are written straight to the output stream instead. Responses are keyed by path, the
+ * query parameters sorted by name, {@code Accept} and whether the client accepts gzip. Only 200 responses up to
+ * {@code max-body-size} without cookies or {@code Cache-Control: no-store} are stored, with their content headers
+ * and ETag; a matching {@code If-None-Match} is answered with 304, HEAD with the headers only. A request with
+ * {@code Cache-Control: no-cache} skips the lookup but still refreshes the entry.
+ * </p>
+ * <p>
+ * A hit never reaches the controller, so its logging aspects do not run for it. Its rate limits do: each entry
+ * remembers the handler that produced it, and {@link HandlerRateLimits} charges a hit as that handler would have
+ * been charged, answering 429 instead of the cached response once the client is out of tokens. Only endpoints
+ * that respond synchronously can be cached.
+ * </p>
+ */
+@Slf4j
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    // Content headers replayed on a hit; everything else (correlation ids, rate limit state, ...) is per request
+    private static final Set<String> REPLAYED_HEADERS = Set.of(
+            HttpHeaders.CONTENT_TYPE.toLowerCase(Locale.ROOT),
+            HttpHeaders.CONTENT_LANGUAGE.toLowerCase(Locale.ROOT),
+            HttpHeaders.ETAG.toLowerCase(Locale.ROOT),
+            HttpHeaders.LAST_MODIFIED.toLowerCase(Locale.ROOT),
+            HttpHeaders.CACHE_CONTROL.toLowerCase(Locale.ROOT),
+            HttpHeaders.LINK.toLowerCase(Locale.ROOT));
+    private static final String VARY = "Accept, Accept-Encoding";
+
+    private final ResponseCache responseCache;
+    private final HandlerRateLimits rateLimits;
+    private final List<CachedEndpoint> endpoints;
+    private final long maxBodySize;
+    private final long compressionThreshold;
+    private final MeterRegistry meterRegistry;
+
+    private record CachedEndpoint(PathPattern pattern, Duration maxStaleness) {
+    }
+
+    public ResponseCacheFilter(ResponseCache responseCache, HandlerRateLimits rateLimits,
+                               ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this.responseCache = responseCache;
+        this.rateLimits = rateLimits;
+        this.endpoints = properties.getEndpoints().stream()
+                .map(endpoint -> new CachedEndpoint(PathPatternParser.defaultInstance.parse(endpoint.getPath()),
+                        endpoint.getMaxStaleness()))
+                .toList();
+        this.maxBodySize = properties.getMaxBodySize().toBytes();
+        this.compressionThreshold = properties.getCompressionThreshold().toBytes();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !(HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod()))
+                || endpointFor(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean gzip = acceptsGzip(request);
+        String key = cacheKey(request, gzip);
+
+        if (!hasNoCache(request)) {
+            CachedResponse cached = responseCache.get(key);
+            if (cached != null) {
+                if (!rateLimits.admit(cached.handler(), request, response)) {
+                    count("rate_limited");
+                    return;
+                }
+                count(isNotModified(request, cached) ? "not_modified" : "hit");
+                write(cached, request, response);
+                return;
+            }
+        }
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            // The body of a HEAD response is not known, so there is nothing to store
+            count("bypass");
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long generation = responseCache.generation();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if (request.isAsyncStarted()) {
+            // A delayed request (see RateLimitAndThrottleInterceptor) writes its body after this filter returned
+            count("bypass");
+            return;
+        }
+
+        CachedResponse cachedResponse = toCachedResponse(wrapper, gzip, endpointFor(request).maxStaleness(),
+                request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE));
+        if (cachedResponse == null) {
+            count("bypass");
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        count("miss");
+        responseCache.put(key, cachedResponse, generation);
+        writeBody(cachedResponse, response);
+    }
+
+    private CachedResponse toCachedResponse(ContentCachingResponseWrapper wrapper, boolean gzip, Duration lifetime,
+                                            Object handler) throws IOException {
+        byte[] body = wrapper.getContentAsByteArray();
+        String cacheControl = wrapper.getHeader(HttpHeaders.CACHE_CONTROL);
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || body.length > maxBodySize
+                || wrapper.getHeader(HttpHeaders.SET_COOKIE) != null
+                || wrapper.getHeader(HttpHeaders.CONTENT_ENCODING) != null
+                || (cacheControl != null && cacheControl.contains("no-store"))) {
+            return null;
+        }
+
+        List<Map.Entry<String, String>> headers = new ArrayList<>();
+        for (String name : wrapper.getHeaderNames()) {
+            if (REPLAYED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                for (String value : wrapper.getHeaders(name)) {
+                    headers.add(Map.entry(name, value));
+                }
+            }
+        }
+        if (wrapper.getContentType() != null && wrapper.getHeader(HttpHeaders.CONTENT_TYPE) == null) {
+            headers.add(Map.entry(HttpHeaders.CONTENT_TYPE, wrapper.getContentType()));
+        }
+        if (gzip && compressionThreshold >= 0 && body.length >= compressionThreshold) {
+            body = gzip(body);
+            headers.add(Map.entry(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        }
+        headers.add(Map.entry(HttpHeaders.VARY, VARY));
+        return new CachedResponse(wrapper.getStatus(), headers, body, wrapper.getHeader(HttpHeaders.ETAG), lifetime,
+                handler);
+    }
+
+    private static void write(CachedResponse cached, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (isNotModified(request, cached)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            response.setHeader(HttpHeaders.ETAG, cached.eTag());
+            response.setHeader(HttpHeaders.VARY, VARY);
+            return;
+        }
+        response.setStatus(cached.status());
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            setHeaders(cached, response);
+            response.setContentLength(cached.body().length);
+            return;
+        }
+        writeBody(cached, response);
+    }
+
+    private static void writeBody(CachedResponse cached, HttpServletResponse response) throws IOException {
+        setHeaders(cached, response);
+        response.setContentLength(cached.body().length);
+        response.getOutputStream().write(cached.body());
+    }
+
+    private static void setHeaders(CachedResponse cached, HttpServletResponse response) {
+        Set<String> replaced = new HashSet<>();
+        for (Map.Entry<String, String> header : cached.headers()) {
+            if (replaced.add(header.getKey())) {
+                response.setHeader(header.getKey(), header.getValue());
+            } else {
+                response.addHeader(header.getKey(), header.getValue());
+            }
+        }
+    }
+
+    /**
+     * Builds the cache key of a request: path, query parameters sorted by name (values keep their order, as it
+     * matters for e.g. {@code sort}), the normalized {@code Accept} header and the gzip flag.
+     */
+    static String cacheKey(HttpServletRequest request, boolean gzip) {
+        StringBuilder key = new StringBuilder(128).append(request.getRequestURI()).append('?');
+        Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+        parameters.forEach((name, values) -> {
+            for (String value : values) {
+                key.append(URLEncoder.encode(name, StandardCharsets.UTF_8)).append('=')
+                        .append(URLEncoder.encode(value, StandardCharsets.UTF_8)).append('&');
+            }
+        });
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        key.append('|').append(accept == null ? "" : accept.replace(" ", "").toLowerCase(Locale.ROOT));
+        return key.append('|').append(gzip ? "gzip" : "identity").toString();
+    }
+
+    static boolean acceptsGzip(HttpServletRequest request) {
+        Enumeration<String> values = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (values != null && values.hasMoreElements()) {
+            for (String coding : values.nextElement().split(",")) {
+                String[] parts = coding.trim().split(";");
+                if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                    // gzip;q=0 explicitly refuses gzip
+                    return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isNotModified(HttpServletRequest request, CachedResponse cached) {
+        if (cached.eTag() == null) {
+            return false;
+        }
+        // The stored header is quoted (and possibly weak), while matches() expects the bare tag
+        String tag = cached.eTag().startsWith("W/") ? cached.eTag().substring(2) : cached.eTag();
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        return ETagGenerator.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), tag);
+    }
+
+    private static boolean hasNoCache(HttpServletRequest request) {
+        String cacheControl = request.getHeader(HttpHeaders.CACHE_CONTROL);
+        return cacheControl != null && cacheControl.contains("no-cache");
+    }
+
+    private CachedEndpoint endpointFor(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        for (CachedEndpoint endpoint : endpoints) {
+            if (endpoint.pattern().matches(path)) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        }
+        return compressed.toByteArray();
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("http.response.cache", "result", result).increment();
+    }
+}
@@ -0,0 +1,158 @@
+package com.github.sardul3.io.api_best_practices_boot.singleFlight.aspects;
+
+import com.github.sardul3.io.api_best_practices_boot.nearCache.cache.NearCacheBypass;
+import com.github.sardul3.io.api_best_practices_boot.singleFlight.config.SingleFlightProperties;
+import com.github.sardul3.io.api_best_practices_boot.singleFlight.support.CacheKeyResolver;
+import com.github.sardul3.io.api_best_practices_boot.singleFlight.support.CacheKeyResolver.CacheEntryKey;
+import com.github.sardul3.io.api_best_practices_boot.singleFlight.support.InFlightLoads;
+import com.github.sardul3.io.api_best_practices_boot.singleFlight.support.RedisLease;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Optional;
+
+/**
+ * Protects {@link Cacheable} methods against cache stampedes by coalescing concurrent loads of the same entry.
+ * <p>
+ * The aspect runs just outside the cache interceptor:
+ * <ol>
+ *     <li>Concurrent calls for one entry on this node share a single invocation, hit or miss.</li>
+ *     <li>The shared invocation reads the cache once and returns a hit directly.</li>
+ *     <li>On a miss, the node takes a short Redis lease for the entry before loading it. A node that finds the
+ *     lease taken polls the lease until the holder releases it, then goes through the cache interceptor, which
+ *     serves the filled entry or loads it; it stops waiting once {@code single-flight.lease-wait} has passed.</li>
+ * </ol>
+ * Outcomes are counted in {@code single.flight.calls} ({@code result=leader|coalesced}) and
+ * {@code single.flight.lease.waits} ({@code result=released|timeout}), tagged by cache.
+ * </p>
+ * <p>
+ * Results excluded by {@code unless} are never cached, so nodes waiting on the lease for such a result load it
+ * themselves as soon as the holder is done.
+ * </p>
+ */
+@Aspect
+@Component
+@Slf4j
+// Must wrap the cache interceptor (ordered at LOWEST_PRECEDENCE) so that hits are coalesced as well
+@Order(Ordered.LOWEST_PRECEDENCE - 100)
+public class SingleFlightAspect {
+
+    private final InFlightLoads inFlightLoads = new InFlightLoads();
+
+    private final CacheKeyResolver keyResolver;
+    private final RedisLease redisLease;
+    private final CacheManager cacheManager;
+    private final SingleFlightProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlightAspect(CacheKeyResolver keyResolver, RedisLease redisLease, CacheManager cacheManager,
+                              SingleFlightProperties properties, MeterRegistry meterRegistry) {
+        this.keyResolver = keyResolver;
+        this.redisLease = redisLease;
+        this.cacheManager = cacheManager;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(cacheable)")
+    public Object coalesce(ProceedingJoinPoint joinPoint, Cacheable cacheable) throws Throwable {
+        if (!properties.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        CacheEntryKey entry;
+        try {
+            entry = keyResolver.resolve(joinPoint, cacheable);
+        } catch (RuntimeException e) {
+            log.debug("Cannot resolve cache key of {}, not coalescing: {}", joinPoint.getSignature(), e.getMessage());
+            entry = null;
+        }
+        if (entry == null || StringUtils.hasText(cacheable.condition())) {
+            // Calls the condition excludes bypass the cache, and this aspect with it
+            return joinPoint.proceed();
+        }
+
+        CacheEntryKey resolved = entry;
+        // A call skipping the near cache must not share the result of one that read it
+        String flight = NearCacheBypass.isActive() ? resolved.id() + ":l2" : resolved.id();
+        return inFlightLoads.load(flight, () -> loadOnce(joinPoint, resolved),
+                coalesced -> counter("single.flight.calls", "Calls per cache entry load, coalesced or not",
+                        resolved.cacheName(), coalesced ? "coalesced" : "leader").increment());
+    }
+
+    private Object loadOnce(ProceedingJoinPoint joinPoint, CacheEntryKey entry) throws Throwable {
+        Cache cache = cacheManager.getCache(entry.cacheName());
+        if (cache == null) {
+            return joinPoint.proceed();
+        }
+        Cache.ValueWrapper cached;
+        try {
+            cached = cache.get(entry.key());
+        } catch (RuntimeException e) {
+            // Let the cache interceptor deal with an unavailable cache
+            return joinPoint.proceed();
+        }
+        if (cached != null) {
+            // A hit is served from this single read rather than read again by the cache interceptor
+            return wrapLikeReturnType(joinPoint, cached.get());
+        }
+
+        String token = redisLease.tryAcquire(entry.id(), properties.getLeaseTime());
+        if (token == null) {
+            awaitLeaseRelease(entry);
+            // A hit now if the holder's result was cacheable, otherwise this node loads after all
+            return joinPoint.proceed();
+        }
+        try {
+            return joinPoint.proceed();
+        } finally {
+            redisLease.release(entry.id(), token);
+        }
+    }
+
+    private void awaitLeaseRelease(CacheEntryKey entry) {
+        long deadline = System.nanoTime() + properties.getLeaseWait().toNanos();
+        try {
+            while (System.nanoTime() < deadline) {
+                Thread.sleep(properties.getPollInterval().toMillis());
+                // The holder fills the cache before releasing, and a result vetoed by unless is never filled,
+                // so the release rather than the entry ends the wait
+                if (!redisLease.isHeld(entry.id())) {
+                    counter("single.flight.lease.waits", "Waits for another node to load a cache entry",
+                            entry.cacheName(), "released").increment();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.debug("Lease on cache entry {} was not released in time, loading it here", entry.id());
+        counter("single.flight.lease.waits", "Waits for another node to load a cache entry",
+                entry.cacheName(), "timeout").increment();
+    }
+
+    private static Object wrapLikeReturnType(ProceedingJoinPoint joinPoint, Object value) {
+        // Like the cache interceptor, the cache holds the content of an Optional
+        Class<?> returnType = ((MethodSignature) joinPoint.getSignature()).getReturnType();
+        return returnType == Optional.class ? Optional.ofNullable(value) : value;
+    }
+
+    private Counter counter(String name, String description, String cacheName, String result) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("cache", cacheName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
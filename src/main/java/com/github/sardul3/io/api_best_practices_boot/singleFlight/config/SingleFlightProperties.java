@@ -0,0 +1,35 @@
+package com.github.sardul3.io.api_best_practices_boot.singleFlight.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Settings for coalescing concurrent loads of the same cache entry.
+ * <p>
+ * Within a node, concurrent callers for one key always share a single load. Across nodes, the node that
+ * misses first takes a short Redis lease; the others poll the lease for up to {@link #leaseWait} and then
+ * read through the cache, loading themselves only if the holder's result was not cached.
+ * </p>
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "single-flight")
+public class SingleFlightProperties {
+
+    // Turns coalescing on or off for all @Cacheable methods
+    private boolean enabled = true;
+
+    // How long a node may hold the lease for a key, should exceed the slowest expected load
+    private Duration leaseTime = Duration.ofSeconds(5);
+
+    // How long other nodes wait for the lease holder to release its lease before loading themselves
+    private Duration leaseWait = Duration.ofSeconds(2);
+
+    // Delay between lease checks while waiting for the lease holder
+    private Duration pollInterval = Duration.ofMillis(25);
+}
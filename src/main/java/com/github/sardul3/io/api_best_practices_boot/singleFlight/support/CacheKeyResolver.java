@@ -0,0 +1,134 @@
+package com.github.sardul3.io.api_best_practices_boot.singleFlight.support;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKeyGenerator;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the cache name and key a {@link Cacheable} invocation reads, and evaluates its {@code unless} condition,
+ * the same way the cache interceptor does.
+ * <p>
+ * Supports the subset of the cache SpEL context used in this application: method arguments by name
+ * ({@code #filters}) or position ({@code #p0}, {@code #a0}), static calls ({@code T(..)}) and the
+ * {@code #root.method}, {@code #root.methodName}, {@code #root.args}, {@code #root.target} properties.
+ * Without a key expression the named {@link KeyGenerator} bean is asked, or else the default
+ * {@link SimpleKeyGenerator} key is used.
+ * </p>
+ */
+@Component
+public class CacheKeyResolver {
+
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+    private final BeanFactory beanFactory;
+
+    public CacheKeyResolver(BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    /**
+     * The cache entry an invocation reads.
+     *
+     * @param cacheName the first cache named by the annotation
+     * @param key       the key object as the cache sees it
+     */
+    public record CacheEntryKey(String cacheName, Object key) {
+
+        /**
+         * @return a string that identifies the entry across caches, suitable for maps and Redis keys
+         */
+        public String id() {
+            return cacheName + "::" + key;
+        }
+    }
+
+    /**
+     * Root object of the key expressions, mirroring the properties of Spring's own cache expression root.
+     */
+    public record RootObject(Method method, Object[] args, Object target, Class<?> targetClass) {
+
+        public String getMethodName() {
+            return method.getName();
+        }
+
+        public Method getMethod() {
+            return method;
+        }
+
+        public Object[] getArgs() {
+            return args;
+        }
+
+        public Object getTarget() {
+            return target;
+        }
+
+        public Class<?> getTargetClass() {
+            return targetClass;
+        }
+    }
+
+    /**
+     * @param joinPoint the intercepted invocation
+     * @param cacheable the annotation of the intercepted method
+     * @return the entry the invocation reads, or null if it cannot be determined
+     */
+    public CacheEntryKey resolve(ProceedingJoinPoint joinPoint, Cacheable cacheable) {
+        String[] cacheNames = cacheable.cacheNames().length > 0 ? cacheable.cacheNames() : cacheable.value();
+        if (cacheNames.length == 0) {
+            return null;
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Object[] args = joinPoint.getArgs();
+        if (StringUtils.hasText(cacheable.keyGenerator())) {
+            KeyGenerator keyGenerator = beanFactory.getBean(cacheable.keyGenerator(), KeyGenerator.class);
+            return new CacheEntryKey(cacheNames[0], keyGenerator.generate(joinPoint.getTarget(), method, args));
+        }
+        if (!StringUtils.hasText(cacheable.key())) {
+            return new CacheEntryKey(cacheNames[0], SimpleKeyGenerator.generateKey(args));
+        }
+        Object key = expressions.computeIfAbsent(cacheable.key(), parser::parseExpression)
+                .getValue(evaluationContext(joinPoint, method, args));
+        return new CacheEntryKey(cacheNames[0], key);
+    }
+
+    /**
+     * @param joinPoint the invocation that produced the result
+     * @param cacheable the annotation of the invoked method
+     * @param result    the result of the invocation
+     * @return true if the {@code unless} condition vetoes caching the result
+     */
+    public boolean isVetoed(ProceedingJoinPoint joinPoint, Cacheable cacheable, Object result) {
+        if (!StringUtils.hasText(cacheable.unless())) {
+            return false;
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodBasedEvaluationContext context = evaluationContext(joinPoint, method, joinPoint.getArgs());
+        // Like the cache interceptor, #result refers to the content of an Optional
+        context.setVariable("result", ObjectUtils.unwrapOptional(result));
+        return Boolean.TRUE.equals(expressions.computeIfAbsent(cacheable.unless(), parser::parseExpression)
+                .getValue(context, Boolean.class));
+    }
+
+    private MethodBasedEvaluationContext evaluationContext(ProceedingJoinPoint joinPoint, Method method, Object[] args) {
+        Object target = joinPoint.getTarget();
+        RootObject root = new RootObject(method, args, target, target != null ? target.getClass() : method.getDeclaringClass());
+        return new MethodBasedEvaluationContext(root, method, args, parameterNameDiscoverer);
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.sardul3.io.api_best_practices_boot.singleFlight.support;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces concurrent loads of the same key within this JVM: the first caller runs the load, every caller
+ * arriving while it is in flight waits for and shares its outcome, result or exception alike.
+ * <p>
+ * A key is only in flight while its load runs; later callers start a new load.
+ * </p>
+ */
+public class InFlightLoads {
+
+    /**
+     * A load that may throw anything, like the proceed call of an aspect.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        Object load() throws Throwable;
+    }
+
+    /**
+     * Receives whether a call ran the load itself or shared another caller's.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onCall(boolean coalesced);
+    }
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the load for the key, or waits for the one already running.
+     *
+     * @param key      identifies the loaded entry
+     * @param loader   the load, only run if no load for the key is in flight
+     * @param listener told whether the call was coalesced
+     * @return the result of the load
+     * @throws Throwable whatever the load threw
+     */
+    public Object load(String key, Loader loader, Listener listener) throws Throwable {
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            listener.onCall(true);
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        }
+
+        listener.onCall(false);
+        try {
+            Object result = loader.load();
+            own.complete(result);
+            return result;
+        } catch (Throwable t) {
+            own.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * @return the number of keys currently being loaded
+     */
+    public int size() {
+        return inFlight.size();
+    }
+}
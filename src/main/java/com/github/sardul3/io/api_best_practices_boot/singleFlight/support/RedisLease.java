@@ -0,0 +1,76 @@
+package com.github.sardul3.io.api_best_practices_boot.singleFlight.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Short-lived Redis leases ({@code SET NX PX}) that let a single node recompute a cache entry.
+ * <p>
+ * Each lease carries a random token and is only released by its holder, so a holder that overran the lease
+ * time cannot release a lease another node has taken since. If Redis is unavailable the lease is granted,
+ * which degrades to every node loading for itself rather than to failed requests.
+ * </p>
+ */
+@Component
+@Slf4j
+public class RedisLease {
+
+    private static final String KEY_PREFIX = "single-flight:";
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public RedisLease(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    /**
+     * @param id        identifies the leased entry
+     * @param leaseTime how long the lease lasts unless released
+     * @return the token of the acquired lease, or null if another node holds it
+     */
+    public String tryAcquire(String id, Duration leaseTime) {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + id, token, leaseTime);
+            return Boolean.FALSE.equals(acquired) ? null : token;
+        } catch (RuntimeException e) {
+            log.warn("Failed to acquire lease for {}, loading without it: {}", id, e.getMessage());
+            return token;
+        }
+    }
+
+    /**
+     * @param id identifies the leased entry
+     * @return true while some node holds the lease; false if Redis is unavailable, so nobody waits on it
+     */
+    public boolean isHeld(String id) {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.hasKey(KEY_PREFIX + id));
+        } catch (RuntimeException e) {
+            log.warn("Failed to check lease for {}: {}", id, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Releases a lease if it is still held with the given token.
+     */
+    public void release(String id, String token) {
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(KEY_PREFIX + id), token);
+        } catch (RuntimeException e) {
+            // The lease simply runs out
+            log.warn("Failed to release lease for {}: {}", id, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.sardul3.io.api_best_practices_boot.virtualThreads.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Reporting of virtual threads pinned to their carrier thread, only active when
+ * {@code spring.threads.virtual.enabled=true} (see the {@code virtual-threads} profile).
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "virtual-threads.pinning")
+public class PinningMonitorProperties {
+
+    // Whether pinned virtual threads are recorded at all
+    private boolean enabled = true;
+
+    // Pins shorter than this are not recorded
+    private Duration threshold = Duration.ofMillis(20);
+
+    // Frames kept per stack trace, the innermost ones
+    private int stackDepth = 16;
+
+    // Distinct stack traces kept for the report, further ones are only counted
+    private int maxStacks = 100;
+}
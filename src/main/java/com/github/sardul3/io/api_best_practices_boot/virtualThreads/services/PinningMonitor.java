@@ -0,0 +1,149 @@
+package com.github.sardul3.io.api_best_practices_boot.virtualThreads.services;
+
+import com.github.sardul3.io.api_best_practices_boot.virtualThreads.config.PinningMonitorProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread, which happens when they block inside
+ * a {@code synchronized} block or method (or a native frame) and takes a carrier out of the pool for as long.
+ * <p>
+ * Listens in process for the {@code jdk.VirtualThreadPinned} JFR event, which the JVM emits for pins longer than
+ * {@code virtual-threads.pinning.threshold}. Each distinct stack trace is logged once, with its frames, and
+ * counted; the actuator endpoint {@code /actuator/pinning} lists them, the most frequent first.
+ * </p>
+ * <p>
+ * Metrics: {@code jvm.threads.virtual.pinned} and the {@code jvm.threads.virtual.pinned.duration} timer.
+ * </p>
+ */
+@Component
+@Endpoint(id = "pinning")
+@Slf4j
+public class PinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final PinningMonitorProperties properties;
+    private final Environment environment;
+    private final Counter pinned;
+    private final Timer pinnedDuration;
+    private final ConcurrentHashMap<String, PinnedStack> stacks = new ConcurrentHashMap<>();
+    private final AtomicLong untracked = new AtomicLong();
+    private RecordingStream stream;
+
+    public PinningMonitor(PinningMonitorProperties properties, Environment environment, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.environment = environment;
+        this.pinned = Counter.builder("jvm.threads.virtual.pinned")
+                .description("Virtual threads that blocked while pinned to their carrier")
+                .register(meterRegistry);
+        this.pinnedDuration = Timer.builder("jvm.threads.virtual.pinned.duration")
+                .description("Time virtual threads stayed pinned to their carrier")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled() || !Threading.VIRTUAL.isActive(environment)) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(properties.getThreshold()).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Reporting virtual threads pinned for more than {} ms", properties.getThreshold().toMillis());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * @return the recorded pins per stack trace, the most frequent first
+     */
+    @ReadOperation
+    public PinningReport report() {
+        List<PinnedStackReport> reports = stacks.entrySet().stream()
+                .map(entry -> new PinnedStackReport(entry.getValue().count.get(),
+                        Duration.ofNanos(entry.getValue().maxNanos.get()).toMillis(),
+                        List.of(entry.getKey().split("\n"))))
+                .sorted(Comparator.comparingLong(PinnedStackReport::count).reversed())
+                .toList();
+        return new PinningReport(stream != null, (long) pinned.count(), untracked.get(), reports);
+    }
+
+    void onPinned(RecordedEvent event) {
+        Duration duration = event.getDuration();
+        pinned.increment();
+        pinnedDuration.record(duration);
+
+        String stack = stackOf(event.getStackTrace());
+        PinnedStack recorded = stacks.get(stack);
+        if (recorded == null && stacks.size() < properties.getMaxStacks()) {
+            PinnedStack created = new PinnedStack();
+            recorded = stacks.putIfAbsent(stack, created);
+            if (recorded == null) {
+                recorded = created;
+                log.warn("Virtual thread {} pinned to its carrier for {} ms at\n\t{}",
+                        event.getThread() == null ? "?" : event.getThread().getJavaName(), duration.toMillis(),
+                        stack.replace("\n", "\n\t"));
+            }
+        }
+        if (recorded == null) {
+            untracked.incrementAndGet();
+            return;
+        }
+        recorded.count.incrementAndGet();
+        recorded.maxNanos.accumulate(duration.toNanos());
+    }
+
+    private String stackOf(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "(no stack trace)";
+        }
+        return stackTrace.getFrames().stream()
+                .limit(properties.getStackDepth())
+                .map(PinningMonitor::frameOf)
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String frameOf(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+
+    private static final class PinnedStack {
+        private final AtomicLong count = new AtomicLong();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    }
+
+    public record PinningReport(boolean active, long pinned, long untracked, List<PinnedStackReport> stacks) {
+    }
+
+    public record PinnedStackReport(long count, long maxMillis, List<String> frames) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.sardul3.io.api_best_practices_boot.virtualThreads.support;
+
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread factories for the executors of background work that spends its time blocked on Redis, the database or
+ * a client socket. They make virtual threads when {@code spring.threads.virtual.enabled=true}, so that work
+ * follows the execution mode of the web tier, and daemon platform threads otherwise.
+ */
+public final class BackgroundThreads {
+
+    private BackgroundThreads() {
+    }
+
+    /**
+     * @param environment the environment, to tell whether virtual threads are enabled
+     * @param prefix      the thread name prefix, followed by a sequence number
+     * @return the thread factory
+     */
+    public static ThreadFactory factory(Environment environment, String prefix) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return Thread.ofVirtual().name(prefix, 1).factory();
+        }
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,17 @@
+-- Fixed window counter.
+-- KEYS[1]: counter key; ARGV[1]: limit; ARGV[2]: window in milliseconds
+-- Returns {allowed (1/0), remaining, milliseconds until the window resets}
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+
+local count = redis.call('INCR', KEYS[1])
+local ttl = redis.call('PTTL', KEYS[1])
+if ttl < 0 then
+  -- A new window, or a counter left without a TTL
+  redis.call('PEXPIRE', KEYS[1], window)
+  ttl = window
+end
+if count > limit then
+  return {0, 0, ttl}
+end
+return {1, limit - count, ttl}
@@ -0,0 +1,21 @@
+-- Generic cell rate algorithm: requests are spaced by period / limit, with bursts of up to limit requests.
+-- KEYS[1]: theoretical arrival time in microseconds; ARGV[1]: limit; ARGV[2]: period in milliseconds
+-- Returns {allowed (1/0), remaining, milliseconds until the next request is allowed (rejected) or the full quota
+-- is back (allowed)}
+local limit = tonumber(ARGV[1])
+local period = tonumber(ARGV[2]) * 1000
+local interval = period / limit
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+
+local tat = math.max(tonumber(redis.call('GET', KEYS[1])) or now, now)
+local arrival = tat + interval
+local allowedAt = arrival - period
+if allowedAt > now then
+  return {0, 0, math.ceil((allowedAt - now) / 1000)}
+end
+
+local ttl = math.ceil((arrival - now) / 1000)
+redis.call('SET', KEYS[1], string.format('%.0f', arrival), 'PX', ttl)
+return {1, math.floor((period - (arrival - now)) / interval), ttl}
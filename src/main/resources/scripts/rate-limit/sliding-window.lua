@@ -0,0 +1,43 @@
+-- Sliding window counter: the count of the current fixed window plus the count of the previous one, weighted by
+-- the part of the previous window that still overlaps the sliding window.
+-- KEYS[1]: hash with the window index (w), its count (c) and the count of the window before (p)
+-- ARGV[1]: limit; ARGV[2]: window in milliseconds
+-- Returns {allowed (1/0), remaining, milliseconds until the next request is allowed (rejected) or the current
+-- window ends (allowed)}
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local index = math.floor(now / window)
+local elapsed = now - index * window
+
+local state = redis.call('HMGET', KEYS[1], 'w', 'c', 'p')
+local stored = tonumber(state[1])
+local count = tonumber(state[2]) or 0
+local previous = tonumber(state[3]) or 0
+if stored ~= index then
+  if stored == index - 1 then
+    previous = count
+  else
+    previous = 0
+  end
+  count = 0
+end
+
+local estimated = previous * (window - elapsed) / window + count
+if estimated + 1 > limit then
+  local wait
+  if count + 1 <= limit then
+    -- Until enough of the previous window has slid out
+    wait = math.ceil(window - (limit - count - 1) * window / previous) - elapsed
+  else
+    -- The current window alone is full: in the next one it becomes the previous window
+    wait = window - elapsed + math.max(0, math.ceil(window - (limit - 1) * window / count))
+  end
+  return {0, 0, math.max(1, wait)}
+end
+
+redis.call('HSET', KEYS[1], 'w', index, 'c', count + 1, 'p', previous)
+redis.call('PEXPIRE', KEYS[1], window * 2)
+return {1, math.floor(limit - estimated - 1), window - elapsed}
@@ -0,0 +1,161 @@
+package com.github.sardul3.io.api_best_practices_boot.accountTotals.services;
+
+import com.github.sardul3.io.api_best_practices_boot.accountTotals.config.AccountTotalsProperties;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AccountTotalsReconcilerTest {
+
+    // One transfer of 10.0 from A to B in the table
+    private static final List<Object[]> SENT = rows(new Object[]{"A", Transaction.Status.COMPLETED, 1L, 100_000.0});
+    private static final List<Object[]> RECEIVED = rows(new Object[]{"B", Transaction.Status.COMPLETED, 1L, 100_000.0});
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private RedisOperations<String, String> operations;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    @Mock
+    private AccountTotalsService accountTotalsService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AccountTotalsReconciler reconciler;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        when(entityManager.createQuery(anyString(), eq(Object[].class))).thenAnswer(invocation -> {
+            String jpql = invocation.getArgument(0);
+            TypedQuery<Object[]> query = mock(TypedQuery.class, RETURNS_SELF);
+            when(query.getResultList()).thenReturn(jpql.contains("t.fromAccount = t.toAccount") ? List.of()
+                    : jpql.startsWith("select t.fromAccount") ? SENT : RECEIVED);
+            return query;
+        });
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(stringRedisTemplate.execute(any(SessionCallback.class))).thenAnswer(invocation ->
+                ((SessionCallback<?>) invocation.getArgument(0)).execute(operations));
+        when(operations.opsForHash()).thenReturn(hashOperations);
+        when(operations.opsForSet()).thenReturn(setOperations);
+        when(operations.exec()).thenReturn(List.<Object>of(true));
+
+        AccountTotalsProperties properties = new AccountTotalsProperties();
+        properties.setReconcileBatchSize(2);
+        reconciler = new AccountTotalsReconciler(entityManager, stringRedisTemplate, accountTotalsService,
+                properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reconciler.shutdown();
+    }
+
+    @Test
+    void testDriftedAndStaleAccountsAreRepaired() {
+        Map<String, String> a = Map.of("count", "1", "debited", "100000", "status:COMPLETED", "1");
+        Map<String, String> b = Map.of("count", "2", "credited", "100000", "status:COMPLETED", "2");
+        Map<String, String> c = Map.of("count", "1");
+        when(accountTotalsService.accounts()).thenReturn(new LinkedHashSet<>(List.of("A", "B", "C")));
+        // A and B are read in the first batch, C in the second
+        when(stringRedisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenReturn(List.<Object>of(a, b))
+                .thenReturn(List.<Object>of(c));
+        when(hashOperations.entries("account-totals:B")).thenReturn(Map.<Object, Object>copyOf(b));
+        when(hashOperations.entries("account-totals:C")).thenReturn(Map.<Object, Object>copyOf(c));
+
+        assertEquals(2, reconciler.reconcile());
+
+        verify(operations).watch("account-totals:B");
+        verify(hashOperations).putAll("account-totals:B", Map.of("count", "1", "credited", "100000", "status:COMPLETED", "1"));
+        verify(operations).delete("account-totals:C");
+        verify(setOperations).remove("account-totals:accounts", "C");
+        verify(hashOperations, never()).entries("account-totals:A");
+        assertEquals(2.0, meterRegistry.get("account.totals.mismatches").counter().count());
+        assertEquals(2.0, meterRegistry.get("account.totals.repairs").counter().count());
+    }
+
+    @Test
+    void testRepairAbortedByAConcurrentIncrementIsLeftToTheNextPass() {
+        Map<String, String> b = Map.of("count", "2");
+        when(accountTotalsService.accounts()).thenReturn(new LinkedHashSet<>(List.of("A", "B")));
+        when(stringRedisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.<Object>of(
+                Map.of("count", "1", "debited", "100000", "status:COMPLETED", "1"), b));
+        when(hashOperations.entries("account-totals:B")).thenReturn(Map.<Object, Object>copyOf(b));
+        // The watched hash changed, so the transaction was discarded
+        when(operations.exec()).thenReturn(List.<Object>of());
+
+        assertEquals(0, reconciler.reconcile());
+
+        assertEquals(1.0, meterRegistry.get("account.totals.mismatches").counter().count());
+        assertEquals(0.0, meterRegistry.get("account.totals.repairs").counter().count());
+    }
+
+    @Test
+    void testOnlyTheNodeHoldingTheLockReconciles() {
+        when(valueOperations.setIfAbsent(eq(AccountTotalsReconciler.LOCK_KEY), anyString(), eq(Duration.ofMinutes(10))))
+                .thenReturn(false);
+
+        reconciler.runReconciliation();
+
+        verifyNoInteractions(entityManager);
+        verify(stringRedisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void testTheLockHolderReconcilesAndKeepsTheLockForTheInterval() {
+        when(valueOperations.setIfAbsent(eq(AccountTotalsReconciler.LOCK_KEY), anyString(), eq(Duration.ofMinutes(10))))
+                .thenReturn(true);
+        when(accountTotalsService.accounts()).thenReturn(new LinkedHashSet<>(List.of("A", "B")));
+        when(stringRedisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.<Object>of(
+                Map.of("count", "1", "debited", "100000", "status:COMPLETED", "1"),
+                Map.of("count", "1", "credited", "100000", "status:COMPLETED", "1")));
+
+        reconciler.runReconciliation();
+
+        assertEquals(1, meterRegistry.get("account.totals.reconcile").timer().count());
+        assertEquals(0.0, meterRegistry.get("account.totals.mismatches").counter().count());
+        verify(stringRedisTemplate, never()).delete(AccountTotalsReconciler.LOCK_KEY);
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return Arrays.asList(rows);
+    }
+}
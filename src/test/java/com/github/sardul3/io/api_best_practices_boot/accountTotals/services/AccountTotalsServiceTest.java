@@ -0,0 +1,107 @@
+package com.github.sardul3.io.api_best_practices_boot.accountTotals.services;
+
+import com.github.sardul3.io.api_best_practices_boot.accountTotals.config.AccountTotalsProperties;
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChange;
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChangedEvent;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AccountTotalsServiceTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private StringRedisConnection connection;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AccountTotalsProperties properties;
+    private AccountTotalsService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new AccountTotalsProperties();
+        service = new AccountTotalsService(stringRedisTemplate, properties, meterRegistry);
+        when(stringRedisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection);
+            return List.of();
+        });
+    }
+
+    @Test
+    void testWriteIncrementsTheTotalsOfBothAccountsInOnePipeline() {
+        service.onTransactionChanged(TransactionChangedEvent.of(
+                TransactionChange.created(transaction("A", "B", 12.5, Transaction.Status.COMPLETED))));
+
+        verify(stringRedisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        verify(connection).hIncrBy("account-totals:A", "count", 1L);
+        verify(connection).hIncrBy("account-totals:A", "debited", 125_000L);
+        verify(connection).hIncrBy("account-totals:A", "status:COMPLETED", 1L);
+        verify(connection).hIncrBy("account-totals:B", "count", 1L);
+        verify(connection).hIncrBy("account-totals:B", "credited", 125_000L);
+        verify(connection).hIncrBy("account-totals:B", "status:COMPLETED", 1L);
+        verify(connection).sAdd("account-totals:accounts", "A");
+        verify(connection).sAdd("account-totals:accounts", "B");
+    }
+
+    @Test
+    void testStatusUpdateOnlyMovesTheStatusCounts() {
+        service.onTransactionChanged(TransactionChangedEvent.of(TransactionChange.updated(
+                transaction("A", "B", 10.0, Transaction.Status.ON_HOLD),
+                transaction("A", "B", 10.0, Transaction.Status.COMPLETED))));
+
+        verify(connection).hIncrBy("account-totals:A", "status:ON_HOLD", -1L);
+        verify(connection).hIncrBy("account-totals:A", "status:COMPLETED", 1L);
+        verify(connection, never()).hIncrBy(anyString(), eq("count"), anyLong());
+        verify(connection, never()).hIncrBy(anyString(), eq("debited"), anyLong());
+    }
+
+    @Test
+    void testWritesWithoutEffectAndDisabledTotalsSkipRedis() {
+        Transaction unchanged = transaction("A", "B", 10.0, Transaction.Status.COMPLETED);
+        service.onTransactionChanged(TransactionChangedEvent.of(TransactionChange.updated(unchanged, unchanged)));
+
+        properties.setEnabled(false);
+        service.onTransactionChanged(TransactionChangedEvent.of(
+                TransactionChange.created(transaction("A", "B", 1.0, null))));
+
+        verify(stringRedisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void testFailedIncrementsAreCountedAndLeftToTheReconciliation() {
+        doThrow(new RedisConnectionFailureException("down"))
+                .when(stringRedisTemplate).executePipelined(any(RedisCallback.class));
+
+        assertDoesNotThrow(() -> service.onTransactionChanged(TransactionChangedEvent.of(
+                TransactionChange.created(transaction("A", "B", 1.0, null)))));
+
+        assertEquals(1.0, meterRegistry.get("account.totals.write.failures").counter().count());
+    }
+
+    private static Transaction transaction(String from, String to, Double amount, Transaction.Status status) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(1L);
+        transaction.setFromAccount(from);
+        transaction.setToAccount(to);
+        transaction.setAmount(amount);
+        transaction.setStatus(status);
+        return transaction;
+    }
+}
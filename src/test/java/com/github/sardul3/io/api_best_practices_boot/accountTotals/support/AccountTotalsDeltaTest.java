@@ -0,0 +1,75 @@
+package com.github.sardul3.io.api_best_practices_boot.accountTotals.support;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChange;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountTotalsDeltaTest {
+
+    @Test
+    void testCreatedTransactionIsAddedToBothAccounts() {
+        Map<String, Map<String, Long>> deltas = AccountTotalsDelta.of(List.of(
+                TransactionChange.created(transaction("A", "B", 12.5, Transaction.Status.COMPLETED)))).getDeltas();
+
+        assertEquals(Map.of("count", 1L, "debited", 125_000L, "status:COMPLETED", 1L), deltas.get("A"));
+        assertEquals(Map.of("count", 1L, "credited", 125_000L, "status:COMPLETED", 1L), deltas.get("B"));
+    }
+
+    @Test
+    void testStatusUpdateOnlyMovesTheStatusCounts() {
+        Transaction before = transaction("A", "B", 10.0, Transaction.Status.ON_HOLD);
+        Transaction after = transaction("A", "B", 10.0, Transaction.Status.COMPLETED);
+
+        Map<String, Map<String, Long>> deltas = AccountTotalsDelta.of(List.of(
+                TransactionChange.updated(before, after))).getDeltas();
+
+        assertEquals(Map.of("status:ON_HOLD", -1L, "status:COMPLETED", 1L), deltas.get("A"));
+        assertEquals(Map.of("status:ON_HOLD", -1L, "status:COMPLETED", 1L), deltas.get("B"));
+    }
+
+    @Test
+    void testMovedAndDeletedTransactions() {
+        Transaction before = transaction("A", "B", 10.0, null);
+        Transaction after = transaction("A", "C", 10.0, null);
+
+        Map<String, Map<String, Long>> deltas = AccountTotalsDelta.of(List.of(
+                TransactionChange.updated(before, after),
+                TransactionChange.deleted(transaction("C", "D", 1.0, null)))).getDeltas();
+
+        assertNull(deltas.get("A"));
+        assertEquals(Map.of("count", -1L, "credited", -100_000L), deltas.get("B"));
+        // Gained one transaction and lost another
+        assertEquals(Map.of("credited", 100_000L, "debited", -10_000L), deltas.get("C"));
+        assertEquals(Map.of("count", -1L, "credited", -10_000L), deltas.get("D"));
+    }
+
+    @Test
+    void testTransferToTheSameAccountCountsOnce() {
+        Map<String, Map<String, Long>> deltas = AccountTotalsDelta.of(List.of(
+                TransactionChange.created(transaction("A", "A", 5.0, Transaction.Status.BLOCKED)))).getDeltas();
+
+        assertEquals(Map.of("count", 1L, "debited", 50_000L, "credited", 50_000L, "status:BLOCKED", 1L), deltas.get("A"));
+    }
+
+    @Test
+    void testAmountsAreRoundedSymmetrically() {
+        assertEquals(2L, AccountTotalsDelta.toUnits(0.00016));
+        assertEquals(-2L, AccountTotalsDelta.toUnits(-0.00016));
+        assertEquals(0L, AccountTotalsDelta.toUnits(null));
+        assertEquals(12.5, AccountTotalsDelta.fromUnits(125_000L));
+    }
+
+    private static Transaction transaction(String from, String to, Double amount, Transaction.Status status) {
+        Transaction transaction = new Transaction();
+        transaction.setFromAccount(from);
+        transaction.setToAccount(to);
+        transaction.setAmount(amount);
+        transaction.setStatus(status);
+        return transaction;
+    }
+}
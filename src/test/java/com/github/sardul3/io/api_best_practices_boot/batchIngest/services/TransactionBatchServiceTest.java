@@ -0,0 +1,166 @@
+package com.github.sardul3.io.api_best_practices_boot.batchIngest.services;
+
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.config.BatchIngestProperties;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.models.BatchIngestResult;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.models.BatchRow;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.models.BatchRowResult;
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.services.ChangeFeedService;
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChangedEvent;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.eTags.repos.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class TransactionBatchServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ChangeFeedService changeFeedService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final List<Integer> chunkSizes = new ArrayList<>();
+    private TransactionBatchService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        BatchIngestProperties properties = new BatchIngestProperties();
+        properties.setChunkSize(2);
+        service = new TransactionBatchService(transactionRepository, new TransactionTemplate(transactionManager),
+                changeFeedService, eventPublisher, properties, new SimpleMeterRegistry());
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Transaction> chunk = invocation.getArgument(0);
+            chunkSizes.add(chunk.size());
+            chunk.forEach(transaction -> transaction.setTransactionId(ids.incrementAndGet()));
+            return chunk;
+        });
+    }
+
+    @Test
+    void testValidRowsAreCommittedInChunks() {
+        BatchIngestResult result = service.ingest(rows(5));
+
+        assertEquals(List.of(2, 2, 1), chunkSizes);
+        verify(transactionManager, times(3)).commit(any());
+        assertEquals(5, result.getCreated());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L),
+                result.getResults().stream().map(BatchRowResult::getTransactionId).toList());
+
+        ArgumentCaptor<TransactionChangedEvent> event = ArgumentCaptor.forClass(TransactionChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(5, event.getValue().getChanges().size());
+        verify(changeFeedService, times(3)).record(anyList());
+    }
+
+    @Test
+    void testClientIdsAndVersionsAreIgnored() {
+        List<BatchRow> rows = rows(1);
+        rows.getFirst().transaction().setTransactionId(42L);
+        rows.getFirst().transaction().setVersion(7L);
+
+        service.ingest(rows);
+
+        assertEquals(1L, rows.getFirst().transaction().getTransactionId());
+        assertNull(rows.getFirst().transaction().getVersion());
+    }
+
+    @Test
+    void testFailedChunkDoesNotAffectTheOthers() {
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            List<Transaction> chunk = invocation.getArgument(0);
+            if (calls.incrementAndGet() == 2) {
+                throw new DataIntegrityViolationException("constraint violated");
+            }
+            chunk.forEach(transaction -> transaction.setTransactionId(ids.incrementAndGet()));
+            return chunk;
+        }).when(transactionRepository).saveAll(anyList());
+        List<BatchRow> rows = rows(5);
+        rows.add(2, BatchRow.invalid(99, "Invalid amount: lots"));
+
+        BatchIngestResult result = service.ingest(rows);
+
+        // Chunks: rows 1-2, then 4-5 (the invalid row is skipped), then 6
+        assertEquals(6, result.getReceived());
+        assertEquals(3, result.getCreated());
+        assertEquals(1, result.getRejected());
+        assertEquals(2, result.getFailed());
+        List<BatchRowResult.Status> statuses = result.getResults().stream().map(BatchRowResult::getStatus).toList();
+        assertEquals(List.of(BatchRowResult.Status.CREATED, BatchRowResult.Status.CREATED,
+                BatchRowResult.Status.REJECTED, BatchRowResult.Status.FAILED, BatchRowResult.Status.FAILED,
+                BatchRowResult.Status.CREATED), statuses);
+        assertTrue(result.getResults().get(3).getError().startsWith("Insert failed"));
+        verify(transactionManager, times(2)).commit(any());
+        verify(transactionManager, times(1)).rollback(any());
+
+        ArgumentCaptor<TransactionChangedEvent> event = ArgumentCaptor.forClass(TransactionChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(3, event.getValue().getChanges().size());
+    }
+
+    @Test
+    void testChunkWhoseChangesCannotBeRecordedIsRolledBack() {
+        doNothing().doThrow(new IllegalStateException("sequence row locked"))
+                .when(changeFeedService).record(anyList());
+
+        BatchIngestResult result = service.ingest(rows(4));
+
+        // Both chunks were saved, the second one without its changes and so rolled back
+        verify(changeFeedService, times(2)).record(anyList());
+        verify(transactionManager, times(1)).commit(any());
+        verify(transactionManager, times(1)).rollback(any());
+        assertEquals(2, result.getCreated());
+        assertEquals(2, result.getFailed());
+        ArgumentCaptor<TransactionChangedEvent> event = ArgumentCaptor.forClass(TransactionChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(List.of(1L, 2L), event.getValue().getChanges().stream()
+                .map(change -> change.getAfter().getTransactionId()).toList());
+    }
+
+    @Test
+    void testNothingIsPublishedWhenNoRowIsCreated() {
+        BatchIngestResult result = service.ingest(List.of(BatchRow.invalid(1, "Row is empty"), BatchRow.of(2, null)));
+
+        assertEquals(2, result.getRejected());
+        verify(transactionRepository, never()).saveAll(anyList());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    private static List<BatchRow> rows(int count) {
+        List<BatchRow> rows = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setFromAccount("A" + i);
+            transaction.setToAccount("B" + i);
+            transaction.setAmount((double) i);
+            rows.add(BatchRow.of(i, transaction));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.sardul3.io.api_best_practices_boot.batchIngest.support;
+
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.exception.BatchTooLargeException;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.models.BatchRow;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionCsvParserTest {
+
+    @Test
+    void testParsesTransactionsCsvLayout() {
+        List<BatchRow> rows = TransactionCsvParser.parse("fromAccount,toAccount,amount,status\n"
+                + "UserA,UserB,100.0,ON_HOLD\n"
+                + "UserC,UserD,150.5,COMPLETED\n");
+
+        assertEquals(2, rows.size());
+        Transaction second = rows.get(1).transaction();
+        assertEquals(2, rows.get(1).row());
+        assertEquals("UserC", second.getFromAccount());
+        assertEquals("UserD", second.getToAccount());
+        assertEquals(150.5, second.getAmount());
+        assertEquals(Transaction.Status.COMPLETED, second.getStatus());
+    }
+
+    @Test
+    void testReadsExportLayoutWithQuotesAndExtraColumns() {
+        List<BatchRow> rows = TransactionCsvParser.parse("transactionId,fromAccount,toAccount,amount,status,version\r\n"
+                + "7,\"Acme, Inc.\",\"say \"\"hi\"\"\",12.5,,3\r\n"
+                + "\r\n");
+
+        assertEquals(1, rows.size());
+        Transaction transaction = rows.getFirst().transaction();
+        assertEquals("Acme, Inc.", transaction.getFromAccount());
+        assertEquals("say \"hi\"", transaction.getToAccount());
+        assertNull(transaction.getStatus());
+        assertNull(transaction.getTransactionId());
+    }
+
+    @Test
+    void testUnreadableRowsAreReportedNotThrown() {
+        List<BatchRow> rows = TransactionCsvParser.parse("fromAccount,toAccount,amount,status\n"
+                + "UserA,UserB,lots,ON_HOLD\n"
+                + "UserA,UserB,1,PENDING\n"
+                + "UserA,UserB\n");
+
+        assertEquals("Invalid amount: lots", rows.get(0).error());
+        assertEquals("Invalid status: PENDING", rows.get(1).error());
+        assertNotNull(rows.get(2).error());
+        assertTrue(rows.stream().allMatch(row -> row.transaction() == null));
+    }
+
+    @Test
+    void testMissingRequiredColumnIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> TransactionCsvParser.parse("fromAccount,amount\nA,1\n"));
+        assertThrows(IllegalArgumentException.class, () -> TransactionCsvParser.parse(""));
+    }
+
+    @Test
+    void testRowLimitIsEnforcedWhileReading() throws Exception {
+        String header = "fromAccount,toAccount,amount\n";
+        assertEquals(2, TransactionCsvParser.parse(new StringReader(header + "A,B,1\nA,B,2\n"), 2).size());
+
+        // The reader fails past the third record, so parsing must stop before reaching it
+        Reader oversized = new ExhaustibleReader(header + "A,B,1\nA,B,2\nA,B,3\n");
+        assertThrows(BatchTooLargeException.class, () -> TransactionCsvParser.parse(oversized, 2));
+    }
+
+    // Serves the given text, then fails on any further read
+    private static final class ExhaustibleReader extends Reader {
+
+        private final StringReader text;
+
+        ExhaustibleReader(String text) {
+            this.text = new StringReader(text);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = text.read(buffer, offset, length);
+            if (read == -1) {
+                throw new IOException("read past the row limit");
+            }
+            return read;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
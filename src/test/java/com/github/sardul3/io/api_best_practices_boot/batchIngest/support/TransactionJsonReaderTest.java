@@ -0,0 +1,47 @@
+package com.github.sardul3.io.api_best_practices_boot.batchIngest.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.exception.BatchTooLargeException;
+import com.github.sardul3.io.api_best_practices_boot.batchIngest.models.BatchRow;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionJsonReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testReadsArrayElementsInOrder() throws Exception {
+        List<BatchRow> rows = TransactionJsonReader.read(objectMapper,
+                json("[{\"fromAccount\":\"A\",\"toAccount\":\"B\",\"amount\":1.5}, null]"), 10);
+
+        assertEquals(2, rows.size());
+        assertEquals(1, rows.get(0).row());
+        assertEquals("A", rows.get(0).transaction().getFromAccount());
+        assertNull(rows.get(1).transaction());
+    }
+
+    @Test
+    void testRowLimitIsEnforcedBeforeTheRestIsParsed() {
+        // The third element is not even valid JSON: the limit must be hit before the parser gets there
+        InputStream body = json("[{\"amount\":1},{\"amount\":2},{\"amount\":");
+
+        assertThrows(BatchTooLargeException.class, () -> TransactionJsonReader.read(objectMapper, body, 2));
+    }
+
+    @Test
+    void testNonArrayBodyIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> TransactionJsonReader.read(objectMapper, json("{\"amount\":1}"), 10));
+    }
+
+    private static InputStream json(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.sardul3.io.api_best_practices_boot.cachePolicy.support;
+
+import com.github.sardul3.io.api_best_practices_boot.cachePolicy.config.CachePolicyProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JitteredTtlFunctionTest {
+
+    @Test
+    void testJitterOnlyShortensTheTtl() {
+        Duration ttl = Duration.ofMinutes(3);
+
+        assertEquals(ttl, JitteredTtlFunction.jittered(ttl, 0.1, 0.0));
+        assertEquals(Duration.ofSeconds(171), JitteredTtlFunction.jittered(ttl, 0.1, 0.5));
+        assertEquals(ttl, JitteredTtlFunction.jittered(ttl, 0.0, 0.9));
+        assertEquals(Duration.ofSeconds(1), JitteredTtlFunction.jittered(ttl, 1.0, 1.0));
+    }
+
+    @Test
+    void testTtlIsRecordedForRefreshAhead() {
+        CacheEntryMetadataRegistry registry = new CacheEntryMetadataRegistry();
+        CachePolicyProperties.Policy policy = new CachePolicyProperties.Policy();
+        long before = System.currentTimeMillis();
+
+        Duration ttl = new JitteredTtlFunction("transactionsCache", policy, registry).getTimeToLive("UserA_", "value");
+
+        CacheEntryMetadataRegistry.EntryMetadata metadata = registry.get("transactionsCache", "UserA_");
+        assertNotNull(metadata);
+        assertTrue(ttl.compareTo(policy.getTtl()) <= 0);
+        assertTrue(metadata.expiresAtMillis() >= before + ttl.toMillis());
+        assertTrue(metadata.writtenAtMillis() >= before);
+    }
+}
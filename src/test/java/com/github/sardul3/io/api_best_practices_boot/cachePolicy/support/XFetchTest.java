@@ -0,0 +1,32 @@
+package com.github.sardul3.io.api_best_practices_boot.cachePolicy.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XFetchTest {
+
+    @Test
+    void testExpiredEntryIsAlwaysRefreshed() {
+        assertTrue(XFetch.shouldRefresh(10_000, 10_000, 50, 1.0, 1.0));
+    }
+
+    @Test
+    void testRefreshWindowScalesWithComputeTime() {
+        // random = 1/e gives a lead time of exactly delta * beta
+        double random = Math.exp(-1);
+
+        assertTrue(XFetch.shouldRefresh(9_000, 10_000, 1_000, 1.0, random));
+        assertFalse(XFetch.shouldRefresh(8_000, 10_000, 1_000, 1.0, random));
+        assertTrue(XFetch.shouldRefresh(8_000, 10_000, 1_000, 2.0, random));
+    }
+
+    @Test
+    void testUntimedEntriesUseDefaultComputeTime() {
+        double random = Math.exp(-1);
+        long expiresAt = 10_000;
+
+        assertTrue(XFetch.shouldRefresh(expiresAt - XFetch.DEFAULT_COMPUTE_TIME_MILLIS, expiresAt, 0, 1.0, random));
+        assertFalse(XFetch.shouldRefresh(expiresAt - XFetch.DEFAULT_COMPUTE_TIME_MILLIS - 1, expiresAt, 0, 1.0, random));
+    }
+}
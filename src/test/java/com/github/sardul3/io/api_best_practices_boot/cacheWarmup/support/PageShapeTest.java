@@ -0,0 +1,50 @@
+package com.github.sardul3.io.api_best_practices_boot.cacheWarmup.support;
+
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching.PageFilterSortCacheKeyGenerator;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.TransactionFilterPlanner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PageShapeTest {
+
+    @Test
+    void testDecodedShapeProducesTheSameCacheKey() {
+        List<FilterCriteria> filters = List.of(
+                new FilterCriteria("status", ":", "COMPLETED"),
+                new FilterCriteria("amount", ">", "100"));
+        Pageable pageable = PageRequest.of(3, 25, Sort.by(Sort.Order.desc("amount"), Sort.Order.asc("transactionId")));
+
+        TransactionFilterPlanner filterPlanner = mock(TransactionFilterPlanner.class);
+        when(filterPlanner.canonicalize(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        PageFilterSortCacheKeyGenerator keyGenerator =
+                new PageFilterSortCacheKeyGenerator(filterPlanner, new SimpleMeterRegistry(), 100);
+
+        PageShape decoded = PageShape.decode(new PageShape(filters, pageable).encode());
+
+        assertEquals(keyGenerator.generateKey(filters, pageable),
+                keyGenerator.generateKey(decoded.filters(), decoded.pageable()));
+    }
+
+    @Test
+    void testUnsortedAndUnfilteredShape() {
+        PageShape decoded = PageShape.decode(new PageShape(List.of(), PageRequest.of(0, 20)).encode());
+
+        assertTrue(decoded.filters().isEmpty());
+        assertEquals(PageRequest.of(0, 20), decoded.pageable());
+    }
+
+    @Test
+    void testMalformedShapeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PageShape.decode("garbage"));
+    }
+}
@@ -0,0 +1,165 @@
+package com.github.sardul3.io.api_best_practices_boot.changeFeed.services;
+
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.config.ChangeFeedProperties;
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.models.ChangeFeedEntry;
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.models.ChangeFeedPage;
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.models.ChangeFeedSequence;
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.models.ChangeType;
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChange;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PessimisticLockException;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ChangeFeedServiceTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TypedQuery<ChangeFeedEntry> load;
+    private SimpleMeterRegistry meterRegistry;
+    private ChangeFeedService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        load = mock(TypedQuery.class, RETURNS_SELF);
+        when(entityManager.createQuery(anyString(), eq(ChangeFeedEntry.class))).thenReturn(load);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new ChangeFeedService(entityManager, new TransactionTemplate(transactionManager),
+                new ChangeFeedProperties(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void testChangesAreNumberedAfterTheLockedSequenceInTheWritesTransaction() {
+        ChangeFeedSequence sequence = new ChangeFeedSequence(ChangeFeedService.FEED, 5);
+        when(entityManager.find(ChangeFeedSequence.class, ChangeFeedService.FEED, LockModeType.PESSIMISTIC_WRITE))
+                .thenReturn(sequence);
+
+        service.record(List.of(TransactionChange.created(transaction(1L)), TransactionChange.deleted(transaction(2L))));
+
+        ArgumentCaptor<ChangeFeedEntry> entries = ArgumentCaptor.forClass(ChangeFeedEntry.class);
+        verify(entityManager, times(2)).persist(entries.capture());
+        assertEquals(List.of(6L, 7L), entries.getAllValues().stream().map(ChangeFeedEntry::getSequence).toList());
+        assertEquals(List.of(ChangeType.CREATED, ChangeType.DELETED),
+                entries.getAllValues().stream().map(ChangeFeedEntry::getType).toList());
+        assertEquals(7L, sequence.getLastSequence());
+        // Joins the transaction of the write instead of committing on its own
+        verify(transactionManager).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_MANDATORY));
+    }
+
+    @Test
+    void testFailedRecordingFailsTheWrite() {
+        when(entityManager.find(ChangeFeedSequence.class, ChangeFeedService.FEED, LockModeType.PESSIMISTIC_WRITE))
+                .thenThrow(new PessimisticLockException("lock timeout"));
+
+        assertThrows(PessimisticLockException.class,
+                () -> service.record(List.of(TransactionChange.created(transaction(1L)))));
+
+        verify(entityManager, never()).persist(any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void testPagesOfDeltasAreReadAfterSince() {
+        when(load.getResultList()).thenReturn(entries(11, 13));
+
+        ChangeFeedPage page = service.changesSince(10L, 2);
+
+        assertEquals(List.of(11L, 12L), page.getChanges().stream().map(ChangeFeedEntry::getSequence).toList());
+        assertEquals(12L, page.getNext());
+        assertTrue(page.isHasMore());
+        verify(load).setParameter("since", 10L);
+        // One change more than the page tells whether there are more
+        verify(load).setMaxResults(3);
+        assertEquals(1.0, meterRegistry.get("transactions.changes.fallback.reads").counter().count());
+    }
+
+    @Test
+    void testReaderBehindTheRetentionGetsAResetBeforeTheOldestChangeLeft() {
+        when(load.getResultList()).thenReturn(entries(8, 9));
+
+        ChangeFeedPage page = service.changesSince(3L, 10);
+
+        assertEquals(List.of(ChangeType.RESET, ChangeType.CREATED, ChangeType.CREATED),
+                page.getChanges().stream().map(ChangeFeedEntry::getType).toList());
+        assertEquals(List.of(7L, 8L, 9L), page.getChanges().stream().map(ChangeFeedEntry::getSequence).toList());
+        assertEquals(9L, page.getNext());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    void testWithoutSinceOnlyTheCurrentSequenceIsReturned() {
+        ChangeFeedPage page = service.changesSince(null, 10);
+
+        assertTrue(page.getChanges().isEmpty());
+        assertEquals(service.head(), page.getNext());
+        verifyNoInteractions(load);
+    }
+
+    @Test
+    void testPruneDeletesTheChangesOlderThanTheRetention() {
+        Query delete = mock(Query.class, RETURNS_SELF);
+        when(entityManager.createQuery(anyString())).thenReturn(delete);
+        when(delete.executeUpdate()).thenReturn(4);
+        Instant before = Instant.now();
+
+        assertEquals(4, service.prune());
+
+        ArgumentCaptor<Instant> cutoff = ArgumentCaptor.forClass(Instant.class);
+        verify(delete).setParameter(eq("cutoff"), cutoff.capture());
+        assertFalse(cutoff.getValue().isBefore(before.minus(Duration.ofDays(7))));
+        assertFalse(cutoff.getValue().isAfter(Instant.now().minus(Duration.ofDays(7))));
+        assertEquals(4.0, meterRegistry.get("transactions.changes.pruned").counter().count());
+    }
+
+    private static List<ChangeFeedEntry> entries(long first, long last) {
+        return LongStream.rangeClosed(first, last).mapToObj(sequence -> {
+            ChangeFeedEntry entry = ChangeFeedEntry.of(TransactionChange.created(transaction(sequence)));
+            entry.setSequence(sequence);
+            return entry;
+        }).toList();
+    }
+
+    private static Transaction transaction(Long id) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(id);
+        transaction.setFromAccount("A");
+        transaction.setToAccount("B");
+        transaction.setAmount(1.0);
+        transaction.setStatus(Transaction.Status.COMPLETED);
+        transaction.setVersion(0L);
+        return transaction;
+    }
+}
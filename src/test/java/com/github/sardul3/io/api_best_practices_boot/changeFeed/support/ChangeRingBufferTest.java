@@ -0,0 +1,67 @@
+package com.github.sardul3.io.api_best_practices_boot.changeFeed.support;
+
+import com.github.sardul3.io.api_best_practices_boot.changeFeed.models.ChangeFeedEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeRingBufferTest {
+
+    @Test
+    void testNothingIsAnsweredBeforeTheStartIsKnown() {
+        ChangeRingBuffer buffer = new ChangeRingBuffer(4);
+
+        assertNull(buffer.since(0, 10));
+    }
+
+    @Test
+    void testChangesAfterTheStartAreAnswered() {
+        ChangeRingBuffer buffer = new ChangeRingBuffer(4);
+        buffer.reset(10);
+        buffer.add(entry(11));
+        buffer.add(entry(12));
+        buffer.add(entry(13));
+
+        assertEquals(List.of(12L, 13L), sequences(buffer.since(11, 10)));
+        assertEquals(List.of(11L), sequences(buffer.since(10, 1)));
+        assertEquals(List.of(), sequences(buffer.since(13, 10)));
+        // Changes before the start may exist in the database
+        assertNull(buffer.since(9, 10));
+    }
+
+    @Test
+    void testOldestChangesAreOverwritten() {
+        ChangeRingBuffer buffer = new ChangeRingBuffer(4);
+        buffer.reset(0);
+        for (long sequence = 1; sequence <= 6; sequence++) {
+            buffer.add(entry(sequence));
+        }
+
+        assertNull(buffer.since(1, 10));
+        assertEquals(List.of(3L, 4L, 5L, 6L), sequences(buffer.since(2, 10)));
+    }
+
+    @Test
+    void testGapStartsOverAndDuplicatesAreIgnored() {
+        ChangeRingBuffer buffer = new ChangeRingBuffer(4);
+        buffer.reset(0);
+        buffer.add(entry(1));
+        buffer.add(entry(1));
+        buffer.add(entry(5));
+
+        assertNull(buffer.since(1, 10));
+        assertEquals(List.of(5L), sequences(buffer.since(4, 10)));
+    }
+
+    private static ChangeFeedEntry entry(long sequence) {
+        ChangeFeedEntry entry = ChangeFeedEntry.reset();
+        entry.setSequence(sequence);
+        return entry;
+    }
+
+    private static List<Long> sequences(List<ChangeFeedEntry> entries) {
+        return entries.stream().map(ChangeFeedEntry::getSequence).toList();
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.config;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.hashing.ETagHashAlgorithm;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ETagGeneratorTest {
+
+    private final ETagGenerator eTagGenerator = new ETagGenerator(ETagHashAlgorithm.XXHASH64);
+
+    @Test
+    void testMatchesQuotedAndUnquotedTags() {
+        assertTrue(ETagGenerator.matches("\"abc\"", "abc"));
+        assertTrue(ETagGenerator.matches("abc", "abc"));
+        assertFalse(ETagGenerator.matches("\"abd\"", "abc"));
+        assertFalse(ETagGenerator.matches(null, "abc"));
+    }
+
+    @Test
+    void testMatchesWeakTagsListsAndWildcard() {
+        assertTrue(ETagGenerator.matches("W/\"abc\"", "abc"));
+        assertTrue(ETagGenerator.matches("\"xyz\", W/\"abc\"", "abc"));
+        assertTrue(ETagGenerator.matches("*", "abc"));
+        assertFalse(ETagGenerator.matches("\"xyz\", \"uvw\"", "abc"));
+    }
+
+    @Test
+    void testCollectionETagDependsOnVersionAndShape() {
+        String eTag = eTagGenerator.generateCollectionETag("epoch:all:1", "v1:_");
+
+        assertEquals(eTag, eTagGenerator.generateCollectionETag("epoch:all:1", "v1:_"));
+        assertNotEquals(eTag, eTagGenerator.generateCollectionETag("epoch:all:2", "v1:_"));
+        assertNotEquals(eTag, eTagGenerator.generateCollectionETag("epoch:all:1", "v1:UserA_"));
+    }
+}
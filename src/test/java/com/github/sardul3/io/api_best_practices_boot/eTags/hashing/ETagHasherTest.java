@@ -0,0 +1,56 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.hashing;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ETagHasherTest {
+
+    private static String hash(ETagHashAlgorithm algorithm, String input) {
+        return algorithm.hasher().putUtf8(input).finishHex();
+    }
+
+    @Test
+    void testXxHash64ReferenceValues() {
+        assertEquals("ef46db3751d8e999", hash(ETagHashAlgorithm.XXHASH64, ""));
+        assertEquals("d24ec4f1a98c6e5b", hash(ETagHashAlgorithm.XXHASH64, "a"));
+        assertEquals("44bc2cf5ad770999", hash(ETagHashAlgorithm.XXHASH64, "abc"));
+        assertEquals("fbcea83c8a378bf1", hash(ETagHashAlgorithm.XXHASH64, "Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    void testMurmur3ReferenceValues() {
+        assertEquals("00000000000000000000000000000000", hash(ETagHashAlgorithm.MURMUR3_128, ""));
+        assertEquals("029bbd41b3a7d8cb191dae486a901e5b", hash(ETagHashAlgorithm.MURMUR3_128, "hello"));
+        // Spans several internal buffers and mixes 1 to 4 byte UTF-8 sequences
+        assertEquals("3cf0d46a53f485991bccfac76c41e47d", hash(ETagHashAlgorithm.MURMUR3_128, "transaction-é€😀-".repeat(100)));
+    }
+
+    @Test
+    void testMd5MatchesMessageDigestAcrossBufferBoundaries() throws Exception {
+        String input = "transaction-é€😀-".repeat(100);
+        byte[] expected = MessageDigest.getInstance("MD5").digest(input.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(HexFormat.of().formatHex(expected), hash(ETagHashAlgorithm.MD5, input));
+    }
+
+    @Test
+    void testHasherIsResetBetweenUses() {
+        String first = hash(ETagHashAlgorithm.XXHASH64, "x".repeat(1000));
+        ETagHashAlgorithm.XXHASH64.hasher().putUtf8("left over");
+
+        assertEquals(first, hash(ETagHashAlgorithm.XXHASH64, "x".repeat(1000)));
+    }
+
+    @Test
+    void testFieldsAreDelimited() {
+        String joined = ETagHashAlgorithm.MURMUR3_128.hasher().putString("ab").putString("c").finishHex();
+        String split = ETagHashAlgorithm.MURMUR3_128.hasher().putString("a").putString("bc").finishHex();
+
+        assertNotEquals(joined, split);
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.sardul3.io.api_best_practices_boot.eTags.serialization;
+
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.CountStrategy;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.PaginatedTransaction;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionCacheSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer()
+            .configure(mapper -> mapper.registerModule(new JavaTimeModule()));
+    private final TransactionCacheSerializer serializer = new TransactionCacheSerializer(jsonSerializer, 1024);
+
+    private static Transaction transaction(long id) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(id);
+        transaction.setFromAccount("UserA" + id);
+        transaction.setToAccount("Usér€B");
+        transaction.setAmount(id * 10.5);
+        transaction.setStatus(Transaction.Status.COMPLETED);
+        transaction.setVersion(3L);
+        transaction.setUpdatedAt(Instant.parse("2024-09-01T10:15:30.123456Z"));
+        return transaction;
+    }
+
+    private static void assertSameTransaction(Transaction expected, Transaction actual) {
+        assertEquals(expected.getTransactionId(), actual.getTransactionId());
+        assertEquals(expected.getFromAccount(), actual.getFromAccount());
+        assertEquals(expected.getToAccount(), actual.getToAccount());
+        assertEquals(expected.getAmount(), actual.getAmount());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getVersion(), actual.getVersion());
+        assertEquals(expected.getUpdatedAt(), actual.getUpdatedAt());
+    }
+
+    @Test
+    void testTransactionRoundTripIsSmallerThanJson() {
+        Transaction transaction = transaction(300);
+
+        byte[] bytes = serializer.serialize(transaction);
+
+        assertEquals(TransactionCacheSerializer.FORMAT_VERSION, bytes[0]);
+        assertTrue(bytes.length * 3 < jsonSerializer.serialize(transaction).length);
+        assertSameTransaction(transaction, (Transaction) serializer.deserialize(bytes));
+    }
+
+    @Test
+    void testNullFieldsAndElementsRoundTrip() {
+        List<Transaction> transactions = new ArrayList<>();
+        transactions.add(new Transaction());
+        transactions.add(null);
+
+        @SuppressWarnings("unchecked")
+        List<Transaction> result = (List<Transaction>) serializer.deserialize(serializer.serialize(transactions));
+
+        assertEquals(2, result.size());
+        assertSameTransaction(new Transaction(), result.get(0));
+        assertNull(result.get(1));
+    }
+
+    @Test
+    void testLargePageIsCompressedAndRoundTrips() {
+        List<Transaction> transactions = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            transactions.add(transaction(id));
+        }
+        PaginatedTransaction page = new PaginatedTransaction(transactions, 12_345);
+        TransactionCacheSerializer uncompressed = new TransactionCacheSerializer(jsonSerializer, -1);
+
+        byte[] bytes = serializer.serialize(page);
+        PaginatedTransaction result = (PaginatedTransaction) serializer.deserialize(bytes);
+
+        assertTrue(bytes.length < uncompressed.serialize(page).length);
+        assertEquals(12_345, result.getTotal());
+        assertEquals(100, result.getTransactions().size());
+        assertSameTransaction(transactions.get(42), result.getTransactions().get(42));
+    }
+
+    @Test
+    void testCountStrategyOfPageRoundTrips() {
+        PaginatedTransaction counted = new PaginatedTransaction(List.of(transaction(1)), 21, CountStrategy.NONE);
+        PaginatedTransaction exact = new PaginatedTransaction(List.of(transaction(1)), 21);
+
+        PaginatedTransaction countedResult = (PaginatedTransaction) serializer.deserialize(serializer.serialize(counted));
+        PaginatedTransaction exactResult = (PaginatedTransaction) serializer.deserialize(serializer.serialize(exact));
+
+        assertEquals(CountStrategy.NONE, countedResult.getCountStrategy());
+        assertEquals(21, countedResult.getTotal());
+        assertSameTransaction(transaction(1), countedResult.getTransactions().get(0));
+        assertEquals(CountStrategy.EXACT, exactResult.getCountStrategy());
+        // Exactly counted pages keep the original layout, readable by nodes that predate count strategies
+        assertEquals(serializer.serialize(exact).length + 1, serializer.serialize(counted).length);
+    }
+
+    @Test
+    void testCountStrategiesAreWrittenAsStableCodes() {
+        // version | flags | type | total (one varint byte) | count strategy code; the codes must never change
+        assertEquals(1, serializer.serialize(new PaginatedTransaction(List.of(), 21, CountStrategy.CACHED))[4]);
+        assertEquals(2, serializer.serialize(new PaginatedTransaction(List.of(), 21, CountStrategy.ESTIMATED))[4]);
+        assertEquals(3, serializer.serialize(new PaginatedTransaction(List.of(), 21, CountStrategy.NONE))[4]);
+    }
+
+    @Test
+    void testJsonEntriesAndOtherTypesGoThroughJson() {
+        Transaction transaction = transaction(7);
+
+        Object legacy = serializer.deserialize(jsonSerializer.serialize(transaction));
+        byte[] nullValue = serializer.serialize(NullValue.INSTANCE);
+
+        assertSameTransaction(transaction, (Transaction) legacy);
+        assertEquals('{', nullValue[0]);
+        assertInstanceOf(NullValue.class, serializer.deserialize(nullValue));
+    }
+
+    @Test
+    void testUnknownFormatVersionAndTruncatedValuesAreRejected() {
+        byte[] bytes = serializer.serialize(transaction(7));
+        byte[] futureVersion = bytes.clone();
+        futureVersion[0] = 2;
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(futureVersion));
+        assertThrows(SerializationException.class, () -> serializer.deserialize(truncated));
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.sardul3.io.api_best_practices_boot.hateoas.config;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.controllers.TransactionController;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+class LinkTemplateTest {
+
+    @BeforeEach
+    void bindRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v2/transactions");
+        request.setServerName("api.example.com");
+        request.setServerPort(8443);
+        request.setScheme("https");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void unbindRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testLinksMatchLinkTo() {
+        EntityModel<Transaction> model = HATEOASHelper.generateEntityLinks(new Transaction(), 42L);
+
+        Link self = linkTo(methodOn(TransactionController.class).getTransaction(42L, null)).withSelfRel();
+        Link edit = linkTo(methodOn(TransactionController.class).updateTransactionStatus(42L, null)).withRel("edit");
+        assertEquals(self.getHref(), model.getRequiredLink(IanaLinkRelations.SELF).getHref());
+        assertEquals(edit.getHref(), model.getRequiredLink("edit").getHref());
+        assertEquals(edit.isTemplated(), model.getRequiredLink("edit").isTemplated());
+        assertEquals(edit.getVariableNames(), model.getRequiredLink("edit").getVariableNames());
+    }
+
+    @Test
+    void testPathVariablesAreEncodedAndCounted() {
+        LinkTemplate template = new LinkTemplate("/accounts/{account}/transactions/{id:\\d+}", "");
+
+        assertEquals("https://api.example.com:8443/accounts/a%20b%2Fc/transactions/7", template.expand("a b/c", 7));
+        assertThrows(IllegalArgumentException.class, () -> template.expand(7));
+    }
+}
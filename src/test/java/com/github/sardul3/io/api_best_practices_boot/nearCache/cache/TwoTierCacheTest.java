@@ -0,0 +1,206 @@
+package com.github.sardul3.io.api_best_practices_boot.nearCache.cache;
+
+import com.github.sardul3.io.api_best_practices_boot.nearCache.invalidation.NearCacheInvalidationPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TwoTierCacheTest {
+
+    private ConcurrentMapCache remoteCache;
+    private SimpleMeterRegistry meterRegistry;
+    private TwoTierCache twoTierCache;
+
+    @Mock
+    private NearCacheInvalidationPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // A concurrent map stands in for the shared Redis tier
+        remoteCache = new ConcurrentMapCache("transactionCache");
+        meterRegistry = new SimpleMeterRegistry();
+        twoTierCache = new TwoTierCache(remoteCache, 100, Duration.ofMinutes(1), publisher, meterRegistry);
+    }
+
+    @Test
+    void testRemoteHitIsCopiedIntoLocalTier() {
+        remoteCache.put(1L, "tx-1");
+
+        assertEquals("tx-1", twoTierCache.get(1L).get());
+        // Change the remote tier behind our back, the local copy must now be served
+        remoteCache.put(1L, "tx-1-changed");
+        assertEquals("tx-1", twoTierCache.get(1L).get());
+
+        assertEquals(1.0, counter("l1", "hit"));
+        assertEquals(1.0, counter("l2", "hit"));
+    }
+
+    @Test
+    void testBypassReadsRemoteTierWhileTheLocalCopyIsStale() {
+        remoteCache.put(1L, "tx-1");
+        twoTierCache.get(1L);
+        // Another node wrote, its broadcast has not arrived yet
+        remoteCache.put(1L, "tx-1-changed");
+
+        assertEquals("tx-1-changed", NearCacheBypass.call(() -> twoTierCache.get(1L).get()));
+        assertEquals("tx-1-changed", NearCacheBypass.call(() -> twoTierCache.get(1L, () -> "loaded")));
+        assertFalse(NearCacheBypass.isActive());
+
+        assertEquals(0.0, counter("l1", "hit"));
+        assertEquals(2.0, counter("l2", "hit"));
+    }
+
+    @Test
+    void testPutWritesBothTiersAndBroadcasts() {
+        twoTierCache.put(2L, "tx-2");
+
+        assertEquals("tx-2", remoteCache.get(2L).get());
+        assertEquals("tx-2", twoTierCache.get(2L).get());
+        verify(publisher).publishEvict("transactionCache", List.of("2"));
+    }
+
+    @Test
+    void testEvictAndClearBroadcast() {
+        twoTierCache.put(3L, "tx-3");
+        twoTierCache.evict(3L);
+
+        assertNull(remoteCache.get(3L));
+        assertNull(twoTierCache.get(3L));
+        verify(publisher, times(2)).publishEvict("transactionCache", List.of("3"));
+
+        twoTierCache.clear();
+        verify(publisher).publishClear("transactionCache");
+    }
+
+    @Test
+    void testEvictLocalOnlyDropsLocalCopy() {
+        twoTierCache.put(4L, "tx-4");
+        remoteCache.put(4L, "tx-4-from-other-node");
+
+        twoTierCache.evictLocal(List.of("4"));
+
+        // The next read goes back to the shared tier and picks up the other node's value
+        assertEquals("tx-4-from-other-node", twoTierCache.get(4L).get());
+        verify(publisher, times(1)).publishEvict(anyString(), anyCollection());
+    }
+
+    @Test
+    void testMissOnBothTiers() {
+        assertNull(twoTierCache.get(5L));
+
+        assertEquals(1.0, counter("l1", "miss"));
+        assertEquals(1.0, counter("l2", "miss"));
+    }
+
+    @Test
+    void testFillAfterMissIsNotBroadcast() {
+        Set<List<String>> enclosing = MissFills.open();
+        try {
+            assertNull(twoTierCache.get(6L));
+            twoTierCache.put(6L, "tx-6");
+
+            assertEquals("tx-6", twoTierCache.get(6L).get());
+            verify(publisher, never()).publishEvict(anyString(), anyCollection());
+
+            // A later put replaces the value the other nodes may hold
+            twoTierCache.put(6L, "tx-6-updated");
+            verify(publisher).publishEvict("transactionCache", List.of("6"));
+        } finally {
+            MissFills.close(enclosing);
+        }
+    }
+
+    @Test
+    void testMissOutsideACacheableCallIsNotRemembered() {
+        assertNull(twoTierCache.get(8L));
+        twoTierCache.put(8L, "tx-8");
+
+        verify(publisher).publishEvict("transactionCache", List.of("8"));
+    }
+
+    @Test
+    void testCachePutAfterAFailedOrVetoedLoadIsBroadcast() {
+        // The load of the @Cacheable call throws, or its result is excluded by unless: the call ends without a put
+        Set<List<String>> enclosing = MissFills.open();
+        try {
+            assertNull(twoTierCache.get(9L));
+        } finally {
+            MissFills.close(enclosing);
+        }
+
+        // A @CachePut on the same thread replaces what other nodes may have loaded since
+        twoTierCache.put(9L, "tx-9-updated");
+
+        verify(publisher).publishEvict("transactionCache", List.of("9"));
+    }
+
+    @Test
+    void testMissOfAnEnclosingCallSurvivesANestedOne() {
+        Set<List<String>> outer = MissFills.open();
+        try {
+            assertNull(twoTierCache.get(10L));
+            Set<List<String>> inner = MissFills.open();
+            try {
+                assertNull(twoTierCache.get(11L));
+            } finally {
+                MissFills.close(inner);
+            }
+
+            twoTierCache.put(10L, "tx-10");
+            twoTierCache.put(11L, "tx-11");
+
+            verify(publisher, never()).publishEvict("transactionCache", List.of("10"));
+            verify(publisher).publishEvict("transactionCache", List.of("11"));
+        } finally {
+            MissFills.close(outer);
+        }
+    }
+
+    @Test
+    void testInvalidationDuringRemoteReadIsNotLost() {
+        AtomicInteger reads = new AtomicInteger();
+        AtomicReference<TwoTierCache> cache = new AtomicReference<>();
+        // Another node changes the entry, and its invalidation arrives, while the old value is being read
+        ConcurrentMapCache racingRemote = new ConcurrentMapCache("transactionCache") {
+            @Override
+            public ValueWrapper get(Object key) {
+                ValueWrapper value = super.get(key);
+                if (reads.incrementAndGet() == 1) {
+                    super.put(key, "tx-7-changed");
+                    cache.get().evictLocal(List.of(String.valueOf(key)));
+                }
+                return value;
+            }
+        };
+        racingRemote.put(7L, "tx-7");
+        cache.set(new TwoTierCache(racingRemote, 100, Duration.ofMinutes(1), publisher, new SimpleMeterRegistry()));
+
+        assertEquals("tx-7", cache.get().get(7L).get());
+
+        // The stale value was not kept in the local tier
+        assertEquals("tx-7-changed", cache.get().get(7L).get());
+        assertEquals(2, reads.get());
+    }
+
+    private double counter(String tier, String result) {
+        return meterRegistry.get("near.cache.gets")
+                .tag("cache", "transactionCache")
+                .tag("tier", tier)
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+}
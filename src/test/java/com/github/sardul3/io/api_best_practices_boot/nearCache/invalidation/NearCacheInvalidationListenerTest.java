@@ -0,0 +1,62 @@
+package com.github.sardul3.io.api_best_practices_boot.nearCache.invalidation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sardul3.io.api_best_practices_boot.nearCache.cache.TwoTierCache;
+import com.github.sardul3.io.api_best_practices_boot.nearCache.cache.TwoTierCacheManager;
+import com.github.sardul3.io.api_best_practices_boot.responseCache.cache.ResponseCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+class NearCacheInvalidationListenerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private TwoTierCacheManager cacheManager;
+
+    @Mock
+    private TwoTierCache cache;
+
+    private NearCacheInvalidationListener listener;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(cacheManager.getTwoTierCache("transactionCache")).thenReturn(cache);
+        listener = new NearCacheInvalidationListener(cacheManager, objectMapper, "this-node");
+    }
+
+    @Test
+    void testInvalidationFromAnotherNodeDropsLocalEntries() throws Exception {
+        receive(new NearCacheInvalidationMessage("other-node", "transactionCache", List.of("1"), false));
+        receive(new NearCacheInvalidationMessage("other-node", "transactionCache", List.of(), true));
+
+        verify(cache).evictLocal(List.of("1"));
+        verify(cache).clearLocal();
+    }
+
+    @Test
+    void testOwnMessagesAreIgnored() throws Exception {
+        receive(new NearCacheInvalidationMessage("this-node", "transactionCache", List.of("1"), false));
+
+        verifyNoInteractions(cacheManager, cache);
+    }
+
+    @Test
+    void testResponseCacheClearsDoNotCreateANearCache() throws Exception {
+        receive(new NearCacheInvalidationMessage("other-node", ResponseCache.CACHE_NAME, List.of(), true));
+
+        verifyNoInteractions(cacheManager);
+    }
+
+    private void receive(NearCacheInvalidationMessage message) throws Exception {
+        listener.onMessage(new DefaultMessage(new byte[0], objectMapper.writeValueAsBytes(message)), null);
+    }
+}
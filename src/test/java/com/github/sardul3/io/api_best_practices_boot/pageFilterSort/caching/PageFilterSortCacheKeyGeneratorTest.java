@@ -0,0 +1,129 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.TransactionFilterPlanner;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.CountStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PageFilterSortCacheKeyGeneratorTest {
+
+    private static final Map<String, Class<?>> FIELDS = Map.of(
+            "fromAccount", String.class,
+            "toAccount", String.class,
+            "amount", Double.class,
+            "status", Transaction.Status.class);
+
+    private SimpleMeterRegistry meterRegistry;
+    private PageFilterSortCacheKeyGenerator keyGenerator;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        // The planner only needs the names and types of the attributes
+        EntityType<Transaction> entity = mock(EntityType.class);
+        when(entity.getSingularAttribute(anyString())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0);
+            Class<?> type = FIELDS.get(name);
+            if (type == null) {
+                throw new IllegalArgumentException(name);
+            }
+            SingularAttribute<Transaction, Object> attribute = mock(SingularAttribute.class);
+            when(attribute.getName()).thenReturn(name);
+            when(attribute.getJavaType()).thenReturn((Class<Object>) type);
+            return attribute;
+        });
+        Metamodel metamodel = mock(Metamodel.class);
+        when(metamodel.entity(Transaction.class)).thenReturn(entity);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getMetamodel()).thenReturn(metamodel);
+
+        meterRegistry = new SimpleMeterRegistry();
+        keyGenerator = new PageFilterSortCacheKeyGenerator(new TransactionFilterPlanner(entityManagerFactory),
+                meterRegistry, 2);
+    }
+
+    @Test
+    void testFilterOrderDoesNotChangeTheKey() {
+        Pageable pageable = PageRequest.of(0, 20);
+
+        assertEquals(
+                keyGenerator.generateKey(List.of(criteria("status", ":", "COMPLETED"), criteria("fromAccount", ":", "A")), pageable),
+                keyGenerator.generateKey(List.of(criteria("fromAccount", ":", "A"), criteria("status", ":", "COMPLETED")), pageable));
+    }
+
+    @Test
+    void testEquivalentValuesAndDuplicatesShareTheKey() {
+        Pageable pageable = PageRequest.of(0, 20);
+
+        assertEquals(
+                keyGenerator.generateKey(List.of(criteria("amount", ">", "100"), criteria("status", "in", "ON_HOLD,COMPLETED")), pageable),
+                keyGenerator.generateKey(List.of(criteria("amount", ">", "100.0"), criteria("status", "in", "COMPLETED,ON_HOLD,COMPLETED"),
+                        criteria("amount", ">", "1e2")), pageable));
+    }
+
+    @Test
+    void testPageSortAndCountStrategyChangeTheKey() {
+        List<FilterCriteria> filters = List.of(criteria("status", ":", "COMPLETED"));
+        String key = keyGenerator.generateKey(filters, PageRequest.of(0, 20));
+
+        assertNotEquals(key, keyGenerator.generateKey(filters, PageRequest.of(1, 20)));
+        assertNotEquals(key, keyGenerator.generateKey(filters, PageRequest.of(0, 20, Sort.by("amount"))));
+        assertNotEquals(key, keyGenerator.generateKey(filters, PageRequest.of(0, 20), CountStrategy.NONE));
+        assertEquals(key, keyGenerator.generateKey(filters, PageRequest.of(0, 20), CountStrategy.EXACT));
+    }
+
+    @Test
+    void testKeyLengthDoesNotGrowWithTheValues() {
+        Pageable pageable = PageRequest.of(0, 20);
+        String shortKey = keyGenerator.generateKey(List.of(criteria("fromAccount", ":", "A")), pageable);
+        String longKey = keyGenerator.generateKey(List.of(criteria("fromAccount", ":", "A".repeat(500))), pageable);
+
+        assertTrue(shortKey.startsWith("pfs:p0:s20:"));
+        assertEquals(shortKey.length(), longKey.length());
+        assertEquals("pfs:p0:s20:".length() + 32, shortKey.length());
+    }
+
+    @Test
+    void testFilterKeyIgnoresPageAndOrder() {
+        assertEquals("pfs-filters:none", keyGenerator.generateFilterKey(List.of()));
+        assertEquals(
+                keyGenerator.generateFilterKey(List.of(criteria("toAccount", "=", "B"), criteria("amount", "<", "5"))),
+                keyGenerator.generateFilterKey(List.of(criteria("amount", "<", "5.0"), criteria("toAccount", "=", "B"))));
+    }
+
+    @Test
+    void testLookupsAndMissesAreCountedPerShapeUpToTheLimit() {
+        keyGenerator.recordLookup(List.of(criteria("status", ":", "COMPLETED")));
+        keyGenerator.recordLookup(List.of(criteria("status", ":", "ON_HOLD")));
+        keyGenerator.recordMiss(List.of(criteria("status", ":", "ON_HOLD")));
+        keyGenerator.recordLookup(List.of());
+        // Beyond the two tagged shapes
+        keyGenerator.recordLookup(List.of(criteria("amount", ">", "1")));
+
+        assertEquals(2.0, meterRegistry.get("transactions.page.cache.lookups").tag("shape", "status:").counter().count());
+        assertEquals(1.0, meterRegistry.get("transactions.page.cache.misses").tag("shape", "status:").counter().count());
+        assertEquals(1.0, meterRegistry.get("transactions.page.cache.lookups").tag("shape", "none").counter().count());
+        assertEquals(1.0, meterRegistry.get("transactions.page.cache.lookups").tag("shape", "other").counter().count());
+    }
+
+    private static FilterCriteria criteria(String key, String operation, String value) {
+        return new FilterCriteria(key, operation, value);
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching;
+
+import com.github.sardul3.io.api_best_practices_boot.cachePolicy.config.CachePolicyProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TransactionCacheInvalidatorTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private PageFilterSortCacheIndex cacheIndex;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    private CachePolicyProperties cachePolicyProperties;
+    private TransactionCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        cachePolicyProperties = new CachePolicyProperties();
+        invalidator = new TransactionCacheInvalidator(stringRedisTemplate, cacheIndex, null, cacheManager,
+                cachePolicyProperties);
+    }
+
+    @Test
+    void testIndexTtlCoveringTheLongestCacheTtlIsAccepted() {
+        CachePolicyProperties.Policy policy = new CachePolicyProperties.Policy();
+        policy.setTtl(Duration.ofMinutes(10));
+        cachePolicyProperties.getPolicies().put("transactionsSummaryCache", policy);
+        when(cacheIndex.getIndexTtl()).thenReturn(Duration.ofMinutes(10));
+
+        assertDoesNotThrow(invalidator::checkIndexTtl);
+    }
+
+    @Test
+    void testIndexTtlShorterThanACacheTtlFailsStartup() {
+        CachePolicyProperties.Policy policy = new CachePolicyProperties.Policy();
+        policy.setTtl(Duration.ofMinutes(15));
+        cachePolicyProperties.getPolicies().put("transactionsCountCache", policy);
+        when(cacheIndex.getIndexTtl()).thenReturn(Duration.ofMinutes(10));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, invalidator::checkIndexTtl);
+        assertTrue(exception.getMessage().contains("transactionsCountCache"));
+    }
+
+    @Test
+    void testClearIndexesDropsTheIndexOfEveryIndexedCache() {
+        invalidator.clearIndexes();
+
+        for (String cacheName : TransactionCacheInvalidator.INDEXED_CACHES) {
+            verify(cacheIndex).clear(cacheName);
+        }
+        verifyNoInteractions(cacheManager);
+    }
+}
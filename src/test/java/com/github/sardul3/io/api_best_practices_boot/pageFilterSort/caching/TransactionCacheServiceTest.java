@@ -0,0 +1,176 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.columnar.ColumnarTransactionIndex;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.counting.TransactionCountService;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.CountStrategy;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.PaginatedTransaction;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.query.PreparedTransactionQueries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TransactionCacheServiceTest {
+
+    private static final List<FilterCriteria> NO_FILTERS = List.of();
+    private static final List<FilterCriteria> FILTERED = List.of(new FilterCriteria("fromAccount", ":", "UserA"));
+
+    @Mock
+    private PreparedTransactionQueries preparedQueries;
+
+    @Mock
+    private PageFilterSortCacheIndex cacheIndex;
+
+    @Mock
+    private TransactionCountService countService;
+
+    @Mock
+    private PageFilterSortCacheKeyGenerator keyGenerator;
+
+    @Mock
+    private ColumnarTransactionIndex columnarIndex;
+
+    @InjectMocks
+    private TransactionCacheService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testLastPageTotalIsExactWhateverTheCachedCount() {
+        Pageable pageable = PageRequest.of(2, 10);
+        slice(pageable, 3, false);
+        when(countService.cachedCount(FILTERED)).thenReturn(100L);
+
+        PaginatedTransaction page = service.getAllTransactionsWithCache(FILTERED, pageable, CountStrategy.CACHED);
+
+        assertEquals(23, page.getTotal());
+        assertEquals(CountStrategy.CACHED, page.getCountStrategy());
+    }
+
+    @Test
+    void testCachedCountIsUsedWhileItLeavesRoomForTheNextPage() {
+        Pageable pageable = PageRequest.of(1, 10);
+        slice(pageable, 10, true);
+        when(countService.cachedCount(FILTERED)).thenReturn(500L);
+
+        assertEquals(500, service.getAllTransactionsWithCache(FILTERED, pageable, CountStrategy.CACHED).getTotal());
+    }
+
+    @Test
+    void testStaleCachedCountIsRaisedAboveTheRowsSeen() {
+        // 20 rows seen and a next page exists, so a cached count of 15 is outdated
+        Pageable pageable = PageRequest.of(1, 10);
+        slice(pageable, 10, true);
+        when(countService.cachedCount(FILTERED)).thenReturn(15L);
+
+        assertEquals(21, service.getAllTransactionsWithCache(FILTERED, pageable, CountStrategy.CACHED).getTotal());
+    }
+
+    @Test
+    void testNoCountGivesOneMoreThanSeenWhileThereIsANextPage() {
+        Pageable pageable = PageRequest.of(0, 10);
+        slice(pageable, 10, true);
+
+        PaginatedTransaction page = service.getAllTransactionsWithCache(NO_FILTERS, pageable, CountStrategy.NONE);
+
+        assertEquals(11, page.getTotal());
+        assertEquals(CountStrategy.NONE, page.getCountStrategy());
+        verifyNoInteractions(countService);
+    }
+
+    @Test
+    void testEmptyPagePastTheEndKeepsWhatIsKnown() {
+        Pageable pageable = PageRequest.of(4, 10);
+        slice(pageable, 0, false);
+
+        assertEquals(40, service.getAllTransactionsWithCache(NO_FILTERS, pageable, CountStrategy.NONE).getTotal());
+
+        when(countService.cachedCount(FILTERED)).thenReturn(30L);
+        assertEquals(30, service.getAllTransactionsWithCache(FILTERED, pageable, CountStrategy.CACHED).getTotal());
+    }
+
+    @Test
+    void testEmptyFirstPageHasNoRows() {
+        Pageable pageable = PageRequest.of(0, 10);
+        slice(pageable, 0, false);
+        when(countService.cachedCount(FILTERED)).thenReturn(7L);
+
+        assertEquals(0, service.getAllTransactionsWithCache(FILTERED, pageable, CountStrategy.CACHED).getTotal());
+    }
+
+    @Test
+    void testEstimateIsOnlyUsedForUnfilteredReads() {
+        Pageable pageable = PageRequest.of(0, 10);
+        slice(pageable, 10, true);
+        when(countService.estimatedCount()).thenReturn(1_000L);
+        when(countService.cachedCount(FILTERED)).thenReturn(50L);
+
+        PaginatedTransaction unfiltered = service.getAllTransactionsWithCache(NO_FILTERS, pageable,
+                CountStrategy.ESTIMATED);
+        PaginatedTransaction filtered = service.getAllTransactionsWithCache(FILTERED, pageable,
+                CountStrategy.ESTIMATED);
+
+        assertEquals(1_000, unfiltered.getTotal());
+        assertEquals(CountStrategy.ESTIMATED, unfiltered.getCountStrategy());
+        assertEquals(50, filtered.getTotal());
+        assertEquals(CountStrategy.CACHED, filtered.getCountStrategy());
+    }
+
+    @Test
+    void testMissingEstimateFallsBackToCachedCount() {
+        Pageable pageable = PageRequest.of(0, 10);
+        slice(pageable, 10, true);
+        when(countService.estimatedCount()).thenReturn(null);
+        when(countService.cachedCount(NO_FILTERS)).thenReturn(64L);
+
+        PaginatedTransaction page = service.getAllTransactionsWithCache(NO_FILTERS, pageable, CountStrategy.ESTIMATED);
+
+        assertEquals(64, page.getTotal());
+        assertEquals(CountStrategy.CACHED, page.getCountStrategy());
+    }
+
+    @Test
+    void testColumnarReadsAreCountedExactly() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(columnarIndex.supports(NO_FILTERS, pageable)).thenReturn(true);
+        when(columnarIndex.findPage(NO_FILTERS, pageable))
+                .thenReturn(new PageImpl<>(transactions(10), pageable, 345));
+
+        PaginatedTransaction page = service.getAllTransactionsWithCache(NO_FILTERS, pageable, CountStrategy.NONE);
+
+        assertEquals(345, page.getTotal());
+        assertEquals(CountStrategy.EXACT, page.getCountStrategy());
+        verify(preparedQueries, never()).findSlice(any(), any());
+    }
+
+    private void slice(Pageable pageable, int rows, boolean hasNext) {
+        when(preparedQueries.findSlice(any(), eq(pageable))).thenReturn(new SliceImpl<>(transactions(rows), pageable, hasNext));
+    }
+
+    private static List<Transaction> transactions(int count) {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId((long) i);
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,158 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.columnar;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChange;
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChangedEvent;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ColumnarTransactionIndexTest {
+
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 10);
+
+    private EntityManager entityManager;
+    private TypedQuery<Transaction> query;
+    private DatabaseMetaData metaData;
+    private ColumnarTransactionIndex index;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        entityManager = mock(EntityManager.class);
+        query = mock(TypedQuery.class, RETURNS_SELF);
+        when(entityManager.createQuery(anyString(), eq(Transaction.class))).thenReturn(query);
+        metaData = mock(DatabaseMetaData.class);
+        when(metaData.nullsAreSortedLow()).thenReturn(true);
+        Connection connection = mock(Connection.class);
+        when(connection.getMetaData()).thenReturn(metaData);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+
+        ColumnarIndexProperties properties = new ColumnarIndexProperties();
+        properties.setEnabled(true);
+        properties.setLoadBatchSize(2);
+        properties.setRebuildInterval(Duration.ZERO);
+        index = new ColumnarTransactionIndex(entityManager, dataSource, properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+    }
+
+    @Test
+    void testLoadReadsTheTableInBatchesAfterTheLastId() {
+        when(query.getResultList())
+                .thenReturn(List.of(transaction(1L, 0L, Transaction.Status.COMPLETED), transaction(2L, 0L, Transaction.Status.COMPLETED)))
+                .thenReturn(List.of(transaction(3L, 0L, Transaction.Status.COMPLETED)));
+
+        assertFalse(index.supports(List.of(), FIRST_PAGE));
+        index.run(null);
+
+        assertTrue(index.supports(List.of(), FIRST_PAGE));
+        assertEquals(List.of(1L, 2L, 3L), ids(index.findPage(List.of(), FIRST_PAGE)));
+        verify(query).setParameter("after", Long.MIN_VALUE);
+        verify(query).setParameter("after", 2L);
+        verify(query, times(2)).getResultList();
+    }
+
+    @Test
+    void testWritesMadeDuringTheLoadAreReplayedOntoIt() {
+        when(query.getResultList()).thenAnswer(invocation -> {
+            // Committed while the first batch was being read, the batch still holds the old state
+            index.onTransactionChanged(new TransactionChangedEvent(List.of(
+                    TransactionChange.updated(transaction(1L, 0L, Transaction.Status.COMPLETED),
+                            transaction(1L, 1L, Transaction.Status.BLOCKED)),
+                    TransactionChange.deleted(transaction(2L, 0L, Transaction.Status.COMPLETED)),
+                    TransactionChange.created(transaction(5L, 0L, Transaction.Status.ON_HOLD)))));
+            return List.of(transaction(1L, 0L, Transaction.Status.COMPLETED));
+        });
+
+        index.run(null);
+
+        Page<Transaction> page = index.findPage(List.of(), FIRST_PAGE);
+        assertEquals(List.of(1L, 5L), ids(page));
+        assertEquals(Transaction.Status.BLOCKED, page.getContent().getFirst().getStatus());
+    }
+
+    @Test
+    void testResetDuringTheLoadDiscardsTheRowsReadBeforeIt() {
+        when(query.getResultList()).thenAnswer(invocation -> {
+            index.reset();
+            index.onTransactionChanged(TransactionChangedEvent.of(
+                    TransactionChange.created(transaction(7L, 0L, Transaction.Status.COMPLETED))));
+            return List.of(transaction(1L, 0L, Transaction.Status.COMPLETED));
+        });
+
+        index.run(null);
+
+        assertEquals(List.of(7L), ids(index.findPage(List.of(), FIRST_PAGE)));
+    }
+
+    @Test
+    void testResetEmptiesTheLoadedIndexAndWritesApplyAfterwards() {
+        when(query.getResultList()).thenReturn(List.of(transaction(1L, 0L, Transaction.Status.COMPLETED)));
+        index.run(null);
+
+        index.reset();
+        assertEquals(0, index.findPage(List.of(), FIRST_PAGE).getTotalElements());
+
+        index.onTransactionChanged(TransactionChangedEvent.of(
+                TransactionChange.created(transaction(8L, 0L, Transaction.Status.COMPLETED))));
+        assertEquals(List.of(8L), ids(index.findPage(List.of(), FIRST_PAGE)));
+    }
+
+    @Test
+    void testFailedLoadLeavesReadsOnTheDatabase() {
+        when(query.getResultList()).thenThrow(new IllegalStateException("connection refused"));
+
+        index.run(null);
+
+        assertFalse(index.supports(List.of(), FIRST_PAGE));
+        assertThrows(IllegalStateException.class, () -> index.findPage(List.of(), FIRST_PAGE));
+    }
+
+    @Test
+    void testAmountSortsFollowTheNullOrderingOfTheDatabase() throws Exception {
+        PageRequest byAmount = PageRequest.of(0, 10, Sort.by("amount"));
+        when(query.getResultList()).thenReturn(List.of());
+        when(metaData.nullsAreSortedLow()).thenReturn(false);
+
+        index.run(null);
+
+        assertFalse(index.supports(List.of(), byAmount));
+        assertTrue(index.supports(List.of(), PageRequest.of(0, 10, Sort.by(Sort.Order.asc("amount").nullsLast()))));
+    }
+
+    private static List<Long> ids(Page<Transaction> page) {
+        return page.getContent().stream().map(Transaction::getTransactionId).toList();
+    }
+
+    private static Transaction transaction(Long id, Long version, Transaction.Status status) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(id);
+        transaction.setFromAccount("User A");
+        transaction.setToAccount("User B");
+        transaction.setAmount(100.0);
+        transaction.setStatus(status);
+        transaction.setVersion(version);
+        return transaction;
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.columnar;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterParser;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.InvalidFilterException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionColumnsTest {
+
+    private TransactionColumns columns;
+
+    @BeforeEach
+    void setUp() {
+        columns = new TransactionColumns(TransactionColumns.NullOrdering.LOW);
+        columns.upsert(transaction(1L, "User A", "User B", 100.0, Transaction.Status.COMPLETED));
+        columns.upsert(transaction(2L, "User A", "User C", 900.0, Transaction.Status.ON_HOLD));
+        columns.upsert(transaction(3L, "User B", "User A", 1000.0, Transaction.Status.COMPLETED));
+        columns.upsert(transaction(4L, "User C", null, null, null));
+    }
+
+    @Test
+    void testCriteriaAreIntersected() {
+        Page<Transaction> page = columns.query(List.of(
+                new FilterCriteria("fromAccount", ":", "User A"),
+                new FilterCriteria("status", "=", "COMPLETED")), PageRequest.of(0, 10));
+
+        assertEquals(List.of(1L), ids(page));
+        assertEquals(1, page.getTotalElements());
+    }
+
+    @Test
+    void testAmountsCompareAsNumbersAndNullsNeverMatch() {
+        assertEquals(List.of(3L), ids(columns.query(List.of(new FilterCriteria("amount", "gt", "900")), PageRequest.of(0, 10))));
+        assertEquals(List.of(1L, 3L), ids(columns.query(List.of(new FilterCriteria("amount", "!=", "900")), PageRequest.of(0, 10))));
+        assertEquals(List.of(1L, 3L), ids(columns.query(
+                List.of(new FilterCriteria("status", "!=", "ON_HOLD")), PageRequest.of(0, 10))));
+    }
+
+    @Test
+    void testInBetweenAndAlternatives() {
+        assertEquals(List.of(1L, 2L), ids(columns.query(FilterParser.parse("toAccount in ('User B','User C')"), PageRequest.of(0, 10))));
+        assertEquals(List.of(1L, 2L), ids(columns.query(FilterParser.parse("amount between 100 and 900"), PageRequest.of(0, 10))));
+        assertEquals(List.of(2L, 4L), ids(columns.query(
+                FilterParser.parse("status=ON_HOLD or fromAccount:'User C'"), PageRequest.of(0, 10))));
+    }
+
+    @Test
+    void testSortedPagesUseTheWholeResult() {
+        PageRequest byAmount = PageRequest.of(0, 2, Sort.by(Sort.Order.desc("amount")));
+
+        Page<Transaction> first = columns.query(List.of(), byAmount);
+        Page<Transaction> second = columns.query(List.of(), byAmount.next());
+
+        // Nulls sort low, so they come last in descending order
+        assertEquals(List.of(3L, 2L), ids(first));
+        assertEquals(List.of(1L, 4L), ids(second));
+        assertEquals(4, second.getTotalElements());
+    }
+
+    @Test
+    void testNullsFollowTheDatabaseUnlessTheSortSays() {
+        TransactionColumns high = new TransactionColumns(TransactionColumns.NullOrdering.HIGH);
+        high.upsert(transaction(1L, "User A", "User B", 100.0, Transaction.Status.COMPLETED));
+        high.upsert(transaction(2L, "User A", "User C", null, Transaction.Status.COMPLETED));
+        high.upsert(transaction(3L, "User B", "User A", 50.0, Transaction.Status.COMPLETED));
+
+        assertEquals(List.of(3L, 1L, 2L), ids(high.query(List.of(), PageRequest.of(0, 10, Sort.by("amount")))));
+        assertEquals(List.of(2L, 1L, 3L), ids(high.query(List.of(), PageRequest.of(0, 10, Sort.by(Sort.Order.desc("amount"))))));
+        assertEquals(List.of(2L, 3L, 1L), ids(high.query(List.of(),
+                PageRequest.of(0, 10, Sort.by(Sort.Order.asc("amount").nullsFirst())))));
+    }
+
+    @Test
+    void testUpdatesDeletesAndOutOfOrderInserts() {
+        columns.upsert(transaction(2L, "User A", "User C", 900.0, Transaction.Status.COMPLETED));
+        columns.remove(3L);
+        columns.upsert(transaction(0L, "User D", "User A", 5.0, Transaction.Status.COMPLETED));
+
+        assertEquals(List.of(0L, 1L, 2L), ids(columns.query(
+                List.of(new FilterCriteria("status", "=", "COMPLETED")), PageRequest.of(0, 10))));
+        assertEquals(4, columns.size());
+    }
+
+    @Test
+    void testStaleVersionIsIgnored() {
+        Transaction newer = transaction(1L, "User A", "User B", 100.0, Transaction.Status.BLOCKED);
+        newer.setVersion(2L);
+        columns.upsert(newer);
+        Transaction older = transaction(1L, "User A", "User B", 100.0, Transaction.Status.COMPLETED);
+        older.setVersion(1L);
+        columns.upsert(older);
+
+        assertEquals(Transaction.Status.BLOCKED,
+                columns.query(List.of(new FilterCriteria("transactionId", "=", "1")), PageRequest.of(0, 1)).getContent().getFirst().getStatus());
+    }
+
+    @Test
+    void testUnsupportedQueriesAreReported() {
+        assertTrue(columns.supports(List.of(new FilterCriteria("fromAccount", "=", "A")), Sort.by("amount")));
+        assertFalse(columns.supports(List.of(new FilterCriteria("fromAccount", ">", "A")), Sort.unsorted()));
+        assertFalse(columns.supports(List.of(new FilterCriteria("updatedAt", "=", "x")), Sort.unsorted()));
+    }
+
+    @Test
+    void testTextSortsAreLeftToTheDatabase() {
+        // Their order depends on the collation, e.g. whether 'user b' sorts before 'User C'
+        assertFalse(columns.supports(List.of(), Sort.by("fromAccount")));
+        assertFalse(columns.supports(List.of(), Sort.by("toAccount")));
+        assertFalse(columns.supports(List.of(), Sort.by("status")));
+    }
+
+    @Test
+    void testAmountSortsNeedAKnownNullOrdering() {
+        TransactionColumns unknown = new TransactionColumns(TransactionColumns.NullOrdering.UNKNOWN);
+
+        assertFalse(unknown.supports(List.of(), Sort.by("amount")));
+        assertTrue(unknown.supports(List.of(), Sort.by(Sort.Order.desc("amount").nullsLast())));
+        assertTrue(unknown.supports(List.of(), Sort.by("transactionId")));
+    }
+
+    @Test
+    void testInvalidValueIsRejected() {
+        assertThrows(InvalidFilterException.class,
+                () -> columns.query(List.of(new FilterCriteria("amount", ">", "abc")), PageRequest.of(0, 10)));
+    }
+
+    private static List<Long> ids(Page<Transaction> page) {
+        return page.getContent().stream().map(Transaction::getTransactionId).toList();
+    }
+
+    private static Transaction transaction(Long id, String from, String to, Double amount, Transaction.Status status) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(id);
+        transaction.setFromAccount(from);
+        transaction.setToAccount(to);
+        transaction.setAmount(amount);
+        transaction.setStatus(status);
+        return transaction;
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportFormatTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static Transaction transaction(Long id, String from, String to) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(id);
+        transaction.setFromAccount(from);
+        transaction.setToAccount(to);
+        transaction.setAmount(12.5);
+        transaction.setStatus(Transaction.Status.COMPLETED);
+        return transaction;
+    }
+
+    private String export(ExportFormat format, Transaction... transactions) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TransactionRowWriter writer = format.open(out, objectMapper);
+        for (Transaction transaction : transactions) {
+            writer.write(transaction);
+        }
+        assertEquals(0, out.size(), "nothing should reach the stream before a flush");
+        writer.flush();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testNdjsonWritesOneObjectPerLine() throws Exception {
+        String output = export(ExportFormat.NDJSON, transaction(1L, "A", "B"), transaction(2L, "C", "D"));
+
+        String[] lines = output.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(output.endsWith("\n"));
+        assertEquals(2L, objectMapper.readTree(lines[1]).get("transactionId").asLong());
+        assertEquals("C", objectMapper.readTree(lines[1]).get("fromAccount").asText());
+    }
+
+    @Test
+    void testCsvQuotesFieldsThatNeedIt() throws Exception {
+        String output = export(ExportFormat.CSV, transaction(1L, "Acme, Inc.", "say \"hi\""), transaction(2L, null, "B"));
+
+        assertEquals(CsvRowWriter.HEADER + "\r\n"
+                + "1,\"Acme, Inc.\",\"say \"\"hi\"\"\",12.5,COMPLETED,,\r\n"
+                + "2,,B,12.5,COMPLETED,,\r\n", output);
+    }
+
+    @Test
+    void testEmptyCsvExportHasHeader() throws Exception {
+        assertEquals(CsvRowWriter.HEADER + "\r\n", export(ExportFormat.CSV));
+    }
+
+    @Test
+    void testFormatNamesAreCaseInsensitive() {
+        assertEquals(ExportFormat.CSV, ExportFormat.fromName("csv"));
+        assertEquals(ExportFormat.NDJSON, ExportFormat.fromName("NDJSON"));
+        assertNull(ExportFormat.fromName("xml"));
+    }
+}
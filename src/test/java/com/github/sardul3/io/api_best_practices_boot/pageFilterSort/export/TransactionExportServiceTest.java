@@ -0,0 +1,96 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.eTags.repos.TransactionRepository;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.TransactionFilterPlanner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TransactionExportServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionFilterPlanner filterPlanner;
+
+    private TransactionExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        exportService = new TransactionExportService(transactionRepository, new ObjectMapper(), filterPlanner);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testOutputIsFlushedAfterEveryBatch() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Integer> flushedLines = new ArrayList<>();
+        // Two full batches of two rows, then a single row
+        when(transactionRepository.scrollAll(any(), anyInt(), any(), any())).thenAnswer(invocation -> {
+            Consumer<Transaction> consumer = invocation.getArgument(2);
+            Runnable batchEnd = invocation.getArgument(3);
+            for (long id = 1; id <= 5; id++) {
+                consumer.accept(transaction(id));
+                if (id % 2 == 0) {
+                    batchEnd.run();
+                    flushedLines.add(lines(out));
+                }
+            }
+            return 5L;
+        });
+
+        assertEquals(5, exportService.export(List.of(), ExportFormat.NDJSON, out));
+
+        assertEquals(List.of(2, 4), flushedLines);
+        assertEquals(5, lines(out));
+    }
+
+    @Test
+    void testFailedFlushFailsTheExport() throws Exception {
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("client disconnected");
+            }
+        };
+        when(transactionRepository.scrollAll(any(), anyInt(), any(), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<Transaction>>getArgument(2).accept(transaction(1L));
+            invocation.<Runnable>getArgument(3).run();
+            return 1L;
+        });
+
+        IOException exception = assertThrows(IOException.class,
+                () -> exportService.export(List.of(), ExportFormat.NDJSON, out));
+        assertEquals("client disconnected", exception.getMessage());
+    }
+
+    private static int lines(ByteArrayOutputStream out) {
+        return (int) out.toString().chars().filter(c -> c == '\n').count();
+    }
+
+    private static Transaction transaction(Long id) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(id);
+        transaction.setFromAccount("A");
+        transaction.setToAccount("B");
+        transaction.setAmount(12.5);
+        transaction.setStatus(Transaction.Status.COMPLETED);
+        return transaction;
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilterCriteriaMatcherTest {
+
+    private static Transaction transaction(String from, String to, double amount, Transaction.Status status) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(7L);
+        transaction.setFromAccount(from);
+        transaction.setToAccount(to);
+        transaction.setAmount(amount);
+        transaction.setStatus(status);
+        return transaction;
+    }
+
+    @Test
+    void testNoFiltersMatchEverything() {
+        assertTrue(FilterCriteriaMatcher.couldMatch(List.of(), transaction("UserA", "UserB", 10.0, Transaction.Status.ON_HOLD)));
+    }
+
+    @Test
+    void testAccountFilterIsSubstringMatch() {
+        Transaction transaction = transaction("UserA", "UserB", 10.0, Transaction.Status.ON_HOLD);
+
+        assertTrue(FilterCriteriaMatcher.couldMatch(List.of(new FilterCriteria("fromAccount", ":", "serA")), transaction));
+        assertFalse(FilterCriteriaMatcher.couldMatch(List.of(new FilterCriteria("fromAccount", ":", "UserC")), transaction));
+    }
+
+    @Test
+    void testAmountRangesAreInclusiveAndNumeric() {
+        Transaction transaction = transaction("UserA", "UserB", 100.0, Transaction.Status.ON_HOLD);
+
+        assertTrue(FilterCriteriaMatcher.couldMatch(List.of(new FilterCriteria("amount", ">", "100")), transaction));
+        assertTrue(FilterCriteriaMatcher.couldMatch(List.of(new FilterCriteria("amount", "<", "100.0")), transaction));
+        // A string comparison would consider "100.0" < "99"
+        assertFalse(FilterCriteriaMatcher.couldMatch(List.of(new FilterCriteria("amount", "<", "99")), transaction));
+    }
+
+    @Test
+    void testAllCriteriaMustMatch() {
+        Transaction transaction = transaction("UserA", "UserB", 100.0, Transaction.Status.COMPLETED);
+
+        assertFalse(FilterCriteriaMatcher.couldMatch(List.of(
+                new FilterCriteria("fromAccount", ":", "UserA"),
+                new FilterCriteria("status", ":", "ON_HOLD")), transaction));
+        assertTrue(FilterCriteriaMatcher.couldMatch(List.of(
+                new FilterCriteria("fromAccount", ":", "UserA"),
+                new FilterCriteria("status", ":", "COMPLETED")), transaction));
+    }
+
+    @Test
+    void testUninterpretableCriteriaAreTreatedAsMatching() {
+        Transaction transaction = transaction("UserA", "UserB", 100.0, Transaction.Status.COMPLETED);
+
+        assertTrue(FilterCriteriaMatcher.couldMatch(List.of(new FilterCriteria("unknownField", ":", "x")), transaction));
+        assertTrue(FilterCriteriaMatcher.couldMatch(List.of(new FilterCriteria("amount", ">", "not-a-number")), transaction));
+    }
+
+    @Test
+    void testParsedExpressionsMatchWithTheirOperators() {
+        Transaction transaction = transaction("UserA", "UserB", 100.0, Transaction.Status.COMPLETED);
+
+        assertFalse(FilterCriteriaMatcher.couldMatch(FilterParser.parse("amount>100"), transaction));
+        assertTrue(FilterCriteriaMatcher.couldMatch(FilterParser.parse("amount between 50 and 100"), transaction));
+        assertTrue(FilterCriteriaMatcher.couldMatch(FilterParser.parse("status in (ON_HOLD,COMPLETED)"), transaction));
+        assertFalse(FilterCriteriaMatcher.couldMatch(FilterParser.parse("status!=COMPLETED"), transaction));
+        assertTrue(FilterCriteriaMatcher.couldMatch(FilterParser.parse("status=FLAGGED or fromAccount=UserA"), transaction));
+        assertFalse(FilterCriteriaMatcher.couldMatch(FilterParser.parse("status=FLAGGED or (fromAccount=UserA and amount<100)"), transaction));
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilterParserTest {
+
+    private static void assertCriteria(FilterCriteria criteria, String key, String operation, String value) {
+        assertEquals(key, criteria.getKey());
+        assertEquals(operation, criteria.getOperation());
+        assertEquals(value, criteria.getValue());
+    }
+
+    @Test
+    void testConjunctionBecomesFlatCriteria() {
+        List<FilterCriteria> filters = FilterParser.parse("amount>=100 AND status in (COMPLETED, ON_HOLD) and fromAccount:'User A'");
+
+        assertEquals(3, filters.size());
+        assertCriteria(filters.get(0), "amount", ">", "100");
+        assertCriteria(filters.get(1), "status", "in", "COMPLETED,ON_HOLD");
+        assertCriteria(filters.get(2), "fromAccount", ":", "User A");
+    }
+
+    @Test
+    void testStrictComparisonsHaveTheirOwnCodes() {
+        List<FilterCriteria> filters = FilterParser.parse("amount>100 and amount<200 and amount!=150");
+
+        assertCriteria(filters.get(0), "amount", "gt", "100");
+        assertCriteria(filters.get(1), "amount", "lt", "200");
+        assertCriteria(filters.get(2), "amount", "!=", "150");
+    }
+
+    @Test
+    void testAlternativesBecomeOneCriteria() {
+        List<FilterCriteria> filters = FilterParser.parse("status=FLAGGED or (amount between 10 and 20 and toAccount:'a b')");
+
+        assertEquals(1, filters.size());
+        assertCriteria(filters.getFirst(), "", "or", "status=FLAGGED or (amount between 10 and 20 and toAccount:'a b')");
+
+        List<List<FilterCriteria>> alternatives = FilterParser.alternatives(filters.getFirst().getValue().toString());
+        assertEquals(2, alternatives.size());
+        assertCriteria(alternatives.get(0).getFirst(), "status", "=", "FLAGGED");
+        assertCriteria(alternatives.get(1).get(0), "amount", "between", "10,20");
+        assertCriteria(alternatives.get(1).get(1), "toAccount", ":", "a b");
+    }
+
+    @Test
+    void testListsRoundTripThroughQuoting() {
+        List<String> values = List.of("a b", "it's", "x,y", "");
+
+        assertEquals("'a b','it''s','x,y',''", FilterParser.joinList(values));
+        assertEquals(values, FilterParser.splitList(FilterParser.joinList(values)));
+    }
+
+    @Test
+    void testMalformedExpressionsAreRejected() {
+        assertThrows(InvalidFilterException.class, () -> FilterParser.parse("amount>"));
+        assertThrows(InvalidFilterException.class, () -> FilterParser.parse("amount in (1,2"));
+        assertThrows(InvalidFilterException.class, () -> FilterParser.parse("(status=FLAGGED"));
+        assertThrows(InvalidFilterException.class, () -> FilterParser.parse("status=FLAGGED extra"));
+        assertThrows(InvalidFilterException.class, () -> FilterParser.parse("amount=1 or ".repeat(200) + "amount=1"));
+    }
+}
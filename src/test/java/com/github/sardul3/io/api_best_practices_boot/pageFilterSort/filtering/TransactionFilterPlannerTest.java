@@ -0,0 +1,150 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.TransactionFilterPlanner.PreparedFilter;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class TransactionFilterPlannerTest {
+
+    private static final Map<String, Class<?>> FIELDS = Map.of(
+            "fromAccount", String.class,
+            "toAccount", String.class,
+            "amount", Double.class,
+            "status", Transaction.Status.class);
+    private static final Pattern PARAMETER = Pattern.compile("\\?(\\d+)");
+    private static final String ESCAPE = " escape '" + TransactionSpecification.LIKE_ESCAPE + "'";
+
+    private TransactionFilterPlanner planner;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        // The planner only needs the names and types of the attributes
+        EntityType<Transaction> entity = mock(EntityType.class);
+        when(entity.getSingularAttribute(anyString())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0);
+            Class<?> type = FIELDS.get(name);
+            if (type == null) {
+                throw new IllegalArgumentException(name);
+            }
+            SingularAttribute<Transaction, Object> attribute = mock(SingularAttribute.class);
+            when(attribute.getName()).thenReturn(name);
+            when(attribute.getJavaType()).thenReturn((Class<Object>) type);
+            return attribute;
+        });
+        Metamodel metamodel = mock(Metamodel.class);
+        when(metamodel.entity(Transaction.class)).thenReturn(entity);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getMetamodel()).thenReturn(metamodel);
+        planner = new TransactionFilterPlanner(entityManagerFactory);
+    }
+
+    @Test
+    void testComparisonsAreRenderedWithTypedParameters() {
+        PreparedFilter filter = planner.prepare(List.of(
+                new FilterCriteria("amount", ">", "100"),
+                new FilterCriteria("status", "!=", "FLAGGED")));
+
+        assertEquals("(t.amount >= ?1 and t.status <> ?2)", filter.condition("t"));
+        assertEquals(List.of(100.0, Transaction.Status.FLAGGED), filter.getParameters());
+        assertParametersMatch(filter);
+    }
+
+    @Test
+    void testBetweenTakesTwoParametersAndNumberingContinuesAfterIt() {
+        PreparedFilter filter = planner.prepare(List.of(
+                new FilterCriteria("amount", "between", "10,20"),
+                new FilterCriteria("status", "=", "COMPLETED")));
+
+        assertEquals("(t.amount between ?1 and ?2 and t.status = ?3)", filter.condition("t"));
+        assertEquals(List.of(10.0, 20.0, Transaction.Status.COMPLETED), filter.getParameters());
+        assertParametersMatch(filter);
+    }
+
+    @Test
+    void testInListIsOneCollectionParameter() {
+        PreparedFilter filter = planner.prepare(List.of(new FilterCriteria("status", "in", "COMPLETED,ON_HOLD")));
+
+        assertEquals("t.status in (?1)", filter.condition("t"));
+        assertEquals(List.of(List.of(Transaction.Status.COMPLETED, Transaction.Status.ON_HOLD)), filter.getParameters());
+        assertParametersMatch(filter);
+    }
+
+    @Test
+    void testContainsOnTextIsAnEscapedLike() {
+        PreparedFilter filter = planner.prepare(List.of(new FilterCriteria("fromAccount", ":", "50%_off")));
+
+        assertEquals("t.fromAccount like ?1" + ESCAPE, filter.condition("t"));
+        assertEquals(List.of("%" + TransactionSpecification.escapeLike("50%_off") + "%"), filter.getParameters());
+    }
+
+    @Test
+    void testAlternativesNumberTheirParametersInOrder() {
+        List<FilterCriteria> filters = List.of(
+                FilterParser.parse("status=FLAGGED or (amount between 10 and 20 and toAccount:'a b')").getFirst(),
+                new FilterCriteria("fromAccount", ":", "A"));
+
+        PreparedFilter filter = planner.prepare(filters);
+
+        assertEquals("((t.status = ?1 or (t.amount between ?2 and ?3 and t.toAccount like ?4" + ESCAPE + "))"
+                + " and t.fromAccount like ?5" + ESCAPE + ")", filter.condition("t"));
+        assertEquals(List.of(Transaction.Status.FLAGGED, 10.0, 20.0, "%a b%", "%A%"), filter.getParameters());
+        assertParametersMatch(filter);
+    }
+
+    @Test
+    void testSameShapeSharesTheConditionText() {
+        PreparedFilter first = planner.prepare(List.of(new FilterCriteria("amount", "between", "1,2")));
+        PreparedFilter second = planner.prepare(List.of(new FilterCriteria("amount", "between", "300,400")));
+
+        assertEquals(first.getShape(), second.getShape());
+        assertEquals(first.condition("t"), second.condition("t"));
+        assertNotEquals(first.getParameters(), second.getParameters());
+    }
+
+    @Test
+    void testNoCriteriaHaveNoCondition() {
+        PreparedFilter filter = planner.prepare(List.of());
+
+        assertNull(filter.condition("t"));
+        assertEquals("", filter.getShape());
+        assertTrue(filter.getParameters().isEmpty());
+    }
+
+    @Test
+    void testInvalidCriteriaAreRejected() {
+        assertThrows(InvalidFilterException.class,
+                () -> planner.prepare(List.of(new FilterCriteria("date", "=", "2024-01-01"))));
+        assertThrows(InvalidFilterException.class,
+                () -> planner.prepare(List.of(new FilterCriteria("amount", "between", "10"))));
+        assertThrows(InvalidFilterException.class,
+                () -> planner.prepare(List.of(new FilterCriteria("amount", "=", "lots"))));
+    }
+
+    // Every parameter is referenced, exactly the numbers 1..n are used
+    private static void assertParametersMatch(PreparedFilter filter) {
+        TreeSet<Integer> numbers = new TreeSet<>();
+        Matcher matcher = PARAMETER.matcher(filter.condition("t"));
+        while (matcher.find()) {
+            numbers.add(Integer.parseInt(matcher.group(1)));
+        }
+        assertEquals(filter.getParameters().size(), numbers.size());
+        assertEquals(1, numbers.first());
+        assertEquals(filter.getParameters().size(), numbers.last());
+    }
+}
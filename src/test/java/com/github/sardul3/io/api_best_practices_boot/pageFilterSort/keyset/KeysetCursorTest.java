@@ -0,0 +1,52 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.keyset;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    @Test
+    void testNormalizeAppendsIdTieBreaker() {
+        assertEquals(Sort.by(Sort.Order.desc("amount"), Sort.Order.desc("transactionId")),
+                KeysetCursor.normalize(Sort.by(Sort.Order.desc("amount"))));
+        assertEquals(Sort.by("transactionId"), KeysetCursor.normalize(Sort.unsorted()));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.normalize(Sort.by("unknown")));
+    }
+
+    @Test
+    void testTokenRoundTripRestoresTypedKeys() {
+        Sort sort = KeysetCursor.normalize(Sort.by(Sort.Order.desc("amount")));
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("amount", 12.5);
+        keys.put("transactionId", 42L);
+
+        String token = KeysetCursor.encode(sort, ScrollPosition.forward(keys));
+        KeysetScrollPosition position = (KeysetScrollPosition) KeysetCursor.decode(token, sort);
+
+        assertEquals(keys, position.getKeys());
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void testEmptyTokenStartsAtTheBeginning() {
+        assertTrue(KeysetCursor.decode("", Sort.by("transactionId")).isInitial());
+    }
+
+    @Test
+    void testTokenOfAnotherSortOrMalformedTokenIsRejected() {
+        Sort sort = KeysetCursor.normalize(Sort.by(Sort.Order.desc("amount")));
+        String token = KeysetCursor.encode(sort, ScrollPosition.forward(Map.of("amount", 1.0, "transactionId", 1L)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> KeysetCursor.decode(token, KeysetCursor.normalize(Sort.by("amount"))));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not a token", sort));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("MQ", sort));
+    }
+}
@@ -0,0 +1,155 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.query;
+
+import com.github.sardul3.io.api_best_practices_boot.eTags.models.Transaction;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.InvalidFilterException;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.TransactionFilterPlanner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PreparedTransactionQueriesTest {
+
+    private static final Map<String, Class<?>> FIELDS = Map.of(
+            "transactionId", Long.class,
+            "fromAccount", String.class,
+            "toAccount", String.class,
+            "amount", Double.class,
+            "status", Transaction.Status.class);
+    private static final List<FilterCriteria> AMOUNT_AT_LEAST = List.of(new FilterCriteria("amount", ">", "100"));
+
+    private EntityManager entityManager;
+    private TypedQuery<Transaction> select;
+    private TypedQuery<Long> count;
+    private PreparedTransactionQueries queries;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        EntityType<Transaction> entity = mock(EntityType.class);
+        when(entity.getSingularAttribute(anyString())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0);
+            Class<?> type = FIELDS.get(name);
+            if (type == null) {
+                throw new IllegalArgumentException(name);
+            }
+            SingularAttribute<Transaction, Object> attribute = mock(SingularAttribute.class);
+            when(attribute.getName()).thenReturn(name);
+            when(attribute.getJavaType()).thenReturn((Class<Object>) type);
+            return attribute;
+        });
+        Metamodel metamodel = mock(Metamodel.class);
+        when(metamodel.entity(Transaction.class)).thenReturn(entity);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getMetamodel()).thenReturn(metamodel);
+
+        entityManager = mock(EntityManager.class);
+        when(entityManager.getMetamodel()).thenReturn(metamodel);
+        select = mock(TypedQuery.class, RETURNS_SELF);
+        count = mock(TypedQuery.class, RETURNS_SELF);
+        when(entityManager.createQuery(anyString(), eq(Transaction.class))).thenReturn(select);
+        when(entityManager.createQuery(anyString(), eq(Long.class))).thenReturn(count);
+
+        queries = new PreparedTransactionQueries(new TransactionFilterPlanner(entityManagerFactory), entityManager,
+                new SimpleMeterRegistry(), 16);
+    }
+
+    @Test
+    void testSliceReadsOneExtraRowInsteadOfCounting() {
+        when(select.getResultList()).thenReturn(transactions(11));
+
+        Slice<Transaction> slice = queries.findSlice(AMOUNT_AT_LEAST, PageRequest.of(2, 10, Sort.by("amount").descending()));
+
+        verify(entityManager).createQuery(
+                "select t from Transaction t where t.amount >= ?1 order by t.amount desc", Transaction.class);
+        verify(select).setParameter(1, 100.0);
+        verify(select).setFirstResult(20);
+        verify(select).setMaxResults(11);
+        assertTrue(slice.hasNext());
+        assertEquals(10, slice.getNumberOfElements());
+        verify(entityManager, never()).createQuery(anyString(), eq(Long.class));
+    }
+
+    @Test
+    void testLastSliceHasNoNext() {
+        when(select.getResultList()).thenReturn(transactions(4));
+
+        Slice<Transaction> slice = queries.findSlice(AMOUNT_AT_LEAST, PageRequest.of(0, 10));
+
+        assertFalse(slice.hasNext());
+        assertEquals(4, slice.getNumberOfElements());
+    }
+
+    @Test
+    void testPageIsOnlyCountedWhenItDoesNotShowTheTotal() {
+        when(select.getResultList()).thenReturn(transactions(3));
+        Page<Transaction> partialFirstPage = queries.findPage(AMOUNT_AT_LEAST, PageRequest.of(0, 10));
+        assertEquals(3, partialFirstPage.getTotalElements());
+        verify(entityManager, never()).createQuery(anyString(), eq(Long.class));
+
+        when(select.getResultList()).thenReturn(transactions(10));
+        when(count.getSingleResult()).thenReturn(57L);
+        Page<Transaction> fullPage = queries.findPage(AMOUNT_AT_LEAST, PageRequest.of(0, 10));
+
+        assertEquals(57, fullPage.getTotalElements());
+        verify(entityManager).createQuery("select count(t) from Transaction t where t.amount >= ?1", Long.class);
+        verify(count).setParameter(1, 100.0);
+    }
+
+    @Test
+    void testSortOptionsAreRendered() {
+        Sort sort = Sort.by(Sort.Order.asc("fromAccount").ignoreCase().nullsLast(), Sort.Order.desc("transactionId"));
+
+        queries.findSlice(List.of(), PageRequest.of(0, 5, sort));
+
+        verify(entityManager).createQuery(
+                "select t from Transaction t order by lower(t.fromAccount) asc nulls last, t.transactionId desc",
+                Transaction.class);
+    }
+
+    @Test
+    void testUnknownSortFieldIsRejected() {
+        assertThrows(InvalidFilterException.class,
+                () -> queries.findSlice(List.of(), PageRequest.of(0, 5, Sort.by("date"))));
+        verify(entityManager, never()).createQuery(anyString(), eq(Transaction.class));
+    }
+
+    @Test
+    void testQueryTextIsReusedForTheSameShape() {
+        queries.findSlice(List.of(new FilterCriteria("amount", "between", "1,2")), PageRequest.of(0, 5));
+        queries.findSlice(List.of(new FilterCriteria("amount", "between", "30,40")), PageRequest.of(0, 5));
+
+        verify(entityManager, times(2)).createQuery(
+                "select t from Transaction t where t.amount between ?1 and ?2", Transaction.class);
+        verify(select).setParameter(1, 30.0);
+        verify(select).setParameter(2, 40.0);
+    }
+
+    private static List<Transaction> transactions(int count) {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId((long) i);
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.sardul3.io.api_best_practices_boot.pageFilterSort.summary;
+
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching.PageFilterSortCacheIndex;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.caching.PageFilterSortCacheKeyGenerator;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.filtering.FilterCriteria;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.model.TransactionSummary;
+import com.github.sardul3.io.api_best_practices_boot.pageFilterSort.query.PreparedTransactionQueries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TransactionSummaryServiceTest {
+
+    private static final List<FilterCriteria> FILTERS = List.of(new FilterCriteria("amount", ">", "100"));
+
+    private PreparedTransactionQueries preparedQueries;
+    private PageFilterSortCacheIndex cacheIndex;
+    private TransactionSummaryService summaryService;
+
+    @BeforeEach
+    void setUp() {
+        preparedQueries = mock(PreparedTransactionQueries.class);
+        cacheIndex = mock(PageFilterSortCacheIndex.class);
+        PageFilterSortCacheKeyGenerator keyGenerator = mock(PageFilterSortCacheKeyGenerator.class);
+        when(keyGenerator.generateFilterKey(anyList())).thenReturn("pfs-filters:abc");
+        summaryService = new TransactionSummaryService(preparedQueries,
+                new ConcurrentMapCacheManager(TransactionSummaryService.SUMMARY_CACHE), cacheIndex, keyGenerator, 2);
+    }
+
+    @Test
+    void testSummaryIsComputedOnceAndIndexed() {
+        when(preparedQueries.summarize(FILTERS, SummaryGroupBy.STATUS, 3))
+                .thenReturn(List.of(group("COMPLETED", 2), group("ON_HOLD", 1)));
+
+        TransactionSummary first = summaryService.summarize(FILTERS, SummaryGroupBy.STATUS, 2);
+        TransactionSummary second = summaryService.summarize(FILTERS, SummaryGroupBy.STATUS, 2);
+
+        assertEquals("status", first.getGroupBy());
+        assertEquals(2, first.getGroups().size());
+        assertFalse(first.isTruncated());
+        assertEquals(first, second);
+        verify(preparedQueries, times(1)).summarize(any(), any(), anyInt());
+        verify(cacheIndex).register(TransactionSummaryService.SUMMARY_CACHE, "summary:status:g2:pfs-filters:abc", FILTERS);
+    }
+
+    @Test
+    void testLimitIsCappedAndExtraGroupsAreReported() {
+        when(preparedQueries.summarize(eq(FILTERS), eq(SummaryGroupBy.FROM_ACCOUNT), eq(3)))
+                .thenReturn(List.of(group("A", 5), group("B", 3), group("C", 1)));
+
+        TransactionSummary summary = summaryService.summarize(FILTERS, SummaryGroupBy.FROM_ACCOUNT, 500);
+
+        assertEquals(List.of("A", "B"), summary.getGroups().stream().map(TransactionSummary.Group::getValue).toList());
+        assertTrue(summary.isTruncated());
+    }
+
+    @Test
+    void testGroupingsAreResolvedByFieldName() {
+        assertEquals(SummaryGroupBy.TO_ACCOUNT, SummaryGroupBy.fromName("toaccount"));
+        assertNull(SummaryGroupBy.fromName("amount"));
+    }
+
+    private static TransactionSummary.Group group(String value, long count) {
+        return new TransactionSummary.Group(value, count, 100.0 * count, 100.0, 100.0, 100.0);
+    }
+}
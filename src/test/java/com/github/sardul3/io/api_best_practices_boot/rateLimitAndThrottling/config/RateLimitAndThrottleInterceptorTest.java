@@ -0,0 +1,71 @@
+package com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RateLimitAndThrottleInterceptorTest {
+
+    @Mock
+    private RequestThrottle requestThrottle;
+
+    private RateLimitAndThrottleInterceptor interceptor;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        interceptor = new RateLimitAndThrottleInterceptor(requestThrottle);
+        request = new MockHttpServletRequest("GET", "/transactions");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void testThrottledHandlerReturnsTheDecisionOfTheThrottle() throws Exception {
+        when(requestThrottle.admit(request, true)).thenReturn(false);
+
+        assertFalse(interceptor.preHandle(request, response, handler("throttled")));
+
+        verify(requestThrottle).admit(request, true);
+    }
+
+    @Test
+    void testResumedRequestIsNotChargedAgain() throws Exception {
+        request.setAttribute(RequestThrottle.ADMITTED_ATTRIBUTE, Boolean.TRUE);
+
+        assertTrue(interceptor.preHandle(request, response, handler("throttled")));
+
+        verifyNoInteractions(requestThrottle);
+    }
+
+    @Test
+    void testOtherHandlersAreNotThrottled() throws Exception {
+        assertTrue(interceptor.preHandle(request, response, handler("unthrottled")));
+        assertTrue(interceptor.preHandle(request, response, new Object()));
+
+        verify(requestThrottle, never()).admit(any(), anyBoolean());
+    }
+
+    private static HandlerMethod handler(String method) throws NoSuchMethodException {
+        return new HandlerMethod(new Controller(), Controller.class.getMethod(method));
+    }
+
+    static class Controller {
+
+        @RateLimitAndThrottle
+        public void throttled() {
+        }
+
+        public void unthrottled() {
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config;
+
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.exception.ApiErrorMessage;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.exception.RateLimitExceededException;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.exception.RateLimitExceededHandler;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.support.ScriptedRateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RateLimitAspectTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private MockEnvironment environment;
+    private RateLimitAspect aspect;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        environment = new MockEnvironment();
+        aspect = new RateLimitAspect(new ScriptedRateLimiter(stringRedisTemplate), environment);
+        request = new MockHttpServletRequest("GET", "/transactions");
+        request.setRemoteAddr("10.0.0.1");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void testAllowedRequestGetsTheRateLimitHeaders() {
+        reply(1L, 4L, 2500L);
+
+        aspect.enforce(rateLimit("annotated"), request, response);
+
+        assertEquals("5", response.getHeader("X-RateLimit-Limit"));
+        assertEquals("4", response.getHeader("X-RateLimit-Remaining"));
+        assertEquals("3", response.getHeader("X-RateLimit-Reset"));
+        // The limit and duration of the annotation, the script of its algorithm
+        verify(stringRedisTemplate).execute(any(RedisScript.class),
+                eq(List.of("rate_limit:gcra:10.0.0.1:/transactions:GET")), eq("5"), eq("1000"));
+    }
+
+    @Test
+    void testRejectedRequestIsAnsweredWithTooManyRequestsAndRetryAfter() {
+        reply(0L, 0L, 1200L);
+
+        RateLimitExceededException exception = assertThrows(RateLimitExceededException.class,
+                () -> aspect.enforce(rateLimit("annotated"), request, response));
+
+        assertEquals(2, exception.getRetryAfterSeconds());
+        assertEquals("0", response.getHeader("X-RateLimit-Remaining"));
+        assertEquals("2", response.getHeader("X-RateLimit-Reset"));
+        ResponseEntity<ApiErrorMessage> answer = new RateLimitExceededHandler()
+                .handleInvalidFieldsInValidJson(exception, request);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, answer.getStatusCode());
+        assertEquals("2", answer.getHeaders().getFirst("Retry-After"));
+    }
+
+    @Test
+    void testLimitsNotOnTheAnnotationComeFromTheConfiguration() {
+        environment.setProperty("rate-limits.endpoints./transactions.GET.limit", "30");
+        environment.setProperty("rate-limits.default.duration", "60000");
+        reply(1L, 29L, 60000L);
+
+        aspect.enforce(rateLimit("configured"), request, null);
+
+        verify(stringRedisTemplate).execute(any(RedisScript.class),
+                eq(List.of("rate_limit:sliding-window:10.0.0.1:/transactions:GET")), eq("30"), eq("60000"));
+    }
+
+    @Test
+    void testRequestsGoThroughWhileRedisIsUnavailable() {
+        doThrow(new RedisConnectionFailureException("connection refused"))
+                .doThrow(new QueryTimeoutException("command timed out"))
+                .when(stringRedisTemplate).execute(any(RedisScript.class), anyList(), anyString(), anyString());
+
+        assertDoesNotThrow(() -> aspect.enforce(rateLimit("annotated"), request, response));
+        assertDoesNotThrow(() -> aspect.enforce(rateLimit("annotated"), request, response));
+
+        assertNull(response.getHeader("X-RateLimit-Limit"));
+    }
+
+    @Test
+    void testFailingScriptFailsTheRequest() {
+        doThrow(new RedisSystemException("ERR user_script:12: attempt to compare nil with number", null))
+                .when(stringRedisTemplate).execute(any(RedisScript.class), anyList(), anyString(), anyString());
+
+        assertThrows(RedisSystemException.class, () -> aspect.enforce(rateLimit("annotated"), request, response));
+
+        reply(1L, 4L);
+        assertThrows(IllegalStateException.class, () -> aspect.enforce(rateLimit("annotated"), request, response));
+    }
+
+    private void reply(Long... reply) {
+        doReturn(List.of(reply)).when(stringRedisTemplate)
+                .execute(any(RedisScript.class), anyList(), anyString(), anyString());
+    }
+
+    private static RateLimit rateLimit(String method) {
+        try {
+            return Controller.class.getMethod(method).getAnnotation(RateLimit.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static class Controller {
+
+        @RateLimit(limit = 5, duration = 1000, algorithm = RateLimitAlgorithm.GCRA)
+        public void annotated() {
+        }
+
+        @RateLimit
+        public void configured() {
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config;
+
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.exception.RateLimitExceededException;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.support.DelayedRequests;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.RemoteBucketBuilder;
+import io.github.bucket4j.distributed.proxy.optimization.delay.DelayOptimization;
+import io.github.bucket4j.distributed.proxy.optimization.predictive.PredictiveOptimization;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RequestThrottleTest {
+
+    private static final String CLIENT = "10.0.0.1";
+    private static final long TWO_SECONDS = TimeUnit.SECONDS.toNanos(2);
+
+    @Mock
+    private ProxyManager<String> proxyManager;
+
+    @Mock
+    private RemoteBucketBuilder<String> builder;
+
+    @Mock
+    private BucketProxy bucket;
+
+    @Mock
+    private RedisBucketLimitAndThrottleConfig config;
+
+    @Mock
+    private DelayedRequests delayedRequests;
+
+    @Mock
+    private ConsumptionProbe probe;
+
+    private BucketSyncProperties syncProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private RequestThrottle throttle;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(proxyManager.builder()).thenReturn(builder);
+        when(builder.withOptimization(any())).thenReturn(builder);
+        when(builder.build(anyString(), ArgumentMatchers.<Supplier<BucketConfiguration>>any())).thenReturn(bucket);
+        when(config.resolveBandwidth(anyString(), anyString()))
+                .thenReturn(Bandwidth.simple(10, Duration.ofSeconds(10)));
+        when(bucket.tryConsumeAndReturnRemaining(1)).thenReturn(probe);
+        when(delayedRequests.tryAcquire(CLIENT)).thenReturn(true);
+
+        // Delays of up to 5 seconds by default
+        syncProperties = new BucketSyncProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        throttle = new RequestThrottle(proxyManager, config, new ThrottleProperties(), delayedRequests,
+                syncProperties, meterRegistry);
+    }
+
+    @Test
+    void testConsumedTokenLetsTheRequestGoOn() {
+        MockHttpServletRequest request = request();
+        when(probe.isConsumed()).thenReturn(true);
+
+        assertTrue(throttle.admit(request, true));
+
+        assertEquals(Boolean.TRUE, request.getAttribute(RequestThrottle.ADMITTED_ATTRIBUTE));
+        verify(builder).build(eq("rate_limit:" + CLIENT + ":transactions:GET"),
+                ArgumentMatchers.<Supplier<BucketConfiguration>>any());
+        verifyNoInteractions(delayedRequests);
+    }
+
+    @Test
+    void testRequestIsParkedUntilItsReservedTokenIsRefilled() {
+        MockHttpServletRequest request = request();
+        when(probe.isConsumed()).thenReturn(false);
+        when(probe.getNanosToWaitForRefill()).thenReturn(TWO_SECONDS);
+        // Another request reserved a token since the probe
+        when(bucket.consumeIgnoringRateLimits(1)).thenReturn(TWO_SECONDS + 100);
+
+        assertFalse(throttle.admit(request, true));
+
+        verify(delayedRequests).resumeAfter(request, CLIENT, TWO_SECONDS + 100);
+        verify(bucket, never()).addTokens(anyLong());
+        verify(delayedRequests, never()).release(anyString());
+    }
+
+    @Test
+    void testReservedTokenIsGivenBackWhenTheWaitGrewPastTheMaxDelay() {
+        MockHttpServletRequest request = request();
+        when(probe.isConsumed()).thenReturn(false);
+        when(probe.getNanosToWaitForRefill()).thenReturn(TWO_SECONDS);
+        when(bucket.consumeIgnoringRateLimits(1)).thenReturn(TimeUnit.SECONDS.toNanos(6));
+
+        RateLimitExceededException exception = assertThrows(RateLimitExceededException.class,
+                () -> throttle.admit(request, true));
+
+        assertEquals(2, exception.getRetryAfterSeconds());
+        verify(bucket).addTokens(1);
+        verify(delayedRequests).release(CLIENT);
+        verify(delayedRequests, never()).resumeAfter(any(), anyString(), anyLong());
+    }
+
+    @Test
+    void testWaitLongerThanTheMaxDelayIsRejectedWithoutReserving() {
+        when(probe.isConsumed()).thenReturn(false);
+        when(probe.getNanosToWaitForRefill()).thenReturn(TimeUnit.SECONDS.toNanos(30));
+
+        RateLimitExceededException exception = assertThrows(RateLimitExceededException.class,
+                () -> throttle.admit(request(), true));
+
+        assertEquals(30, exception.getRetryAfterSeconds());
+        verifyNoInteractions(delayedRequests);
+        verify(bucket, never()).consumeIgnoringRateLimits(anyLong());
+    }
+
+    @Test
+    void testRequestsThatCannotBeParkedAreRejected() {
+        when(probe.isConsumed()).thenReturn(false);
+        when(probe.getNanosToWaitForRefill()).thenReturn(TimeUnit.MILLISECONDS.toNanos(300));
+
+        // The caller cannot go asynchronous
+        assertThrows(RateLimitExceededException.class, () -> throttle.admit(request(), false));
+        // Neither can the request
+        MockHttpServletRequest synchronous = request();
+        synchronous.setAsyncSupported(false);
+        assertThrows(RateLimitExceededException.class, () -> throttle.admit(synchronous, true));
+        // The caps on delayed requests are reached
+        when(delayedRequests.tryAcquire(CLIENT)).thenReturn(false);
+        RateLimitExceededException exception = assertThrows(RateLimitExceededException.class,
+                () -> throttle.admit(request(), true));
+
+        // Less than a second to wait is still announced as one
+        assertEquals(1, exception.getRetryAfterSeconds());
+        verify(delayedRequests, times(1)).tryAcquire(CLIENT);
+        verify(bucket, never()).consumeIgnoringRateLimits(anyLong());
+        verify(delayedRequests, never()).resumeAfter(any(), anyString(), anyLong());
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/transactions");
+        request.setRemoteAddr(CLIENT);
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    @Test
+    void testBucketsAreKeptPerKey() {
+        when(probe.isConsumed()).thenReturn(true);
+
+        throttle.admit(request(), true);
+        throttle.admit(request(), true);
+        throttle.admit(new MockHttpServletRequest("POST", "/transactions"), true);
+
+        verify(builder, times(2)).build(anyString(), ArgumentMatchers.<Supplier<BucketConfiguration>>any());
+        verify(config, times(1)).resolveBandwidth("transactions", "GET");
+        assertEquals(2.0, meterRegistry.get("rate.limit.local.buckets").gauge().value());
+    }
+
+    @Test
+    void testUnsynchronizedTokensAreAShareOfTheCapacityWithinAMinimumAndHalfTheCapacity() {
+        // Exact below 20 tokens, then 10% of the capacity, at least 2 tokens
+        assertEquals(1, throttle.unsynchronizedTokens(2));
+        assertEquals(1, throttle.unsynchronizedTokens(19));
+        assertEquals(2, throttle.unsynchronizedTokens(20));
+        assertEquals(5, throttle.unsynchronizedTokens(50));
+        assertEquals(100, throttle.unsynchronizedTokens(1000));
+
+        syncProperties.setExactBelowCapacity(0);
+        assertEquals(0, throttle.unsynchronizedTokens(1));
+        assertEquals(1, throttle.unsynchronizedTokens(2));
+        assertEquals(2, throttle.unsynchronizedTokens(10));
+
+        syncProperties.setOvershoot(0.9);
+        assertEquals(50, throttle.unsynchronizedTokens(100));
+
+        syncProperties.setOvershoot(0.1);
+        syncProperties.setMinOvershootTokens(0);
+        assertEquals(0, throttle.unsynchronizedTokens(5));
+        assertEquals(1, throttle.unsynchronizedTokens(10));
+        assertEquals(10, throttle.unsynchronizedTokens(100));
+    }
+
+    @Test
+    void testBucketsSynchronizeOnEveryRequestWithoutASyncMode() {
+        when(probe.isConsumed()).thenReturn(true);
+
+        throttle.admit(request(), true);
+
+        verify(builder, never()).withOptimization(any());
+    }
+
+    @Test
+    void testBucketsAreOptimizedAccordingToTheSyncMode() {
+        when(probe.isConsumed()).thenReturn(true);
+        when(config.resolveBandwidth(anyString(), anyString())).thenReturn(Bandwidth.simple(50, Duration.ofSeconds(10)));
+
+        syncProperties.setMode(BucketSyncProperties.Mode.DELAYING);
+        throttle.admit(request(), true);
+        verify(builder).withOptimization(any(DelayOptimization.class));
+
+        syncProperties.setMode(BucketSyncProperties.Mode.PREDICTING);
+        throttle.admit(new MockHttpServletRequest("POST", "/transactions"), true);
+        verify(builder).withOptimization(any(PredictiveOptimization.class));
+    }
+
+    @Test
+    void testBucketsOfASingleTokenSynchronizeOnEveryRequestInAnyMode() {
+        when(probe.isConsumed()).thenReturn(true);
+        when(config.resolveBandwidth(anyString(), anyString())).thenReturn(Bandwidth.simple(1, Duration.ofSeconds(10)));
+        syncProperties.setMode(BucketSyncProperties.Mode.DELAYING);
+
+        throttle.admit(request(), true);
+
+        verify(builder, never()).withOptimization(any());
+    }
+
+    @Test
+    void testSmallBucketsSynchronizeOnEveryRequestInAnyMode() {
+        when(probe.isConsumed()).thenReturn(true);
+        syncProperties.setMode(BucketSyncProperties.Mode.DELAYING);
+
+        // The capacity of 10 is below exact-below-capacity
+        throttle.admit(request(), true);
+
+        verify(builder, never()).withOptimization(any());
+    }
+
+    @Test
+    void testReservedTokenIsGivenBackToTheOptimizedBucket() {
+        syncProperties.setMode(BucketSyncProperties.Mode.DELAYING);
+        syncProperties.setExactBelowCapacity(0);
+        when(probe.isConsumed()).thenReturn(false);
+        when(probe.getNanosToWaitForRefill()).thenReturn(TWO_SECONDS);
+        when(bucket.consumeIgnoringRateLimits(1)).thenReturn(TimeUnit.SECONDS.toNanos(6));
+
+        assertThrows(RateLimitExceededException.class, () -> throttle.admit(request(), true));
+
+        // The token goes back to the local copy and reaches Redis with its next synchronization
+        verify(builder).withOptimization(any(DelayOptimization.class));
+        verify(bucket).consumeIgnoringRateLimits(1);
+        verify(bucket).addTokens(1);
+        verify(delayedRequests).release(CLIENT);
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.support;
+
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config.ThrottleProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DelayedRequestsTest {
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Mock
+    private AsyncContext asyncContext;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DelayedRequests delayedRequests;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(request.startAsync()).thenReturn(asyncContext);
+        when(asyncContext.getResponse()).thenReturn(response);
+        ThrottleProperties properties = new ThrottleProperties();
+        properties.setMaxDelayedPerClient(2);
+        properties.setMaxDelayedTotal(3);
+        meterRegistry = new SimpleMeterRegistry();
+        delayedRequests = new DelayedRequests(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        delayedRequests.shutdown();
+    }
+
+    @Test
+    void testPerClientCap() {
+        assertTrue(delayedRequests.tryAcquire("10.0.0.1"));
+        assertTrue(delayedRequests.tryAcquire("10.0.0.1"));
+        assertFalse(delayedRequests.tryAcquire("10.0.0.1"));
+        assertTrue(delayedRequests.tryAcquire("10.0.0.2"));
+
+        assertEquals(3.0, meterRegistry.get("throttle.delayed.requests").gauge().value());
+        assertEquals(1.0, meterRegistry.get("throttle.rejected").tag("cap", "client").counter().count());
+    }
+
+    @Test
+    void testTotalCapAndRelease() {
+        assertTrue(delayedRequests.tryAcquire("10.0.0.1"));
+        assertTrue(delayedRequests.tryAcquire("10.0.0.2"));
+        assertTrue(delayedRequests.tryAcquire("10.0.0.3"));
+        assertFalse(delayedRequests.tryAcquire("10.0.0.4"));
+
+        delayedRequests.release("10.0.0.1");
+
+        assertTrue(delayedRequests.tryAcquire("10.0.0.4"));
+        assertEquals(3.0, meterRegistry.get("throttle.delayed.requests").gauge().value());
+        assertEquals(1.0, meterRegistry.get("throttle.rejected").tag("cap", "total").counter().count());
+    }
+
+    @Test
+    void testParkedRequestIsDispatchedAfterItsDelay() {
+        assertTrue(delayedRequests.tryAcquire("10.0.0.1"));
+
+        delayedRequests.resumeAfter(request, "10.0.0.1", TimeUnit.MILLISECONDS.toNanos(50));
+
+        // Times out on its own if it is not resumed within the resume timeout
+        verify(asyncContext).setTimeout(50 + 10_000);
+        verify(asyncContext, timeout(1000)).dispatch();
+        assertEquals(0.0, meterRegistry.get("throttle.delayed.requests").gauge().value());
+        assertEquals(1, meterRegistry.get("throttle.added.delay").timer().count());
+    }
+
+    @Test
+    void testRequestNotResumedInTimeIsAnsweredWithTooManyRequests() throws Exception {
+        assertTrue(delayedRequests.tryAcquire("10.0.0.1"));
+        delayedRequests.resumeAfter(request, "10.0.0.1", TimeUnit.MINUTES.toNanos(1));
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(asyncContext).addListener(listener.capture());
+        AsyncEvent event = new AsyncEvent(asyncContext);
+
+        listener.getValue().onTimeout(event);
+        listener.getValue().onComplete(event);
+
+        verify(response).setHeader("Retry-After", "1");
+        verify(response).sendError(429);
+        verify(asyncContext).complete();
+        verify(asyncContext, never()).dispatch();
+        // The place is given back once however the request ends
+        assertEquals(0.0, meterRegistry.get("throttle.delayed.requests").gauge().value());
+    }
+}
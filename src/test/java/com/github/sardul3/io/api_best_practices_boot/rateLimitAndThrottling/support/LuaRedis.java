@@ -0,0 +1,141 @@
+package com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.support;
+
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JsePlatform;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs Redis Lua scripts in process, with the few commands the rate limit scripts call kept in memory and a clock
+ * the test moves forward. Replies are converted as Redis converts them: numbers are truncated to integers.
+ */
+class LuaRedis {
+
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+    // Expiry of a key in milliseconds of the clock
+    private final Map<String, Long> expiries = new HashMap<>();
+    private long nowMicros;
+
+    LuaRedis(long nowMillis) {
+        this.nowMicros = nowMillis * 1000;
+    }
+
+    void advance(long millis) {
+        nowMicros += millis * 1000;
+    }
+
+    boolean exists(String key) {
+        expire(key);
+        return strings.containsKey(key) || hashes.containsKey(key);
+    }
+
+    /**
+     * @return the reply of the script, a list of longs
+     */
+    List<Object> eval(String script, List<String> keys, Object... args) {
+        Globals globals = JsePlatform.standardGlobals();
+        LuaTable redis = new LuaTable();
+        redis.set("call", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs varargs) {
+                return call(varargs);
+            }
+        });
+        globals.set("redis", redis);
+        globals.set("KEYS", LuaValue.listOf(keys.stream().map(LuaValue::valueOf).toArray(LuaValue[]::new)));
+        LuaValue[] argv = new LuaValue[args.length];
+        for (int i = 0; i < args.length; i++) {
+            argv[i] = LuaValue.valueOf(String.valueOf(args[i]));
+        }
+        globals.set("ARGV", LuaValue.listOf(argv));
+
+        LuaValue reply = globals.load(script, "script").call();
+        List<Object> result = new ArrayList<>();
+        for (int i = 1; i <= reply.length(); i++) {
+            result.add(reply.get(i).tolong());
+        }
+        return result;
+    }
+
+    private LuaValue call(Varargs args) {
+        String command = args.checkjstring(1).toUpperCase();
+        if (command.equals("TIME")) {
+            return LuaValue.listOf(new LuaValue[]{
+                    LuaValue.valueOf(String.valueOf(nowMicros / 1_000_000)),
+                    LuaValue.valueOf(String.valueOf(nowMicros % 1_000_000))});
+        }
+        String key = args.checkjstring(2);
+        expire(key);
+        switch (command) {
+            case "GET" -> {
+                String value = strings.get(key);
+                return value == null ? LuaValue.FALSE : LuaValue.valueOf(value);
+            }
+            case "SET" -> {
+                strings.put(key, args.arg(3).tojstring());
+                expiries.remove(key);
+                if (args.narg() >= 5 && args.checkjstring(4).equalsIgnoreCase("PX")) {
+                    expiries.put(key, nowMillis() + args.checklong(5));
+                }
+                return LuaValue.valueOf("OK");
+            }
+            case "INCR" -> {
+                long value = Long.parseLong(strings.getOrDefault(key, "0")) + 1;
+                strings.put(key, String.valueOf(value));
+                return LuaValue.valueOf(value);
+            }
+            case "PTTL" -> {
+                if (!strings.containsKey(key) && !hashes.containsKey(key)) {
+                    return LuaValue.valueOf(-2);
+                }
+                Long expiry = expiries.get(key);
+                return LuaValue.valueOf(expiry == null ? -1 : expiry - nowMillis());
+            }
+            case "PEXPIRE" -> {
+                if (!strings.containsKey(key) && !hashes.containsKey(key)) {
+                    return LuaValue.valueOf(0);
+                }
+                expiries.put(key, nowMillis() + args.checklong(3));
+                return LuaValue.valueOf(1);
+            }
+            case "HMGET" -> {
+                Map<String, String> hash = hashes.getOrDefault(key, Map.of());
+                LuaValue[] values = new LuaValue[args.narg() - 2];
+                for (int i = 0; i < values.length; i++) {
+                    String value = hash.get(args.arg(i + 3).tojstring());
+                    values[i] = value == null ? LuaValue.FALSE : LuaValue.valueOf(value);
+                }
+                return LuaValue.listOf(values);
+            }
+            case "HSET" -> {
+                Map<String, String> hash = hashes.computeIfAbsent(key, ignored -> new HashMap<>());
+                for (int i = 3; i < args.narg(); i += 2) {
+                    hash.put(args.arg(i).tojstring(), args.arg(i + 1).tojstring());
+                }
+                return LuaValue.valueOf(1);
+            }
+            default -> throw new UnsupportedOperationException(command);
+        }
+    }
+
+    private void expire(String key) {
+        Long expiry = expiries.get(key);
+        if (expiry != null && expiry <= nowMillis()) {
+            strings.remove(key);
+            hashes.remove(key);
+            expiries.remove(key);
+        }
+    }
+
+    private long nowMillis() {
+        return nowMicros / 1000;
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.support;
+
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config.RateLimitAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ScriptedRateLimiterTest {
+
+    // At the start of a second, so windows of whole seconds start now
+    private static final long START = 1_700_000_000_000L;
+    private static final String CLIENT = "10.0.0.1:/transactions:GET";
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private LuaRedis redis;
+    private ScriptedRateLimiter limiter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        redis = new LuaRedis(START);
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString()))
+                .thenAnswer(invocation -> redis.eval(((RedisScript<?>) invocation.getArgument(0)).getScriptAsString(),
+                        invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3)));
+        limiter = new ScriptedRateLimiter(stringRedisTemplate);
+    }
+
+    @Test
+    void testFixedWindowCountsUntilTheWindowExpires() {
+        assertEquals(new ScriptedRateLimiter.Decision(true, 2, 1, 1000), acquire(RateLimitAlgorithm.FIXED_WINDOW, 2));
+        assertEquals(new ScriptedRateLimiter.Decision(true, 2, 0, 1000), acquire(RateLimitAlgorithm.FIXED_WINDOW, 2));
+        redis.advance(400);
+        assertEquals(new ScriptedRateLimiter.Decision(false, 2, 0, 600), acquire(RateLimitAlgorithm.FIXED_WINDOW, 2));
+
+        redis.advance(600);
+
+        assertEquals(new ScriptedRateLimiter.Decision(true, 2, 1, 1000), acquire(RateLimitAlgorithm.FIXED_WINDOW, 2));
+        assertTrue(redis.exists("rate_limit:fixed-window:" + CLIENT));
+    }
+
+    @Test
+    void testSlidingWindowWaitsUntilTheFullPreviousWindowHasSlidOutEnough() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(acquire(RateLimitAlgorithm.SLIDING_WINDOW, 10).allowed());
+        }
+
+        // The current window alone is full: 10 * (1000 - 100) / 1000 + 1 fits the limit 100 ms into the next one
+        ScriptedRateLimiter.Decision rejected = acquire(RateLimitAlgorithm.SLIDING_WINDOW, 10);
+        assertEquals(new ScriptedRateLimiter.Decision(false, 10, 0, 1100), rejected);
+        assertEquals(2, rejected.resetSeconds());
+        redis.advance(1099);
+        assertFalse(acquire(RateLimitAlgorithm.SLIDING_WINDOW, 10).allowed());
+        redis.advance(1);
+
+        assertEquals(new ScriptedRateLimiter.Decision(true, 10, 0, 900), acquire(RateLimitAlgorithm.SLIDING_WINDOW, 10));
+        assertTrue(redis.exists("rate_limit:sliding-window:" + CLIENT));
+    }
+
+    @Test
+    void testSlidingWindowWaitsUntilThePreviousWindowMakesRoomForTheCurrentOne() {
+        for (int i = 0; i < 10; i++) {
+            acquire(RateLimitAlgorithm.SLIDING_WINDOW, 10);
+        }
+        redis.advance(1100);
+        // 10 * 0.9 of the previous window and 1 of this one
+        assertTrue(acquire(RateLimitAlgorithm.SLIDING_WINDOW, 10).allowed());
+
+        // 10 * 0.8 + 1 + 1 fits the limit at 200 ms into the window
+        assertEquals(new ScriptedRateLimiter.Decision(false, 10, 0, 100), acquire(RateLimitAlgorithm.SLIDING_WINDOW, 10));
+        redis.advance(99);
+        assertFalse(acquire(RateLimitAlgorithm.SLIDING_WINDOW, 10).allowed());
+        redis.advance(1);
+        assertEquals(new ScriptedRateLimiter.Decision(true, 10, 0, 800), acquire(RateLimitAlgorithm.SLIDING_WINDOW, 10));
+    }
+
+    @Test
+    void testSlidingWindowForgetsWindowsOlderThanThePreviousOne() {
+        for (int i = 0; i < 10; i++) {
+            acquire(RateLimitAlgorithm.SLIDING_WINDOW, 10);
+        }
+
+        redis.advance(2500);
+
+        assertEquals(new ScriptedRateLimiter.Decision(true, 10, 9, 500), acquire(RateLimitAlgorithm.SLIDING_WINDOW, 10));
+    }
+
+    @Test
+    void testGcraSpacesRequestsAfterABurstOfTheLimit() {
+        // 10 per second: one every 100 ms, the first one leaves room for 9 more
+        assertEquals(new ScriptedRateLimiter.Decision(true, 10, 9, 100), acquire(RateLimitAlgorithm.GCRA, 10));
+        for (int i = 0; i < 9; i++) {
+            assertTrue(acquire(RateLimitAlgorithm.GCRA, 10).allowed());
+        }
+
+        assertEquals(new ScriptedRateLimiter.Decision(false, 10, 0, 100), acquire(RateLimitAlgorithm.GCRA, 10));
+        redis.advance(99);
+        assertFalse(acquire(RateLimitAlgorithm.GCRA, 10).allowed());
+        redis.advance(1);
+
+        // The full quota is back a whole period after now
+        assertEquals(new ScriptedRateLimiter.Decision(true, 10, 0, 1000), acquire(RateLimitAlgorithm.GCRA, 10));
+        assertFalse(acquire(RateLimitAlgorithm.GCRA, 10).allowed());
+    }
+
+    @Test
+    void testGcraStateExpiresOnceTheFullQuotaIsBack() {
+        for (int i = 0; i < 5; i++) {
+            acquire(RateLimitAlgorithm.GCRA, 10);
+        }
+        assertTrue(redis.exists("rate_limit:gcra:" + CLIENT));
+
+        redis.advance(500);
+
+        assertFalse(redis.exists("rate_limit:gcra:" + CLIENT));
+        assertEquals(new ScriptedRateLimiter.Decision(true, 10, 9, 100), acquire(RateLimitAlgorithm.GCRA, 10));
+    }
+
+    @Test
+    void testUnexpectedReplyIsAnError() {
+        doReturn(List.of(1L)).when(stringRedisTemplate).execute(any(RedisScript.class), anyList(), anyString(), anyString());
+
+        assertThrows(IllegalStateException.class, () -> acquire(RateLimitAlgorithm.GCRA, 10));
+    }
+
+    @Test
+    void testResetIsRoundedUpToWholeSeconds() {
+        assertEquals(1, new ScriptedRateLimiter.Decision(false, 1, 0, 0).resetSeconds());
+        assertEquals(1, new ScriptedRateLimiter.Decision(false, 1, 0, 1000).resetSeconds());
+        assertEquals(2, new ScriptedRateLimiter.Decision(false, 1, 0, 1001).resetSeconds());
+    }
+
+    private ScriptedRateLimiter.Decision acquire(RateLimitAlgorithm algorithm, int limit) {
+        return limiter.tryAcquire(algorithm, CLIENT, limit, 1000);
+    }
+}
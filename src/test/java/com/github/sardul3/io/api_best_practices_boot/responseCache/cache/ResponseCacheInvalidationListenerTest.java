@@ -0,0 +1,63 @@
+package com.github.sardul3.io.api_best_practices_boot.responseCache.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sardul3.io.api_best_practices_boot.eTags.events.TransactionChangedEvent;
+import com.github.sardul3.io.api_best_practices_boot.nearCache.invalidation.NearCacheInvalidationMessage;
+import com.github.sardul3.io.api_best_practices_boot.nearCache.invalidation.NearCacheInvalidationPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ResponseCacheInvalidationListenerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final NearCacheInvalidationPublisher publisher = mock(NearCacheInvalidationPublisher.class);
+    private final ResponseCache responseCache = new ResponseCache(1 << 20, new SimpleMeterRegistry(), publisher);
+    private final ResponseCacheInvalidationListener listener =
+            new ResponseCacheInvalidationListener(responseCache, objectMapper, "this-node");
+
+    @Test
+    void testWriteOnAnotherNodeDropsCachedResponses() throws Exception {
+        cacheResponse();
+
+        receive(new NearCacheInvalidationMessage("other-node", ResponseCache.CACHE_NAME, List.of(), true));
+
+        assertNull(responseCache.get("key"));
+    }
+
+    @Test
+    void testOwnAndNearCacheMessagesAreIgnored() throws Exception {
+        cacheResponse();
+
+        receive(new NearCacheInvalidationMessage("this-node", ResponseCache.CACHE_NAME, List.of(), true));
+        receive(new NearCacheInvalidationMessage("other-node", "transactionCache", List.of("1"), false));
+
+        assertNotNull(responseCache.get("key"));
+    }
+
+    @Test
+    void testLocalWriteIsAnnouncedToOtherNodes() {
+        cacheResponse();
+
+        responseCache.onTransactionChanged(new TransactionChangedEvent(List.of()));
+
+        assertNull(responseCache.get("key"));
+        verify(publisher).publishClear(ResponseCache.CACHE_NAME);
+    }
+
+    private void cacheResponse() {
+        responseCache.put("key", new CachedResponse(200, List.of(), "{}".getBytes(StandardCharsets.UTF_8), null,
+                Duration.ofMinutes(1), null), responseCache.generation());
+    }
+
+    private void receive(NearCacheInvalidationMessage message) throws Exception {
+        listener.onMessage(new DefaultMessage(new byte[0], objectMapper.writeValueAsBytes(message)), null);
+    }
+}
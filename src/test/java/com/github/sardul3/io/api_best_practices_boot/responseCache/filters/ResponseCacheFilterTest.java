@@ -0,0 +1,181 @@
+package com.github.sardul3.io.api_best_practices_boot.responseCache.filters;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config.HandlerRateLimits;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config.RateLimitAndThrottle;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config.RateLimitAspect;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.config.RequestThrottle;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.exception.RateLimitExceededException;
+import com.github.sardul3.io.api_best_practices_boot.rateLimitAndThrottling.exception.RateLimitExceededHandler;
+import com.github.sardul3.io.api_best_practices_boot.responseCache.cache.ResponseCache;
+import com.github.sardul3.io.api_best_practices_boot.responseCache.config.ResponseCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ResponseCacheFilterTest {
+
+    private final AtomicInteger handled = new AtomicInteger();
+    private final ResponseCache responseCache = new ResponseCache(1 << 20, new SimpleMeterRegistry(), null);
+    private final RequestThrottle requestThrottle = mock(RequestThrottle.class);
+    private final ResponseCacheFilter filter = new ResponseCacheFilter(responseCache,
+            new HandlerRateLimits(requestThrottle, mock(RateLimitAspect.class), new RateLimitExceededHandler(),
+                    new ObjectMapper().registerModule(new JavaTimeModule())),
+            properties(), new SimpleMeterRegistry());
+    private final HandlerMethod handler = handler();
+
+    static class PagedController {
+
+        @RateLimitAndThrottle
+        public String page() {
+            return "page";
+        }
+    }
+
+    private final HttpServlet servlet = new HttpServlet() {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            handled.incrementAndGet();
+            request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, handler);
+            response.setContentType("application/hal+json");
+            response.setHeader("ETag", "\"v" + handled.get() + "\"");
+            response.setHeader("X-Correlation-Id", "request-" + handled.get());
+            response.getWriter().write("{\"page\":\"" + "x".repeat(2000) + "\"}");
+        }
+    };
+
+    private static ResponseCacheProperties properties() {
+        ResponseCacheProperties.Endpoint endpoint = new ResponseCacheProperties.Endpoint();
+        endpoint.setPath("/api/v2/transactions");
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setEndpoints(List.of(endpoint));
+        return properties;
+    }
+
+    private static HandlerMethod handler() {
+        try {
+            return new HandlerMethod(new PagedController(), PagedController.class.getMethod("page"));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private MockHttpServletResponse get(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(servlet));
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String query) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v2/transactions");
+        request.setQueryString(query);
+        for (String parameter : query.split("&")) {
+            String[] pair = parameter.split("=");
+            request.addParameter(pair[0], pair[1]);
+        }
+        return request;
+    }
+
+    @Test
+    void testRepeatedRequestIsServedFromCacheWithContentHeadersOnly() throws Exception {
+        MockHttpServletResponse first = get(request("page=0&size=5"));
+        MockHttpServletResponse second = get(request("size=5&page=0"));
+
+        assertEquals(1, handled.get());
+        assertEquals(first.getContentAsString(), second.getContentAsString());
+        assertEquals("\"v1\"", second.getHeader("ETag"));
+        assertTrue(second.getContentType().startsWith("application/hal+json"));
+        assertNull(second.getHeader("X-Correlation-Id"));
+    }
+
+    @Test
+    void testIfNoneMatchOnCachedResponseIsNotModified() throws Exception {
+        get(request("page=0"));
+        MockHttpServletRequest conditional = request("page=0");
+        conditional.addHeader("If-None-Match", "\"v1\"");
+
+        MockHttpServletResponse response = get(conditional);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentLength());
+        assertEquals(1, handled.get());
+    }
+
+    @Test
+    void testGzipVariantIsStoredCompressed() throws Exception {
+        MockHttpServletRequest gzipRequest = request("page=0");
+        gzipRequest.addHeader("Accept-Encoding", "br, gzip");
+
+        MockHttpServletResponse gzipped = get(gzipRequest);
+        MockHttpServletResponse plain = get(request("page=0"));
+
+        assertEquals(2, handled.get());
+        assertEquals("gzip", gzipped.getHeader("Content-Encoding"));
+        assertNull(plain.getHeader("Content-Encoding"));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+            assertEquals(plain.getContentAsString(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testWriteDropsCachedResponses() throws Exception {
+        get(request("page=0"));
+        long generation = responseCache.generation();
+
+        responseCache.invalidateAll();
+        MockHttpServletResponse response = get(request("page=0"));
+
+        assertEquals(2, handled.get());
+        assertEquals("\"v2\"", response.getHeader("ETag"));
+        assertNotEquals(generation, responseCache.generation());
+    }
+
+    @Test
+    void testOtherPathsAndRefusedGzipAreNotCachedOrCompressed() throws Exception {
+        MockHttpServletRequest other = new MockHttpServletRequest("GET", "/api/v2/transactions/export");
+        get(other);
+        get(other);
+        MockHttpServletRequest refused = request("page=0");
+        refused.addHeader("Accept-Encoding", "gzip;q=0");
+
+        assertEquals(2, handled.get());
+        assertFalse(ResponseCacheFilter.acceptsGzip(refused));
+    }
+
+    @Test
+    void testHitIsChargedAgainstTheRateLimitOfItsHandler() throws Exception {
+        get(request("page=0"));
+        MockHttpServletResponse allowed = get(request("page=0"));
+        when(requestThrottle.admit(any(), eq(false)))
+                .thenThrow(new RateLimitExceededException("Too many requests", 7));
+        MockHttpServletResponse refused = get(request("page=0"));
+
+        assertEquals(1, handled.get());
+        assertEquals(200, allowed.getStatus());
+        assertEquals(429, refused.getStatus());
+        assertEquals("7", refused.getHeader("Retry-After"));
+        assertTrue(refused.getContentAsString().contains("Too many requests"));
+        assertNull(refused.getHeader("ETag"));
+        // The miss was charged by the handler's own interceptor, the two hits here
+        verify(requestThrottle, times(2)).admit(any(), eq(false));
+    }
+}
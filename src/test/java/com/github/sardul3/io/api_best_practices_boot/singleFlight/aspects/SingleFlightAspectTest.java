@@ -0,0 +1,139 @@
+package com.github.sardul3.io.api_best_practices_boot.singleFlight.aspects;
+
+import com.github.sardul3.io.api_best_practices_boot.singleFlight.config.SingleFlightProperties;
+import com.github.sardul3.io.api_best_practices_boot.singleFlight.support.CacheKeyResolver;
+import com.github.sardul3.io.api_best_practices_boot.singleFlight.support.CacheKeyResolver.CacheEntryKey;
+import com.github.sardul3.io.api_best_practices_boot.singleFlight.support.RedisLease;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class SingleFlightAspectTest {
+
+    private static final CacheEntryKey ENTRY = new CacheEntryKey("things", "k");
+
+    @Mock
+    private CacheKeyResolver keyResolver;
+
+    @Mock
+    private RedisLease redisLease;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+
+    @Mock
+    private MethodSignature signature;
+
+    private ConcurrentMapCache cache;
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlightAspect aspect;
+    private Cacheable cacheable;
+
+    static class Things {
+
+        @Cacheable(value = "things", key = "#id", unless = "#result == null")
+        public String find(String id) {
+            return id;
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        cache = spy(new ConcurrentMapCache("things"));
+        when(cacheManager.getCache("things")).thenReturn(cache);
+        cacheable = Things.class.getMethod("find", String.class).getAnnotation(Cacheable.class);
+        when(keyResolver.resolve(joinPoint, cacheable)).thenReturn(ENTRY);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getReturnType()).thenReturn((Class) String.class);
+
+        SingleFlightProperties properties = new SingleFlightProperties();
+        properties.setLeaseWait(Duration.ofSeconds(2));
+        properties.setPollInterval(Duration.ofMillis(5));
+        meterRegistry = new SimpleMeterRegistry();
+        aspect = new SingleFlightAspect(keyResolver, redisLease, cacheManager, properties, meterRegistry);
+    }
+
+    @Test
+    void testHitIsServedFromSingleRead() throws Throwable {
+        cache.put("k", "cached");
+        clearInvocations(cache);
+
+        assertEquals("cached", aspect.coalesce(joinPoint, cacheable));
+
+        verify(cache, times(1)).get("k");
+        verify(joinPoint, never()).proceed();
+        verify(redisLease, never()).tryAcquire(anyString(), any());
+    }
+
+    @Test
+    void testHitOfOptionalMethodIsWrapped() throws Throwable {
+        when(signature.getReturnType()).thenReturn((Class) Optional.class);
+        cache.put("k", "cached");
+
+        assertEquals(Optional.of("cached"), aspect.coalesce(joinPoint, cacheable));
+    }
+
+    @Test
+    void testMissLoadsUnderLease() throws Throwable {
+        when(redisLease.tryAcquire(eq(ENTRY.id()), any())).thenReturn("token");
+        when(joinPoint.proceed()).thenReturn("loaded");
+
+        assertEquals("loaded", aspect.coalesce(joinPoint, cacheable));
+
+        verify(redisLease).release(ENTRY.id(), "token");
+        verify(redisLease, never()).isHeld(anyString());
+    }
+
+    @Test
+    void testVetoedResultEndsWaitWhenLeaseIsReleased() throws Throwable {
+        // Another node holds the lease and its result is vetoed by unless, so the cache stays empty
+        when(redisLease.tryAcquire(eq(ENTRY.id()), any())).thenReturn(null);
+        when(redisLease.isHeld(ENTRY.id())).thenReturn(true, true, false);
+        when(joinPoint.proceed()).thenReturn(null);
+
+        long start = System.nanoTime();
+        assertNull(aspect.coalesce(joinPoint, cacheable));
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertTrue(elapsedMillis < 1000, "waited " + elapsedMillis + "ms for a result that is never cached");
+        verify(redisLease, times(3)).isHeld(ENTRY.id());
+        verify(joinPoint, times(1)).proceed();
+        assertEquals(1.0, meterRegistry.get("single.flight.lease.waits")
+                .tags("cache", "things", "result", "released").counter().count());
+    }
+
+    @Test
+    void testWaitTimesOutWhileLeaseIsHeld() throws Throwable {
+        SingleFlightProperties properties = new SingleFlightProperties();
+        properties.setLeaseWait(Duration.ofMillis(30));
+        properties.setPollInterval(Duration.ofMillis(5));
+        aspect = new SingleFlightAspect(keyResolver, redisLease, cacheManager, properties, meterRegistry);
+        when(redisLease.tryAcquire(eq(ENTRY.id()), any())).thenReturn(null);
+        when(redisLease.isHeld(ENTRY.id())).thenReturn(true);
+        when(joinPoint.proceed()).thenReturn("loaded");
+
+        assertEquals("loaded", aspect.coalesce(joinPoint, cacheable));
+
+        assertEquals(1.0, meterRegistry.get("single.flight.lease.waits")
+                .tags("cache", "things", "result", "timeout").counter().count());
+    }
+}
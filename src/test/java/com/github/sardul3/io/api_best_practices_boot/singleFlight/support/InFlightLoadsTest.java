@@ -0,0 +1,70 @@
+package com.github.sardul3.io.api_best_practices_boot.singleFlight.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InFlightLoadsTest {
+
+    private final InFlightLoads inFlightLoads = new InFlightLoads();
+
+    @Test
+    void testConcurrentCallersShareOneLoad() throws Exception {
+        int callers = 8;
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        AtomicInteger coalesced = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    try {
+                        return inFlightLoads.load("page-1", () -> {
+                            loads.incrementAndGet();
+                            release.await();
+                            return "result";
+                        }, wasCoalesced -> {
+                            if (wasCoalesced) {
+                                coalesced.incrementAndGet();
+                            }
+                        });
+                    } catch (Throwable t) {
+                        throw new IllegalStateException(t);
+                    }
+                }));
+            }
+            // Let every caller arrive while the first load is still running
+            while (coalesced.get() < callers - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<Object> result : results) {
+                assertEquals("result", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+            assertEquals(0, inFlightLoads.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailureIsSharedAndNextCallLoadsAgain() throws Throwable {
+        IllegalStateException failure = new IllegalStateException("database down");
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> inFlightLoads.load("page-1", () -> {
+                    throw failure;
+                }, coalesced -> { }));
+
+        assertSame(failure, thrown);
+        assertEquals("reloaded", inFlightLoads.load("page-1", () -> "reloaded", coalesced -> { }));
+    }
+}
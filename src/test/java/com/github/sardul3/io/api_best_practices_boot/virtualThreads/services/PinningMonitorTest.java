@@ -0,0 +1,105 @@
+package com.github.sardul3.io.api_best_practices_boot.virtualThreads.services;
+
+import com.github.sardul3.io.api_best_practices_boot.virtualThreads.config.PinningMonitorProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedStackTrace;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PinningMonitorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PinningMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        PinningMonitorProperties properties = new PinningMonitorProperties();
+        properties.setStackDepth(2);
+        properties.setMaxStacks(2);
+        meterRegistry = new SimpleMeterRegistry();
+        monitor = new PinningMonitor(properties, mock(Environment.class), meterRegistry);
+    }
+
+    @Test
+    void testPinsAtTheSameStackAreCountedTogether() {
+        monitor.onPinned(event(30, "Ledger.post:42", "LedgerService.transfer:10"));
+        // Differs only below the recorded depth
+        monitor.onPinned(event(80, "Ledger.post:42", "LedgerService.transfer:10", "Controller.post:5"));
+
+        PinningMonitor.PinningReport report = monitor.report();
+        assertFalse(report.active());
+        assertEquals(2, report.pinned());
+        assertEquals(0, report.untracked());
+        assertEquals(List.of(new PinningMonitor.PinnedStackReport(2, 80,
+                List.of("Ledger.post:42", "LedgerService.transfer:10"))), report.stacks());
+        assertEquals(2.0, meterRegistry.get("jvm.threads.virtual.pinned").counter().count());
+        assertEquals(2, meterRegistry.get("jvm.threads.virtual.pinned.duration").timer().count());
+        assertEquals(80, meterRegistry.get("jvm.threads.virtual.pinned.duration").timer().max(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testStacksBeyondTheMaximumAreOnlyCounted() {
+        monitor.onPinned(event(30, "A.a:1"));
+        monitor.onPinned(event(30, "B.b:1"));
+        monitor.onPinned(event(30, "B.b:1"));
+        monitor.onPinned(event(30, "C.c:1"));
+        // Stacks already tracked keep being counted
+        monitor.onPinned(event(30, "A.a:1"));
+
+        PinningMonitor.PinningReport report = monitor.report();
+        assertEquals(5, report.pinned());
+        assertEquals(1, report.untracked());
+        assertEquals(List.of("A.a:1", "B.b:1"),
+                report.stacks().stream().map(stack -> stack.frames().getFirst()).sorted().toList());
+        assertEquals(List.of(2L, 2L), report.stacks().stream().map(PinningMonitor.PinnedStackReport::count).toList());
+        assertEquals(5.0, meterRegistry.get("jvm.threads.virtual.pinned").counter().count());
+    }
+
+    @Test
+    void testEventWithoutStackTraceIsRecorded() {
+        RecordedEvent event = mock(RecordedEvent.class);
+        when(event.getDuration()).thenReturn(Duration.ofMillis(25));
+
+        monitor.onPinned(event);
+
+        assertEquals(List.of("(no stack trace)"), monitor.report().stacks().getFirst().frames());
+    }
+
+    // Frames are given as Type.method:line, the innermost first
+    private static RecordedEvent event(long millis, String... frames) {
+        List<RecordedFrame> recordedFrames = Arrays.stream(frames).map(PinningMonitorTest::frame).toList();
+        RecordedStackTrace stackTrace = mock(RecordedStackTrace.class);
+        when(stackTrace.getFrames()).thenReturn(recordedFrames);
+        RecordedEvent event = mock(RecordedEvent.class);
+        when(event.getDuration()).thenReturn(Duration.ofMillis(millis));
+        when(event.getStackTrace()).thenReturn(stackTrace);
+        return event;
+    }
+
+    private static RecordedFrame frame(String frame) {
+        String[] typeAndRest = frame.split("\\.", 2);
+        String[] methodAndLine = typeAndRest[1].split(":");
+        RecordedClass type = mock(RecordedClass.class);
+        when(type.getName()).thenReturn(typeAndRest[0]);
+        RecordedMethod method = mock(RecordedMethod.class);
+        when(method.getType()).thenReturn(type);
+        when(method.getName()).thenReturn(methodAndLine[0]);
+        RecordedFrame recordedFrame = mock(RecordedFrame.class);
+        when(recordedFrame.getMethod()).thenReturn(method);
+        when(recordedFrame.getLineNumber()).thenReturn(Integer.parseInt(methodAndLine[1]));
+        return recordedFrame;
+    }
+}